@@ -0,0 +1,28 @@
+package com.fruitstore.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * JPA/Hibernate configuration for FruitStore
+ * Enables JDBC batching so multi-row writes (e.g. checkout) go out in few round-trips,
+ * and rejects queries that would page a collection fetch in memory (HHH90003004)
+ *
+ * @author FruitStore Team
+ */
+@Configuration
+public class JpaConfig implements HibernatePropertiesCustomizer {
+
+    static final int JDBC_BATCH_SIZE = 50;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.putIfAbsent("hibernate.jdbc.batch_size", JDBC_BATCH_SIZE);
+        hibernateProperties.putIfAbsent("hibernate.order_inserts", true);
+        hibernateProperties.putIfAbsent("hibernate.order_updates", true);
+        hibernateProperties.putIfAbsent("hibernate.jdbc.batch_versioned_data", true);
+        hibernateProperties.putIfAbsent("hibernate.query.fail_on_pagination_over_collection_fetch", true);
+    }
+}
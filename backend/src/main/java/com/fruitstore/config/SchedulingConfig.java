@@ -0,0 +1,15 @@
+package com.fruitstore.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling configuration for FruitStore
+ * Enables background jobs such as releasing expired stock reservations
+ *
+ * @author FruitStore Team
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,29 @@
+package com.fruitstore.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC configuration for FruitStore
+ * Sets the timeout of async requests; the only async endpoints are the streamed admin exports
+ * (StreamingResponseBody), which must not be cut off by the container's default of about 30 s
+ * while they write millions of rows. A value of -1 or 0 means no timeout.
+ *
+ * @author FruitStore Team
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final long asyncRequestTimeoutMillis;
+
+    public WebMvcConfig(@Value("${app.export.async-timeout-ms:-1}") long asyncRequestTimeoutMillis) {
+        this.asyncRequestTimeoutMillis = asyncRequestTimeoutMillis;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeoutMillis);
+    }
+}
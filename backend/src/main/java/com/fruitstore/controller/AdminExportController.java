@@ -0,0 +1,120 @@
+package com.fruitstore.controller;
+
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.service.ExportService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST Controller for admin sales exports
+ * Streams orders, order items and discount usages as CSV or NDJSON downloads
+ */
+@RestController
+@RequestMapping("/api/admin/export")
+@CrossOrigin(origins = "${app.cors.allowed-origins}")
+public class AdminExportController {
+
+    private final ExportService exportService;
+
+    @Autowired
+    public AdminExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Export a dataset (admin)
+     * Requires ADMIN role
+     * Rows are written while they are read from the database, so exports of any size use the same memory
+     *
+     * @param dataset orders, order-items or discount-usages
+     * @param format csv or ndjson
+     * @param gzip true to gzip the download
+     * @param userId the user ID filter (optional)
+     * @param status the order status filter (optional)
+     * @param minAmount the minimum total amount filter (optional)
+     * @param maxAmount the maximum total amount filter (optional)
+     * @param customerName the customer name filter (optional)
+     * @param customerEmail the customer email filter (optional)
+     * @param startDate the start date filter (optional)
+     * @param endDate the end date filter (optional)
+     * @return the streamed file
+     */
+    @GetMapping("/{dataset}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String dataset,
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String customerName,
+            @RequestParam(required = false) String customerEmail,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+
+        ExportService.Dataset exportDataset = ExportService.Dataset.fromPath(dataset);
+        ExportService.Format exportFormat = parseFormat(format);
+        OrderStatus orderStatus = null;
+        if (status != null && !status.isEmpty()) {
+            orderStatus = OrderStatus.valueOf(status.toUpperCase());
+        }
+        LocalDateTime startDateTime = parseDateTime(startDate);
+        LocalDateTime endDateTime = parseDateTime(endDate);
+
+        OrderStatus statusFilter = orderStatus;
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                exportService.export(exportDataset, exportFormat, userId, statusFilter, minAmount, maxAmount,
+                        customerName, customerEmail, startDateTime, endDateTime, gzipOut);
+                gzipOut.finish();
+            } else {
+                exportService.export(exportDataset, exportFormat, userId, statusFilter, minAmount, maxAmount,
+                        customerName, customerEmail, startDateTime, endDateTime, out);
+            }
+        };
+
+        String filename = "fruitstore-" + exportDataset.getPath() + "-" + LocalDate.now() + "."
+                + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    private ExportService.Format parseFormat(String format) {
+        try {
+            return ExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format: " + format);
+        }
+    }
+
+    private LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+}
@@ -1,23 +1,39 @@
 package com.fruitstore.controller;
 
 import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.dto.request.order.BulkUpdateOrderStatusRequest;
 import com.fruitstore.dto.request.order.UpdateOrderStatusRequest;
 import com.fruitstore.dto.response.common.ApiResponse;
+import com.fruitstore.dto.response.common.CursorPageResponse;
+import com.fruitstore.dto.response.order.BulkOrderStatusResponse;
 import com.fruitstore.dto.response.order.OrderListResponse;
 import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.dto.response.order.OrderRollupResponse;
+import com.fruitstore.dto.response.order.OrderSummaryResponse;
+import com.fruitstore.service.AsyncCheckoutService;
+import com.fruitstore.service.LockRetryService;
+import com.fruitstore.service.OptimisticLockRetryInterceptor;
+import com.fruitstore.service.OrderArchiveService;
+import com.fruitstore.service.OrderBulkStatusService;
+import com.fruitstore.service.OrderOutboxRelay;
+import com.fruitstore.service.OrderRollupService;
 import com.fruitstore.service.OrderService;
+import com.fruitstore.service.OrderStatsService;
+import com.fruitstore.util.ETagUtil;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * REST Controller for admin order management
@@ -29,10 +45,33 @@ import java.time.LocalDateTime;
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final AsyncCheckoutService asyncCheckoutService;
+    private final LockRetryService lockRetryService;
+    private final OptimisticLockRetryInterceptor optimisticLockRetryInterceptor;
+    private final OrderBulkStatusService orderBulkStatusService;
+    private final OrderOutboxRelay orderOutboxRelay;
+    private final OrderArchiveService orderArchiveService;
+    private final OrderStatsService orderStatsService;
+    private final OrderRollupService orderRollupService;
 
     @Autowired
-    public AdminOrderController(OrderService orderService) {
+    public AdminOrderController(OrderService orderService, AsyncCheckoutService asyncCheckoutService,
+                                LockRetryService lockRetryService,
+                                OptimisticLockRetryInterceptor optimisticLockRetryInterceptor,
+                                OrderBulkStatusService orderBulkStatusService,
+                                OrderOutboxRelay orderOutboxRelay,
+                                OrderArchiveService orderArchiveService,
+                                OrderStatsService orderStatsService,
+                                OrderRollupService orderRollupService) {
         this.orderService = orderService;
+        this.asyncCheckoutService = asyncCheckoutService;
+        this.lockRetryService = lockRetryService;
+        this.optimisticLockRetryInterceptor = optimisticLockRetryInterceptor;
+        this.orderBulkStatusService = orderBulkStatusService;
+        this.orderOutboxRelay = orderOutboxRelay;
+        this.orderArchiveService = orderArchiveService;
+        this.orderStatsService = orderStatsService;
+        this.orderRollupService = orderRollupService;
     }
 
     /**
@@ -58,6 +97,24 @@ public class AdminOrderController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * Get all orders one slice at a time, newest first (admin)
+     * Requires ADMIN role
+     * 
+     * @param cursor nextCursor of the previous slice (omit for the first slice)
+     * @param size slice size (1-100)
+     * @return slice of all orders
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderSummaryResponse>>> getAllOrdersSlice(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+
+        CursorPageResponse<OrderSummaryResponse> response = orderService.getAllOrdersSlice(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     /**
      * Get order by ID (admin)
      * Requires ADMIN role
@@ -92,17 +149,43 @@ public class AdminOrderController {
      *
      * @param id the order ID
      * @param request the status update request
-     * @return updated order response
+     * @param ifMatch optional ETag of the version being edited; a stale one is answered with 409
+     * @return updated order response with its new ETag
      */
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<OrderResponse>> updateOrderStatus(
             @PathVariable("id") Long id,
-            @Valid @RequestBody UpdateOrderStatusRequest request) {
+            @Valid @RequestBody UpdateOrderStatusRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+        try {
+            OrderResponse response = orderService.updateOrderStatus(id, request, ETagUtil.parseIfMatch(ifMatch));
+            return ResponseEntity.ok()
+                .eTag(ETagUtil.toETag(response.getVersion()))
+                .body(ApiResponse.success("Order status updated successfully", response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Move many orders to one status (admin)
+     * Requires ADMIN role
+     * Orders are chosen by ID or by filter; each gets an outcome (updated, invalid transition, not found)
+     * 
+     * @param request the order IDs or filter, and the target status
+     * @return totals and per-order outcomes
+     */
+    @PostMapping("/status/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkOrderStatusResponse>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkUpdateOrderStatusRequest request) {
 
         try {
-            OrderResponse response = orderService.updateOrderStatus(id, request);
-            return ResponseEntity.ok(ApiResponse.success("Order status updated successfully", response));
+            BulkOrderStatusResponse response = orderBulkStatusService.updateStatus(request);
+            return ResponseEntity.ok(ApiResponse.success("Order statuses updated", response));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -259,6 +342,180 @@ public class AdminOrderController {
         return ResponseEntity.ok(ApiResponse.success(statistics));
     }
 
+    /**
+     * Recompute the order_stats counter table from the orders table (admin)
+     * Requires ADMIN role
+     * 
+     * @return order statistics after the rebuild
+     */
+    @PostMapping("/statistics/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderService.OrderStatistics>> rebuildOrderStatistics() {
+        if (!orderStatsService.isCountersEnabled()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Order stats counters are disabled"));
+        }
+        orderStatsService.rebuildCounters();
+        return ResponseEntity.ok(ApiResponse.success(orderService.getOrderStatistics()));
+    }
+
+    /**
+     * Get hourly order counts and revenue from the rollup table (admin)
+     * Requires ADMIN role
+     * 
+     * @param from start of the range in epoch milliseconds (inclusive)
+     * @param to end of the range in epoch milliseconds (exclusive)
+     * @param categoryId the category (optional; store-wide totals if absent)
+     * @return one entry per hour that had orders
+     */
+    @GetMapping("/rollups/hourly")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<OrderRollupResponse>>> getHourlyRollups(
+            @RequestParam("from") long from,
+            @RequestParam("to") long to,
+            @RequestParam(required = false) Long categoryId) {
+
+        try {
+            return ResponseEntity.ok(ApiResponse.success(orderRollupService.getHourlyRollups(from, to, categoryId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get daily order counts and revenue from the rollup table (admin)
+     * Requires ADMIN role
+     * 
+     * @param from start of the range in epoch milliseconds (inclusive)
+     * @param to end of the range in epoch milliseconds (exclusive)
+     * @param categoryId the category (optional; store-wide totals if absent)
+     * @return one entry per day that had orders
+     */
+    @GetMapping("/rollups/daily")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<OrderRollupResponse>>> getDailyRollups(
+            @RequestParam("from") long from,
+            @RequestParam("to") long to,
+            @RequestParam(required = false) Long categoryId) {
+
+        try {
+            return ResponseEntity.ok(ApiResponse.success(orderRollupService.getDailyRollups(from, to, categoryId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Recompute the hourly and daily rollups of every day overlapping a time range (admin)
+     * Requires ADMIN role
+     * 
+     * @param from start of the range in epoch milliseconds (inclusive)
+     * @param to end of the range in epoch milliseconds (exclusive)
+     * @return rollup statistics after the backfill
+     */
+    @PostMapping("/rollups/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderRollupService.RollupStatistics>> backfillRollups(
+            @RequestParam("from") long from,
+            @RequestParam("to") long to) {
+
+        try {
+            int days = orderRollupService.backfill(from, to);
+            return ResponseEntity.ok(ApiResponse.success("Rebuilt rollups of " + days + " days",
+                    orderRollupService.getStatistics()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get rollup table sizes and rebuild metrics (admin)
+     * Requires ADMIN role
+     * 
+     * @return rollup statistics
+     */
+    @GetMapping("/rollups/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderRollupService.RollupStatistics>> getRollupStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(orderRollupService.getStatistics()));
+    }
+
+    /**
+     * Get asynchronous checkout queue metrics (admin)
+     * Requires ADMIN role
+     * 
+     * @return queue depth, throughput and batching statistics
+     */
+    @GetMapping("/checkout-queue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<AsyncCheckoutService.CheckoutQueueStatistics>> getCheckoutQueueStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(asyncCheckoutService.getStatistics()));
+    }
+
+    /**
+     * Get checkout lock retry metrics: deadlocks, lock wait timeouts and retries (admin)
+     * Requires ADMIN role
+     * 
+     * @return lock retry statistics
+     */
+    @GetMapping("/lock-retries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<LockRetryService.LockRetryStatistics>> getLockRetryStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(lockRetryService.getStatistics()));
+    }
+
+    /**
+     * Get optimistic locking metrics: version conflicts per entity type and retries (admin)
+     * Requires ADMIN role
+     * 
+     * @return optimistic retry statistics
+     */
+    @GetMapping("/version-conflicts")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OptimisticLockRetryInterceptor.OptimisticRetryStatistics>> getVersionConflictStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(optimisticLockRetryInterceptor.getStatistics()));
+    }
+
+    /**
+     * Get order outbox relay metrics (admin)
+     * Requires ADMIN role
+     * 
+     * @return outbox relay throughput, lag and backlog
+     */
+    @GetMapping("/outbox/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderOutboxRelay.OutboxRelayStatistics>> getOutboxStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(orderOutboxRelay.getStatistics()));
+    }
+
+    /**
+     * Get hot and archive table sizes and archival throughput (admin)
+     * Requires ADMIN role
+     * 
+     * @return order archive statistics
+     */
+    @GetMapping("/archive/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderArchiveService.OrderArchiveStatistics>> getArchiveStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(orderArchiveService.getStatistics()));
+    }
+
+    /**
+     * Archive old delivered and cancelled orders now instead of waiting for the schedule (admin)
+     * Requires ADMIN role
+     * 
+     * @return order archive statistics after the run
+     */
+    @PostMapping("/archive/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderArchiveService.OrderArchiveStatistics>> runArchive() {
+        int archived = orderArchiveService.archiveOldOrders();
+        return ResponseEntity.ok(ApiResponse.success("Archived " + archived + " orders",
+                orderArchiveService.getStatistics()));
+    }
+
     /**
      * Get order count by status (admin)
      * Requires ADMIN role
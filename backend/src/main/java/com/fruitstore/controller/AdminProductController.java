@@ -0,0 +1,246 @@
+package com.fruitstore.controller;
+
+import com.fruitstore.dto.response.common.ApiResponse;
+import com.fruitstore.service.CatalogCacheService;
+import com.fruitstore.service.FlashSaleStockService;
+import com.fruitstore.service.ProductSearchService;
+import com.fruitstore.service.ShardedStockService;
+import com.fruitstore.service.StockDecrementCombiner;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for admin product stock management
+ * Handles stock write-path switches for hot, sharded and flash-sale products
+ */
+@RestController
+@RequestMapping("/api/admin/products")
+@CrossOrigin(origins = "${app.cors.allowed-origins}")
+public class AdminProductController {
+
+    private final StockDecrementCombiner stockDecrementCombiner;
+    private final FlashSaleStockService flashSaleStockService;
+    private final ShardedStockService shardedStockService;
+    private final CatalogCacheService catalogCacheService;
+    private final ProductSearchService productSearchService;
+
+    @Autowired
+    public AdminProductController(StockDecrementCombiner stockDecrementCombiner,
+                                  FlashSaleStockService flashSaleStockService,
+                                  ShardedStockService shardedStockService,
+                                  CatalogCacheService catalogCacheService,
+                                  ProductSearchService productSearchService) {
+        this.stockDecrementCombiner = stockDecrementCombiner;
+        this.flashSaleStockService = flashSaleStockService;
+        this.shardedStockService = shardedStockService;
+        this.catalogCacheService = catalogCacheService;
+        this.productSearchService = productSearchService;
+    }
+
+    /**
+     * Get catalog cache metrics (admin)
+     * Requires ADMIN role
+     *
+     * @return size, hit, miss and eviction counts of each catalog cache
+     */
+    @GetMapping("/catalog-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<CatalogCacheService.CacheStatistics>>> getCatalogCache() {
+        return ResponseEntity.ok(ApiResponse.success(catalogCacheService.getStatistics()));
+    }
+
+    /**
+     * Get product search index metrics (admin)
+     * Requires ADMIN role
+     *
+     * @return search index statistics
+     */
+    @GetMapping("/search-index")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ProductSearchService.SearchIndexStatistics>> getSearchIndex() {
+        return ResponseEntity.ok(ApiResponse.success(productSearchService.getStatistics()));
+    }
+
+    /**
+     * Rebuild the product search index from the database (admin)
+     * Requires ADMIN role
+     *
+     * @return search index statistics
+     */
+    @PostMapping("/search-index/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ProductSearchService.SearchIndexStatistics>> rebuildSearchIndex() {
+        productSearchService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("Search index rebuilt successfully",
+                productSearchService.getStatistics()));
+    }
+
+    /**
+     * Get stock decrement combining state and metrics (admin)
+     * Requires ADMIN role
+     *
+     * @return combiner statistics
+     */
+    @GetMapping("/stock-combining")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<StockDecrementCombiner.CombinerStatistics>> getStockCombining() {
+        return ResponseEntity.ok(ApiResponse.success(stockDecrementCombiner.getStatistics()));
+    }
+
+    /**
+     * Switch stock decrement combining for all products (admin)
+     * Requires ADMIN role
+     *
+     * @param enabled true to combine decrements of every product
+     * @return combiner statistics
+     */
+    @PutMapping("/stock-combining")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<StockDecrementCombiner.CombinerStatistics>> setStockCombining(
+            @RequestParam("enabled") boolean enabled) {
+        stockDecrementCombiner.setGloballyEnabled(enabled);
+        return ResponseEntity.ok(ApiResponse.success("Stock combining updated successfully",
+                stockDecrementCombiner.getStatistics()));
+    }
+
+    /**
+     * Switch stock decrement combining for one product (admin)
+     * Requires ADMIN role
+     *
+     * @param id the product ID
+     * @param enabled true to combine decrements of this product
+     * @return combiner statistics
+     */
+    @PutMapping("/{id}/stock-combining")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<StockDecrementCombiner.CombinerStatistics>> setProductStockCombining(
+            @PathVariable("id") Long id,
+            @RequestParam("enabled") boolean enabled) {
+        stockDecrementCombiner.setEnabled(id, enabled);
+        return ResponseEntity.ok(ApiResponse.success("Stock combining updated successfully",
+                stockDecrementCombiner.getStatistics()));
+    }
+
+    /**
+     * Get products in flash-sale mode with their in-memory stock (admin)
+     * Requires ADMIN role
+     *
+     * @return flash-sale state per product
+     */
+    @GetMapping("/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<FlashSaleStockService.FlashSaleStatus>>> getFlashSales() {
+        return ResponseEntity.ok(ApiResponse.success(flashSaleStockService.getStatuses()));
+    }
+
+    /**
+     * Get flash-sale metrics (admin)
+     * Requires ADMIN role
+     *
+     * @return flash-sale statistics
+     */
+    @GetMapping("/flash-sale/statistics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<FlashSaleStockService.FlashSaleStatistics>> getFlashSaleStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(flashSaleStockService.getStatistics()));
+    }
+
+    /**
+     * Put a product in flash-sale mode (admin)
+     * Requires ADMIN role
+     *
+     * @param id the product ID
+     * @return flash-sale state of the product
+     */
+    @PutMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<FlashSaleStockService.FlashSaleStatus>> enableFlashSale(@PathVariable("id") Long id) {
+        FlashSaleStockService.FlashSaleStatus status = flashSaleStockService.enable(id);
+        return ResponseEntity.ok(ApiResponse.success("Flash sale enabled successfully", status));
+    }
+
+    /**
+     * Take a product out of flash-sale mode, draining its stock back to the database (admin)
+     * Requires ADMIN role
+     *
+     * @param id the product ID
+     * @return final flash-sale state of the product
+     */
+    @DeleteMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<FlashSaleStockService.FlashSaleStatus>> disableFlashSale(@PathVariable("id") Long id) {
+        FlashSaleStockService.FlashSaleStatus status = flashSaleStockService.disable(id);
+        return ResponseEntity.ok(ApiResponse.success("Flash sale disabled successfully", status));
+    }
+
+    /**
+     * Write flash-sale stock to the database now instead of waiting for the flusher (admin)
+     * Requires ADMIN role
+     *
+     * @return number of products written
+     */
+    @PostMapping("/flash-sale/flush")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> flushFlashSales() {
+        return ResponseEntity.ok(ApiResponse.success("Flash-sale stock flushed successfully", flashSaleStockService.flush()));
+    }
+
+    /**
+     * Get products with sharded stock and their cached shard quantities (admin)
+     * Requires ADMIN role
+     *
+     * @return sharded stock state per product
+     */
+    @GetMapping("/stock-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<ShardedStockService.ShardedStockStatus>>> getStockShards() {
+        return ResponseEntity.ok(ApiResponse.success(shardedStockService.getStatuses()));
+    }
+
+    /**
+     * Get sharded stock metrics (admin)
+     * Requires ADMIN role
+     *
+     * @return sharded stock statistics
+     */
+    @GetMapping("/stock-shards/statistics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ShardedStockService.ShardedStockStatistics>> getStockShardStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(shardedStockService.getStatistics()));
+    }
+
+    /**
+     * Split a product's stock across shard rows, or re-split it (admin)
+     * Requires ADMIN role
+     *
+     * @param id the product ID
+     * @param count number of shards
+     * @return sharded stock state of the product
+     */
+    @PutMapping("/{id}/stock-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ShardedStockService.ShardedStockStatus>> shardStock(
+            @PathVariable("id") Long id,
+            @RequestParam("count") int count) {
+        ShardedStockService.ShardedStockStatus status = shardedStockService.enable(id, count);
+        return ResponseEntity.ok(ApiResponse.success("Stock sharded successfully", status));
+    }
+
+    /**
+     * Collapse a product's stock shards back into the product row (admin)
+     * Requires ADMIN role
+     *
+     * @param id the product ID
+     * @return final stock of the product
+     */
+    @DeleteMapping("/{id}/stock-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> collapseStockShards(@PathVariable("id") Long id) {
+        return ResponseEntity.ok(ApiResponse.success("Stock shards collapsed successfully", shardedStockService.disable(id)));
+    }
+}
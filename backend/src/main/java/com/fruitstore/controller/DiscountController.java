@@ -9,12 +9,14 @@ import com.fruitstore.dto.response.discount.DiscountUsageResponse;
 import com.fruitstore.dto.response.common.ApiResponse;
 import com.fruitstore.service.DiscountService;
 import com.fruitstore.service.DiscountService.DiscountUsageStats;
+import com.fruitstore.util.ETagUtil;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -168,16 +170,20 @@ public class DiscountController {
      * 
      * @param id the discount ID
      * @param request the update discount request
-     * @return updated discount response
+     * @param ifMatch optional ETag of the version being edited; a stale one is answered with 409
+     * @return updated discount response with its new ETag
      */
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<DiscountResponse>> updateDiscount(
             @PathVariable("id") Long id,
-            @Valid @RequestBody UpdateDiscountRequest request) {
+            @Valid @RequestBody UpdateDiscountRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         
-        DiscountResponse discount = discountService.updateDiscount(id, request);
-        return ResponseEntity.ok(ApiResponse.success(discount));
+        DiscountResponse discount = discountService.updateDiscount(id, request, ETagUtil.parseIfMatch(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ETagUtil.toETag(discount.getVersion()))
+                .body(ApiResponse.success(discount));
     }
 
     /**
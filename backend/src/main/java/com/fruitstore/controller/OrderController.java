@@ -2,9 +2,15 @@ package com.fruitstore.controller;
 
 import com.fruitstore.dto.request.order.CreateOrderRequest;
 import com.fruitstore.dto.response.common.ApiResponse;
+import com.fruitstore.dto.response.common.CursorPageResponse;
+import com.fruitstore.dto.response.order.CheckoutTicketResponse;
 import com.fruitstore.dto.response.order.OrderListResponse;
 import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.dto.response.order.OrderSummaryResponse;
 import com.fruitstore.security.CustomUserDetails;
+import com.fruitstore.service.AsyncCheckoutService;
+import com.fruitstore.service.LockRetryService;
+import com.fruitstore.service.OrderIdempotencyService;
 import com.fruitstore.service.OrderService;
 
 import jakarta.validation.Valid;
@@ -18,6 +24,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+
 /**
  * REST Controller for customer order operations
  * Handles order creation, retrieval, and cancellation for authenticated users
@@ -28,17 +36,27 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final AsyncCheckoutService asyncCheckoutService;
+    private final LockRetryService lockRetryService;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderIdempotencyService orderIdempotencyService,
+                           AsyncCheckoutService asyncCheckoutService, LockRetryService lockRetryService) {
         this.orderService = orderService;
+        this.orderIdempotencyService = orderIdempotencyService;
+        this.asyncCheckoutService = asyncCheckoutService;
+        this.lockRetryService = lockRetryService;
     }
 
     /**
      * Create a new order from cart
      * Requires authentication
-     * 
+     * Retries carrying the same Idempotency-Key return the first order instead of creating another;
+     * a checkout that loses a row lock (deadlock victim or lock wait timeout) is retried server-side
+     *
      * @param userDetails authenticated user details
+     * @param idempotencyKey optional client generated key identifying this checkout attempt
      * @param request order creation request
      * @return created order response
      */
@@ -46,14 +64,62 @@ public class OrderController {
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(
             @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody CreateOrderRequest request) {
-        
-        OrderResponse response = orderService.createOrder(userDetails.getUserId(), request);
+
+        Long userId = userDetails.getUserId();
+        // Retry outside the idempotency transaction; a failed attempt releases the key for the next one
+        OrderResponse response = idempotencyKey == null
+                ? lockRetryService.execute(() -> orderService.createOrder(userId, request))
+                : lockRetryService.execute(() -> orderIdempotencyService.execute(userId, idempotencyKey,
+                        () -> orderService.createOrder(userId, request)));
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Order created successfully", response));
     }
 
+    /**
+     * Queue a new order from cart for asynchronous checkout
+     * Selected when the client sends "Prefer: respond-async"; poll the returned ticket for the result
+     * Requires authentication
+     *
+     * @param userDetails authenticated user details
+     * @param idempotencyKey optional client generated key identifying this checkout attempt
+     * @param request order creation request
+     * @return 202 Accepted with the checkout ticket
+     */
+    @PostMapping(headers = "Prefer=respond-async")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<ApiResponse<CheckoutTicketResponse>> createOrderAsync(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody CreateOrderRequest request) {
+
+        CheckoutTicketResponse ticket = asyncCheckoutService.submit(userDetails.getUserId(), request, idempotencyKey);
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/orders/tickets/" + ticket.getTicketId()))
+                .body(ApiResponse.success("Order accepted for processing", ticket));
+    }
+
+    /**
+     * Get the status of an asynchronous checkout ticket
+     * Requires authentication
+     *
+     * @param userDetails authenticated user details
+     * @param ticketId the ticket ID
+     * @return checkout ticket with the order once completed
+     */
+    @GetMapping("/tickets/{ticketId}")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<ApiResponse<CheckoutTicketResponse>> getCheckoutTicket(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable String ticketId) {
+
+        CheckoutTicketResponse ticket = asyncCheckoutService.getTicket(ticketId, userDetails.getUserId());
+        return ResponseEntity.ok(ApiResponse.success(ticket));
+    }
+
     /**
      * Get orders for the authenticated user with pagination
      * Requires authentication
@@ -79,6 +145,27 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * Get orders for the authenticated user one slice at a time, newest first
+     * Requires authentication
+     * 
+     * @param userDetails authenticated user details
+     * @param cursor nextCursor of the previous slice (omit for the first slice)
+     * @param size slice size (1-100)
+     * @return slice of user orders
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderSummaryResponse>>> getOrdersByUserSlice(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+
+        CursorPageResponse<OrderSummaryResponse> response =
+                orderService.getOrdersByUserSlice(userDetails.getUserId(), cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     /**
      * Get order by ID for the authenticated user
      * Requires authentication
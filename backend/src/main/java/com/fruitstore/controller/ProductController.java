@@ -6,13 +6,16 @@ import com.fruitstore.dto.request.product.UpdateProductRequest;
 import com.fruitstore.dto.response.product.ProductListResponse;
 import com.fruitstore.dto.response.product.ProductResponse;
 import com.fruitstore.dto.response.common.ApiResponse;
+import com.fruitstore.dto.response.common.CursorPageResponse;
 import com.fruitstore.service.ProductService;
+import com.fruitstore.util.ETagUtil;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -111,6 +114,7 @@ public class ProductController {
     /**
      * Search products with filters
      * Public endpoint - no authentication required
+     * Pass facets=true for category counts, a price histogram (priceBucketSize wide) and the in-stock count
      * 
      * @param filterRequest filter criteria
      * @return filtered product list response
@@ -123,6 +127,45 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    /**
+     * Get active products one slice at a time
+     * Public endpoint - no authentication required
+     * 
+     * @param cursor nextCursor of the previous slice (omit for the first slice)
+     * @param size slice size (1-100)
+     * @param sortBy sort field (name, price, createdAt)
+     * @param sortDirection sort direction (asc, desc)
+     * @return slice of products
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductResponse>>> getAllProductsSlice(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "sortBy", defaultValue = "name") String sortBy,
+            @RequestParam(value = "sortDirection", defaultValue = "asc") String sortDirection) {
+
+        ProductFilterRequest filterRequest = new ProductFilterRequest(null, null, null, null, 0, size, sortBy, sortDirection);
+        CursorPageResponse<ProductResponse> products = productService.searchProductsSlice(filterRequest, cursor);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    /**
+     * Search products with filters one slice at a time
+     * Public endpoint - no authentication required
+     * 
+     * @param filterRequest filter criteria, slice size and sort (page is ignored)
+     * @param cursor nextCursor of the previous slice (omit for the first slice)
+     * @return slice of matching products
+     */
+    @GetMapping("/search/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductResponse>>> searchProductsSlice(
+            @Valid @ModelAttribute ProductFilterRequest filterRequest,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+
+        CursorPageResponse<ProductResponse> products = productService.searchProductsSlice(filterRequest, cursor);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
     /**
      * Search products by name with pagination
      * Public endpoint - no authentication required
@@ -130,7 +173,7 @@ public class ProductController {
      * @param name the name pattern to search for
      * @param page page number (0-based)
      * @param size page size
-     * @param sortBy sort field (name, price, createdAt, stockQuantity)
+     * @param sortBy sort field (name, price, createdAt, stockQuantity, relevance)
      * @param sortDirection sort direction (asc, desc)
      * @return page of matching products
      */
@@ -211,15 +254,19 @@ public class ProductController {
      * 
      * @param id the product ID
      * @param request product update request
-     * @return updated product response
+     * @param ifMatch optional ETag of the version being edited; a stale one is answered with 409
+     * @return updated product response with its new ETag
      */
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<ProductResponse>> updateProduct(
             @PathVariable Long id,
-            @Valid @RequestBody UpdateProductRequest request) {
+            @Valid @RequestBody UpdateProductRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         
-        ProductResponse product = productService.updateProduct(id, request);
-        return ResponseEntity.ok(ApiResponse.success("Product updated successfully", product));
+        ProductResponse product = productService.updateProduct(id, request, ETagUtil.parseIfMatch(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ETagUtil.toETag(product.getVersion()))
+                .body(ApiResponse.success("Product updated successfully", product));
     }
 
     /**
@@ -365,6 +412,8 @@ public class ProductController {
             case "stockquantity":
             case "stock_quantity":
                 return Sort.by(direction, "stockQuantity");
+            case "relevance":
+                return Sort.unsorted();
             default:
                 return Sort.by(direction, "name"); // Default sort by name
         }
@@ -18,8 +18,12 @@ import java.time.LocalDateTime;
 })
 public class CartItem {
 
+    // Pooled table generator instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_item_id_generator")
+    @TableGenerator(name = "cart_item_id_generator", table = "id_generators",
+            pkColumnName = "gen_name", valueColumnName = "gen_value", pkColumnValue = "cart_items",
+            initialValue = 1, allocationSize = 50)
     @Column(name = "cart_item_id")
     private Long cartItemId;
 
@@ -75,6 +75,10 @@ public class Discount {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Relationships
     @OneToMany(mappedBy = "discount", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<DiscountUsage> discountUsages = new ArrayList<>();
@@ -291,6 +295,14 @@ public class Discount {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<DiscountUsage> getDiscountUsages() {
         return discountUsages;
     }
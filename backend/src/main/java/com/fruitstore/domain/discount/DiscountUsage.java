@@ -37,10 +37,15 @@ public class DiscountUsage {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // No foreign key: the order may have moved to 'orders_archive', which keeps its ID
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_id")
+    @JoinColumn(name = "order_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Order order;
 
+    // Read-only copy of order_id, for queries that join the archive when the order has moved there
+    @Column(name = "order_id", insertable = false, updatable = false)
+    private Long orderId;
+
     @NotNull(message = "Discount amount is required")
     @DecimalMin(value = "0.00", message = "Discount amount must be 0 or greater")
     @Digits(integer = 8, fraction = 2, message = "Discount amount must have at most 8 integer digits and 2 decimal places")
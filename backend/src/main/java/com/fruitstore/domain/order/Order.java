@@ -1,6 +1,8 @@
 package com.fruitstore.domain.order;
 
 import com.fruitstore.domain.user.User;
+import com.fruitstore.util.OrderNumberGenerator;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -20,10 +22,14 @@ import java.util.List;
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_status", columnList = "status"),
     @Index(name = "idx_created_at", columnList = "created_at"),
-    @Index(name = "idx_order_number", columnList = "order_number")
+    @Index(name = "idx_updated_at", columnList = "updated_at"),
+    @Index(name = "idx_order_number", columnList = "order_number"),
+    @Index(name = "idx_user_created_at", columnList = "user_id, created_at")
 })
 public class Order {
 
+    private static final OrderNumberGenerator DEFAULT_ORDER_NUMBER_GENERATOR = SnowflakeOrderNumberGenerator.fallback();
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "order_id")
@@ -82,6 +88,10 @@ public class Order {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<OrderItem> orderItems = new ArrayList<>();
 
@@ -240,10 +250,12 @@ public class Order {
 
     /**
      * Generate a unique order number
+     * Fallback for orders persisted without one, on the node ID reserved for it; OrderService
+     * assigns numbers from the configured OrderNumberGenerator bean
      * @return generated order number
      */
     private String generateOrderNumber() {
-        return "ORD-" + System.currentTimeMillis() + "-" + (user != null ? user.getUserId() : "0");
+        return DEFAULT_ORDER_NUMBER_GENERATOR.nextOrderNumber(user != null ? user.getUserId() : null);
     }
 
     // Getters and Setters
@@ -367,6 +379,14 @@ public class Order {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<OrderItem> getOrderItems() {
         return orderItems;
     }
@@ -0,0 +1,16 @@
+package com.fruitstore.domain.order;
+
+/**
+ * Enum representing the kind of an order lifecycle event written to the outbox
+ */
+public enum OrderEventType {
+    /**
+     * The order was placed
+     */
+    CREATED,
+
+    /**
+     * The order moved to another status (including cancellation)
+     */
+    STATUS_CHANGED
+}
@@ -0,0 +1,143 @@
+package com.fruitstore.domain.order;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
+
+/**
+ * OrderIdempotencyKey entity storing the response of an order created with an Idempotency-Key
+ * Maps to 'order_idempotency_keys' table in database
+ */
+@Entity
+@Table(name = "order_idempotency_keys",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_user_key", columnNames = {"user_id", "idempotency_key"})
+    },
+    indexes = {
+        @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+    })
+public class OrderIdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "idempotency_id")
+    private Long idempotencyId;
+
+    @NotNull(message = "User ID is required")
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @NotBlank(message = "Idempotency key is required")
+    @Size(max = 100, message = "Idempotency key must not exceed 100 characters")
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @NotNull(message = "Response body is required")
+    @Lob
+    @Column(name = "response_body", nullable = false, columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @NotNull(message = "Expiry time is required")
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // JPA lifecycle callback
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public OrderIdempotencyKey() {
+    }
+
+    public OrderIdempotencyKey(Long userId, String idempotencyKey, Long orderId,
+                               String responseBody, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.idempotencyKey = idempotencyKey;
+        this.orderId = orderId;
+        this.responseBody = responseBody;
+        this.expiresAt = expiresAt;
+    }
+
+    // Business methods
+    public boolean isExpired() {
+        return expiresAt.isBefore(LocalDateTime.now());
+    }
+
+    // Getters and Setters
+    public Long getIdempotencyId() {
+        return idempotencyId;
+    }
+
+    public void setIdempotencyId(Long idempotencyId) {
+        this.idempotencyId = idempotencyId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderIdempotencyKey{" +
+                "idempotencyId=" + idempotencyId +
+                ", userId=" + userId +
+                ", idempotencyKey='" + idempotencyKey + '\'' +
+                ", orderId=" + orderId +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
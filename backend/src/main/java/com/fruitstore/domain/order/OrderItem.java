@@ -20,8 +20,12 @@ import java.time.LocalDateTime;
 })
 public class OrderItem {
 
+    // Pooled table generator instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_id_generator")
+    @TableGenerator(name = "order_item_id_generator", table = "id_generators",
+            pkColumnName = "gen_name", valueColumnName = "gen_value", pkColumnValue = "order_items",
+            initialValue = 1, allocationSize = 50)
     @Column(name = "order_item_id")
     private Long orderItemId;
 
@@ -0,0 +1,147 @@
+package com.fruitstore.domain.order;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * OrderRollupHourly entity holding order counts and revenue of one hour, for one category or the whole store
+ * A row with a null category ID is the store-wide total; revenue there is the orders' total amount after
+ * discounts, while category rows sum item subtotals. Cancelled orders add to cancelledCount only
+ * Maps to 'order_rollup_hourly' table in database
+ */
+@Entity
+@Table(name = "order_rollup_hourly",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_hourly_bucket_category", columnNames = {"bucket_start", "category_id"})
+    })
+public class OrderRollupHourly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @NotNull(message = "Bucket start is required")
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @NotNull(message = "Order count is required")
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @NotNull(message = "Cancelled count is required")
+    @Column(name = "cancelled_count", nullable = false)
+    private Long cancelledCount;
+
+    @NotNull(message = "Item quantity is required")
+    @Column(name = "item_quantity", nullable = false)
+    private Long itemQuantity;
+
+    @NotNull(message = "Revenue is required")
+    @Column(name = "revenue", nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public OrderRollupHourly() {
+    }
+
+    public OrderRollupHourly(LocalDateTime bucketStart, Long categoryId, Long orderCount, Long cancelledCount,
+                             Long itemQuantity, BigDecimal revenue) {
+        this.bucketStart = bucketStart;
+        this.categoryId = categoryId;
+        this.orderCount = orderCount;
+        this.cancelledCount = cancelledCount;
+        this.itemQuantity = itemQuantity;
+        this.revenue = revenue;
+    }
+
+    // Getters and Setters
+    public Long getRollupId() {
+        return rollupId;
+    }
+
+    public void setRollupId(Long rollupId) {
+        this.rollupId = rollupId;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public Long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    public void setCancelledCount(Long cancelledCount) {
+        this.cancelledCount = cancelledCount;
+    }
+
+    public Long getItemQuantity() {
+        return itemQuantity;
+    }
+
+    public void setItemQuantity(Long itemQuantity) {
+        this.itemQuantity = itemQuantity;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderRollupHourly{" +
+                "bucketStart=" + bucketStart +
+                ", categoryId=" + categoryId +
+                ", orderCount=" + orderCount +
+                ", cancelledCount=" + cancelledCount +
+                ", itemQuantity=" + itemQuantity +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
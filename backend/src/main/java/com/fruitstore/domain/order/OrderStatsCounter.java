@@ -0,0 +1,104 @@
+package com.fruitstore.domain.order;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+/**
+ * OrderStatsCounter entity holding one slot of the running order count and amount for a status
+ * Each status has N slot rows whose values add up to its totals, so concurrent checkouts and
+ * status transitions update different rows instead of one hot row
+ * Maps to 'order_stats' table in database
+ */
+@Entity
+@Table(name = "order_stats",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_order_stats_status_slot", columnNames = {"status", "slot"})
+    })
+public class OrderStatsCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "counter_id")
+    private Long counterId;
+
+    @NotNull(message = "Order status is required")
+    @Column(name = "status", nullable = false, length = 20)
+    private OrderStatus status;
+
+    @NotNull(message = "Slot is required")
+    @Min(value = 0, message = "Slot must be non-negative")
+    @Column(name = "slot", nullable = false)
+    private Integer slot;
+
+    @NotNull(message = "Order count is required")
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @NotNull(message = "Total amount is required")
+    @Column(name = "total_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalAmount;
+
+    // Constructors
+    public OrderStatsCounter() {
+    }
+
+    public OrderStatsCounter(OrderStatus status, Integer slot, Long orderCount, BigDecimal totalAmount) {
+        this.status = status;
+        this.slot = slot;
+        this.orderCount = orderCount;
+        this.totalAmount = totalAmount;
+    }
+
+    // Getters and Setters
+    public Long getCounterId() {
+        return counterId;
+    }
+
+    public void setCounterId(Long counterId) {
+        this.counterId = counterId;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public Integer getSlot() {
+        return slot;
+    }
+
+    public void setSlot(Integer slot) {
+        this.slot = slot;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatsCounter{" +
+                "status=" + status +
+                ", slot=" + slot +
+                ", orderCount=" + orderCount +
+                ", totalAmount=" + totalAmount +
+                '}';
+    }
+}
@@ -1,5 +1,8 @@
 package com.fruitstore.domain.order;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Enum representing order statuses in the system
  */
@@ -67,4 +70,37 @@ public enum OrderStatus {
     public boolean isActive() {
         return this != CANCELLED;
     }
+
+    /**
+     * Check if an order in this status may move to the given status
+     * @param next the target status
+     * @return true if the transition is allowed
+     */
+    public boolean canTransitionTo(OrderStatus next) {
+        switch (this) {
+            case PENDING:
+                return next == CONFIRMED || next == CANCELLED;
+            case CONFIRMED:
+                return next == SHIPPED || next == CANCELLED;
+            case SHIPPED:
+                return next == DELIVERED;
+            default:
+                return false; // DELIVERED and CANCELLED are final states
+        }
+    }
+
+    /**
+     * Get the statuses an order may move to the given status from
+     * @param target the target status
+     * @return statuses allowed before the target, empty if nothing may move to it
+     */
+    public static Set<OrderStatus> allowedPreviousStatuses(OrderStatus target) {
+        Set<OrderStatus> previous = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (status.canTransitionTo(target)) {
+                previous.add(status);
+            }
+        }
+        return previous;
+    }
 }
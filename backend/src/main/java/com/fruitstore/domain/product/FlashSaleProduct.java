@@ -0,0 +1,73 @@
+package com.fruitstore.domain.product;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * FlashSaleProduct entity marking a product whose stock is served from an in-memory counter
+ * Keeps the stock at the start of the sale so the counter can be rebuilt from order_items
+ * Maps to 'flash_sale_products' table in database
+ */
+@Entity
+@Table(name = "flash_sale_products")
+public class FlashSaleProduct {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @NotNull(message = "Initial stock is required")
+    @Min(value = 0, message = "Initial stock must be non-negative")
+    @Column(name = "initial_stock", nullable = false)
+    private Integer initialStock;
+
+    @NotNull(message = "Start time is required")
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    // Constructors
+    public FlashSaleProduct() {
+    }
+
+    public FlashSaleProduct(Long productId, Integer initialStock, LocalDateTime startedAt) {
+        this.productId = productId;
+        this.initialStock = initialStock;
+        this.startedAt = startedAt;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getInitialStock() {
+        return initialStock;
+    }
+
+    public void setInitialStock(Integer initialStock) {
+        this.initialStock = initialStock;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "FlashSaleProduct{" +
+                "productId=" + productId +
+                ", initialStock=" + initialStock +
+                ", startedAt=" + startedAt +
+                '}';
+    }
+}
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @Table(name = "products", indexes = {
     @Index(name = "idx_category", columnList = "category_id"),
     @Index(name = "idx_price", columnList = "price"),
-    @Index(name = "idx_name", columnList = "name")
+    @Index(name = "idx_name", columnList = "name"),
+    @Index(name = "idx_product_created_at", columnList = "created_at")
 })
 public class Product {
 
@@ -41,6 +42,10 @@ public class Product {
     @Column(name = "stock_quantity", nullable = false)
     private Integer stockQuantity = 0;
 
+    // Sum of product_stock_shards when the product's stock is sharded; filled on load, never persisted
+    @Transient
+    private Integer shardedStockQuantity;
+
     @Size(max = 255, message = "Image URL must not exceed 255 characters")
     @Column(name = "image_url", length = 255)
     private String imageUrl;
@@ -58,6 +63,10 @@ public class Product {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // JPA lifecycle callbacks
     @PrePersist
     protected void onCreate() {
@@ -114,7 +123,8 @@ public class Product {
      * @return true if stock quantity > 0
      */
     public boolean isInStock() {
-        return stockQuantity != null && stockQuantity > 0;
+        Integer available = getStockQuantity();
+        return available != null && available > 0;
     }
 
     /**
@@ -123,7 +133,8 @@ public class Product {
      * @return true if sufficient stock available
      */
     public boolean hasSufficientStock(Integer requestedQuantity) {
-        return stockQuantity != null && requestedQuantity != null && requestedQuantity > 0 && stockQuantity >= requestedQuantity;
+        Integer available = getStockQuantity();
+        return available != null && requestedQuantity != null && requestedQuantity > 0 && available >= requestedQuantity;
     }
 
     /**
@@ -186,11 +197,20 @@ public class Product {
     }
 
     public Integer getStockQuantity() {
-        return stockQuantity;
+        return shardedStockQuantity != null ? shardedStockQuantity : stockQuantity;
     }
 
     public void setStockQuantity(Integer stockQuantity) {
         this.stockQuantity = stockQuantity;
+        this.shardedStockQuantity = null;
+    }
+
+    public Integer getShardedStockQuantity() {
+        return shardedStockQuantity;
+    }
+
+    public void setShardedStockQuantity(Integer shardedStockQuantity) {
+        this.shardedStockQuantity = shardedStockQuantity;
     }
 
     public String getImageUrl() {
@@ -233,6 +253,14 @@ public class Product {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Product{" +
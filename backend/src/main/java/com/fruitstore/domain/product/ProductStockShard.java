@@ -0,0 +1,91 @@
+package com.fruitstore.domain.product;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * ProductStockShard entity holding one slice of a product's stock
+ * A product with sharded stock has N rows whose quantities add up to its stock,
+ * so concurrent decrements land on different rows instead of one hot row
+ * Maps to 'product_stock_shards' table in database
+ */
+@Entity
+@Table(name = "product_stock_shards",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_shard_product_index", columnNames = {"product_id", "shard_index"})
+    })
+public class ProductStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "shard_id")
+    private Long shardId;
+
+    @NotNull(message = "Product ID is required")
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @NotNull(message = "Shard index is required")
+    @Min(value = 0, message = "Shard index must be non-negative")
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 0, message = "Quantity must be non-negative")
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    // Constructors
+    public ProductStockShard() {
+    }
+
+    public ProductStockShard(Long productId, Integer shardIndex, Integer quantity) {
+        this.productId = productId;
+        this.shardIndex = shardIndex;
+        this.quantity = quantity;
+    }
+
+    // Getters and Setters
+    public Long getShardId() {
+        return shardId;
+    }
+
+    public void setShardId(Long shardId) {
+        this.shardId = shardId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(Integer shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductStockShard{" +
+                "shardId=" + shardId +
+                ", productId=" + productId +
+                ", shardIndex=" + shardIndex +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
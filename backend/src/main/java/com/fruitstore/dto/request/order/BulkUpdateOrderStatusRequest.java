@@ -0,0 +1,115 @@
+package com.fruitstore.dto.request.order;
+
+import com.fruitstore.domain.order.OrderStatus;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for moving many orders to one status request
+ * Orders are chosen either by ID or by a filter (current status, user, creation date range)
+ */
+public class BulkUpdateOrderStatusRequest {
+
+    @NotNull(message = "Order status is required")
+    private OrderStatus status;
+
+    @Size(max = 50000, message = "At most 50000 order IDs can be updated at once")
+    private List<Long> orderIds;
+
+    private OrderStatus fromStatus;
+
+    private Long userId;
+
+    private LocalDateTime startDate;
+
+    private LocalDateTime endDate;
+
+    // Constructors
+    public BulkUpdateOrderStatusRequest() {
+    }
+
+    public BulkUpdateOrderStatusRequest(OrderStatus status, List<Long> orderIds) {
+        this.status = status;
+        this.orderIds = orderIds;
+    }
+
+    // Getters and Setters
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<Long> orderIds) {
+        this.orderIds = orderIds;
+    }
+
+    public OrderStatus getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(OrderStatus fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    /**
+     * Check if orders are chosen by ID rather than by filter
+     * @return true if order IDs are given
+     */
+    public boolean hasOrderIds() {
+        return orderIds != null && !orderIds.isEmpty();
+    }
+
+    /**
+     * Check if any filter field is set
+     * @return true if a filter is given
+     */
+    public boolean hasFilter() {
+        return fromStatus != null || userId != null || startDate != null || endDate != null;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkUpdateOrderStatusRequest{" +
+                "status=" + status +
+                ", orderIds=" + (orderIds != null ? orderIds.size() + " IDs" : "null") +
+                ", fromStatus=" + fromStatus +
+                ", userId=" + userId +
+                ", startDate=" + startDate +
+                ", endDate=" + endDate +
+                '}';
+    }
+}
@@ -29,6 +29,11 @@ public class ProductFilterRequest {
     private String sortBy = "name";
     private String sortDirection = "asc";
 
+    private Boolean facets = false;
+
+    @DecimalMin(value = "0.01", message = "Price bucket size must be greater than 0")
+    private BigDecimal priceBucketSize;
+
     // Constructors
     public ProductFilterRequest() {
     }
@@ -127,6 +132,22 @@ public class ProductFilterRequest {
         this.sortDirection = sortDirection;
     }
 
+    public Boolean getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Boolean facets) {
+        this.facets = facets;
+    }
+
+    public BigDecimal getPriceBucketSize() {
+        return priceBucketSize;
+    }
+
+    public void setPriceBucketSize(BigDecimal priceBucketSize) {
+        this.priceBucketSize = priceBucketSize;
+    }
+
     @Override
     public String toString() {
         return "ProductFilterRequest{" +
@@ -138,6 +159,8 @@ public class ProductFilterRequest {
                 ", size=" + size +
                 ", sortBy='" + sortBy + '\'' +
                 ", sortDirection='" + sortDirection + '\'' +
+                ", facets=" + facets +
+                ", priceBucketSize=" + priceBucketSize +
                 '}';
     }
 }
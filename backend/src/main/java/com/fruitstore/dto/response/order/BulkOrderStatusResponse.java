@@ -0,0 +1,116 @@
+package com.fruitstore.dto.response.order;
+
+import com.fruitstore.domain.order.OrderStatus;
+
+import java.util.List;
+
+/**
+ * DTO for bulk order status update response
+ * Holds the totals and the outcome of every order that was considered
+ */
+public class BulkOrderStatusResponse {
+
+    /**
+     * What happened to one order of a bulk status update
+     */
+    public enum Outcome {
+        UPDATED, INVALID_TRANSITION, NOT_FOUND
+    }
+
+    private OrderStatus targetStatus;
+    private int requested;
+    private int updated;
+    private int skipped;
+    private long elapsedMillis;
+    private List<OrderOutcome> results;
+
+    // Constructors
+    public BulkOrderStatusResponse() {
+    }
+
+    public BulkOrderStatusResponse(OrderStatus targetStatus, List<OrderOutcome> results, long elapsedMillis) {
+        this.targetStatus = targetStatus;
+        this.results = results;
+        this.requested = results.size();
+        this.updated = (int) results.stream().filter(result -> result.getOutcome() == Outcome.UPDATED).count();
+        this.skipped = requested - updated;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Getters and Setters
+    public OrderStatus getTargetStatus() {
+        return targetStatus;
+    }
+
+    public void setTargetStatus(OrderStatus targetStatus) {
+        this.targetStatus = targetStatus;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<OrderOutcome> getResults() {
+        return results;
+    }
+
+    public void setResults(List<OrderOutcome> results) {
+        this.results = results;
+    }
+
+    /**
+     * Outcome of one order: its status before the update, or null if it does not exist
+     */
+    public static class OrderOutcome {
+        private Long orderId;
+        private Outcome outcome;
+        private OrderStatus previousStatus;
+
+        // Constructors
+        public OrderOutcome() {}
+
+        public OrderOutcome(Long orderId, Outcome outcome, OrderStatus previousStatus) {
+            this.orderId = orderId;
+            this.outcome = outcome;
+            this.previousStatus = previousStatus;
+        }
+
+        // Getters and Setters
+        public Long getOrderId() { return orderId; }
+        public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+        public Outcome getOutcome() { return outcome; }
+        public void setOutcome(Outcome outcome) { this.outcome = outcome; }
+
+        public OrderStatus getPreviousStatus() { return previousStatus; }
+        public void setPreviousStatus(OrderStatus previousStatus) { this.previousStatus = previousStatus; }
+    }
+}
@@ -0,0 +1,98 @@
+package com.fruitstore.dto.response.order;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for asynchronous checkout ticket response
+ * Returned with 202 Accepted and by the ticket polling endpoint
+ */
+public class CheckoutTicketResponse {
+
+    /**
+     * Processing state of a checkout ticket
+     */
+    public enum Status {
+        QUEUED, PROCESSING, COMPLETED, FAILED
+    }
+
+    private String ticketId;
+    private Status status;
+    private OrderResponse order;
+    private String message;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+
+    // Constructors
+    public CheckoutTicketResponse() {
+    }
+
+    public CheckoutTicketResponse(String ticketId, Status status, OrderResponse order, String message,
+                                  LocalDateTime submittedAt, LocalDateTime completedAt) {
+        this.ticketId = ticketId;
+        this.status = status;
+        this.order = order;
+        this.message = message;
+        this.submittedAt = submittedAt;
+        this.completedAt = completedAt;
+    }
+
+    // Getters and Setters
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public OrderResponse getOrder() {
+        return order;
+    }
+
+    public void setOrder(OrderResponse order) {
+        this.order = order;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "CheckoutTicketResponse{" +
+                "ticketId='" + ticketId + '\'' +
+                ", status=" + status +
+                ", message='" + message + '\'' +
+                ", submittedAt=" + submittedAt +
+                ", completedAt=" + completedAt +
+                '}';
+    }
+}
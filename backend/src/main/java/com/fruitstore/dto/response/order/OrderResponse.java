@@ -27,6 +27,7 @@ public class OrderResponse {
     private LocalDateTime cancelledAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
     private List<OrderItemResponse> orderItems;
     private Integer totalItems;
     private Integer itemCount;
@@ -181,6 +182,14 @@ public class OrderResponse {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<OrderItemResponse> getOrderItems() {
         return orderItems;
     }
@@ -0,0 +1,103 @@
+package com.fruitstore.dto.response.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one hourly or daily revenue rollup bucket
+ * A null category ID is the store-wide total
+ */
+public class OrderRollupResponse {
+
+    private LocalDateTime bucketStart;
+    private long bucketStartMillis;
+    private Long categoryId;
+    private long orderCount;
+    private long cancelledCount;
+    private long itemQuantity;
+    private BigDecimal revenue;
+
+    // Constructors
+    public OrderRollupResponse() {
+    }
+
+    public OrderRollupResponse(LocalDateTime bucketStart, long bucketStartMillis, Long categoryId, long orderCount,
+                               long cancelledCount, long itemQuantity, BigDecimal revenue) {
+        this.bucketStart = bucketStart;
+        this.bucketStartMillis = bucketStartMillis;
+        this.categoryId = categoryId;
+        this.orderCount = orderCount;
+        this.cancelledCount = cancelledCount;
+        this.itemQuantity = itemQuantity;
+        this.revenue = revenue;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getBucketStartMillis() {
+        return bucketStartMillis;
+    }
+
+    public void setBucketStartMillis(long bucketStartMillis) {
+        this.bucketStartMillis = bucketStartMillis;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    public void setCancelledCount(long cancelledCount) {
+        this.cancelledCount = cancelledCount;
+    }
+
+    public long getItemQuantity() {
+        return itemQuantity;
+    }
+
+    public void setItemQuantity(long itemQuantity) {
+        this.itemQuantity = itemQuantity;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderRollupResponse{" +
+                "bucketStart=" + bucketStart +
+                ", categoryId=" + categoryId +
+                ", orderCount=" + orderCount +
+                ", cancelledCount=" + cancelledCount +
+                ", itemQuantity=" + itemQuantity +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
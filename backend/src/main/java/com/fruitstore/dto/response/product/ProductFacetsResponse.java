@@ -0,0 +1,115 @@
+package com.fruitstore.dto.response.product;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for facet counts returned next to product search results
+ * Category counts ignore the category filter so other categories can be offered; the price histogram
+ * and in-stock count apply every filter.
+ */
+public class ProductFacetsResponse {
+
+    private Map<Long, Long> categoryCounts;
+    private List<PriceBucket> priceHistogram;
+    private Long inStockCount;
+
+    // Constructors
+    public ProductFacetsResponse() {
+    }
+
+    public ProductFacetsResponse(Map<Long, Long> categoryCounts, List<PriceBucket> priceHistogram, Long inStockCount) {
+        this.categoryCounts = categoryCounts;
+        this.priceHistogram = priceHistogram;
+        this.inStockCount = inStockCount;
+    }
+
+    // Getters and Setters
+    public Map<Long, Long> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    public void setCategoryCounts(Map<Long, Long> categoryCounts) {
+        this.categoryCounts = categoryCounts;
+    }
+
+    public List<PriceBucket> getPriceHistogram() {
+        return priceHistogram;
+    }
+
+    public void setPriceHistogram(List<PriceBucket> priceHistogram) {
+        this.priceHistogram = priceHistogram;
+    }
+
+    public Long getInStockCount() {
+        return inStockCount;
+    }
+
+    public void setInStockCount(Long inStockCount) {
+        this.inStockCount = inStockCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductFacetsResponse{" +
+                "categoryCounts=" + categoryCounts +
+                ", priceHistogram=" + priceHistogram +
+                ", inStockCount=" + inStockCount +
+                '}';
+    }
+
+    /**
+     * Products priced from (inclusive) up to to (exclusive); to is null for the last, open-ended bucket
+     */
+    public static class PriceBucket {
+
+        private BigDecimal from;
+        private BigDecimal to;
+        private Long count;
+
+        // Constructors
+        public PriceBucket() {
+        }
+
+        public PriceBucket(BigDecimal from, BigDecimal to, Long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        // Getters and Setters
+        public BigDecimal getFrom() {
+            return from;
+        }
+
+        public void setFrom(BigDecimal from) {
+            this.from = from;
+        }
+
+        public BigDecimal getTo() {
+            return to;
+        }
+
+        public void setTo(BigDecimal to) {
+            this.to = to;
+        }
+
+        public Long getCount() {
+            return count;
+        }
+
+        public void setCount(Long count) {
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return "PriceBucket{" +
+                    "from=" + from +
+                    ", to=" + to +
+                    ", count=" + count +
+                    '}';
+        }
+    }
+}
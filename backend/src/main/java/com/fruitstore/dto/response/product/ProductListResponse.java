@@ -14,6 +14,7 @@ public class ProductListResponse {
     private Integer pageSize;
     private Boolean hasNext;
     private Boolean hasPrevious;
+    private ProductFacetsResponse facets;
 
     // Constructors
     public ProductListResponse() {
@@ -87,6 +88,14 @@ public class ProductListResponse {
         this.hasPrevious = hasPrevious;
     }
 
+    public ProductFacetsResponse getFacets() {
+        return facets;
+    }
+
+    public void setFacets(ProductFacetsResponse facets) {
+        this.facets = facets;
+    }
+
     @Override
     public String toString() {
         return "ProductListResponse{" +
@@ -97,6 +106,7 @@ public class ProductListResponse {
                 ", pageSize=" + pageSize +
                 ", hasNext=" + hasNext +
                 ", hasPrevious=" + hasPrevious +
+                ", facets=" + facets +
                 '}';
     }
 }
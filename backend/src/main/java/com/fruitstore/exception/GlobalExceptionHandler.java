@@ -3,6 +3,8 @@ package com.fruitstore.exception;
 import com.fruitstore.dto.response.common.ApiResponse;
 import com.fruitstore.dto.response.common.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -14,6 +16,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Global exception handler for all controllers
@@ -55,6 +58,36 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage()));
     }
 
+    /**
+     * Handle version conflicts (stale If-Match or a lost optimistic lock after retries)
+     */
+    @ExceptionHandler({VersionConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ApiResponse<Void>> handleVersionConflictException(
+            RuntimeException ex,
+            HttpServletRequest request) {
+        
+        String message = ex instanceof VersionConflictException
+                ? ex.getMessage()
+                : "The resource was modified concurrently, please reload and try again";
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(message));
+    }
+
+    /**
+     * Handle RejectedExecutionException (checkout queue full)
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ApiResponse<Void>> handleRejectedExecutionException(
+            RejectedExecutionException ex,
+            HttpServletRequest request) {
+        
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
     /**
      * Handle UsernameNotFoundException (user not found)
      */
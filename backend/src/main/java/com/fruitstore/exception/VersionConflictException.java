@@ -0,0 +1,40 @@
+package com.fruitstore.exception;
+
+/**
+ * Thrown when a client's expected entity version (If-Match) no longer matches the stored one
+ * Mapped to 409 Conflict by {@link GlobalExceptionHandler}
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String entityName;
+    private final Object entityId;
+    private final Long expectedVersion;
+    private final Long currentVersion;
+
+    public VersionConflictException(String entityName, Object entityId, Long expectedVersion, Long currentVersion) {
+        super(entityName + " " + entityId + " was modified concurrently: expected version "
+                + expectedVersion + " but is " + currentVersion);
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Object getEntityId() {
+        return entityId;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
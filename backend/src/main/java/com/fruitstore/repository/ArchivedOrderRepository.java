@@ -0,0 +1,127 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.ArchivedOrder;
+import com.fruitstore.domain.order.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for ArchivedOrder entity
+ * Provides the archiver's copy statements and lookups for orders no longer in the hot tables
+ */
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    /**
+     * Find archived order by ID with its items, products and user
+     * @param orderId the order ID
+     * @return Optional containing the archived order if found
+     */
+    @Query("SELECT DISTINCT o FROM ArchivedOrder o LEFT JOIN FETCH o.user " +
+           "LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product WHERE o.orderId = :orderId")
+    Optional<ArchivedOrder> findByIdWithItems(@Param("orderId") Long orderId);
+
+    /**
+     * Find archived order by order number with its items, products and user
+     * @param orderNumber the order number
+     * @return Optional containing the archived order if found
+     */
+    @Query("SELECT DISTINCT o FROM ArchivedOrder o LEFT JOIN FETCH o.user " +
+           "LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product WHERE o.orderNumber = :orderNumber")
+    Optional<ArchivedOrder> findByOrderNumberWithItems(@Param("orderNumber") String orderNumber);
+
+    /**
+     * Copy orders into the archive
+     * @param orderIds IDs of the orders to copy
+     * @param statuses statuses the orders must still have
+     * @param now the archive time
+     * @return number of orders copied
+     */
+    @Modifying
+    @Query("INSERT INTO ArchivedOrder (orderId, orderNumber, userId, status, totalAmount, shippingAddress, " +
+           "phoneNumber, customerName, customerEmail, notes, shippedAt, deliveredAt, cancelledAt, createdAt, " +
+           "updatedAt, version, archivedAt) " +
+           "SELECT o.orderId, o.orderNumber, o.user.userId, o.status, o.totalAmount, o.shippingAddress, " +
+           "o.phoneNumber, o.customerName, o.customerEmail, o.notes, o.shippedAt, o.deliveredAt, o.cancelledAt, " +
+           "o.createdAt, o.updatedAt, o.version, :now " +
+           "FROM Order o WHERE o.orderId IN :orderIds AND o.status IN :statuses")
+    int copyOrders(@Param("orderIds") Collection<Long> orderIds,
+                   @Param("statuses") Collection<OrderStatus> statuses,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Copy the items of orders into the archive
+     * @param orderIds IDs of the orders whose items to copy
+     * @return number of items copied
+     */
+    @Modifying
+    @Query("INSERT INTO ArchivedOrderItem (orderItemId, orderId, productId, quantity, unitPrice, subtotal, createdAt) " +
+           "SELECT i.orderItemId, i.order.orderId, i.product.productId, i.quantity, i.unitPrice, i.subtotal, i.createdAt " +
+           "FROM OrderItem i WHERE i.order.orderId IN :orderIds")
+    int copyOrderItems(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Archive counterpart of {@link OrderRepository#countAndSumByStatus}
+     * @return rows of [status, order count, total amount]
+     */
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM ArchivedOrder o GROUP BY o.status")
+    List<Object[]> countAndSumByStatus();
+
+    /**
+     * Archive counterpart of {@link OrderRepository#countAndSumByStatusForUser}
+     * @param userId the user ID
+     * @return rows of [status, order count, total amount]
+     */
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM ArchivedOrder o WHERE o.userId = :userId GROUP BY o.status")
+    List<Object[]> countAndSumByStatusForUser(@Param("userId") Long userId);
+
+    /**
+     * Count archived order items
+     * @return number of rows in the item archive
+     */
+    @Query("SELECT COUNT(i) FROM ArchivedOrderItem i")
+    long countOrderItems();
+
+    /**
+     * Find when archived orders last changed since a point in time were created, for the rollup buckets they fall in
+     * @param since earliest update time (inclusive)
+     * @return creation times of the archived orders found
+     */
+    @Query("SELECT o.createdAt FROM ArchivedOrder o WHERE o.updatedAt >= :since")
+    List<LocalDateTime> findCreatedAtByUpdatedAtSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Archive counterpart of {@link OrderRepository#sumByHourForRollup}
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @param cancelled the cancelled status
+     * @return rows of [hour of day, order count, cancelled count, revenue]
+     */
+    @Query("SELECT hour(o.createdAt), COUNT(o), SUM(CASE WHEN o.status = :cancelled THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN o.status = :cancelled THEN 0 ELSE o.totalAmount END) " +
+           "FROM ArchivedOrder o WHERE o.createdAt >= :from AND o.createdAt < :to GROUP BY hour(o.createdAt)")
+    List<Object[]> sumByHourForRollup(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                      @Param("cancelled") OrderStatus cancelled);
+
+    /**
+     * Archive counterpart of {@link OrderItemRepository#sumByHourAndCategoryForRollup}
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @param cancelled the cancelled status
+     * @return rows of [hour of day, category ID (null if the product has none), order count, quantity, revenue]
+     */
+    @Query("SELECT hour(o.createdAt), c.categoryId, COUNT(DISTINCT o.orderId), SUM(i.quantity), SUM(i.subtotal) " +
+           "FROM ArchivedOrderItem i JOIN i.order o JOIN i.product p LEFT JOIN p.category c " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to AND o.status <> :cancelled " +
+           "GROUP BY hour(o.createdAt), c.categoryId")
+    List<Object[]> sumByHourAndCategoryForRollup(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                 @Param("cancelled") OrderStatus cancelled);
+}
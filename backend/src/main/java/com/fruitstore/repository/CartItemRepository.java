@@ -139,6 +139,16 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
      */
     void deleteByCart_CartIdAndProduct_ProductId(Long cartId, Long productId);
 
+    /**
+     * Delete all cart items of a cart with a single bulk DELETE statement
+     * Unlike deleteByCart_CartId, items are not loaded and removed one by one
+     * @param cartId the cart ID
+     * @return number of deleted cart items
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.cartId = :cartId")
+    int deleteAllByCartIdInBulk(@Param("cartId") Long cartId);
+
     /**
      * Delete cart items by user ID
      * 
@@ -197,4 +207,14 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
      */
     @Query("SELECT ci FROM CartItem ci WHERE (ci.quantity * ci.product.price) > :subtotal")
     List<CartItem> findCartItemsWithSubtotalGreaterThan(@Param("subtotal") java.math.BigDecimal subtotal);
+
+    /**
+     * Find the product and quantity of each line in a user's cart, in ascending product order
+     * Used to snapshot a queued checkout without loading cart items or products
+     * 
+     * @param userId the user ID
+     * @return product ID and quantity of each line in the user's cart, sorted by product ID
+     */
+    @Query("SELECT ci.product.productId, ci.quantity FROM CartItem ci WHERE ci.cart.user.userId = :userId ORDER BY ci.product.productId ASC")
+    List<Object[]> findProductQuantitiesByUserId(@Param("userId") Long userId);
 }
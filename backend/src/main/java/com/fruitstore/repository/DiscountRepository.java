@@ -4,6 +4,7 @@ import com.fruitstore.domain.discount.Discount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -230,4 +231,18 @@ public interface DiscountRepository extends JpaRepository<Discount, Long> {
      */
     @Query("SELECT d FROM Discount d WHERE LOWER(d.description) LIKE LOWER(CONCAT('%', :description, '%'))")
     Page<Discount> findByDescriptionContainingIgnoreCase(@Param("description") String description, Pageable pageable);
+
+    /**
+     * Atomically count one use of a discount if its usage limit is not reached yet.
+     * Runs as a single conditional UPDATE so concurrent checkouts cannot redeem a code more
+     * often than its limit; the row stays locked until the checkout transaction ends and the
+     * in-memory Discount entity is not refreshed. It bumps the row's version, so an admin
+     * edit loaded before it fails instead of writing back a stale used count.
+     * @param discountId the discount ID
+     * @return number of affected rows (1 if the use was counted, 0 if the limit is reached or discount not found)
+     */
+    @Modifying
+    @Query("UPDATE Discount d SET d.usedCount = d.usedCount + 1, d.version = d.version + 1 " +
+           "WHERE d.discountId = :discountId AND (d.usageLimit IS NULL OR d.usedCount < d.usageLimit)")
+    int incrementUsedCountIfBelowLimit(@Param("discountId") Long discountId);
 }
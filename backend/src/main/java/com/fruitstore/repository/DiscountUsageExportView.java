@@ -0,0 +1,28 @@
+package com.fruitstore.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One discount usage row of a sales export, with its discount code, user and (optional) order
+ */
+public interface DiscountUsageExportView {
+
+    Long getUsageId();
+
+    Long getDiscountId();
+
+    String getDiscountCode();
+
+    Long getUserId();
+
+    String getUsername();
+
+    Long getOrderId();
+
+    String getOrderNumber();
+
+    BigDecimal getDiscountAmount();
+
+    LocalDateTime getUsedAt();
+}
@@ -3,17 +3,24 @@ package com.fruitstore.repository;
 import com.fruitstore.domain.discount.Discount;
 import com.fruitstore.domain.discount.DiscountUsage;
 import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderStatus;
 import com.fruitstore.domain.user.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for DiscountUsage entity
@@ -299,4 +306,53 @@ public interface DiscountUsageRepository extends JpaRepository<DiscountUsage, Lo
     @Query("SELECT du FROM DiscountUsage du WHERE du.user.userId = :userId AND du.discount.discountId = :discountId " +
            "ORDER BY du.usedAt DESC")
     Optional<DiscountUsage> findLatestUsageByUserAndDiscount(@Param("userId") Long userId, @Param("discountId") Long discountId);
+
+    /**
+     * Find the order numbers of discount usages, from the orders table or the archive
+     * @param usageIds the usage IDs
+     * @return rows of [usage ID, order number]; usages without an order are left out
+     */
+    @Query("SELECT du.usageId, COALESCE(o.orderNumber, ao.orderNumber) FROM DiscountUsage du " +
+           "LEFT JOIN du.order o LEFT JOIN ArchivedOrder ao ON ao.orderId = du.orderId " +
+           "WHERE du.usageId IN :usageIds AND du.orderId IS NOT NULL")
+    List<Object[]> findOrderNumbers(@Param("usageIds") Collection<Long> usageIds);
+
+    /**
+     * Stream every discount usage matching optional filters, in usage ID order, for exports
+     * User and date filters apply to the usage itself (date = used_at); the other filters of
+     * {@link OrderRepository#findOrdersWithFilters} apply to its order, archived or not, and so skip
+     * usages without one.
+     * Must be consumed inside a transaction
+     * @return stream of discount usage rows; close it when done
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = OrderRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT du.usageId AS usageId, d.discountId AS discountId, d.code AS discountCode, " +
+           "u.userId AS userId, u.username AS username, du.orderId AS orderId, " +
+           "COALESCE(o.orderNumber, ao.orderNumber) AS orderNumber, " +
+           "du.discountAmount AS discountAmount, du.usedAt AS usedAt " +
+           "FROM DiscountUsage du JOIN du.discount d JOIN du.user u LEFT JOIN du.order o " +
+           "LEFT JOIN ArchivedOrder ao ON ao.orderId = du.orderId WHERE " +
+           "(:userId IS NULL OR u.userId = :userId) " +
+           "AND (:status IS NULL OR COALESCE(o.status, ao.status) = :status) " +
+           "AND (:minAmount IS NULL OR COALESCE(o.totalAmount, ao.totalAmount) >= :minAmount) " +
+           "AND (:maxAmount IS NULL OR COALESCE(o.totalAmount, ao.totalAmount) <= :maxAmount) " +
+           "AND (:customerName IS NULL OR LOWER(COALESCE(o.customerName, ao.customerName)) " +
+           "LIKE LOWER(CONCAT('%', :customerName, '%'))) " +
+           "AND (:customerEmail IS NULL OR LOWER(COALESCE(o.customerEmail, ao.customerEmail)) " +
+           "LIKE LOWER(CONCAT('%', :customerEmail, '%'))) " +
+           "AND (:startDate IS NULL OR du.usedAt >= :startDate) " +
+           "AND (:endDate IS NULL OR du.usedAt <= :endDate) " +
+           "ORDER BY du.usageId")
+    Stream<DiscountUsageExportView> streamForExport(
+            @Param("userId") Long userId,
+            @Param("status") OrderStatus status,
+            @Param("minAmount") BigDecimal minAmount,
+            @Param("maxAmount") BigDecimal maxAmount,
+            @Param("customerName") String customerName,
+            @Param("customerEmail") String customerEmail,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
 }
@@ -0,0 +1,13 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.product.FlashSaleProduct;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for FlashSaleProduct entity
+ * Provides data access methods for products running in flash-sale mode
+ */
+@Repository
+public interface FlashSaleProductRepository extends JpaRepository<FlashSaleProduct, Long> {
+}
@@ -0,0 +1,36 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.OrderIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository interface for OrderIdempotencyKey entity
+ * Provides data access methods for the Idempotency-Key response store
+ */
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, Long> {
+
+    /**
+     * Find stored response by user ID and idempotency key
+     * @param userId the user ID
+     * @param idempotencyKey the client supplied key
+     * @return Optional containing the stored key if found
+     */
+    Optional<OrderIdempotencyKey> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Delete stored responses that have expired
+     * @param now the current time
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM OrderIdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
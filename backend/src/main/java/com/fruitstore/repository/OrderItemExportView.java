@@ -0,0 +1,32 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One order item row of a sales export, with its order and product
+ */
+public interface OrderItemExportView {
+
+    Long getOrderItemId();
+
+    Long getOrderId();
+
+    String getOrderNumber();
+
+    OrderStatus getOrderStatus();
+
+    LocalDateTime getOrderCreatedAt();
+
+    Long getProductId();
+
+    String getProductName();
+
+    Integer getQuantity();
+
+    BigDecimal getUnitPrice();
+
+    BigDecimal getSubtotal();
+}
@@ -1,17 +1,24 @@
 package com.fruitstore.repository;
 
 import com.fruitstore.domain.order.OrderItem;
+import com.fruitstore.domain.order.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for OrderItem entity
@@ -337,6 +344,16 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi WHERE oi.product.productId = :productId")
     Long sumQuantityByProduct_ProductId(@Param("productId") Long productId);
 
+    /**
+     * Sum quantity ordered for a product by orders created at or after a point in time
+     * @param productId the product ID
+     * @param since the earliest order creation time
+     * @return total quantity ordered for the product since the given time
+     */
+    @Query("SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi JOIN oi.order o " +
+           "WHERE oi.product.productId = :productId AND o.createdAt >= :since")
+    Long sumQuantityByProductSince(@Param("productId") Long productId, @Param("since") LocalDateTime since);
+
     /**
      * Sum total quantity by user ID
      * @param userId the user ID
@@ -443,4 +460,60 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      * @param productId the product ID
      */
     void deleteByProduct_ProductId(Long productId);
+
+    /**
+     * Delete the items of orders with one statement
+     * @param orderIds IDs of the orders whose items to delete
+     * @return number of deleted items
+     */
+    @Modifying
+    @Query("DELETE FROM OrderItem i WHERE i.order.orderId IN :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Count orders and sum item quantities and subtotals per hour of order creation and category,
+     * skipping cancelled orders; the range must lie within one day
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @param cancelled the cancelled status
+     * @return rows of [hour of day, category ID (null if the product has none), order count, quantity, revenue]
+     */
+    @Query("SELECT hour(o.createdAt), c.categoryId, COUNT(DISTINCT o.orderId), SUM(i.quantity), SUM(i.subtotal) " +
+           "FROM OrderItem i JOIN i.order o JOIN i.product p LEFT JOIN p.category c " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to AND o.status <> :cancelled " +
+           "GROUP BY hour(o.createdAt), c.categoryId")
+    List<Object[]> sumByHourAndCategoryForRollup(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                 @Param("cancelled") OrderStatus cancelled);
+
+    /**
+     * Stream every order item whose order matches optional filters, in item ID order, for exports
+     * Same filters as {@link OrderRepository#findOrdersWithFilters}; must be consumed inside a transaction
+     * @return stream of order item rows; close it when done
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = OrderRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i.orderItemId AS orderItemId, o.orderId AS orderId, o.orderNumber AS orderNumber, " +
+           "o.status AS orderStatus, o.createdAt AS orderCreatedAt, p.productId AS productId, p.name AS productName, " +
+           "i.quantity AS quantity, i.unitPrice AS unitPrice, i.subtotal AS subtotal " +
+           "FROM OrderItem i JOIN i.order o LEFT JOIN i.product p WHERE " +
+           "(:userId IS NULL OR o.user.userId = :userId) " +
+           "AND (:status IS NULL OR o.status = :status) " +
+           "AND (:minAmount IS NULL OR o.totalAmount >= :minAmount) " +
+           "AND (:maxAmount IS NULL OR o.totalAmount <= :maxAmount) " +
+           "AND (:customerName IS NULL OR LOWER(o.customerName) LIKE LOWER(CONCAT('%', :customerName, '%'))) " +
+           "AND (:customerEmail IS NULL OR LOWER(o.customerEmail) LIKE LOWER(CONCAT('%', :customerEmail, '%'))) " +
+           "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
+           "AND (:endDate IS NULL OR o.createdAt <= :endDate) " +
+           "ORDER BY i.orderItemId")
+    Stream<OrderItemExportView> streamForExport(
+            @Param("userId") Long userId,
+            @Param("status") OrderStatus status,
+            @Param("minAmount") BigDecimal minAmount,
+            @Param("maxAmount") BigDecimal maxAmount,
+            @Param("customerName") String customerName,
+            @Param("customerEmail") String customerEmail,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
 }
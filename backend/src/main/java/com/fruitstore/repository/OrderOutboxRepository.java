@@ -0,0 +1,64 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.OrderEventType;
+import com.fruitstore.domain.order.OrderOutboxEvent;
+import com.fruitstore.domain.order.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for OrderOutboxEvent entity
+ * Provides data access methods for the order event outbox and its relay
+ */
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    /**
+     * Claim the oldest undispatched events for this relay
+     * Rows are locked FOR UPDATE SKIP LOCKED (lock timeout -2), so concurrent relays claim disjoint
+     * batches; on databases without SKIP LOCKED a concurrent relay waits for the batch instead
+     * @param pageable the batch size
+     * @return claimed events in outbox order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OrderOutboxEvent e ORDER BY e.outboxId")
+    List<OrderOutboxEvent> claimBatch(Pageable pageable);
+
+    /**
+     * Write one status change event per order, read from the orders before they are moved
+     * @param orderIds IDs of the orders about to move
+     * @param eventType the event type
+     * @param status the status the orders move to
+     * @param now the event time
+     * @return number of events written
+     */
+    @Modifying
+    @Query("INSERT INTO OrderOutboxEvent (eventType, orderId, orderNumber, userId, status, previousStatus, " +
+           "totalAmount, createdAt) " +
+           "SELECT :eventType, o.orderId, o.orderNumber, o.user.userId, :status, o.status, o.totalAmount, :now " +
+           "FROM Order o WHERE o.orderId IN :orderIds")
+    int insertStatusEvents(@Param("orderIds") Collection<Long> orderIds,
+                           @Param("eventType") OrderEventType eventType,
+                           @Param("status") OrderStatus status,
+                           @Param("now") LocalDateTime now);
+
+    /**
+     * Find when the oldest undispatched event was written
+     * @return creation time of the oldest event, or null if the outbox is empty
+     */
+    @Query("SELECT MIN(e.createdAt) FROM OrderOutboxEvent e")
+    LocalDateTime findOldestCreatedAt();
+}
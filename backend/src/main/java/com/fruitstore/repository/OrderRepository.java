@@ -2,24 +2,51 @@ package com.fruitstore.repository;
 
 import com.fruitstore.domain.order.Order;
 import com.fruitstore.domain.order.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Order entity
  * Provides data access methods for order operations
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+
+    /**
+     * Select list of the {@link OrderSummaryView} queries below
+     * Item count and quantity come from subqueries on order_items, so no order items or users are loaded
+     */
+    /**
+     * JDBC fetch size of the export streams, so rows are read from a forward-only cursor in chunks
+     * (MySQL Connector/J honours it only with useCursorFetch=true on the connection URL)
+     */
+    String EXPORT_FETCH_SIZE = "1000";
+
+    String ORDER_SUMMARY_SELECT = "SELECT o.orderId AS orderId, o.orderNumber AS orderNumber, o.status AS status, " +
+            "o.totalAmount AS totalAmount, o.customerName AS customerName, o.customerEmail AS customerEmail, " +
+            "o.createdAt AS createdAt, o.updatedAt AS updatedAt, " +
+            "(SELECT COUNT(i) FROM OrderItem i WHERE i.order = o) AS itemCount, " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i WHERE i.order = o) AS totalQuantity, " +
+            "u.userId AS userId, u.username AS username, u.email AS userEmail, u.fullName AS userFullName, " +
+            "u.role AS userRole, u.createdAt AS userCreatedAt " +
+            "FROM Order o JOIN o.user u ";
 
     /**
      * Find orders by user ID with pagination
@@ -175,13 +202,180 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUser_UserIdWithItems(@Param("userId") Long userId);
 
     /**
-     * Find orders by user ID with items and pagination
+     * Find the IDs of a user's orders after a keyset position, newest first
+     * Seeks on idx_user_created_at instead of skipping rows with OFFSET, and needs no count query
+     * @param userId the user ID
+     * @param createdAt creation time of the last order already returned
+     * @param orderId ID of the last order already returned
+     * @param pageable slice size (page number is always 0)
+     * @return order IDs in (createdAt, orderId) descending order
+     */
+    @Query("SELECT o.orderId FROM Order o WHERE o.user.userId = :userId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.orderId < :orderId)) " +
+           "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Long> findOrderIdsByUserBefore(@Param("userId") Long userId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("orderId") Long orderId,
+                                        Pageable pageable);
+
+    /**
+     * Find the IDs of all orders after a keyset position, newest first
+     * Seeks on idx_created_at instead of skipping rows with OFFSET, and needs no count query
+     * @param createdAt creation time of the last order already returned
+     * @param orderId ID of the last order already returned
+     * @param pageable slice size (page number is always 0)
+     * @return order IDs in (createdAt, orderId) descending order
+     */
+    @Query("SELECT o.orderId FROM Order o " +
+           "WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.orderId < :orderId) " +
+           "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Long> findOrderIdsBefore(@Param("createdAt") LocalDateTime createdAt,
+                                  @Param("orderId") Long orderId,
+                                  Pageable pageable);
+
+    /**
+     * Stream list rows for every order matching optional filters, in order ID order, for exports
+     * Same filters as {@link #findOrdersWithFilters}; must be consumed inside a transaction
+     * @return stream of order summaries; close it when done
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = OrderRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ORDER_SUMMARY_SELECT + "WHERE " +
+           "(:userId IS NULL OR u.userId = :userId) " +
+           "AND (:status IS NULL OR o.status = :status) " +
+           "AND (:minAmount IS NULL OR o.totalAmount >= :minAmount) " +
+           "AND (:maxAmount IS NULL OR o.totalAmount <= :maxAmount) " +
+           "AND (:customerName IS NULL OR LOWER(o.customerName) LIKE LOWER(CONCAT('%', :customerName, '%'))) " +
+           "AND (:customerEmail IS NULL OR LOWER(o.customerEmail) LIKE LOWER(CONCAT('%', :customerEmail, '%'))) " +
+           "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
+           "AND (:endDate IS NULL OR o.createdAt <= :endDate) " +
+           "ORDER BY o.orderId")
+    Stream<OrderSummaryView> streamSummariesForExport(
+            @Param("userId") Long userId,
+            @Param("status") OrderStatus status,
+            @Param("minAmount") BigDecimal minAmount,
+            @Param("maxAmount") BigDecimal maxAmount,
+            @Param("customerName") String customerName,
+            @Param("customerEmail") String customerEmail,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Read list rows for orders by IDs
+     * @param orderIds the order IDs
+     * @return the order summaries, in no particular order
+     */
+    @Query(ORDER_SUMMARY_SELECT + "WHERE o.orderId IN :orderIds")
+    List<OrderSummaryView> findSummariesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Read a page of list rows for all orders
+     * @param pageable pagination information
+     * @return page of order summaries
+     */
+    @Query(value = ORDER_SUMMARY_SELECT,
+           countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderSummaryView> findAllSummaries(Pageable pageable);
+
+    /**
+     * Read a page of list rows for a user's orders
+     * @param userId the user ID
+     * @param pageable pagination information
+     * @return page of order summaries
+     */
+    @Query(value = ORDER_SUMMARY_SELECT + "WHERE u.userId = :userId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.userId = :userId")
+    Page<OrderSummaryView> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Read a page of list rows for orders with a status, newest first
+     * @param status the order status
+     * @param pageable pagination information
+     * @return page of order summaries
+     */
+    @Query(value = ORDER_SUMMARY_SELECT + "WHERE o.status = :status ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<OrderSummaryView> findSummariesByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    /**
+     * Read a page of list rows for a user's orders with a status
      * @param userId the user ID
+     * @param status the order status
+     * @param pageable pagination information
+     * @return page of order summaries
+     */
+    @Query(value = ORDER_SUMMARY_SELECT + "WHERE u.userId = :userId AND o.status = :status",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.userId = :userId AND o.status = :status")
+    Page<OrderSummaryView> findSummariesByUserIdAndStatus(@Param("userId") Long userId,
+                                                          @Param("status") OrderStatus status,
+                                                          Pageable pageable);
+
+    /**
+     * Read a page of list rows for orders created since a date, newest first
+     * @param startDate the earliest creation date
      * @param pageable pagination information
-     * @return page of orders with items loaded
+     * @return page of order summaries
      */
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product WHERE o.user.userId = :userId")
-    Page<Order> findByUser_UserIdWithItems(@Param("userId") Long userId, Pageable pageable);
+    @Query(value = ORDER_SUMMARY_SELECT + "WHERE o.createdAt >= :startDate ORDER BY o.createdAt DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.createdAt >= :startDate")
+    Page<OrderSummaryView> findRecentSummaries(@Param("startDate") LocalDateTime startDate, Pageable pageable);
+
+    /**
+     * Read a page of list rows for orders that can be cancelled (PENDING or CONFIRMED)
+     * @param pageable pagination information
+     * @return page of order summaries
+     */
+    @Query(value = ORDER_SUMMARY_SELECT + "WHERE o.status IN ('PENDING', 'CONFIRMED')",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status IN ('PENDING', 'CONFIRMED')")
+    Page<OrderSummaryView> findCancellableSummaries(Pageable pageable);
+
+    /**
+     * Read a page of list rows for a user's orders that can be cancelled
+     * @param userId the user ID
+     * @param pageable pagination information
+     * @return page of order summaries
+     */
+    @Query(value = ORDER_SUMMARY_SELECT + "WHERE u.userId = :userId AND o.status IN ('PENDING', 'CONFIRMED')",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.userId = :userId " +
+                        "AND o.status IN ('PENDING', 'CONFIRMED')")
+    Page<OrderSummaryView> findCancellableSummariesByUser(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Read a page of list rows for orders matching optional filters
+     * Same filters as {@link #findOrdersWithFilters}
+     * @param pageable pagination information
+     * @return page of order summaries
+     */
+    @Query(value = ORDER_SUMMARY_SELECT + "WHERE " +
+           "(:userId IS NULL OR u.userId = :userId) " +
+           "AND (:status IS NULL OR o.status = :status) " +
+           "AND (:minAmount IS NULL OR o.totalAmount >= :minAmount) " +
+           "AND (:maxAmount IS NULL OR o.totalAmount <= :maxAmount) " +
+           "AND (:customerName IS NULL OR LOWER(o.customerName) LIKE LOWER(CONCAT('%', :customerName, '%'))) " +
+           "AND (:customerEmail IS NULL OR LOWER(o.customerEmail) LIKE LOWER(CONCAT('%', :customerEmail, '%'))) " +
+           "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
+           "AND (:endDate IS NULL OR o.createdAt <= :endDate)",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE " +
+           "(:userId IS NULL OR o.user.userId = :userId) " +
+           "AND (:status IS NULL OR o.status = :status) " +
+           "AND (:minAmount IS NULL OR o.totalAmount >= :minAmount) " +
+           "AND (:maxAmount IS NULL OR o.totalAmount <= :maxAmount) " +
+           "AND (:customerName IS NULL OR LOWER(o.customerName) LIKE LOWER(CONCAT('%', :customerName, '%'))) " +
+           "AND (:customerEmail IS NULL OR LOWER(o.customerEmail) LIKE LOWER(CONCAT('%', :customerEmail, '%'))) " +
+           "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
+           "AND (:endDate IS NULL OR o.createdAt <= :endDate)")
+    Page<OrderSummaryView> findSummariesWithFilters(
+            @Param("userId") Long userId,
+            @Param("status") OrderStatus status,
+            @Param("minAmount") BigDecimal minAmount,
+            @Param("maxAmount") BigDecimal maxAmount,
+            @Param("customerName") String customerName,
+            @Param("customerEmail") String customerEmail,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
 
     /**
      * Custom query: Find orders with filters (as specified in roadmap)
@@ -370,4 +564,183 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * @return page of orders with the specified phone number
      */
     Page<Order> findByPhoneNumber(String phoneNumber, Pageable pageable);
+
+    /**
+     * Lock orders and read their current status, in ascending ID order
+     * Used by bulk status updates so the statuses read stay valid until the chunk's UPDATE
+     * @param orderIds the order IDs
+     * @return rows of [orderId, status] for the orders that exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.orderId, o.status FROM Order o WHERE o.orderId IN :orderIds ORDER BY o.orderId")
+    List<Object[]> lockStatusesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Find the next page of order IDs a bulk status update may move, using the ID as a cursor
+     * @param afterId only IDs greater than this are returned
+     * @param statuses statuses the orders may currently have
+     * @param userId the user ID (can be null)
+     * @param startDate the start date (can be null)
+     * @param endDate the end date (can be null)
+     * @param pageable page size; the offset is ignored in favour of the cursor
+     * @return order IDs in ascending order
+     */
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId > :afterId AND o.status IN :statuses " +
+           "AND (:userId IS NULL OR o.user.userId = :userId) " +
+           "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
+           "AND (:endDate IS NULL OR o.createdAt <= :endDate) " +
+           "ORDER BY o.orderId")
+    List<Long> findOrderIdsForStatusUpdate(
+            @Param("afterId") Long afterId,
+            @Param("statuses") Collection<OrderStatus> statuses,
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+
+    /**
+     * Move orders to a new status with one set-based UPDATE
+     * Only rows still in one of the allowed previous statuses change. A timestamp argument
+     * that is null leaves its column as it is. Bumps the version like any other order write;
+     * the in-memory Order entities are not refreshed.
+     * @param orderIds the order IDs
+     * @param previousStatuses statuses the orders may be moved from
+     * @param status the new status
+     * @param now the update time
+     * @param shippedAt shipped time to set, or null
+     * @param deliveredAt delivered time to set, or null
+     * @param cancelledAt cancelled time to set, or null
+     * @return number of orders updated
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, o.version = o.version + 1, " +
+           "o.shippedAt = CASE WHEN :shippedAt IS NULL THEN o.shippedAt ELSE :shippedAt END, " +
+           "o.deliveredAt = CASE WHEN :deliveredAt IS NULL THEN o.deliveredAt ELSE :deliveredAt END, " +
+           "o.cancelledAt = CASE WHEN :cancelledAt IS NULL THEN o.cancelledAt ELSE :cancelledAt END " +
+           "WHERE o.orderId IN :orderIds AND o.status IN :previousStatuses")
+    int updateStatusInBulk(
+            @Param("orderIds") Collection<Long> orderIds,
+            @Param("previousStatuses") Collection<OrderStatus> previousStatuses,
+            @Param("status") OrderStatus status,
+            @Param("now") LocalDateTime now,
+            @Param("shippedAt") LocalDateTime shippedAt,
+            @Param("deliveredAt") LocalDateTime deliveredAt,
+            @Param("cancelledAt") LocalDateTime cancelledAt);
+
+    /**
+     * Read one order's status, timestamps and user as a projection, without loading entities
+     * @param orderId the order ID
+     * @return Optional containing the order's view if found
+     */
+    @Query("SELECT o.orderId AS orderId, o.orderNumber AS orderNumber, o.status AS status, " +
+           "o.totalAmount AS totalAmount, o.shippingAddress AS shippingAddress, o.phoneNumber AS phoneNumber, " +
+           "o.customerName AS customerName, o.customerEmail AS customerEmail, o.notes AS notes, " +
+           "o.shippedAt AS shippedAt, o.deliveredAt AS deliveredAt, o.cancelledAt AS cancelledAt, " +
+           "o.createdAt AS createdAt, o.updatedAt AS updatedAt, o.version AS version, " +
+           "u.userId AS userId, u.username AS username, u.email AS userEmail, u.fullName AS userFullName, " +
+           "u.role AS userRole, u.createdAt AS userCreatedAt " +
+           "FROM Order o JOIN o.user u WHERE o.orderId = :orderId")
+    Optional<OrderStatusView> findStatusViewById(@Param("orderId") Long orderId);
+
+    /**
+     * Move one order to a new status if it is still in the expected status and version
+     * A compare-and-set: the affected-row count tells whether this caller won the transition,
+     * so concurrent transitions of the same order are linearized without locking it first.
+     * A timestamp argument that is null leaves its column as it is.
+     * @param orderId the order ID
+     * @param expectedStatus status the order must still have
+     * @param expectedVersion version the order must still have
+     * @param status the new status
+     * @param now the update time
+     * @param shippedAt shipped time to set, or null
+     * @param deliveredAt delivered time to set, or null
+     * @param cancelledAt cancelled time to set, or null
+     * @return number of affected rows (1 if the transition happened, 0 if the order changed or was not found)
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, o.version = o.version + 1, " +
+           "o.shippedAt = CASE WHEN :shippedAt IS NULL THEN o.shippedAt ELSE :shippedAt END, " +
+           "o.deliveredAt = CASE WHEN :deliveredAt IS NULL THEN o.deliveredAt ELSE :deliveredAt END, " +
+           "o.cancelledAt = CASE WHEN :cancelledAt IS NULL THEN o.cancelledAt ELSE :cancelledAt END " +
+           "WHERE o.orderId = :orderId AND o.status = :expectedStatus AND o.version = :expectedVersion")
+    int compareAndSetStatus(
+            @Param("orderId") Long orderId,
+            @Param("expectedStatus") OrderStatus expectedStatus,
+            @Param("expectedVersion") Long expectedVersion,
+            @Param("status") OrderStatus status,
+            @Param("now") LocalDateTime now,
+            @Param("shippedAt") LocalDateTime shippedAt,
+            @Param("deliveredAt") LocalDateTime deliveredAt,
+            @Param("cancelledAt") LocalDateTime cancelledAt);
+
+    /**
+     * Find IDs of orders in the given statuses last updated before the cutoff, in ascending ID order after a key
+     * @param afterId only orders with a greater ID are returned
+     * @param statuses the statuses to archive
+     * @param cutoff only orders last updated before this time are returned
+     * @param pageable the chunk size
+     * @return order IDs in ascending order
+     */
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId > :afterId AND o.status IN :statuses " +
+           "AND o.updatedAt < :cutoff ORDER BY o.orderId")
+    List<Long> findOrderIdsForArchive(@Param("afterId") long afterId,
+                                      @Param("statuses") Collection<OrderStatus> statuses,
+                                      @Param("cutoff") LocalDateTime cutoff,
+                                      Pageable pageable);
+
+    /**
+     * Delete orders in the given statuses with one statement
+     * @param orderIds IDs of the orders to delete
+     * @param statuses statuses the orders must still have
+     * @return number of deleted orders
+     */
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.orderId IN :orderIds AND o.status IN :statuses")
+    int deleteByOrderIdInAndStatusIn(@Param("orderIds") Collection<Long> orderIds,
+                                     @Param("statuses") Collection<OrderStatus> statuses);
+
+    /**
+     * Count orders and sum their amounts per status in one query
+     * @return rows of [status, order count, total amount]
+     */
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM Order o GROUP BY o.status")
+    List<Object[]> countAndSumByStatus();
+
+    /**
+     * Count a user's orders and sum their amounts per status in one query
+     * @param userId the user ID
+     * @return rows of [status, order count, total amount]
+     */
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM Order o WHERE o.user.userId = :userId GROUP BY o.status")
+    List<Object[]> countAndSumByStatusForUser(@Param("userId") Long userId);
+
+    /**
+     * Count orders and sum their amounts per status among the given orders
+     * @param orderIds the order IDs
+     * @return rows of [status, order count, total amount]
+     */
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM Order o WHERE o.orderId IN :orderIds GROUP BY o.status")
+    List<Object[]> countAndSumByStatusForOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Find when orders changed since a point in time were created, for the rollup buckets they fall in
+     * @param since earliest update time (inclusive)
+     * @return creation times of the orders found
+     */
+    @Query("SELECT o.createdAt FROM Order o WHERE o.updatedAt >= :since")
+    List<LocalDateTime> findCreatedAtByUpdatedAtSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Count orders and sum the revenue of non-cancelled ones per hour of creation
+     * The range must lie within one day
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @param cancelled the cancelled status
+     * @return rows of [hour of day, order count, cancelled count, revenue]
+     */
+    @Query("SELECT hour(o.createdAt), COUNT(o), SUM(CASE WHEN o.status = :cancelled THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN o.status = :cancelled THEN 0 ELSE o.totalAmount END) " +
+           "FROM Order o WHERE o.createdAt >= :from AND o.createdAt < :to GROUP BY hour(o.createdAt)")
+    List<Object[]> sumByHourForRollup(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                      @Param("cancelled") OrderStatus cancelled);
 }
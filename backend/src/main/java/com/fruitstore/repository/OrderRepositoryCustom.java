@@ -0,0 +1,22 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Custom repository fragment for Order queries that Spring Data
+ * query methods cannot express (paging over a collection fetch)
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Find orders by user ID with items and pagination.
+     * Pages order IDs first and then fetches only those orders with their items and products,
+     * so the database applies the limit instead of Hibernate paging the whole history in memory.
+     * @param userId the user ID
+     * @param pageable pagination information (newest first when unsorted)
+     * @return page of orders with items loaded
+     */
+    Page<Order> findByUser_UserIdWithItems(Long userId, Pageable pageable);
+}
@@ -0,0 +1,77 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link OrderRepositoryCustom}
+ * Pages on order IDs alone, then loads the page's orders with a collection fetch that has no limit
+ */
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Order> findByUser_UserIdWithItems(Long userId, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        // Phase 1: one page of IDs, served from idx_user_created_at without touching order_items
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : NEWEST_FIRST;
+        if (sort.getOrderFor("orderId") == null) {
+            sort = sort.and(Sort.by(Sort.Direction.DESC, "orderId"));
+        }
+        CriteriaQuery<Long> idQuery = builder.createQuery(Long.class);
+        Root<Order> order = idQuery.from(Order.class);
+        idQuery.select(order.get("orderId"))
+                .where(builder.equal(order.get("user").get("userId"), userId))
+                .orderBy(QueryUtils.toOrders(sort, order, builder));
+        List<Long> orderIds = pageable.isPaged()
+                ? entityManager.createQuery(idQuery)
+                        .setFirstResult((int) pageable.getOffset())
+                        .setMaxResults(pageable.getPageSize())
+                        .getResultList()
+                : entityManager.createQuery(idQuery).getResultList();
+        if (orderIds.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, pageable.isPaged() ? countByUser(userId) : 0);
+        }
+
+        // Phase 2: the page's orders with items and products, bounded by the page size
+        Map<Long, Order> ordersById = entityManager.createQuery(
+                        "SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product " +
+                        "WHERE o.orderId IN :orderIds", Order.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList().stream()
+                .collect(Collectors.toMap(Order::getOrderId, Function.identity()));
+        List<Order> orders = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            orders.add(ordersById.get(orderId));
+        }
+        return PageableExecutionUtils.getPage(orders, pageable, () -> countByUser(userId));
+    }
+
+    private long countByUser(Long userId) {
+        return entityManager.createQuery("SELECT COUNT(o) FROM Order o WHERE o.user.userId = :userId", Long.class)
+                .setParameter("userId", userId)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,51 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.OrderRollupDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for OrderRollupDaily entity
+ * Provides data access methods for the 'order_rollup_daily' table
+ */
+@Repository
+public interface OrderRollupDailyRepository extends JpaRepository<OrderRollupDaily, Long> {
+
+    /**
+     * Find the store-wide rows of a time range
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return rows ordered by bucket start
+     */
+    @Query("SELECT r FROM OrderRollupDaily r WHERE r.categoryId IS NULL " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<OrderRollupDaily> findStoreRollups(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Find one category's rows of a time range
+     * @param categoryId the category ID
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return rows ordered by bucket start
+     */
+    @Query("SELECT r FROM OrderRollupDaily r WHERE r.categoryId = :categoryId " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<OrderRollupDaily> findCategoryRollups(@Param("categoryId") Long categoryId,
+                                               @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Delete every row of a time range
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM OrderRollupDaily r WHERE r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteByBucketStartRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,61 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.OrderRollupHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for OrderRollupHourly entity
+ * Provides data access methods for the 'order_rollup_hourly' table
+ */
+@Repository
+public interface OrderRollupHourlyRepository extends JpaRepository<OrderRollupHourly, Long> {
+
+    /**
+     * Find the store-wide rows of a time range
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return rows ordered by bucket start
+     */
+    @Query("SELECT r FROM OrderRollupHourly r WHERE r.categoryId IS NULL " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<OrderRollupHourly> findStoreRollups(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Find one category's rows of a time range
+     * @param categoryId the category ID
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return rows ordered by bucket start
+     */
+    @Query("SELECT r FROM OrderRollupHourly r WHERE r.categoryId = :categoryId " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<OrderRollupHourly> findCategoryRollups(@Param("categoryId") Long categoryId,
+                                                @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Delete every row of a time range
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM OrderRollupHourly r WHERE r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteByBucketStartRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Sum the hourly rows of a time range per category, to build a daily row
+     * @param from start of the range (inclusive)
+     * @param to end of the range (exclusive)
+     * @return rows of [category ID (null for the store-wide total), order count, cancelled count, quantity, revenue]
+     */
+    @Query("SELECT r.categoryId, SUM(r.orderCount), SUM(r.cancelledCount), SUM(r.itemQuantity), SUM(r.revenue) " +
+           "FROM OrderRollupHourly r WHERE r.bucketStart >= :from AND r.bucketStart < :to GROUP BY r.categoryId")
+    List<Object[]> sumByCategory(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,49 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.OrderStatsCounter;
+import com.fruitstore.domain.order.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Repository interface for OrderStatsCounter entity
+ * Provides data access methods for the 'order_stats' counter table
+ */
+@Repository
+public interface OrderStatsCounterRepository extends JpaRepository<OrderStatsCounter, Long> {
+
+    /**
+     * Sum the slots of every status
+     * @return rows of [status, order count, total amount]
+     */
+    @Query("SELECT c.status, SUM(c.orderCount), SUM(c.totalAmount) FROM OrderStatsCounter c GROUP BY c.status")
+    List<Object[]> sumByStatus();
+
+    /**
+     * Add to one slot of a status
+     * @param status the order status
+     * @param slot the slot
+     * @param count orders to add (negative to subtract)
+     * @param amount amount to add (negative to subtract)
+     * @return number of affected rows (0 if the slot row does not exist)
+     */
+    @Modifying
+    @Query("UPDATE OrderStatsCounter c SET c.orderCount = c.orderCount + :count, " +
+           "c.totalAmount = c.totalAmount + :amount WHERE c.status = :status AND c.slot = :slot")
+    int add(@Param("status") OrderStatus status, @Param("slot") Integer slot,
+            @Param("count") long count, @Param("amount") BigDecimal amount);
+
+    /**
+     * Delete every counter row
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM OrderStatsCounter c")
+    int deleteAllInBulk();
+}
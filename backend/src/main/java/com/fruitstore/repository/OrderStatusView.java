@@ -0,0 +1,56 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.user.UserRole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight read of one order's row and its user, without loading entities or order items
+ * Used by status transitions to check the state machine and build their response
+ */
+public interface OrderStatusView {
+
+    Long getOrderId();
+
+    String getOrderNumber();
+
+    OrderStatus getStatus();
+
+    BigDecimal getTotalAmount();
+
+    String getShippingAddress();
+
+    String getPhoneNumber();
+
+    String getCustomerName();
+
+    String getCustomerEmail();
+
+    String getNotes();
+
+    LocalDateTime getShippedAt();
+
+    LocalDateTime getDeliveredAt();
+
+    LocalDateTime getCancelledAt();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    Long getVersion();
+
+    Long getUserId();
+
+    String getUsername();
+
+    String getUserEmail();
+
+    String getUserFullName();
+
+    UserRole getUserRole();
+
+    LocalDateTime getUserCreatedAt();
+}
@@ -0,0 +1,52 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.user.UserRole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight read of one order list row: the order's columns, its user, and item totals
+ * computed by subqueries, so a page of orders is one query however many orders it holds
+ */
+public interface OrderSummaryView {
+
+    Long getOrderId();
+
+    String getOrderNumber();
+
+    OrderStatus getStatus();
+
+    BigDecimal getTotalAmount();
+
+    String getCustomerName();
+
+    String getCustomerEmail();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    /**
+     * @return number of order lines
+     */
+    Long getItemCount();
+
+    /**
+     * @return total quantity over all order lines
+     */
+    Long getTotalQuantity();
+
+    Long getUserId();
+
+    String getUsername();
+
+    String getUserEmail();
+
+    String getUserFullName();
+
+    UserRole getUserRole();
+
+    LocalDateTime getUserCreatedAt();
+}
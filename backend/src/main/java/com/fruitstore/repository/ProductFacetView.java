@@ -0,0 +1,19 @@
+package com.fruitstore.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Lightweight read of the product columns the facet snapshot keeps
+ */
+public interface ProductFacetView {
+
+    Long getProductId();
+
+    Long getCategoryId();
+
+    BigDecimal getPrice();
+
+    Integer getStockQuantity();
+
+    Boolean getIsActive();
+}
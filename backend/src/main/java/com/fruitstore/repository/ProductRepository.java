@@ -2,23 +2,30 @@ package com.fruitstore.repository;
 
 import com.fruitstore.domain.product.Category;
 import com.fruitstore.domain.product.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Product entity
  * Provides data access methods for product operations
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     /**
      * Find products by category and active status
@@ -213,4 +220,97 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     @Query("SELECT COUNT(p) > 0 FROM Product p WHERE LOWER(p.name) = LOWER(:name)")
     boolean existsByNameIgnoreCase(@Param("name") String name);
+
+    /**
+     * Atomically decrement stock quantity if enough stock is available.
+     * Runs as a single conditional UPDATE so concurrent checkouts cannot oversell;
+     * the in-memory Product entity is not refreshed. Like every bulk stock write it bumps
+     * the row's version, so an admin edit loaded before it fails instead of overwriting it.
+     * @param productId the product ID
+     * @param quantity the quantity to decrement
+     * @return number of affected rows (1 if stock was decremented, 0 if insufficient stock or product not found)
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1 " +
+           "WHERE p.productId = :productId AND p.stockQuantity >= :quantity")
+    int decrementStockIfAvailable(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+
+    /**
+     * Increment stock quantity, used to give back stock from a decrement that
+     * committed on its own before the checkout it belonged to rolled back
+     * @param productId the product ID
+     * @param quantity the quantity to add back
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.version = p.version + 1 " +
+           "WHERE p.productId = :productId")
+    int incrementStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+
+    /**
+     * Read the current stock quantity without loading the entity
+     * @param productId the product ID
+     * @return Optional containing the stock quantity if the product exists
+     */
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.productId = :productId")
+    Optional<Integer> findStockQuantityById(@Param("productId") Long productId);
+
+    /**
+     * Find product by ID and lock its row until the transaction ends
+     * @param productId the product ID
+     * @return Optional containing the product if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.productId = :productId")
+    Optional<Product> findByIdForUpdate(@Param("productId") Long productId);
+
+    /**
+     * Overwrite the stock quantity without loading the entity
+     * @param productId the product ID
+     * @param quantity the new stock quantity
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = :quantity, p.version = p.version + 1 WHERE p.productId = :productId")
+    int updateStockQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+
+    /**
+     * Stream the searchable columns of every active product, for building the search index
+     * Must be consumed inside a transaction
+     * @return stream of product rows; close it when done
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = OrderRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.productId AS productId, p.name AS name, p.description AS description, " +
+           "c.categoryId AS categoryId, p.price AS price, p.createdAt AS createdAt " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.isActive = true ORDER BY p.productId")
+    Stream<ProductSearchView> streamActiveForSearchIndex();
+
+    /**
+     * Stream the facet columns of every product, active or not, in product ID order, for building the facet snapshot
+     * Must be consumed inside a transaction
+     * @return stream of product rows; close it when done
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = OrderRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.productId AS productId, c.categoryId AS categoryId, p.price AS price, " +
+           "p.stockQuantity AS stockQuantity, p.isActive AS isActive " +
+           "FROM Product p LEFT JOIN p.category c ORDER BY p.productId")
+    Stream<ProductFacetView> streamAllForFacetSnapshot();
+
+    /**
+     * Find the IDs of active products whose name or description contains a keyword
+     * Same keyword match as {@link #findProductsWithFilters}
+     * @param keyword the keyword
+     * @return matching product IDs in ascending order
+     */
+    @Query("SELECT p.productId FROM Product p WHERE p.isActive = true " +
+           "AND (LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+           "     OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+           "ORDER BY p.productId")
+    List<Long> findActiveIdsByKeyword(@Param("keyword") String keyword);
 }
@@ -0,0 +1,42 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.product.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom repository fragment for Product queries that Spring Data
+ * query methods cannot express (JDBC-batched conditional updates, dynamic keyset queries)
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Atomically decrement stock for several products in one JDBC batch.
+     * Each entry runs the same conditional UPDATE as
+     * {@link ProductRepository#decrementStockIfAvailable(Long, Integer)}; rows are updated
+     * in ascending product ID order whatever the map's order.
+     * @param quantitiesByProductId quantity to decrement per product ID
+     * @return IDs of products whose stock was insufficient (empty if all were decremented)
+     */
+    List<Long> decrementStockInBatch(Map<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Find the next active products after a keyset position, ordered by a sort field then product ID.
+     * Only non-null filters are added to the query, so the ORDER BY can follow the sort field's index
+     * instead of scanning past skipped rows with OFFSET.
+     * @param categoryId category filter (nullable)
+     * @param minPrice minimum price filter (nullable)
+     * @param maxPrice maximum price filter (nullable)
+     * @param keyword name/description keyword filter (nullable)
+     * @param sortField entity field to sort by: name, price or createdAt
+     * @param descending whether to sort descending
+     * @param afterKey sort field value of the last product already returned, or null for the first slice
+     * @param afterId ID of the last product already returned, or null for the first slice
+     * @param limit maximum number of products to return
+     * @return products in keyset order
+     */
+    List<Product> findActiveSlice(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String keyword,
+                                  String sortField, boolean descending, Object afterKey, Long afterId, int limit);
+}
@@ -0,0 +1,106 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.product.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation of {@link ProductRepositoryCustom}
+ * Sends the conditional stock decrements as a single JDBC batch on the current transaction's connection,
+ * and builds keyset slice queries from only the filters that are set
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, version = version + 1 " +
+            "WHERE product_id = ? AND stock_quantity >= ?";
+
+    private static final Set<String> SLICE_SORT_FIELDS = Set.of("name", "price", "createdAt");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> decrementStockInBatch(Map<Long, Integer> quantitiesByProductId) {
+        if (quantitiesByProductId.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Lock the rows in ascending product ID order, like every other checkout
+        List<Long> productIds = new ArrayList<>(quantitiesByProductId.keySet());
+        Collections.sort(productIds);
+        int[] updateCounts = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DECREMENT_STOCK_SQL)) {
+                for (Long productId : productIds) {
+                    int quantity = quantitiesByProductId.get(productId);
+                    statement.setInt(1, quantity);
+                    statement.setLong(2, productId);
+                    statement.setInt(3, quantity);
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+
+        List<Long> insufficient = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                insufficient.add(productIds.get(i));
+            }
+        }
+        return insufficient;
+    }
+
+    @Override
+    public List<Product> findActiveSlice(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String keyword,
+                                         String sortField, boolean descending, Object afterKey, Long afterId,
+                                         int limit) {
+        if (!SLICE_SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Unsupported sort field for cursor pagination: " + sortField);
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.isActive = true");
+        Map<String, Object> parameters = new HashMap<>();
+        if (categoryId != null) {
+            jpql.append(" AND p.category.categoryId = :categoryId");
+            parameters.put("categoryId", categoryId);
+        }
+        if (minPrice != null) {
+            jpql.append(" AND p.price >= :minPrice");
+            parameters.put("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            jpql.append(" AND p.price <= :maxPrice");
+            parameters.put("maxPrice", maxPrice);
+        }
+        if (keyword != null) {
+            jpql.append(" AND (LOWER(p.name) LIKE :keyword OR LOWER(p.description) LIKE :keyword)");
+            parameters.put("keyword", "%" + keyword.toLowerCase() + "%");
+        }
+        if (afterKey != null && afterId != null) {
+            String comparison = descending ? "<" : ">";
+            jpql.append(" AND (p.").append(sortField).append(' ').append(comparison).append(" :afterKey")
+                .append(" OR (p.").append(sortField).append(" = :afterKey AND p.productId ")
+                .append(comparison).append(" :afterId))");
+            parameters.put("afterKey", afterKey);
+            parameters.put("afterId", afterId);
+        }
+        String direction = descending ? " DESC" : " ASC";
+        jpql.append(" ORDER BY p.").append(sortField).append(direction).append(", p.productId").append(direction);
+
+        TypedQuery<Product> query = entityManager.createQuery(jpql.toString(), Product.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
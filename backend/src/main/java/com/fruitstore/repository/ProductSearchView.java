@@ -0,0 +1,22 @@
+package com.fruitstore.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight read of the product columns the in-memory search index keeps
+ */
+public interface ProductSearchView {
+
+    Long getProductId();
+
+    String getName();
+
+    String getDescription();
+
+    Long getCategoryId();
+
+    BigDecimal getPrice();
+
+    LocalDateTime getCreatedAt();
+}
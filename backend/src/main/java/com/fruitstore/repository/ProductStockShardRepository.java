@@ -0,0 +1,79 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.domain.product.ProductStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for ProductStockShard entity
+ * Provides data access methods for sharded product stock
+ */
+@Repository
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+
+    /**
+     * Find all shards ordered by product and shard index
+     * @return list of all shards
+     */
+    List<ProductStockShard> findAllByOrderByProductIdAscShardIndexAsc();
+
+    /**
+     * Find the shards of a product and lock them in shard index order
+     * Locking in a fixed order keeps multi-shard takes from deadlocking each other
+     * @param productId the product ID
+     * @return list of shards ordered by shard index
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = :productId ORDER BY s.shardIndex")
+    List<ProductStockShard> findByProductIdForUpdate(@Param("productId") Long productId);
+
+    /**
+     * Atomically decrement one shard if it holds enough stock
+     * @param productId the product ID
+     * @param shardIndex the shard index
+     * @param quantity the quantity to decrement
+     * @return number of affected rows (1 if decremented, 0 if the shard is short or missing)
+     */
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity - :quantity " +
+           "WHERE s.productId = :productId AND s.shardIndex = :shardIndex AND s.quantity >= :quantity")
+    int decrementIfAvailable(@Param("productId") Long productId, @Param("shardIndex") Integer shardIndex,
+                             @Param("quantity") Integer quantity);
+
+    /**
+     * Increment one shard
+     * @param productId the product ID
+     * @param shardIndex the shard index
+     * @param quantity the quantity to add
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity + :quantity " +
+           "WHERE s.productId = :productId AND s.shardIndex = :shardIndex")
+    int increment(@Param("productId") Long productId, @Param("shardIndex") Integer shardIndex,
+                  @Param("quantity") Integer quantity);
+
+    /**
+     * Sum the shards of a product, including changes made by the current transaction
+     * @param productId the product ID
+     * @return total quantity over the product's shards (0 if it has none)
+     */
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM ProductStockShard s WHERE s.productId = :productId")
+    long sumQuantityByProductId(@Param("productId") Long productId);
+
+    /**
+     * Delete all shards of a product
+     * @param productId the product ID
+     * @return number of deleted rows
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId = :productId")
+    int deleteByProductIdInBulk(@Param("productId") Long productId);
+}
@@ -0,0 +1,340 @@
+package com.fruitstore.service;
+
+import com.fruitstore.dto.request.order.CreateOrderRequest;
+import com.fruitstore.dto.response.order.CheckoutTicketResponse;
+import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.repository.CartItemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service for asynchronous checkout
+ * Requests are validated cheaply, queued on a bounded in-process queue and answered with a
+ * ticket carrying a snapshot of the cart lines. Worker threads take whatever is queued (up to
+ * the batch size), order it by product so checkouts of the same product run back to back, and
+ * run the normal createOrder transaction for each ticket; the order is only created if the cart
+ * still holds the snapshotted lines. Concurrent decrements of a hot product are merged by
+ * StockDecrementCombiner, not here. A full queue rejects new requests instead of growing.
+ */
+@Service
+public class AsyncCheckoutService {
+
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final LockRetryService lockRetryService;
+    private final CartItemRepository cartItemRepository;
+    private final BlockingQueue<CheckoutTicket> queue;
+    private final ConcurrentHashMap<String, CheckoutTicket> tickets = new ConcurrentHashMap<>();
+    private final int queueCapacity;
+    private final int workerCount;
+    private final int batchSize;
+    private final long ticketTtlMinutes;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedTickets = new LongAdder();
+    private final LongAdder queueWaitMillis = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile boolean running;
+    private ExecutorService workers;
+
+    @Autowired
+    public AsyncCheckoutService(OrderService orderService, OrderIdempotencyService orderIdempotencyService,
+                                LockRetryService lockRetryService, CartItemRepository cartItemRepository,
+                                @Value("${app.checkout.async.queue-capacity:1000}") int queueCapacity,
+                                @Value("${app.checkout.async.workers:4}") int workerCount,
+                                @Value("${app.checkout.async.batch-size:32}") int batchSize,
+                                @Value("${app.checkout.async.ticket-ttl-minutes:60}") long ticketTtlMinutes) {
+        this.orderService = orderService;
+        this.orderIdempotencyService = orderIdempotencyService;
+        this.lockRetryService = lockRetryService;
+        this.cartItemRepository = cartItemRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.ticketTtlMinutes = ticketTtlMinutes;
+    }
+
+    /**
+     * Start the worker threads
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "checkout-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drainQueue);
+        }
+    }
+
+    /**
+     * Stop the worker threads; tickets still queued stay QUEUED
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (workers != null) {
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Queue a checkout for the user's current cart
+     *
+     * @param userId the user ID
+     * @param request the order creation request
+     * @param idempotencyKey optional Idempotency-Key applied when the order is created
+     * @return the queued ticket
+     * @throws IllegalArgumentException if the cart is empty
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CheckoutTicketResponse submit(Long userId, CreateOrderRequest request, String idempotencyKey) {
+        TreeMap<Long, Integer> cartLines = new TreeMap<>();
+        for (Object[] line : cartItemRepository.findProductQuantitiesByUserId(userId)) {
+            cartLines.merge((Long) line[0], (Integer) line[1], Integer::sum);
+        }
+        if (cartLines.isEmpty()) {
+            throw new IllegalArgumentException("Cannot create order from empty cart");
+        }
+
+        CheckoutTicket ticket = new CheckoutTicket(UUID.randomUUID().toString(), userId, request,
+                idempotencyKey, Collections.unmodifiableMap(cartLines), cartLines.firstKey());
+        // Snapshot before queueing: a fast worker may finish the ticket before this method returns
+        CheckoutTicketResponse response = ticket.toResponse();
+        tickets.put(ticket.ticketId, ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.ticketId);
+            rejected.increment();
+            throw new RejectedExecutionException("Checkout queue is full, please retry later");
+        }
+        submitted.increment();
+        return response;
+    }
+
+    /**
+     * Get a checkout ticket owned by the user
+     *
+     * @param ticketId the ticket ID
+     * @param userId the user ID
+     * @return the ticket
+     * @throws IllegalArgumentException if no such ticket exists for the user
+     */
+    public CheckoutTicketResponse getTicket(String ticketId, Long userId) {
+        CheckoutTicket ticket = tickets.get(ticketId);
+        if (ticket == null || !ticket.userId.equals(userId)) {
+            throw new IllegalArgumentException("Checkout ticket not found: " + ticketId);
+        }
+        return ticket.toResponse();
+    }
+
+    /**
+     * Get checkout queue metrics
+     *
+     * @return queue statistics snapshot
+     */
+    public CheckoutQueueStatistics getStatistics() {
+        long batchCount = batches.sum();
+        long processed = completed.sum() + failed.sum();
+        return new CheckoutQueueStatistics(
+                queue.size(), queueCapacity, inFlight.get(), submitted.sum(), rejected.sum(),
+                completed.sum(), failed.sum(), batchCount,
+                batchCount > 0 ? (double) batchedTickets.sum() / batchCount : 0,
+                processed > 0 ? (double) queueWaitMillis.sum() / processed : 0);
+    }
+
+    /**
+     * Forget finished tickets older than the ticket TTL
+     *
+     * @return number of tickets removed
+     */
+    @Scheduled(fixedDelayString = "${app.checkout.async.ticket-purge-interval-ms:60000}")
+    public int purgeFinishedTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ticketTtlMinutes);
+        int before = tickets.size();
+        tickets.values().removeIf(ticket -> ticket.completedAt != null && ticket.completedAt.isBefore(cutoff));
+        return before - tickets.size();
+    }
+
+    private void drainQueue() {
+        List<CheckoutTicket> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                CheckoutTicket first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                batch.sort(Comparator.comparing(ticket -> ticket.groupKey));
+                batches.increment();
+                batchedTickets.add(batch.size());
+                for (CheckoutTicket ticket : batch) {
+                    process(ticket);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(CheckoutTicket ticket) {
+        inFlight.incrementAndGet();
+        ticket.status = CheckoutTicketResponse.Status.PROCESSING;
+        queueWaitMillis.add(Duration.between(ticket.submittedAt, LocalDateTime.now()).toMillis());
+        try {
+            OrderResponse order = ticket.idempotencyKey == null
+                    ? lockRetryService.execute(() -> orderService.createOrder(ticket.userId, ticket.request,
+                            ticket.cartLines))
+                    : lockRetryService.execute(() -> orderIdempotencyService.execute(ticket.userId,
+                            ticket.idempotencyKey, () -> orderService.createOrder(ticket.userId, ticket.request,
+                                    ticket.cartLines)));
+            ticket.order = order;
+            ticket.message = "Order created successfully";
+            ticket.completedAt = LocalDateTime.now();
+            ticket.status = CheckoutTicketResponse.Status.COMPLETED;
+            completed.increment();
+        } catch (RuntimeException e) {
+            ticket.message = e.getMessage();
+            ticket.completedAt = LocalDateTime.now();
+            ticket.status = CheckoutTicketResponse.Status.FAILED;
+            failed.increment();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Queued checkout; fields written by the worker are volatile so pollers see them
+     */
+    private static final class CheckoutTicket {
+        private final String ticketId;
+        private final Long userId;
+        private final CreateOrderRequest request;
+        private final String idempotencyKey;
+        private final Map<Long, Integer> cartLines;
+        private final Long groupKey;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile CheckoutTicketResponse.Status status = CheckoutTicketResponse.Status.QUEUED;
+        private volatile OrderResponse order;
+        private volatile String message;
+        private volatile LocalDateTime completedAt;
+
+        private CheckoutTicket(String ticketId, Long userId, CreateOrderRequest request,
+                               String idempotencyKey, Map<Long, Integer> cartLines, Long groupKey) {
+            this.ticketId = ticketId;
+            this.userId = userId;
+            this.request = request;
+            this.idempotencyKey = idempotencyKey;
+            this.cartLines = cartLines;
+            this.groupKey = groupKey;
+        }
+
+        private CheckoutTicketResponse toResponse() {
+            return new CheckoutTicketResponse(ticketId, status, order, message, submittedAt, completedAt);
+        }
+    }
+
+    /**
+     * Inner class for checkout queue statistics
+     */
+    public static class CheckoutQueueStatistics {
+        private int queueDepth;
+        private int queueCapacity;
+        private int inFlight;
+        private long submitted;
+        private long rejected;
+        private long completed;
+        private long failed;
+        private long batches;
+        private double averageBatchSize;
+        private double averageQueueWaitMillis;
+
+        // Constructors
+        public CheckoutQueueStatistics() {}
+
+        public CheckoutQueueStatistics(int queueDepth, int queueCapacity, int inFlight, long submitted,
+                                       long rejected, long completed, long failed, long batches,
+                                       double averageBatchSize, double averageQueueWaitMillis) {
+            this.queueDepth = queueDepth;
+            this.queueCapacity = queueCapacity;
+            this.inFlight = inFlight;
+            this.submitted = submitted;
+            this.rejected = rejected;
+            this.completed = completed;
+            this.failed = failed;
+            this.batches = batches;
+            this.averageBatchSize = averageBatchSize;
+            this.averageQueueWaitMillis = averageQueueWaitMillis;
+        }
+
+        // Getters and Setters
+        public int getQueueDepth() { return queueDepth; }
+        public void setQueueDepth(int queueDepth) { this.queueDepth = queueDepth; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public int getInFlight() { return inFlight; }
+        public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+        public long getSubmitted() { return submitted; }
+        public void setSubmitted(long submitted) { this.submitted = submitted; }
+
+        public long getRejected() { return rejected; }
+        public void setRejected(long rejected) { this.rejected = rejected; }
+
+        public long getCompleted() { return completed; }
+        public void setCompleted(long completed) { this.completed = completed; }
+
+        public long getFailed() { return failed; }
+        public void setFailed(long failed) { this.failed = failed; }
+
+        public long getBatches() { return batches; }
+        public void setBatches(long batches) { this.batches = batches; }
+
+        public double getAverageBatchSize() { return averageBatchSize; }
+        public void setAverageBatchSize(double averageBatchSize) { this.averageBatchSize = averageBatchSize; }
+
+        public double getAverageQueueWaitMillis() { return averageQueueWaitMillis; }
+        public void setAverageQueueWaitMillis(double averageQueueWaitMillis) { this.averageQueueWaitMillis = averageQueueWaitMillis; }
+    }
+}
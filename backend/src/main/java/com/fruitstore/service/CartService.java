@@ -34,14 +34,17 @@ public class CartService {
     private final CartItemRepository cartItemRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final StockReservationService stockReservationService;
 
     @Autowired
     public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository,
-                      UserRepository userRepository, ProductRepository productRepository) {
+                      UserRepository userRepository, ProductRepository productRepository,
+                      StockReservationService stockReservationService) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
+        this.stockReservationService = stockReservationService;
     }
 
     /**
@@ -72,6 +75,7 @@ public class CartService {
      * Add item to cart
      * Automatically creates cart if it doesn't exist
      * Updates quantity if product already exists in cart
+     * Holds the total quantity in the stock reservation ledger
      * 
      * @param userId the user ID
      * @param request add to cart request
@@ -91,12 +95,6 @@ public class CartService {
             throw new IllegalArgumentException("Product is not active with id: " + request.getProductId());
         }
 
-        // Check stock availability
-        if (!product.hasSufficientStock(request.getQuantity())) {
-            throw new IllegalArgumentException("Insufficient stock. Available: " + product.getStockQuantity() + 
-                    ", Requested: " + request.getQuantity());
-        }
-
         // Get or create cart
         Cart cart = getOrCreateCart(user);
 
@@ -109,17 +107,15 @@ public class CartService {
             CartItem cartItem = existingItem.get();
             int newQuantity = cartItem.getQuantity() + request.getQuantity();
             
-            // Check if new total quantity exceeds stock
-            if (!product.hasSufficientStock(newQuantity)) {
-                throw new IllegalArgumentException("Insufficient stock for additional quantity. " +
-                        "Current in cart: " + cartItem.getQuantity() + 
-                        ", Additional requested: " + request.getQuantity() + 
-                        ", Available stock: " + product.getStockQuantity());
-            }
+            // Hold the new total quantity; fails if it exceeds stock not held by other carts
+            stockReservationService.reserve(userId, product, newQuantity);
             
             cartItem.setQuantity(newQuantity);
             cartItemRepository.save(cartItem);
         } else {
+            // Hold the requested quantity before adding the item
+            stockReservationService.reserve(userId, product, request.getQuantity());
+
             // Create new cart item
             CartItem cartItem = new CartItem();
             cartItem.setCart(cart);
@@ -159,12 +155,8 @@ public class CartService {
             throw new IllegalArgumentException("Product is no longer active: " + cartItem.getProduct().getName());
         }
 
-        // Check stock availability for new quantity
-        if (!cartItem.getProduct().hasSufficientStock(request.getQuantity())) {
-            throw new IllegalArgumentException("Insufficient stock. Available: " + 
-                    cartItem.getProduct().getStockQuantity() + 
-                    ", Requested: " + request.getQuantity());
-        }
+        // Replace the stock hold with the new quantity
+        stockReservationService.reserve(userId, cartItem.getProduct(), request.getQuantity());
 
         // Update quantity
         cartItem.setQuantity(request.getQuantity());
@@ -195,8 +187,9 @@ public class CartService {
             throw new IllegalArgumentException("Cart item does not belong to user with id: " + userId);
         }
 
-        // Remove cart item
+        // Remove cart item and its stock hold
         cartItemRepository.delete(cartItem);
+        stockReservationService.release(userId, cartItem.getProduct().getProductId());
 
         // Return updated cart
         return getCartByUserId(userId);
@@ -220,6 +213,7 @@ public class CartService {
             // Clear all cart items
             cartItemRepository.deleteByCart_CartId(cartOpt.get().getCartId());
         }
+        stockReservationService.releaseAll(userId);
 
         // Return updated cart
         return getCartByUserId(userId);
@@ -0,0 +1,232 @@
+package com.fruitstore.service;
+
+import com.fruitstore.dto.response.category.CategoryResponse;
+import com.fruitstore.dto.response.product.ProductResponse;
+import com.fruitstore.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Service for the in-process product catalog cache
+ * Keeps product lookups, product pages per category and the active category list in bounded
+ * W-TinyLFU caches so the hottest catalog reads do not go to the database.
+ *
+ * Writes through ProductService and CategoryService invalidate exactly the entries they affect,
+ * once right away and again after commit. Stock also changes through checkout, reservations and
+ * flash sales, so anything carrying a stock quantity expires after the configured staleness bound.
+ * Cached responses are shared between callers and must not be modified.
+ *
+ * Cache hits do not open a transaction. Loaders run in a read-only transaction, joining the caller's
+ * if there is one, so they can map lazy associations without relying on open-session-in-view.
+ */
+@Service
+public class CatalogCacheService {
+
+    private static final String ACTIVE_CATEGORIES = "active";
+
+    private final BoundedCache<Long, ProductResponse> products;
+    private final BoundedCache<CategoryPageKey, Page<ProductResponse>> categoryPages;
+    private final BoundedCache<String, List<CategoryResponse>> categories;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public CatalogCacheService(PlatformTransactionManager transactionManager,
+                               @Value("${app.catalog.cache.max-products:10000}") int maxProducts,
+                               @Value("${app.catalog.cache.max-pages:2000}") int maxPages,
+                               @Value("${app.catalog.cache.stock-staleness-ms:2000}") long stockStalenessMillis,
+                               @Value("${app.catalog.cache.category-ttl-seconds:600}") long categoryTtlSeconds) {
+        this.products = new BoundedCache<>(maxProducts, stockStalenessMillis);
+        this.categoryPages = new BoundedCache<>(maxPages, stockStalenessMillis);
+        this.categories = new BoundedCache<>(1, categoryTtlSeconds * 1000);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Get a product, loading it on a miss
+     *
+     * @param productId the product ID
+     * @param loader reads the product from the database
+     * @return the product response
+     */
+    public ProductResponse getProduct(Long productId, Supplier<ProductResponse> loader) {
+        return products.get(productId, inReadOnlyTransaction(loader));
+    }
+
+    /**
+     * Get one page of a category's active products, loading it on a miss
+     *
+     * @param categoryId the category ID
+     * @param pageable the page requested
+     * @param loader reads the page from the database
+     * @return the page of product responses
+     */
+    public Page<ProductResponse> getCategoryPage(Long categoryId, Pageable pageable,
+                                                 Supplier<Page<ProductResponse>> loader) {
+        return categoryPages.get(new CategoryPageKey(categoryId, pageable), inReadOnlyTransaction(loader));
+    }
+
+    /**
+     * Get the active categories, loading them on a miss
+     *
+     * @param loader reads the categories from the database
+     * @return the active category responses
+     */
+    public List<CategoryResponse> getActiveCategories(Supplier<List<CategoryResponse>> loader) {
+        return categories.get(ACTIVE_CATEGORIES, inReadOnlyTransaction(loader));
+    }
+
+    /**
+     * Drop a product and the pages of the categories it is or was listed in
+     *
+     * @param productId the product ID
+     * @param categoryIds IDs of the categories whose pages may list the product
+     */
+    public void invalidateProduct(Long productId, Long... categoryIds) {
+        List<Long> affectedCategories = Arrays.asList(categoryIds);
+        afterCommitToo(() -> {
+            products.invalidate(productId);
+            categoryPages.invalidateIf((key, page) -> affectedCategories.contains(key.categoryId));
+        });
+    }
+
+    /**
+     * Drop the active category list, the category's product pages and products embedding the category
+     *
+     * @param categoryId the category ID
+     */
+    public void invalidateCategory(Long categoryId) {
+        afterCommitToo(() -> {
+            categories.invalidateAll();
+            categoryPages.invalidateIf((key, page) -> Objects.equals(key.categoryId, categoryId));
+            products.invalidateIf((productId, product) -> product.getCategory() != null
+                    && Objects.equals(product.getCategory().getCategoryId(), categoryId));
+        });
+    }
+
+    /**
+     * Get hit, miss and eviction counts of each catalog cache
+     *
+     * @return one statistics entry per cache
+     */
+    public List<CacheStatistics> getStatistics() {
+        return List.of(
+                CacheStatistics.of("products", products),
+                CacheStatistics.of("categoryPages", categoryPages),
+                CacheStatistics.of("categories", categories));
+    }
+
+    private <T> Supplier<T> inReadOnlyTransaction(Supplier<T> loader) {
+        return () -> readOnlyTransaction.execute(status -> loader.get());
+    }
+
+    // Invalidate now so this thread reads its own write, and again after commit so a reader that loaded
+    // the old row while the transaction was still open cannot leave it cached
+    private void afterCommitToo(Runnable invalidation) {
+        invalidation.run();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidation.run();
+            }
+        });
+    }
+
+    private static final class CategoryPageKey {
+        private final Long categoryId;
+        private final Pageable pageable;
+
+        private CategoryPageKey(Long categoryId, Pageable pageable) {
+            this.categoryId = categoryId;
+            this.pageable = pageable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CategoryPageKey)) {
+                return false;
+            }
+            CategoryPageKey other = (CategoryPageKey) o;
+            return Objects.equals(categoryId, other.categoryId) && Objects.equals(pageable, other.pageable);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(categoryId, pageable);
+        }
+    }
+
+    /**
+     * Metrics of one catalog cache
+     */
+    public static class CacheStatistics {
+        private String name;
+        private int size;
+        private int maximumSize;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        // Constructors
+        public CacheStatistics() {}
+
+        public CacheStatistics(String name, int size, int maximumSize, long hits, long misses, long evictions) {
+            this.name = name;
+            this.size = size;
+            this.maximumSize = maximumSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        private static CacheStatistics of(String name, BoundedCache<?, ?> cache) {
+            return new CacheStatistics(name, cache.size(), cache.getMaximumSize(), cache.getHitCount(),
+                    cache.getMissCount(), cache.getEvictionCount());
+        }
+
+        /**
+         * @return share of lookups answered from the cache, 0 before the first lookup
+         */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        // Getters and Setters
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public int getSize() { return size; }
+        public void setSize(int size) { this.size = size; }
+
+        public int getMaximumSize() { return maximumSize; }
+        public void setMaximumSize(int maximumSize) { this.maximumSize = maximumSize; }
+
+        public long getHits() { return hits; }
+        public void setHits(long hits) { this.hits = hits; }
+
+        public long getMisses() { return misses; }
+        public void setMisses(long misses) { this.misses = misses; }
+
+        public long getEvictions() { return evictions; }
+        public void setEvictions(long evictions) { this.evictions = evictions; }
+    }
+}
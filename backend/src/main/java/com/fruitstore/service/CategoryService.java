@@ -8,6 +8,7 @@ import com.fruitstore.repository.CategoryRepository;
 import com.fruitstore.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -23,11 +24,14 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final CatalogCacheService catalogCacheService;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository, ProductRepository productRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ProductRepository productRepository,
+                           CatalogCacheService catalogCacheService) {
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
+        this.catalogCacheService = catalogCacheService;
     }
 
     /**
@@ -45,15 +49,16 @@ public class CategoryService {
 
     /**
      * Get all active categories
+     * Served from the catalog cache; cache hits do not open a transaction, misses load in a read-only one.
      * 
      * @return list of active categories
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<CategoryResponse> getActiveCategories() {
-        List<Category> categories = categoryRepository.findByIsActiveTrueOrderByNameAsc();
-        return categories.stream()
+        return catalogCacheService.getActiveCategories(() -> categoryRepository.findByIsActiveTrueOrderByNameAsc()
+                .stream()
                 .map(this::mapToCategoryResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toUnmodifiableList()));
     }
 
     /**
@@ -112,6 +117,7 @@ public class CategoryService {
 
         // Save category
         Category savedCategory = categoryRepository.save(category);
+        catalogCacheService.invalidateCategory(savedCategory.getCategoryId());
 
         return mapToCategoryResponse(savedCategory);
     }
@@ -144,6 +150,7 @@ public class CategoryService {
 
         // Save updated category
         Category updatedCategory = categoryRepository.save(category);
+        catalogCacheService.invalidateCategory(id);
 
         return mapToCategoryResponse(updatedCategory);
     }
@@ -167,6 +174,7 @@ public class CategoryService {
         // Soft delete by setting isActive to false
         category.setIsActive(false);
         categoryRepository.save(category);
+        catalogCacheService.invalidateCategory(id);
     }
 
     /**
@@ -187,6 +195,7 @@ public class CategoryService {
 
         // Permanently delete category
         categoryRepository.delete(category);
+        catalogCacheService.invalidateCategory(id);
     }
 
     /**
@@ -202,6 +211,7 @@ public class CategoryService {
 
         category.setIsActive(true);
         Category updatedCategory = categoryRepository.save(category);
+        catalogCacheService.invalidateCategory(id);
 
         return mapToCategoryResponse(updatedCategory);
     }
@@ -219,6 +229,7 @@ public class CategoryService {
 
         category.setIsActive(false);
         Category updatedCategory = categoryRepository.save(category);
+        catalogCacheService.invalidateCategory(id);
 
         return mapToCategoryResponse(updatedCategory);
     }
@@ -9,6 +9,7 @@ import com.fruitstore.dto.request.discount.UpdateDiscountRequest;
 import com.fruitstore.dto.response.discount.DiscountResponse;
 import com.fruitstore.dto.response.discount.DiscountValidationResponse;
 import com.fruitstore.dto.response.discount.DiscountUsageResponse;
+import com.fruitstore.exception.VersionConflictException;
 import com.fruitstore.repository.DiscountRepository;
 import com.fruitstore.repository.DiscountUsageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +20,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -117,9 +120,28 @@ public class DiscountService {
      * @return updated discount response
      * @throws IllegalArgumentException if discount not found
      */
+    @RetryOnOptimisticLock
     public DiscountResponse updateDiscount(Long id, UpdateDiscountRequest request) {
+        return updateDiscount(id, request, null);
+    }
+
+    /**
+     * Update discount (admin) if it still has the version the client read
+     * 
+     * @param id the discount ID
+     * @param request the update discount request
+     * @param expectedVersion version from the client's If-Match header, or null to skip the check
+     * @return updated discount response
+     * @throws VersionConflictException if the discount has been modified since the client read it
+     * @throws IllegalArgumentException if discount not found
+     */
+    @RetryOnOptimisticLock
+    public DiscountResponse updateDiscount(Long id, UpdateDiscountRequest request, Long expectedVersion) {
         Discount discount = discountRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Discount not found with id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(discount.getVersion())) {
+            throw new VersionConflictException("Discount", id, expectedVersion, discount.getVersion());
+        }
 
         // Update fields if provided
         if (request.getDescription() != null) {
@@ -150,7 +172,9 @@ public class DiscountService {
             discount.setIsActive(request.getIsActive());
         }
 
+        // Flush so the response carries the new version
         Discount updatedDiscount = discountRepository.save(discount);
+        discountRepository.flush();
         return mapToDiscountResponse(updatedDiscount);
     }
 
@@ -253,11 +277,14 @@ public class DiscountService {
 
     /**
      * Record discount usage
+     * The used count is raised by one conditional UPDATE that also enforces the usage limit,
+     * so parallel checkouts cannot over-redeem a code that passed validation at the same time.
      * 
      * @param discountId the discount ID
      * @param userId the user ID
      * @param orderId the order ID (optional)
      * @param discountAmount the discount amount applied
+     * @throws IllegalArgumentException if discount not found or its usage limit is reached
      */
     @Transactional
     public void recordDiscountUsage(Long discountId, Long userId, Long orderId, BigDecimal discountAmount) {
@@ -265,6 +292,9 @@ public class DiscountService {
         Discount discount = discountRepository.findById(discountId)
                 .orElseThrow(() -> new IllegalArgumentException("Discount not found with id: " + discountId));
 
+        // Count the use first; a failed limit check leaves no usage record behind
+        incrementUsedCount(discount);
+
         // Create discount usage record
         DiscountUsage usage = new DiscountUsage();
         usage.setDiscount(discount);
@@ -280,32 +310,28 @@ public class DiscountService {
         usage.setDiscountAmount(discountAmount.setScale(2, java.math.RoundingMode.HALF_UP));
 
         discountUsageRepository.save(usage);
-
-        // Increment used count
-        discount.incrementUsedCount();
-        discountRepository.save(discount);
     }
 
     /**
      * Record discount usage with user and order objects
+     * The used count is raised in the database only; the given entity is left untouched.
      * 
      * @param discount the discount
      * @param user the user
      * @param order the order (optional)
      * @param discountAmount the discount amount applied
+     * @throws IllegalArgumentException if the discount's usage limit is reached
      */
     @Transactional
     public void recordDiscountUsage(Discount discount, User user, Order order, BigDecimal discountAmount) {
+        incrementUsedCount(discount);
+
         // Ensure discount amount is properly scaled to 2 decimal places
         BigDecimal scaledDiscountAmount = discountAmount.setScale(2, java.math.RoundingMode.HALF_UP);
         
         // Create discount usage record
         DiscountUsage usage = new DiscountUsage(discount, user, order, scaledDiscountAmount);
         discountUsageRepository.save(usage);
-
-        // Increment used count
-        discount.incrementUsedCount();
-        discountRepository.save(discount);
     }
 
     /**
@@ -342,7 +368,7 @@ public class DiscountService {
     @Transactional(readOnly = true)
     public Page<DiscountUsageResponse> getDiscountUsages(Long discountId, Pageable pageable) {
         Page<DiscountUsage> usages = discountUsageRepository.findByDiscount_DiscountId(discountId, pageable);
-        return usages.map(this::mapToDiscountUsageResponse);
+        return mapToDiscountUsageResponses(usages);
     }
 
     /**
@@ -355,7 +381,7 @@ public class DiscountService {
     @Transactional(readOnly = true)
     public Page<DiscountUsageResponse> getUserDiscountUsages(Long userId, Pageable pageable) {
         Page<DiscountUsage> usages = discountUsageRepository.findByUser_UserId(userId, pageable);
-        return usages.map(this::mapToDiscountUsageResponse);
+        return mapToDiscountUsageResponses(usages);
     }
 
     /**
@@ -406,11 +432,20 @@ public class DiscountService {
         return mapToDiscountResponse(discount);
     }
 
+    /**
+     * Count one use of a discount, failing when its usage limit is reached
+     */
+    private void incrementUsedCount(Discount discount) {
+        if (discountRepository.incrementUsedCountIfBelowLimit(discount.getDiscountId()) == 0) {
+            throw new IllegalArgumentException("Discount usage limit reached: " + discount.getCode());
+        }
+    }
+
     /**
      * Map Discount entity to DiscountResponse DTO
      */
     private DiscountResponse mapToDiscountResponse(Discount discount) {
-        return new DiscountResponse(
+        DiscountResponse response = new DiscountResponse(
             discount.getDiscountId(),
             discount.getCode(),
             discount.getDescription(),
@@ -426,12 +461,30 @@ public class DiscountService {
             discount.getCreatedAt(),
             discount.getUpdatedAt()
         );
+        response.setVersion(discount.getVersion());
+        return response;
+    }
+
+    /**
+     * Map a page of DiscountUsage entities to DiscountUsageResponse DTOs
+     * Order numbers are read in one query that also covers archived orders, which the lazy
+     * order association can no longer load
+     */
+    private Page<DiscountUsageResponse> mapToDiscountUsageResponses(Page<DiscountUsage> usages) {
+        Map<Long, String> orderNumbers = new HashMap<>();
+        if (usages.hasContent()) {
+            List<Long> usageIds = usages.getContent().stream().map(DiscountUsage::getUsageId).toList();
+            for (Object[] row : discountUsageRepository.findOrderNumbers(usageIds)) {
+                orderNumbers.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return usages.map(usage -> mapToDiscountUsageResponse(usage, orderNumbers.get(usage.getUsageId())));
     }
 
     /**
      * Map DiscountUsage entity to DiscountUsageResponse DTO
      */
-    private DiscountUsageResponse mapToDiscountUsageResponse(DiscountUsage usage) {
+    private DiscountUsageResponse mapToDiscountUsageResponse(DiscountUsage usage, String orderNumber) {
         return new DiscountUsageResponse(
             usage.getUsageId(),
             usage.getDiscount() != null ? usage.getDiscount().getDiscountId() : null,
@@ -439,7 +492,7 @@ public class DiscountService {
             usage.getUser() != null ? usage.getUser().getUserId() : null,
             usage.getUser() != null ? usage.getUser().getUsername() : null,
             usage.getOrder() != null ? usage.getOrder().getOrderId() : null,
-            usage.getOrder() != null ? usage.getOrder().getOrderNumber() : null,
+            orderNumber,
             usage.getDiscountAmount(),
             usage.getUsedAt()
         );
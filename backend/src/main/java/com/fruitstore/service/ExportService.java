@@ -0,0 +1,261 @@
+package com.fruitstore.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.repository.DiscountUsageExportView;
+import com.fruitstore.repository.DiscountUsageRepository;
+import com.fruitstore.repository.OrderItemExportView;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.OrderSummaryView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service for admin sales exports
+ * Streams orders, order items or discount usages from a forward-only cursor straight to the output,
+ * one row at a time as CSV or NDJSON, so memory use does not depend on the number of rows exported
+ */
+@Service
+public class ExportService {
+
+    private static final String[] ORDER_COLUMNS = {
+            "orderId", "orderNumber", "status", "totalAmount", "customerName", "customerEmail", "itemCount",
+            "totalQuantity", "userId", "username", "createdAt", "updatedAt"
+    };
+    private static final String[] ORDER_ITEM_COLUMNS = {
+            "orderItemId", "orderId", "orderNumber", "orderStatus", "orderCreatedAt", "productId", "productName",
+            "quantity", "unitPrice", "subtotal"
+    };
+    private static final String[] DISCOUNT_USAGE_COLUMNS = {
+            "usageId", "discountId", "discountCode", "userId", "username", "orderId", "orderNumber",
+            "discountAmount", "usedAt"
+    };
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final DiscountUsageRepository discountUsageRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ExportService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
+                         DiscountUsageRepository discountUsageRepository, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.discountUsageRepository = discountUsageRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Stream one dataset to an output stream
+     * Filters are the same as {@link OrderService#getOrdersWithFilters}; the output stream is flushed but not closed
+     *
+     * @param dataset the dataset to export
+     * @param format the output format
+     * @param userId the user ID filter (can be null)
+     * @param status the order status filter (can be null)
+     * @param minAmount the minimum total amount filter (can be null)
+     * @param maxAmount the maximum total amount filter (can be null)
+     * @param customerName the customer name filter (can be null)
+     * @param customerEmail the customer email filter (can be null)
+     * @param startDate the start date filter (can be null)
+     * @param endDate the end date filter (can be null)
+     * @param out where to write the rows
+     * @return number of rows written
+     * @throws IOException if writing to the output fails, e.g. the client went away
+     */
+    @Transactional(readOnly = true)
+    public long export(Dataset dataset, Format format, Long userId, OrderStatus status, BigDecimal minAmount,
+                       BigDecimal maxAmount, String customerName, String customerEmail,
+                       LocalDateTime startDate, LocalDateTime endDate, OutputStream out) throws IOException {
+        switch (dataset) {
+            case ORDERS:
+                try (Stream<OrderSummaryView> rows = orderRepository.streamSummariesForExport(userId, status,
+                        minAmount, maxAmount, customerName, customerEmail, startDate, endDate)) {
+                    return write(rows, ORDER_COLUMNS, this::toValues, format, out);
+                }
+            case ORDER_ITEMS:
+                try (Stream<OrderItemExportView> rows = orderItemRepository.streamForExport(userId, status,
+                        minAmount, maxAmount, customerName, customerEmail, startDate, endDate)) {
+                    return write(rows, ORDER_ITEM_COLUMNS, this::toValues, format, out);
+                }
+            default:
+                try (Stream<DiscountUsageExportView> rows = discountUsageRepository.streamForExport(userId, status,
+                        minAmount, maxAmount, customerName, customerEmail, startDate, endDate)) {
+                    return write(rows, DISCOUNT_USAGE_COLUMNS, this::toValues, format, out);
+                }
+        }
+    }
+
+    private <T> long write(Stream<T> rows, String[] columns, Function<T, Object[]> toValues, Format format,
+                           OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        if (format == Format.CSV) {
+            writeCsvLine(writer, columns);
+            while (iterator.hasNext()) {
+                writeCsvLine(writer, toValues.apply(iterator.next()));
+                count++;
+            }
+            writer.flush();
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+            generator.setRootValueSeparator(null);
+            while (iterator.hasNext()) {
+                Object[] values = toValues.apply(iterator.next());
+                generator.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    writeJsonField(generator, columns[i], values[i]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                count++;
+            }
+            generator.flush();
+        }
+        return count;
+    }
+
+    private void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(toCsvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private String toCsvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        if (value instanceof CharSequence && isFormulaStart(text)) {
+            // Spreadsheets evaluate cells starting with these as formulas; customer and product names are user input
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private boolean isFormulaStart(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    private void writeJsonField(JsonGenerator generator, String name, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumberField(name, (BigDecimal) value);
+        } else if (value instanceof Long) {
+            generator.writeNumberField(name, (Long) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumberField(name, (Integer) value);
+        } else {
+            generator.writeStringField(name, value.toString());
+        }
+    }
+
+    private Object[] toValues(OrderSummaryView order) {
+        return new Object[] {
+                order.getOrderId(), order.getOrderNumber(), order.getStatus(), order.getTotalAmount(),
+                order.getCustomerName(), order.getCustomerEmail(), order.getItemCount(), order.getTotalQuantity(),
+                order.getUserId(), order.getUsername(), order.getCreatedAt(), order.getUpdatedAt()
+        };
+    }
+
+    private Object[] toValues(OrderItemExportView item) {
+        return new Object[] {
+                item.getOrderItemId(), item.getOrderId(), item.getOrderNumber(), item.getOrderStatus(),
+                item.getOrderCreatedAt(), item.getProductId(), item.getProductName(), item.getQuantity(),
+                item.getUnitPrice(), item.getSubtotal()
+        };
+    }
+
+    private Object[] toValues(DiscountUsageExportView usage) {
+        return new Object[] {
+                usage.getUsageId(), usage.getDiscountId(), usage.getDiscountCode(), usage.getUserId(),
+                usage.getUsername(), usage.getOrderId(), usage.getOrderNumber(), usage.getDiscountAmount(),
+                usage.getUsedAt()
+        };
+    }
+
+    /**
+     * Exportable datasets, by URL path segment
+     */
+    public enum Dataset {
+        ORDERS("orders"),
+        ORDER_ITEMS("order-items"),
+        DISCOUNT_USAGES("discount-usages");
+
+        private final String path;
+
+        Dataset(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @param path the URL path segment
+         * @return the dataset
+         * @throws IllegalArgumentException if no dataset has this path
+         */
+        public static Dataset fromPath(String path) {
+            for (Dataset dataset : values()) {
+                if (dataset.path.equalsIgnoreCase(path)) {
+                    return dataset;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export dataset: " + path);
+        }
+    }
+
+    /**
+     * Export output formats
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.fruitstore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruitstore.domain.order.OrderOutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order event sink that appends events to a local file, one JSON object per line
+ * Enabled by setting app.outbox.file-sink.path
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.file-sink.path")
+public class FileOrderEventSink implements OrderEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    @Autowired
+    public FileOrderEventSink(ObjectMapper objectMapper, @Value("${app.outbox.file-sink.path}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = Path.of(path);
+    }
+
+    @Override
+    public String getName() {
+        return "file:" + path;
+    }
+
+    @Override
+    public synchronized void publish(List<OrderOutboxEvent> events) {
+        StringBuilder lines = new StringBuilder(events.size() * 200);
+        for (OrderOutboxEvent event : events) {
+            lines.append(toJson(event)).append('\n');
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(path, lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write order events to " + path, e);
+        }
+    }
+
+    private String toJson(OrderOutboxEvent event) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("eventId", event.getOutboxId());
+        json.put("type", event.getEventType());
+        json.put("orderId", event.getOrderId());
+        json.put("orderNumber", event.getOrderNumber());
+        json.put("userId", event.getUserId());
+        json.put("status", event.getStatus());
+        json.put("previousStatus", event.getPreviousStatus());
+        json.put("totalAmount", event.getTotalAmount());
+        json.put("occurredAt", event.getCreatedAt() != null ? event.getCreatedAt().toString() : null);
+        try {
+            return objectMapper.writeValueAsString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize order event " + event.getOutboxId(), e);
+        }
+    }
+}
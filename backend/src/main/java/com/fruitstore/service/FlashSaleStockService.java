@@ -0,0 +1,440 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.FlashSaleProduct;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.repository.FlashSaleProductRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service for flash-sale stock
+ * Stock of a product in flash-sale mode is held in an in-memory atomic counter that checkout
+ * decrements without touching the 'products' row. A write-behind flusher applies the change
+ * of the counter since the previous flush to the database as a delta; orders and order items
+ * are still written by the checkout transaction itself. The stock at the start of the sale is
+ * kept in 'flash_sale_products', so after a restart the counter is rebuilt from the order items
+ * created since then.
+ *
+ * Flash sales are single-instance only: counters are node-local, so with several app instances
+ * each one would sell the whole counter. Route a product's flash-sale checkouts to one instance
+ * (or run a single instance) for the duration of the sale. Delta writes keep the database stock
+ * from being overwritten by another instance, but they do not prevent that oversell.
+ *
+ * Enable a product before its sale opens: checkouts that are already past their stock
+ * decrement when the product is switched are not seen by the counter.
+ */
+@Service
+public class FlashSaleStockService {
+
+    private static final int DRAINED = Integer.MIN_VALUE;
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final FlashSaleProductRepository flashSaleProductRepository;
+    private final StockReservationService stockReservationService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final ConcurrentHashMap<Long, FlashCounter> counters = new ConcurrentHashMap<>();
+
+    private final LongAdder decrements = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder givenBack = new LongAdder();
+    private final LongAdder flushedWrites = new LongAdder();
+
+    @Autowired
+    public FlashSaleStockService(ProductRepository productRepository, OrderItemRepository orderItemRepository,
+                                 FlashSaleProductRepository flashSaleProductRepository,
+                                 StockReservationService stockReservationService,
+                                 PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.flashSaleProductRepository = flashSaleProductRepository;
+        this.stockReservationService = stockReservationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Rebuild the counters of products still in flash-sale mode
+     * The counter is the stock at the start of the sale minus everything ordered since;
+     * decrements whose checkout never committed are not in order_items and are not counted.
+     *
+     * @return number of counters rebuilt
+     */
+    @PostConstruct
+    public int recover() {
+        int recovered = 0;
+        for (FlashSaleProduct flashSale : flashSaleProductRepository.findAll()) {
+            long sold = orderItemRepository.sumQuantityByProductSince(flashSale.getProductId(), flashSale.getStartedAt());
+            int stock = (int) Math.max(0, flashSale.getInitialStock() - sold);
+            // The row holds whatever the last flush wrote; the first flush applies the difference
+            int persisted = productRepository.findById(flashSale.getProductId())
+                    .map(Product::getStockQuantity).orElse(stock);
+            counters.put(flashSale.getProductId(), new FlashCounter(flashSale, stock, persisted));
+            recovered++;
+        }
+        return recovered;
+    }
+
+    /**
+     * Put a product in flash-sale mode, seeding its counter from the current stock
+     *
+     * @param productId the product ID
+     * @return the flash-sale state of the product
+     * @throws IllegalArgumentException if the product does not exist, is inactive or is already in flash-sale mode
+     */
+    public FlashSaleStatus enable(Long productId) {
+        if (counters.containsKey(productId)) {
+            throw new IllegalArgumentException("Product is already in flash-sale mode: " + productId);
+        }
+        FlashSaleProduct flashSale = transactionTemplate.execute(status -> {
+            Product product = productRepository.findByIdForUpdate(productId)
+                    .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + productId));
+            if (!product.getIsActive()) {
+                throw new IllegalArgumentException("Product is not active with id: " + productId);
+            }
+            if (product.getShardedStockQuantity() != null) {
+                throw new IllegalArgumentException("Product stock is sharded, collapse it first: " + productId);
+            }
+            return flashSaleProductRepository.save(
+                    new FlashSaleProduct(productId, product.getStockQuantity(), LocalDateTime.now()));
+        });
+        FlashCounter counter = new FlashCounter(flashSale, flashSale.getInitialStock(), flashSale.getInitialStock());
+        if (counters.putIfAbsent(productId, counter) != null) {
+            throw new IllegalArgumentException("Product is already in flash-sale mode: " + productId);
+        }
+        return counter.toStatus();
+    }
+
+    /**
+     * Take a product out of flash-sale mode and drain its counter back to the database
+     *
+     * @param productId the product ID
+     * @return the final flash-sale state of the product
+     * @throws IllegalArgumentException if the product is not in flash-sale mode
+     */
+    public FlashSaleStatus disable(Long productId) {
+        FlashCounter counter = requireCounter(productId);
+        synchronized (counter) {
+            int stock = counter.stock.getAndSet(DRAINED);
+            int delta = stock - counter.persisted;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    productRepository.incrementStock(productId, delta);
+                    flashSaleProductRepository.deleteById(productId);
+                });
+            } catch (RuntimeException e) {
+                counter.stock.set(stock);
+                throw e;
+            }
+            counters.remove(productId, counter);
+            counter.persisted = stock;
+            stockReservationService.syncOnHand(productId, stock);
+            return new FlashSaleStatus(productId, false, stock, stock,
+                    counter.flashSale.getInitialStock(), counter.flashSale.getStartedAt());
+        }
+    }
+
+    /**
+     * Check whether a product is in flash-sale mode
+     *
+     * @param productId the product ID
+     * @return true if the product's stock is served from memory
+     */
+    public boolean isFlashSale(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    /**
+     * Get the in-memory stock of a flash-sale product without touching the database
+     *
+     * @param productId the product ID
+     * @return the stock, or empty if the product is not in flash-sale mode
+     */
+    public OptionalInt getStock(Long productId) {
+        FlashCounter counter = counters.get(productId);
+        if (counter == null) {
+            return OptionalInt.empty();
+        }
+        int stock = counter.stock.get();
+        return stock == DRAINED ? OptionalInt.empty() : OptionalInt.of(stock);
+    }
+
+    /**
+     * Decrement flash-sale stock for several products
+     * Decrements are given back if the surrounding transaction rolls back. A product drained
+     * in the meantime is decremented in the database on the caller's transaction instead.
+     *
+     * @param quantitiesByProductId quantity to decrement per product ID
+     * @return IDs of products whose stock was insufficient (empty if all were decremented)
+     */
+    public List<Long> decrement(Map<Long, Integer> quantitiesByProductId) {
+        List<Long> insufficient = new ArrayList<>();
+        Map<FlashCounter, Integer> taken = new LinkedHashMap<>();
+        Map<Long, Integer> drained = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantitiesByProductId.entrySet()) {
+            FlashCounter counter = counters.get(entry.getKey());
+            int result = counter == null ? DRAINED : counter.take(entry.getValue());
+            if (result == DRAINED) {
+                drained.put(entry.getKey(), entry.getValue());
+            } else if (result < 0) {
+                rejected.increment();
+                insufficient.add(entry.getKey());
+            } else {
+                decrements.increment();
+                taken.put(counter, entry.getValue());
+            }
+        }
+        registerGiveBackOnRollback(taken);
+
+        if (!drained.isEmpty()) {
+            insufficient.addAll(productRepository.decrementStockInBatch(drained));
+        }
+        return insufficient;
+    }
+
+    /**
+     * Write-behind: apply the change of every counter since the last flush to the database
+     *
+     * @return number of products written
+     */
+    @Scheduled(fixedDelayString = "${app.flash-sale.flush-interval-ms:1000}")
+    public int flush() {
+        int written = 0;
+        for (FlashCounter counter : counters.values()) {
+            if (persist(counter)) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Get the flash-sale state of every product in flash-sale mode
+     *
+     * @return flash-sale states ordered by product ID
+     */
+    public List<FlashSaleStatus> getStatuses() {
+        List<FlashSaleStatus> statuses = new ArrayList<>();
+        for (FlashCounter counter : counters.values()) {
+            statuses.add(counter.toStatus());
+        }
+        statuses.sort(Comparator.comparing(FlashSaleStatus::getProductId));
+        return statuses;
+    }
+
+    /**
+     * Get flash-sale metrics
+     *
+     * @return flash-sale statistics snapshot
+     */
+    public FlashSaleStatistics getStatistics() {
+        return new FlashSaleStatistics(counters.size(), decrements.sum(), rejected.sum(),
+                givenBack.sum(), flushedWrites.sum());
+    }
+
+    private boolean persist(FlashCounter counter) {
+        int stock;
+        synchronized (counter) {
+            stock = counter.stock.get();
+            if (stock == DRAINED || stock == counter.persisted) {
+                return false;
+            }
+            int delta = stock - counter.persisted;
+            transactionTemplate.executeWithoutResult(status ->
+                    productRepository.incrementStock(counter.flashSale.getProductId(), delta));
+            counter.persisted = stock;
+            flushedWrites.increment();
+        }
+        stockReservationService.syncOnHand(counter.flashSale.getProductId(), stock);
+        return true;
+    }
+
+    private void registerGiveBackOnRollback(Map<FlashCounter, Integer> taken) {
+        if (taken.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    taken.forEach(FlashSaleStockService.this::giveBack);
+                }
+            }
+        });
+    }
+
+    private void giveBack(FlashCounter counter, int quantity) {
+        givenBack.increment();
+        synchronized (counter) {
+            if (counter.giveBack(quantity)) {
+                return;
+            }
+            // Drained while the checkout was running: the database row is authoritative again
+            newTransaction.executeWithoutResult(status ->
+                    productRepository.incrementStock(counter.flashSale.getProductId(), quantity));
+        }
+    }
+
+    private FlashCounter requireCounter(Long productId) {
+        FlashCounter counter = counters.get(productId);
+        if (counter == null) {
+            throw new IllegalArgumentException("Product is not in flash-sale mode: " + productId);
+        }
+        return counter;
+    }
+
+    /**
+     * In-memory stock of one flash-sale product; DRAINED marks a counter handed back to the database
+     */
+    private static final class FlashCounter {
+        private final FlashSaleProduct flashSale;
+        private final AtomicInteger stock;
+        private int persisted;
+
+        private FlashCounter(FlashSaleProduct flashSale, int stock, int persisted) {
+            this.flashSale = flashSale;
+            this.stock = new AtomicInteger(stock);
+            this.persisted = persisted;
+        }
+
+        /**
+         * @return the remaining stock, -1 if insufficient, or DRAINED
+         */
+        private int take(int quantity) {
+            while (true) {
+                int current = stock.get();
+                if (current == DRAINED) {
+                    return DRAINED;
+                }
+                if (current < quantity) {
+                    return -1;
+                }
+                if (stock.compareAndSet(current, current - quantity)) {
+                    return current - quantity;
+                }
+            }
+        }
+
+        private boolean giveBack(int quantity) {
+            while (true) {
+                int current = stock.get();
+                if (current == DRAINED) {
+                    return false;
+                }
+                if (stock.compareAndSet(current, current + quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        private synchronized FlashSaleStatus toStatus() {
+            return new FlashSaleStatus(flashSale.getProductId(), true, stock.get(), persisted,
+                    flashSale.getInitialStock(), flashSale.getStartedAt());
+        }
+    }
+
+    /**
+     * Inner class for the flash-sale state of one product
+     */
+    public static class FlashSaleStatus {
+        private Long productId;
+        private boolean active;
+        private int stock;
+        private int persistedStock;
+        private int initialStock;
+        private LocalDateTime startedAt;
+
+        // Constructors
+        public FlashSaleStatus() {}
+
+        public FlashSaleStatus(Long productId, boolean active, int stock, int persistedStock,
+                               int initialStock, LocalDateTime startedAt) {
+            this.productId = productId;
+            this.active = active;
+            this.stock = stock;
+            this.persistedStock = persistedStock;
+            this.initialStock = initialStock;
+            this.startedAt = startedAt;
+        }
+
+        // Getters and Setters
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public boolean isActive() { return active; }
+        public void setActive(boolean active) { this.active = active; }
+
+        public int getStock() { return stock; }
+        public void setStock(int stock) { this.stock = stock; }
+
+        public int getPersistedStock() { return persistedStock; }
+        public void setPersistedStock(int persistedStock) { this.persistedStock = persistedStock; }
+
+        public int getInitialStock() { return initialStock; }
+        public void setInitialStock(int initialStock) { this.initialStock = initialStock; }
+
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    }
+
+    /**
+     * Inner class for flash-sale statistics
+     */
+    public static class FlashSaleStatistics {
+        private int activeProducts;
+        private long decrements;
+        private long rejected;
+        private long givenBack;
+        private long flushedWrites;
+
+        // Constructors
+        public FlashSaleStatistics() {}
+
+        public FlashSaleStatistics(int activeProducts, long decrements, long rejected,
+                                   long givenBack, long flushedWrites) {
+            this.activeProducts = activeProducts;
+            this.decrements = decrements;
+            this.rejected = rejected;
+            this.givenBack = givenBack;
+            this.flushedWrites = flushedWrites;
+        }
+
+        // Getters and Setters
+        public int getActiveProducts() { return activeProducts; }
+        public void setActiveProducts(int activeProducts) { this.activeProducts = activeProducts; }
+
+        public long getDecrements() { return decrements; }
+        public void setDecrements(long decrements) { this.decrements = decrements; }
+
+        public long getRejected() { return rejected; }
+        public void setRejected(long rejected) { this.rejected = rejected; }
+
+        public long getGivenBack() { return givenBack; }
+        public void setGivenBack(long givenBack) { this.givenBack = givenBack; }
+
+        public long getFlushedWrites() { return flushedWrites; }
+        public void setFlushedWrites(long flushedWrites) { this.flushedWrites = flushedWrites; }
+    }
+}
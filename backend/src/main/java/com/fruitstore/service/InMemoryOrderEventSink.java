@@ -0,0 +1,45 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.OrderOutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order event sink that keeps published events in memory
+ * Intended for tests and local development; enabled with app.outbox.memory-sink.enabled=true
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.memory-sink.enabled", havingValue = "true")
+public class InMemoryOrderEventSink implements OrderEventSink {
+
+    private final List<OrderOutboxEvent> events = new ArrayList<>();
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public synchronized void publish(List<OrderOutboxEvent> batch) {
+        events.addAll(batch);
+    }
+
+    /**
+     * Get a copy of every event published so far
+     *
+     * @return published events in publication order
+     */
+    public synchronized List<OrderOutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    /**
+     * Forget all published events
+     */
+    public synchronized void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,197 @@
+package com.fruitstore.service;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Service for retrying transactions that lost a lock
+ * Runs a transactional action and, when it fails as a deadlock victim or on a lock wait timeout,
+ * runs it again after a randomized backoff ("full jitter": a random delay up to an exponentially
+ * growing cap) so the contenders do not collide again in lockstep. Other failures are rethrown
+ * at once. The action must open its own transaction; inside an existing one the failure has
+ * already doomed the caller's transaction and is rethrown without retrying.
+ */
+@Service
+public class LockRetryService {
+
+    // MySQL error codes and SQL states for deadlocks and lock wait timeouts
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final String SQLSTATE_SERIALIZATION_FAILURE = "40001";
+    private static final String SQLSTATE_LOCK_TIMEOUT = "HYT00";
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder lockTimeouts = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder backoffMillis = new LongAdder();
+
+    @Autowired
+    public LockRetryService(@Value("${app.lock-retry.max-attempts:4}") int maxAttempts,
+                            @Value("${app.lock-retry.base-backoff-ms:10}") long baseBackoffMillis,
+                            @Value("${app.lock-retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Lock retry attempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Run an action, retrying it when it loses a lock
+     *
+     * @param action the action; must start and finish its own transaction
+     * @return the action's result
+     * @throws RuntimeException the action's failure once it is not retryable or attempts run out
+     */
+    public <T> T execute(Supplier<T> action) {
+        executions.increment();
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = action.get();
+                if (attempt > 1) {
+                    recovered.increment();
+                }
+                return result;
+            } catch (RuntimeException e) {
+                LockFailure failure = classify(e);
+                if (failure == LockFailure.NONE) {
+                    throw e;
+                }
+                if (failure == LockFailure.DEADLOCK) {
+                    deadlocks.increment();
+                } else {
+                    lockTimeouts.increment();
+                }
+                if (!retryable || attempt >= maxAttempts) {
+                    if (retryable) {
+                        exhausted.increment();
+                    }
+                    throw e;
+                }
+                retries.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Get lock retry metrics
+     *
+     * @return lock retry statistics snapshot
+     */
+    public LockRetryStatistics getStatistics() {
+        return new LockRetryStatistics(maxAttempts, executions.sum(), retries.sum(), deadlocks.sum(),
+                lockTimeouts.sum(), recovered.sum(), exhausted.sum(), backoffMillis.sum());
+    }
+
+    private void backOff(int attempt) {
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+        backoffMillis.add(delay);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    static LockFailure classify(Throwable failure) {
+        LockFailure result = LockFailure.NONE;
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            // Spring 6.1 translates deadlocks and lock timeouts alike to CannotAcquireLockException (a
+            // PessimisticLockingFailureException), so only the SQL code tells a deadlock apart
+            if (cause instanceof SQLException sql) {
+                if (sql.getErrorCode() == MYSQL_DEADLOCK || SQLSTATE_SERIALIZATION_FAILURE.equals(sql.getSQLState())) {
+                    return LockFailure.DEADLOCK;
+                }
+                if (sql.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT || SQLSTATE_LOCK_TIMEOUT.equals(sql.getSQLState())) {
+                    result = LockFailure.LOCK_TIMEOUT;
+                }
+            }
+            if (cause instanceof PessimisticLockingFailureException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof LockTimeoutException) {
+                result = LockFailure.LOCK_TIMEOUT;
+            }
+        }
+        return result;
+    }
+
+    enum LockFailure {
+        NONE, DEADLOCK, LOCK_TIMEOUT
+    }
+
+    /**
+     * Inner class for lock retry statistics
+     */
+    public static class LockRetryStatistics {
+        private int maxAttempts;
+        private long executions;
+        private long retries;
+        private long deadlocks;
+        private long lockTimeouts;
+        private long recovered;
+        private long exhausted;
+        private long backoffMillis;
+
+        // Constructors
+        public LockRetryStatistics() {}
+
+        public LockRetryStatistics(int maxAttempts, long executions, long retries, long deadlocks,
+                                   long lockTimeouts, long recovered, long exhausted, long backoffMillis) {
+            this.maxAttempts = maxAttempts;
+            this.executions = executions;
+            this.retries = retries;
+            this.deadlocks = deadlocks;
+            this.lockTimeouts = lockTimeouts;
+            this.recovered = recovered;
+            this.exhausted = exhausted;
+            this.backoffMillis = backoffMillis;
+        }
+
+        // Getters and Setters
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public long getExecutions() { return executions; }
+        public void setExecutions(long executions) { this.executions = executions; }
+
+        public long getRetries() { return retries; }
+        public void setRetries(long retries) { this.retries = retries; }
+
+        public long getDeadlocks() { return deadlocks; }
+        public void setDeadlocks(long deadlocks) { this.deadlocks = deadlocks; }
+
+        public long getLockTimeouts() { return lockTimeouts; }
+        public void setLockTimeouts(long lockTimeouts) { this.lockTimeouts = lockTimeouts; }
+
+        public long getRecovered() { return recovered; }
+        public void setRecovered(long recovered) { this.recovered = recovered; }
+
+        public long getExhausted() { return exhausted; }
+        public void setExhausted(long exhausted) { this.exhausted = exhausted; }
+
+        public long getBackoffMillis() { return backoffMillis; }
+        public void setBackoffMillis(long backoffMillis) { this.backoffMillis = backoffMillis; }
+    }
+}
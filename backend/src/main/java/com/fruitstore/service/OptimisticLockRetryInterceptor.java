@@ -0,0 +1,189 @@
+package com.fruitstore.service;
+
+import com.fruitstore.exception.VersionConflictException;
+import jakarta.persistence.OptimisticLockException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry interceptor for methods annotated with {@link RetryOnOptimisticLock}
+ * Runs outside the transaction interceptor: when the method's transaction fails on a stale
+ * @Version, the whole method runs again in a new transaction that reloads the entity, after a
+ * short randomized pause. A {@link VersionConflictException} (the client's If-Match is stale)
+ * is never retried, since reloading cannot fix it. Conflicts are counted per entity type.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticLockRetryInterceptor {
+
+    private static final String UNKNOWN_ENTITY = "Unknown";
+
+    private final int defaultMaxAttempts;
+    private final long maxBackoffMillis;
+
+    private final ConcurrentHashMap<String, LongAdder> conflictsByEntity = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    @Autowired
+    public OptimisticLockRetryInterceptor(@Value("${app.optimistic-retry.max-attempts:3}") int defaultMaxAttempts,
+                                          @Value("${app.optimistic-retry.max-backoff-ms:20}") long maxBackoffMillis) {
+        this.defaultMaxAttempts = Math.max(1, defaultMaxAttempts);
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Run the annotated method, re-running it when it loses an optimistic version check
+     *
+     * @param joinPoint the intercepted call
+     * @param retry the method's retry settings
+     * @return the method's result
+     * @throws Throwable the method's failure once it is not retryable or attempts run out
+     */
+    @Around("@annotation(retry)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnOptimisticLock retry) throws Throwable {
+        int maxAttempts = retry.maxAttempts() > 0 ? retry.maxAttempts() : defaultMaxAttempts;
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                if (attempt > 1) {
+                    recovered.increment();
+                }
+                return result;
+            } catch (VersionConflictException e) {
+                recordConflict(e.getEntityName());
+                throw e;
+            } catch (RuntimeException e) {
+                if (!isOptimisticLockFailure(e)) {
+                    throw e;
+                }
+                recordConflict(entityName(e));
+                if (!retryable || attempt >= maxAttempts) {
+                    if (retryable) {
+                        exhausted.increment();
+                    }
+                    throw e;
+                }
+                retries.increment();
+                pause();
+            }
+        }
+    }
+
+    private void recordConflict(String entityName) {
+        conflictsByEntity.computeIfAbsent(entityName, name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Get optimistic locking metrics
+     *
+     * @return optimistic retry statistics snapshot
+     */
+    public OptimisticRetryStatistics getStatistics() {
+        Map<String, Long> conflicts = new TreeMap<>();
+        conflictsByEntity.forEach((entity, count) -> conflicts.put(entity, count.sum()));
+        return new OptimisticRetryStatistics(defaultMaxAttempts, conflicts, retries.sum(), recovered.sum(),
+                exhausted.sum());
+    }
+
+    private void pause() {
+        if (maxBackoffMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxBackoffMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    static boolean isOptimisticLockFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String entityName(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            String name = null;
+            if (cause instanceof ObjectOptimisticLockingFailureException objectFailure) {
+                name = objectFailure.getPersistentClassName();
+            } else if (cause instanceof OptimisticLockException jpaFailure && jpaFailure.getEntity() != null) {
+                name = jpaFailure.getEntity().getClass().getName();
+            } else if (cause instanceof StaleObjectStateException staleFailure) {
+                name = staleFailure.getEntityName();
+            }
+            if (name != null) {
+                String simpleName = name.substring(name.lastIndexOf('.') + 1);
+                int proxySuffix = simpleName.indexOf('$');
+                return proxySuffix > 0 ? simpleName.substring(0, proxySuffix) : simpleName;
+            }
+        }
+        return UNKNOWN_ENTITY;
+    }
+
+    /**
+     * Inner class for optimistic retry statistics
+     */
+    public static class OptimisticRetryStatistics {
+        private int maxAttempts;
+        private Map<String, Long> conflictsByEntity;
+        private long retries;
+        private long recovered;
+        private long exhausted;
+
+        // Constructors
+        public OptimisticRetryStatistics() {}
+
+        public OptimisticRetryStatistics(int maxAttempts, Map<String, Long> conflictsByEntity, long retries,
+                                         long recovered, long exhausted) {
+            this.maxAttempts = maxAttempts;
+            this.conflictsByEntity = conflictsByEntity;
+            this.retries = retries;
+            this.recovered = recovered;
+            this.exhausted = exhausted;
+        }
+
+        // Getters and Setters
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public Map<String, Long> getConflictsByEntity() { return conflictsByEntity; }
+        public void setConflictsByEntity(Map<String, Long> conflictsByEntity) { this.conflictsByEntity = conflictsByEntity; }
+
+        public long getRetries() { return retries; }
+        public void setRetries(long retries) { this.retries = retries; }
+
+        public long getRecovered() { return recovered; }
+        public void setRecovered(long recovered) { this.recovered = recovered; }
+
+        public long getExhausted() { return exhausted; }
+        public void setExhausted(long exhausted) { this.exhausted = exhausted; }
+    }
+}
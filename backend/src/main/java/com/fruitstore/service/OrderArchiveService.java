@@ -0,0 +1,220 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.repository.ArchivedOrderRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service that moves old delivered and cancelled orders from 'orders'/'order_items' into
+ * 'orders_archive'/'order_items_archive', keeping the hot tables and their indexes small
+ * Each chunk is copied with INSERT ... SELECT and deleted in its own transaction; a failure rolls
+ * back only that chunk. Order lookups by ID or number fall back to the archive (see OrderService), and
+ * per-status statistics count both tables, so an archive run leaves them unchanged.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Set<OrderStatus> ARCHIVABLE_STATUSES = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long minAgeDays;
+    private final int chunkSize;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder ordersArchived = new LongAdder();
+    private final LongAdder orderItemsArchived = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+    private final AtomicLong lastRunOrders = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+
+    @Autowired
+    public OrderArchiveService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
+                               ArchivedOrderRepository archivedOrderRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.orders.archive.min-age-days:180}") long minAgeDays,
+                               @Value("${app.orders.archive.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Archive chunk size must be at least 1");
+        }
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minAgeDays = minAgeDays;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Archive delivered and cancelled orders older than the configured age
+     *
+     * @return number of orders archived
+     */
+    @Scheduled(cron = "${app.orders.archive.cron:0 30 3 * * *}")
+    public int archiveOldOrders() {
+        return archiveOrdersUpdatedBefore(LocalDateTime.now().minusDays(minAgeDays));
+    }
+
+    /**
+     * Archive delivered and cancelled orders last updated before the cutoff
+     *
+     * @param cutoff only orders last updated before this time are archived
+     * @return number of orders archived
+     */
+    public int archiveOrdersUpdatedBefore(LocalDateTime cutoff) {
+        long startNanos = System.nanoTime();
+        int archived = 0;
+        long afterId = 0;
+        try {
+            while (true) {
+                List<Long> chunk = orderRepository.findOrderIdsForArchive(afterId, ARCHIVABLE_STATUSES, cutoff,
+                        PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                Integer moved = transactionTemplate.execute(status -> archiveChunk(chunk));
+                archived += moved != null ? moved : 0;
+                afterId = chunk.get(chunk.size() - 1);
+            }
+        } catch (RuntimeException e) {
+            failedRuns.increment();
+            throw e;
+        } finally {
+            runs.increment();
+            lastRunOrders.set(archived);
+            lastRunMillis.set((System.nanoTime() - startNanos) / 1_000_000);
+            lastRunAt = LocalDateTime.now();
+        }
+        return archived;
+    }
+
+    private int archiveChunk(List<Long> orderIds) {
+        LocalDateTime now = LocalDateTime.now();
+        int copied = archivedOrderRepository.copyOrders(orderIds, ARCHIVABLE_STATUSES, now);
+        int copiedItems = archivedOrderRepository.copyOrderItems(orderIds);
+        int deletedItems = orderItemRepository.deleteByOrderIdIn(orderIds);
+        int deleted = orderRepository.deleteByOrderIdInAndStatusIn(orderIds, ARCHIVABLE_STATUSES);
+        if (deleted != copied || deletedItems != copiedItems) {
+            // Delivered and cancelled orders never change status, so copy and delete must match
+            throw new IllegalStateException("Archived " + copied + " orders and " + copiedItems
+                    + " items but deleted " + deleted + " and " + deletedItems);
+        }
+        ordersArchived.add(copied);
+        orderItemsArchived.add(copiedItems);
+        return copied;
+    }
+
+    /**
+     * Get hot and archive table sizes and archival throughput
+     *
+     * @return order archive statistics snapshot
+     */
+    public OrderArchiveStatistics getStatistics() {
+        long lastMillis = lastRunMillis.get();
+        long lastOrders = lastRunOrders.get();
+        double ordersPerSecond = lastMillis > 0 ? lastOrders / (lastMillis / 1000.0) : 0;
+        return new OrderArchiveStatistics(orderRepository.count(), orderItemRepository.count(),
+                archivedOrderRepository.count(), archivedOrderRepository.countOrderItems(), minAgeDays,
+                runs.sum(), ordersArchived.sum(), orderItemsArchived.sum(), failedRuns.sum(),
+                lastOrders, lastMillis, ordersPerSecond, lastRunAt);
+    }
+
+    /**
+     * Inner class for order archive statistics
+     */
+    public static class OrderArchiveStatistics {
+        private long hotOrders;
+        private long hotOrderItems;
+        private long archivedOrders;
+        private long archivedOrderItems;
+        private long minAgeDays;
+        private long runs;
+        private long ordersArchived;
+        private long orderItemsArchived;
+        private long failedRuns;
+        private long lastRunOrders;
+        private long lastRunMillis;
+        private double lastRunOrdersPerSecond;
+        private LocalDateTime lastRunAt;
+
+        // Constructors
+        public OrderArchiveStatistics() {}
+
+        public OrderArchiveStatistics(long hotOrders, long hotOrderItems, long archivedOrders,
+                                      long archivedOrderItems, long minAgeDays, long runs, long ordersArchived,
+                                      long orderItemsArchived, long failedRuns, long lastRunOrders,
+                                      long lastRunMillis, double lastRunOrdersPerSecond, LocalDateTime lastRunAt) {
+            this.hotOrders = hotOrders;
+            this.hotOrderItems = hotOrderItems;
+            this.archivedOrders = archivedOrders;
+            this.archivedOrderItems = archivedOrderItems;
+            this.minAgeDays = minAgeDays;
+            this.runs = runs;
+            this.ordersArchived = ordersArchived;
+            this.orderItemsArchived = orderItemsArchived;
+            this.failedRuns = failedRuns;
+            this.lastRunOrders = lastRunOrders;
+            this.lastRunMillis = lastRunMillis;
+            this.lastRunOrdersPerSecond = lastRunOrdersPerSecond;
+            this.lastRunAt = lastRunAt;
+        }
+
+        // Getters and Setters
+        public long getHotOrders() { return hotOrders; }
+        public void setHotOrders(long hotOrders) { this.hotOrders = hotOrders; }
+
+        public long getHotOrderItems() { return hotOrderItems; }
+        public void setHotOrderItems(long hotOrderItems) { this.hotOrderItems = hotOrderItems; }
+
+        public long getArchivedOrders() { return archivedOrders; }
+        public void setArchivedOrders(long archivedOrders) { this.archivedOrders = archivedOrders; }
+
+        public long getArchivedOrderItems() { return archivedOrderItems; }
+        public void setArchivedOrderItems(long archivedOrderItems) { this.archivedOrderItems = archivedOrderItems; }
+
+        public long getMinAgeDays() { return minAgeDays; }
+        public void setMinAgeDays(long minAgeDays) { this.minAgeDays = minAgeDays; }
+
+        public long getRuns() { return runs; }
+        public void setRuns(long runs) { this.runs = runs; }
+
+        public long getOrdersArchived() { return ordersArchived; }
+        public void setOrdersArchived(long ordersArchived) { this.ordersArchived = ordersArchived; }
+
+        public long getOrderItemsArchived() { return orderItemsArchived; }
+        public void setOrderItemsArchived(long orderItemsArchived) { this.orderItemsArchived = orderItemsArchived; }
+
+        public long getFailedRuns() { return failedRuns; }
+        public void setFailedRuns(long failedRuns) { this.failedRuns = failedRuns; }
+
+        public long getLastRunOrders() { return lastRunOrders; }
+        public void setLastRunOrders(long lastRunOrders) { this.lastRunOrders = lastRunOrders; }
+
+        public long getLastRunMillis() { return lastRunMillis; }
+        public void setLastRunMillis(long lastRunMillis) { this.lastRunMillis = lastRunMillis; }
+
+        public double getLastRunOrdersPerSecond() { return lastRunOrdersPerSecond; }
+        public void setLastRunOrdersPerSecond(double lastRunOrdersPerSecond) { this.lastRunOrdersPerSecond = lastRunOrdersPerSecond; }
+
+        public LocalDateTime getLastRunAt() { return lastRunAt; }
+        public void setLastRunAt(LocalDateTime lastRunAt) { this.lastRunAt = lastRunAt; }
+    }
+}
@@ -0,0 +1,152 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.OrderEventType;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.dto.request.order.BulkUpdateOrderStatusRequest;
+import com.fruitstore.dto.response.order.BulkOrderStatusResponse;
+import com.fruitstore.dto.response.order.BulkOrderStatusResponse.Outcome;
+import com.fruitstore.dto.response.order.BulkOrderStatusResponse.OrderOutcome;
+import com.fruitstore.repository.OrderOutboxRepository;
+import com.fruitstore.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service for moving many orders to one status at once (warehouse waves)
+ * Orders are processed in chunks, each in its own transaction: the chunk's rows are locked in
+ * ascending ID order, the allowed ones are moved with a single set-based UPDATE guarded by
+ * "status IN (allowed previous statuses)", and every order gets an outcome. Outbox events for the
+ * moved orders are written with one INSERT ... SELECT in the same transaction. A failure rolls back
+ * only the current chunk; chunks before it stay committed.
+ */
+@Service
+public class OrderBulkStatusService {
+
+    private final OrderRepository orderRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderStatsService orderStatsService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public OrderBulkStatusService(OrderRepository orderRepository, OrderOutboxRepository orderOutboxRepository,
+                                  OrderStatsService orderStatsService, PlatformTransactionManager transactionManager,
+                                  @Value("${app.orders.bulk-status.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Bulk status chunk size must be at least 1");
+        }
+        this.orderRepository = orderRepository;
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderStatsService = orderStatsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Move the requested orders to the target status
+     *
+     * @param request the order IDs or filter, and the target status
+     * @return totals and the outcome of every order considered
+     * @throws IllegalArgumentException if no order may move to the target status, or the request
+     *         gives both or neither of order IDs and a filter
+     */
+    public BulkOrderStatusResponse updateStatus(BulkUpdateOrderStatusRequest request) {
+        OrderStatus target = request.getStatus();
+        Set<OrderStatus> allowed = OrderStatus.allowedPreviousStatuses(target);
+        if (allowed.isEmpty()) {
+            throw new IllegalArgumentException("Orders cannot be moved to status: " + target);
+        }
+        if (request.hasOrderIds() == request.hasFilter()) {
+            throw new IllegalArgumentException("Provide either order IDs or a filter");
+        }
+
+        long startNanos = System.nanoTime();
+        List<OrderOutcome> results = request.hasOrderIds()
+                ? updateByIds(request.getOrderIds(), target, allowed)
+                : updateByFilter(request, target, allowed);
+        return new BulkOrderStatusResponse(target, results, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private List<OrderOutcome> updateByIds(List<Long> orderIds, OrderStatus target, Set<OrderStatus> allowed) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        List<OrderOutcome> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            results.addAll(transactionTemplate.execute(status -> applyChunk(chunk, target, allowed)));
+        }
+        return results;
+    }
+
+    private List<OrderOutcome> updateByFilter(BulkUpdateOrderStatusRequest request, OrderStatus target,
+                                              Set<OrderStatus> allowed) {
+        Set<OrderStatus> statuses = allowed;
+        if (request.getFromStatus() != null) {
+            if (!allowed.contains(request.getFromStatus())) {
+                throw new IllegalArgumentException("Cannot transition from " + request.getFromStatus() + " to " + target);
+            }
+            statuses = Set.of(request.getFromStatus());
+        }
+
+        List<OrderOutcome> results = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            List<Long> chunk = orderRepository.findOrderIdsForStatusUpdate(afterId, statuses, request.getUserId(),
+                    request.getStartDate(), request.getEndDate(), PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                return results;
+            }
+            Set<OrderStatus> chunkStatuses = statuses;
+            results.addAll(transactionTemplate.execute(status -> applyChunk(chunk, target, chunkStatuses)));
+            afterId = chunk.get(chunk.size() - 1);
+        }
+    }
+
+    private List<OrderOutcome> applyChunk(List<Long> chunk, OrderStatus target, Set<OrderStatus> allowed) {
+        Map<Long, OrderStatus> current = new HashMap<>();
+        for (Object[] row : orderRepository.lockStatusesByOrderIdIn(chunk)) {
+            current.put((Long) row[0], (OrderStatus) row[1]);
+        }
+
+        List<Long> eligible = new ArrayList<>();
+        List<OrderOutcome> results = new ArrayList<>(chunk.size());
+        for (Long orderId : chunk) {
+            OrderStatus previous = current.get(orderId);
+            if (previous == null) {
+                results.add(new OrderOutcome(orderId, Outcome.NOT_FOUND, null));
+            } else if (allowed.contains(previous)) {
+                eligible.add(orderId);
+                results.add(new OrderOutcome(orderId, Outcome.UPDATED, previous));
+            } else {
+                results.add(new OrderOutcome(orderId, Outcome.INVALID_TRANSITION, previous));
+            }
+        }
+
+        if (!eligible.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            orderOutboxRepository.insertStatusEvents(eligible, OrderEventType.STATUS_CHANGED, target, now);
+            orderStatsService.recordTransitions(eligible, target);
+            int updated = orderRepository.updateStatusInBulk(eligible, allowed, target, now,
+                    target == OrderStatus.SHIPPED ? now : null,
+                    target == OrderStatus.DELIVERED ? now : null,
+                    target == OrderStatus.CANCELLED ? now : null);
+            if (updated != eligible.size()) {
+                // The rows are locked, so this only happens if the lock was not honoured
+                throw new IllegalStateException("Bulk status update changed " + updated + " of "
+                        + eligible.size() + " locked orders");
+            }
+        }
+        return results;
+    }
+}
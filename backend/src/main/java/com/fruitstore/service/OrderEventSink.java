@@ -0,0 +1,28 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.OrderOutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination for order lifecycle events relayed from the outbox by {@link OrderOutboxRelay}
+ * Delivery is at-least-once: a batch is published again if the relay fails before removing it
+ * from the outbox, so consumers should de-duplicate on the outbox ID.
+ */
+public interface OrderEventSink {
+
+    /**
+     * Get the sink name shown in relay statistics
+     *
+     * @return the sink name
+     */
+    String getName();
+
+    /**
+     * Publish a batch of events in outbox order
+     *
+     * @param events the events to publish
+     * @throws RuntimeException if the batch could not be published; the relay will retry it
+     */
+    void publish(List<OrderOutboxEvent> events);
+}
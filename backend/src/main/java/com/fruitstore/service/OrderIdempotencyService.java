@@ -0,0 +1,177 @@
+package com.fruitstore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruitstore.domain.order.OrderIdempotencyKey;
+import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.repository.OrderIdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Service for Idempotency-Key handling on order creation
+ * Responses are persisted in 'order_idempotency_keys' in the same transaction as the order,
+ * and kept in an in-memory hot index. A duplicate request returns the stored response without
+ * running checkout again; a duplicate that arrives while the first is still running waits for it.
+ */
+@Service
+public class OrderIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final OrderIdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlHours;
+    private final ConcurrentHashMap<String, HotEntry> hotIndex = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OrderIdempotencyService(OrderIdempotencyKeyRepository idempotencyKeyRepository,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlHours = ttlHours;
+    }
+
+    /**
+     * Create an order at most once per user and idempotency key
+     *
+     * @param userId the user ID
+     * @param idempotencyKey the client supplied Idempotency-Key header
+     * @param createOrder the checkout to run if the key has not been seen
+     * @return the response of the first successful execution for this key
+     * @throws IllegalArgumentException if the key is blank or too long
+     */
+    public OrderResponse execute(Long userId, String idempotencyKey, Supplier<OrderResponse> createOrder) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String indexKey = userId + ":" + idempotencyKey;
+        while (true) {
+            HotEntry entry = hotIndex.get(indexKey);
+            if (entry != null) {
+                if (entry.isExpired(LocalDateTime.now())) {
+                    hotIndex.remove(indexKey, entry);
+                    continue;
+                }
+                return await(entry.response);
+            }
+
+            HotEntry owned = new HotEntry(LocalDateTime.now().plusHours(ttlHours));
+            if (hotIndex.putIfAbsent(indexKey, owned) != null) {
+                continue;
+            }
+            try {
+                OrderResponse response = findStored(userId, idempotencyKey)
+                        .orElseGet(() -> createAndStore(userId, idempotencyKey, owned.expiresAt, createOrder));
+                owned.response.complete(response);
+                return response;
+            } catch (RuntimeException e) {
+                // Failed executions are not remembered so the client can retry with the same key
+                hotIndex.remove(indexKey, owned);
+                owned.response.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Remove expired keys from the hot index and the database
+     *
+     * @return number of database rows deleted
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.reap-interval-ms:3600000}")
+    public int purgeExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        hotIndex.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+        Integer deleted = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteExpired(now));
+        return deleted != null ? deleted : 0;
+    }
+
+    private OrderResponse createAndStore(Long userId, String idempotencyKey, LocalDateTime expiresAt,
+                                         Supplier<OrderResponse> createOrder) {
+        try {
+            return transactionTemplate.execute(status -> {
+                OrderResponse response = createOrder.get();
+                idempotencyKeyRepository.saveAndFlush(new OrderIdempotencyKey(
+                        userId, idempotencyKey, response.getOrderId(), toJson(response), expiresAt));
+                return response;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance stored the same key first; our order was rolled back with the key insert
+            return findStored(userId, idempotencyKey).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<OrderResponse> findStored(Long userId, String idempotencyKey) {
+        Optional<OrderIdempotencyKey> stored = idempotencyKeyRepository
+                .findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+        if (stored.isPresent() && stored.get().isExpired()) {
+            idempotencyKeyRepository.delete(stored.get());
+            return Optional.empty();
+        }
+        return stored.map(key -> fromJson(key.getResponseBody()));
+    }
+
+    private OrderResponse await(CompletableFuture<OrderResponse> response) {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for order with the same Idempotency-Key");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private String toJson(OrderResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to store order response", e);
+        }
+    }
+
+    private OrderResponse fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored order response", e);
+        }
+    }
+
+    /**
+     * Hot index entry; the future is completed once the first execution finishes
+     */
+    private static final class HotEntry {
+        private final CompletableFuture<OrderResponse> response = new CompletableFuture<>();
+        private final LocalDateTime expiresAt;
+
+        private HotEntry(LocalDateTime expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(LocalDateTime now) {
+            return response.isDone() && expiresAt.isBefore(now);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.OrderOutboxEvent;
+import com.fruitstore.repository.OrderOutboxRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Relay that drains the order outbox to the configured {@link OrderEventSink}s
+ * Each batch is claimed, published to every sink and deleted in one transaction, so a failed
+ * publish leaves the batch in the outbox to be retried. Checkout only pays for one small insert;
+ * all dispatching happens here, off the request path. Events stay in the outbox while no sink is configured.
+ */
+@Service
+public class OrderOutboxRelay {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OrderEventSink> sinks;
+    private final int batchSize;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private volatile String lastError;
+
+    @Autowired
+    public OrderOutboxRelay(OrderOutboxRepository orderOutboxRepository, PlatformTransactionManager transactionManager,
+                            ObjectProvider<OrderEventSink> sinks,
+                            @Value("${app.outbox.relay.batch-size:500}") int batchSize) {
+        this(orderOutboxRepository, transactionManager, sinks.orderedStream().collect(Collectors.toList()), batchSize);
+    }
+
+    public OrderOutboxRelay(OrderOutboxRepository orderOutboxRepository, PlatformTransactionManager transactionManager,
+                            List<OrderEventSink> sinks, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Outbox relay batch size must be at least 1");
+        }
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sinks = List.copyOf(sinks);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Relay batches until the outbox is drained or a batch fails
+     *
+     * @return number of events dispatched
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:500}")
+    public int relay() {
+        int total = 0;
+        while (true) {
+            int relayed = relayBatch();
+            total += relayed;
+            if (relayed < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Claim, publish and remove one batch of events
+     *
+     * @return number of events dispatched (0 if the outbox is empty, no sink is configured or the batch failed)
+     */
+    public int relayBatch() {
+        if (sinks.isEmpty()) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            Integer relayed = transactionTemplate.execute(status -> {
+                List<OrderOutboxEvent> events = orderOutboxRepository.claimBatch(PageRequest.of(0, batchSize));
+                if (events.isEmpty()) {
+                    return 0;
+                }
+                for (OrderEventSink sink : sinks) {
+                    sink.publish(events);
+                }
+                List<Long> ids = new ArrayList<>(events.size());
+                for (OrderOutboxEvent event : events) {
+                    ids.add(event.getOutboxId());
+                }
+                orderOutboxRepository.deleteAllByIdInBatch(ids);
+                recordLag(events);
+                return events.size();
+            });
+            int count = relayed != null ? relayed : 0;
+            if (count > 0) {
+                dispatched.add(count);
+                batches.increment();
+                busyNanos.add(System.nanoTime() - startNanos);
+            }
+            return count;
+        } catch (RuntimeException e) {
+            failures.increment();
+            lastError = e.getMessage();
+            return 0;
+        }
+    }
+
+    private void recordLag(List<OrderOutboxEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+        long lag = Duration.between(events.get(0).getCreatedAt(), now).toMillis();
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+    }
+
+    /**
+     * Get outbox relay metrics
+     *
+     * @return outbox relay statistics snapshot
+     */
+    public OutboxRelayStatistics getStatistics() {
+        long pending = orderOutboxRepository.count();
+        LocalDateTime oldest = orderOutboxRepository.findOldestCreatedAt();
+        long oldestPendingAgeMillis = oldest != null ? Duration.between(oldest, LocalDateTime.now()).toMillis() : 0;
+        long dispatchedEvents = dispatched.sum();
+        long busy = busyNanos.sum();
+        double eventsPerSecond = busy > 0 ? dispatchedEvents / (busy / 1_000_000_000.0) : 0;
+        List<String> sinkNames = sinks.stream().map(OrderEventSink::getName).collect(Collectors.toList());
+        return new OutboxRelayStatistics(sinkNames, batchSize, dispatchedEvents, batches.sum(), failures.sum(),
+                eventsPerSecond, pending, oldestPendingAgeMillis, lastLagMillis.get(), maxLagMillis.get(), lastError);
+    }
+
+    /**
+     * Inner class for outbox relay statistics
+     */
+    public static class OutboxRelayStatistics {
+        private List<String> sinks;
+        private int batchSize;
+        private long dispatchedEvents;
+        private long batches;
+        private long failedBatches;
+        private double eventsPerSecond;
+        private long pendingEvents;
+        private long oldestPendingAgeMillis;
+        private long lastLagMillis;
+        private long maxLagMillis;
+        private String lastError;
+
+        // Constructors
+        public OutboxRelayStatistics() {}
+
+        public OutboxRelayStatistics(List<String> sinks, int batchSize, long dispatchedEvents, long batches,
+                                     long failedBatches, double eventsPerSecond, long pendingEvents,
+                                     long oldestPendingAgeMillis, long lastLagMillis, long maxLagMillis,
+                                     String lastError) {
+            this.sinks = sinks;
+            this.batchSize = batchSize;
+            this.dispatchedEvents = dispatchedEvents;
+            this.batches = batches;
+            this.failedBatches = failedBatches;
+            this.eventsPerSecond = eventsPerSecond;
+            this.pendingEvents = pendingEvents;
+            this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+            this.lastLagMillis = lastLagMillis;
+            this.maxLagMillis = maxLagMillis;
+            this.lastError = lastError;
+        }
+
+        // Getters and Setters
+        public List<String> getSinks() { return sinks; }
+        public void setSinks(List<String> sinks) { this.sinks = sinks; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public long getDispatchedEvents() { return dispatchedEvents; }
+        public void setDispatchedEvents(long dispatchedEvents) { this.dispatchedEvents = dispatchedEvents; }
+
+        public long getBatches() { return batches; }
+        public void setBatches(long batches) { this.batches = batches; }
+
+        public long getFailedBatches() { return failedBatches; }
+        public void setFailedBatches(long failedBatches) { this.failedBatches = failedBatches; }
+
+        public double getEventsPerSecond() { return eventsPerSecond; }
+        public void setEventsPerSecond(double eventsPerSecond) { this.eventsPerSecond = eventsPerSecond; }
+
+        public long getPendingEvents() { return pendingEvents; }
+        public void setPendingEvents(long pendingEvents) { this.pendingEvents = pendingEvents; }
+
+        public long getOldestPendingAgeMillis() { return oldestPendingAgeMillis; }
+        public void setOldestPendingAgeMillis(long oldestPendingAgeMillis) { this.oldestPendingAgeMillis = oldestPendingAgeMillis; }
+
+        public long getLastLagMillis() { return lastLagMillis; }
+        public void setLastLagMillis(long lastLagMillis) { this.lastLagMillis = lastLagMillis; }
+
+        public long getMaxLagMillis() { return maxLagMillis; }
+        public void setMaxLagMillis(long maxLagMillis) { this.maxLagMillis = maxLagMillis; }
+
+        public String getLastError() { return lastError; }
+        public void setLastError(String lastError) { this.lastError = lastError; }
+    }
+}
@@ -0,0 +1,424 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.OrderRollupDaily;
+import com.fruitstore.domain.order.OrderRollupHourly;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.dto.response.order.OrderRollupResponse;
+import com.fruitstore.repository.ArchivedOrderRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.OrderRollupDailyRepository;
+import com.fruitstore.repository.OrderRollupHourlyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining the hourly and daily revenue rollups ('order_rollup_hourly', 'order_rollup_daily')
+ * A bucket is never adjusted by a delta: it is recomputed from orders plus orders_archive, so a
+ * recompute can run any number of times. Live maintenance keeps its own cursor over orders.updated_at
+ * instead of riding on the outbox relay, so a slow or failing recompute never holds or replays the
+ * relay's batch: each refresh recomputes the hours of orders changed since the last successful one,
+ * reaching back a lookback window for transactions that committed after a later one was scanned. The
+ * cursor lives in memory; after a restart the first refresh reaches back the catch-up window and older
+ * gaps are left to a backfill. Each day is rebuilt under a per-day lock in its own transaction, which
+ * is why a backfill (days in parallel) can run while checkouts continue: whichever recompute of a day
+ * runs last reads every order committed before it started.
+ */
+@Service
+public class OrderRollupService {
+
+    private static final int DAY_LOCK_STRIPES = 64;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderRollupHourlyRepository hourlyRepository;
+    private final OrderRollupDailyRepository dailyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillThreads;
+    private final Duration refreshLookback;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ReentrantLock[] dayLocks = new ReentrantLock[DAY_LOCK_STRIPES];
+
+    private final LongAdder rebuiltDays = new LongAdder();
+    private final LongAdder failedDays = new LongAdder();
+    private final LongAdder backfillRuns = new LongAdder();
+    private volatile int lastBackfillDays;
+    private volatile long lastBackfillMillis;
+    private volatile String lastError;
+    private volatile LocalDateTime refreshedThrough;
+
+    @Autowired
+    public OrderRollupService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
+                              ArchivedOrderRepository archivedOrderRepository,
+                              OrderRollupHourlyRepository hourlyRepository,
+                              OrderRollupDailyRepository dailyRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.orders.rollup.backfill-threads:4}") int backfillThreads,
+                              @Value("${app.orders.rollup.refresh-lookback-ms:60000}") long refreshLookbackMillis,
+                              @Value("${app.orders.rollup.refresh-catch-up-minutes:1440}") long catchUpMinutes) {
+        if (backfillThreads < 1) {
+            throw new IllegalArgumentException("Rollup backfill threads must be at least 1");
+        }
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.hourlyRepository = hourlyRepository;
+        this.dailyRepository = dailyRepository;
+        // Own transaction, so a recompute commits before its day lock is released even when the caller
+        // has one open; one snapshot over orders and orders_archive, so an order being archived
+        // is seen exactly once
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.backfillThreads = backfillThreads;
+        this.refreshLookback = Duration.ofMillis(refreshLookbackMillis);
+        this.refreshedThrough = LocalDateTime.now().minusMinutes(catchUpMinutes);
+        for (int i = 0; i < DAY_LOCK_STRIPES; i++) {
+            dayLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Recompute the hours holding orders created, cancelled or otherwise changed since the last refresh
+     * A day that fails is counted and the cursor stays put, so the next refresh tries it again
+     *
+     * @return number of days rebuilt
+     */
+    @Scheduled(fixedDelayString = "${app.orders.rollup.refresh-interval-ms:5000}")
+    public synchronized int refresh() {
+        LocalDateTime scanStart = LocalDateTime.now();
+        LocalDateTime since = refreshedThrough.minus(refreshLookback);
+        List<LocalDateTime> createdAt = new ArrayList<>(orderRepository.findCreatedAtByUpdatedAtSince(since));
+        createdAt.addAll(archivedOrderRepository.findCreatedAtByUpdatedAtSince(since));
+
+        // Per day, the first and last touched hour
+        Map<LocalDate, LocalDateTime[]> ranges = new TreeMap<>();
+        for (LocalDateTime time : createdAt) {
+            LocalDateTime hour = time.toLocalDate().atTime(time.getHour(), 0);
+            LocalDateTime[] range = ranges.computeIfAbsent(time.toLocalDate(), day -> new LocalDateTime[]{hour, hour});
+            if (hour.isBefore(range[0])) {
+                range[0] = hour;
+            }
+            if (hour.isAfter(range[1])) {
+                range[1] = hour;
+            }
+        }
+
+        int rebuilt = 0;
+        boolean failed = false;
+        for (Map.Entry<LocalDate, LocalDateTime[]> entry : ranges.entrySet()) {
+            try {
+                rebuildDay(entry.getKey(), entry.getValue()[0], entry.getValue()[1].plusHours(1));
+                rebuilt++;
+            } catch (RuntimeException e) {
+                // Already counted by rebuildDay
+                failed = true;
+            }
+        }
+        if (!failed) {
+            refreshedThrough = scanStart;
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Recompute the hourly and daily rollups of every day overlapping a time range
+     *
+     * @param fromMillis start of the range in epoch milliseconds (inclusive)
+     * @param toMillis end of the range in epoch milliseconds (exclusive)
+     * @return number of days rebuilt
+     * @throws IllegalArgumentException if the range is empty
+     */
+    public int backfill(long fromMillis, long toMillis) {
+        if (toMillis <= fromMillis) {
+            throw new IllegalArgumentException("Backfill range must end after it starts");
+        }
+        return backfill(toLocalDateTime(fromMillis).toLocalDate(), toLocalDateTime(toMillis - 1).toLocalDate().plusDays(1));
+    }
+
+    /**
+     * Recompute every hourly and daily rollup of a date range, several days in parallel
+     * Safe to run while orders keep coming in; a day that fails is counted and left for the next run
+     *
+     * @param from first day to rebuild
+     * @param to day after the last one to rebuild
+     * @return number of days rebuilt
+     * @throws IllegalArgumentException if the range is empty
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Backfill range must end after it starts");
+        }
+
+        long startNanos = System.nanoTime();
+        List<LocalDate> days = from.datesUntil(to).collect(Collectors.toList());
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(backfillThreads, days.size()), runnable -> {
+            Thread thread = new Thread(runnable, "rollup-backfill-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int rebuilt = 0;
+        try {
+            List<Future<?>> futures = new ArrayList<>(days.size());
+            for (LocalDate day : days) {
+                futures.add(workers.submit(() -> rebuildDay(day, day.atStartOfDay(), day.plusDays(1).atStartOfDay())));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                    rebuilt++;
+                } catch (ExecutionException e) {
+                    // Already counted by rebuildDay
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        backfillRuns.increment();
+        lastBackfillDays = rebuilt;
+        lastBackfillMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        return rebuilt;
+    }
+
+    /**
+     * Get hourly rollups of a time range
+     *
+     * @param fromMillis start of the range in epoch milliseconds (inclusive)
+     * @param toMillis end of the range in epoch milliseconds (exclusive)
+     * @param categoryId the category, or null for store-wide totals
+     * @return one entry per hour that had orders, oldest first
+     * @throws IllegalArgumentException if the range is empty
+     */
+    public List<OrderRollupResponse> getHourlyRollups(long fromMillis, long toMillis, Long categoryId) {
+        if (toMillis <= fromMillis) {
+            throw new IllegalArgumentException("Rollup range must end after it starts");
+        }
+        LocalDateTime from = toLocalDateTime(fromMillis);
+        LocalDateTime to = toLocalDateTime(toMillis);
+        List<OrderRollupHourly> rows = categoryId != null
+                ? hourlyRepository.findCategoryRollups(categoryId, from, to)
+                : hourlyRepository.findStoreRollups(from, to);
+        return rows.stream()
+                .map(row -> toResponse(row.getBucketStart(), row.getCategoryId(), row.getOrderCount(),
+                        row.getCancelledCount(), row.getItemQuantity(), row.getRevenue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get daily rollups of a time range
+     *
+     * @param fromMillis start of the range in epoch milliseconds (inclusive)
+     * @param toMillis end of the range in epoch milliseconds (exclusive)
+     * @param categoryId the category, or null for store-wide totals
+     * @return one entry per day that had orders, oldest first
+     * @throws IllegalArgumentException if the range is empty
+     */
+    public List<OrderRollupResponse> getDailyRollups(long fromMillis, long toMillis, Long categoryId) {
+        if (toMillis <= fromMillis) {
+            throw new IllegalArgumentException("Rollup range must end after it starts");
+        }
+        LocalDateTime from = toLocalDateTime(fromMillis);
+        LocalDateTime to = toLocalDateTime(toMillis);
+        List<OrderRollupDaily> rows = categoryId != null
+                ? dailyRepository.findCategoryRollups(categoryId, from, to)
+                : dailyRepository.findStoreRollups(from, to);
+        return rows.stream()
+                .map(row -> toResponse(row.getBucketStart(), row.getCategoryId(), row.getOrderCount(),
+                        row.getCancelledCount(), row.getItemQuantity(), row.getRevenue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get rollup table sizes and rebuild metrics
+     *
+     * @return rollup statistics snapshot
+     */
+    public RollupStatistics getStatistics() {
+        return new RollupStatistics(hourlyRepository.count(), dailyRepository.count(), rebuiltDays.sum(),
+                failedDays.sum(), backfillRuns.sum(), lastBackfillDays, lastBackfillMillis, refreshedThrough, lastError);
+    }
+
+    private void rebuildDay(LocalDate day, LocalDateTime from, LocalDateTime to) {
+        ReentrantLock lock = dayLocks[(int) Math.floorMod(day.toEpochDay(), (long) DAY_LOCK_STRIPES)];
+        lock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rebuildHours(day, from, to);
+                rebuildDailyRows(day);
+            });
+            rebuiltDays.increment();
+        } catch (RuntimeException e) {
+            failedDays.increment();
+            lastError = day + ": " + e.getMessage();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebuildHours(LocalDate day, LocalDateTime from, LocalDateTime to) {
+        // hour -> category (null for the store-wide row) -> totals
+        Map<LocalDateTime, Map<Long, Totals>> buckets = new TreeMap<>();
+        List<Object[]> orderRows = new ArrayList<>(orderRepository.sumByHourForRollup(from, to, OrderStatus.CANCELLED));
+        orderRows.addAll(archivedOrderRepository.sumByHourForRollup(from, to, OrderStatus.CANCELLED));
+        for (Object[] row : orderRows) {
+            Totals store = bucket(buckets, day.atTime(((Number) row[0]).intValue(), 0), null);
+            store.orderCount += ((Number) row[1]).longValue();
+            store.cancelledCount += ((Number) row[2]).longValue();
+            store.revenue = store.revenue.add(amount(row[3]));
+        }
+
+        List<Object[]> itemRows = new ArrayList<>(
+                orderItemRepository.sumByHourAndCategoryForRollup(from, to, OrderStatus.CANCELLED));
+        itemRows.addAll(archivedOrderRepository.sumByHourAndCategoryForRollup(from, to, OrderStatus.CANCELLED));
+        for (Object[] row : itemRows) {
+            LocalDateTime hour = day.atTime(((Number) row[0]).intValue(), 0);
+            long quantity = ((Number) row[3]).longValue();
+            bucket(buckets, hour, null).itemQuantity += quantity;
+            if (row[1] != null) {
+                Totals category = bucket(buckets, hour, (Long) row[1]);
+                category.orderCount += ((Number) row[2]).longValue();
+                category.itemQuantity += quantity;
+                category.revenue = category.revenue.add(amount(row[4]));
+            }
+        }
+
+        hourlyRepository.deleteByBucketStartRange(from, to);
+        List<OrderRollupHourly> rows = new ArrayList<>();
+        buckets.forEach((hour, categories) -> categories.forEach((categoryId, totals) ->
+                rows.add(new OrderRollupHourly(hour, categoryId, totals.orderCount, totals.cancelledCount,
+                        totals.itemQuantity, totals.revenue))));
+        hourlyRepository.saveAll(rows);
+    }
+
+    private void rebuildDailyRows(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        dailyRepository.deleteByBucketStartRange(from, to);
+        List<OrderRollupDaily> rows = new ArrayList<>();
+        for (Object[] row : hourlyRepository.sumByCategory(from, to)) {
+            rows.add(new OrderRollupDaily(from, (Long) row[0], ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue(), amount(row[4])));
+        }
+        dailyRepository.saveAll(rows);
+    }
+
+    private Totals bucket(Map<LocalDateTime, Map<Long, Totals>> buckets, LocalDateTime hour, Long categoryId) {
+        return buckets.computeIfAbsent(hour, key -> new HashMap<>()).computeIfAbsent(categoryId, key -> new Totals());
+    }
+
+    private BigDecimal amount(Object value) {
+        return value != null ? (BigDecimal) value : BigDecimal.ZERO;
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    private OrderRollupResponse toResponse(LocalDateTime bucketStart, Long categoryId, long orderCount,
+                                           long cancelledCount, long itemQuantity, BigDecimal revenue) {
+        return new OrderRollupResponse(bucketStart, bucketStart.atZone(zone).toInstant().toEpochMilli(), categoryId,
+                orderCount, cancelledCount, itemQuantity, revenue);
+    }
+
+    /**
+     * Running totals of one rollup bucket while it is recomputed
+     */
+    private static class Totals {
+        private long orderCount;
+        private long cancelledCount;
+        private long itemQuantity;
+        private BigDecimal revenue = BigDecimal.ZERO;
+    }
+
+    /**
+     * Inner class for rollup statistics
+     */
+    public static class RollupStatistics {
+        private long hourlyRows;
+        private long dailyRows;
+        private long rebuiltDays;
+        private long failedDays;
+        private long backfillRuns;
+        private int lastBackfillDays;
+        private long lastBackfillMillis;
+        private LocalDateTime refreshedThrough;
+        private String lastError;
+
+        // Constructors
+        public RollupStatistics() {}
+
+        public RollupStatistics(long hourlyRows, long dailyRows, long rebuiltDays, long failedDays,
+                                long backfillRuns, int lastBackfillDays, long lastBackfillMillis,
+                                LocalDateTime refreshedThrough, String lastError) {
+            this.hourlyRows = hourlyRows;
+            this.dailyRows = dailyRows;
+            this.rebuiltDays = rebuiltDays;
+            this.failedDays = failedDays;
+            this.backfillRuns = backfillRuns;
+            this.lastBackfillDays = lastBackfillDays;
+            this.lastBackfillMillis = lastBackfillMillis;
+            this.refreshedThrough = refreshedThrough;
+            this.lastError = lastError;
+        }
+
+        // Getters and Setters
+        public long getHourlyRows() { return hourlyRows; }
+        public void setHourlyRows(long hourlyRows) { this.hourlyRows = hourlyRows; }
+
+        public long getDailyRows() { return dailyRows; }
+        public void setDailyRows(long dailyRows) { this.dailyRows = dailyRows; }
+
+        public long getRebuiltDays() { return rebuiltDays; }
+        public void setRebuiltDays(long rebuiltDays) { this.rebuiltDays = rebuiltDays; }
+
+        public long getFailedDays() { return failedDays; }
+        public void setFailedDays(long failedDays) { this.failedDays = failedDays; }
+
+        public long getBackfillRuns() { return backfillRuns; }
+        public void setBackfillRuns(long backfillRuns) { this.backfillRuns = backfillRuns; }
+
+        public int getLastBackfillDays() { return lastBackfillDays; }
+        public void setLastBackfillDays(int lastBackfillDays) { this.lastBackfillDays = lastBackfillDays; }
+
+        public long getLastBackfillMillis() { return lastBackfillMillis; }
+        public void setLastBackfillMillis(long lastBackfillMillis) { this.lastBackfillMillis = lastBackfillMillis; }
+
+        public LocalDateTime getRefreshedThrough() { return refreshedThrough; }
+        public void setRefreshedThrough(LocalDateTime refreshedThrough) { this.refreshedThrough = refreshedThrough; }
+
+        public String getLastError() { return lastError; }
+        public void setLastError(String lastError) { this.lastError = lastError; }
+    }
+}
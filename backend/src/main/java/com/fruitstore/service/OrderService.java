@@ -2,13 +2,18 @@ package com.fruitstore.service;
 
 import com.fruitstore.domain.cart.Cart;
 import com.fruitstore.domain.cart.CartItem;
+import com.fruitstore.domain.order.ArchivedOrder;
+import com.fruitstore.domain.order.ArchivedOrderItem;
 import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderEventType;
 import com.fruitstore.domain.order.OrderItem;
+import com.fruitstore.domain.order.OrderOutboxEvent;
 import com.fruitstore.domain.order.OrderStatus;
 import com.fruitstore.domain.product.Product;
 import com.fruitstore.domain.user.User;
 import com.fruitstore.dto.request.order.CreateOrderRequest;
 import com.fruitstore.dto.request.order.UpdateOrderStatusRequest;
+import com.fruitstore.dto.response.common.CursorPageResponse;
 import com.fruitstore.dto.response.order.OrderItemResponse;
 import com.fruitstore.dto.response.order.OrderListResponse;
 import com.fruitstore.dto.response.order.OrderResponse;
@@ -16,23 +21,37 @@ import com.fruitstore.dto.response.order.OrderSummaryResponse;
 import com.fruitstore.dto.response.discount.DiscountValidationResponse;
 import com.fruitstore.dto.response.product.ProductSummaryResponse;
 import com.fruitstore.dto.response.user.UserSummaryResponse;
+import com.fruitstore.exception.VersionConflictException;
+import com.fruitstore.repository.ArchivedOrderRepository;
+import com.fruitstore.repository.CartItemRepository;
 import com.fruitstore.repository.CartRepository;
 import com.fruitstore.repository.DiscountRepository;
 import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderOutboxRepository;
 import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.OrderStatusView;
+import com.fruitstore.repository.OrderSummaryView;
 import com.fruitstore.repository.ProductRepository;
 import com.fruitstore.repository.UserRepository;
 import com.fruitstore.domain.discount.Discount;
+import com.fruitstore.util.CursorUtil;
+import com.fruitstore.util.OrderNumberGenerator;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -43,28 +62,58 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderService {
 
+    private static final int MAX_SLICE_SIZE = 100;
+    private static final LocalDateTime FIRST_SLICE_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
     private final CartService cartService;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final DiscountService discountService;
     private final DiscountRepository discountRepository;
+    private final StockReservationService stockReservationService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final StockDecrementCombiner stockDecrementCombiner;
+    private final FlashSaleStockService flashSaleStockService;
+    private final ShardedStockService shardedStockService;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderStatsService orderStatsService;
 
     @Autowired
     public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
-                       CartRepository cartRepository, CartService cartService, UserRepository userRepository, 
+                       CartRepository cartRepository, CartItemRepository cartItemRepository,
+                       CartService cartService, UserRepository userRepository, 
                        ProductRepository productRepository, DiscountService discountService,
-                       DiscountRepository discountRepository) {
+                       DiscountRepository discountRepository,
+                       StockReservationService stockReservationService,
+                       OrderNumberGenerator orderNumberGenerator,
+                       StockDecrementCombiner stockDecrementCombiner,
+                       FlashSaleStockService flashSaleStockService,
+                       ShardedStockService shardedStockService,
+                       OrderOutboxRepository orderOutboxRepository,
+                       ArchivedOrderRepository archivedOrderRepository,
+                       OrderStatsService orderStatsService) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
         this.cartService = cartService;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.discountService = discountService;
         this.discountRepository = discountRepository;
+        this.stockReservationService = stockReservationService;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.stockDecrementCombiner = stockDecrementCombiner;
+        this.flashSaleStockService = flashSaleStockService;
+        this.shardedStockService = shardedStockService;
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderStatsService = orderStatsService;
     }
 
     /**
@@ -76,6 +125,20 @@ public class OrderService {
      */
     @Transactional
     public OrderResponse createOrder(Long userId, CreateOrderRequest request) {
+        return createOrder(userId, request, null);
+    }
+
+    /**
+     * Create a new order from cart, provided the cart still holds the expected lines
+     * 
+     * @param userId the user ID
+     * @param request the order creation request
+     * @param expectedCartLines quantity per product ID the cart must hold, or null to take the cart as it is
+     * @return created order response
+     * @throws IllegalArgumentException if the cart no longer matches the expected lines
+     */
+    @Transactional
+    public OrderResponse createOrder(Long userId, CreateOrderRequest request, Map<Long, Integer> expectedCartLines) {
         // Validate user exists
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
@@ -95,6 +158,17 @@ public class OrderService {
             throw new IllegalArgumentException("Cannot create order from empty cart");
         }
 
+        // A queued checkout orders what was in the cart when it was submitted, not later edits
+        if (expectedCartLines != null) {
+            Map<Long, Integer> cartLines = new TreeMap<>();
+            for (CartItem cartItem : cart.getCartItems()) {
+                cartLines.merge(cartItem.getProduct().getProductId(), cartItem.getQuantity(), Integer::sum);
+            }
+            if (!cartLines.equals(expectedCartLines)) {
+                throw new IllegalArgumentException("Cart changed after checkout was submitted, please check out again");
+            }
+        }
+
         // Validate all cart items have sufficient stock
         for (CartItem cartItem : cart.getCartItems()) {
             if (!cartItem.hasSufficientStock()) {
@@ -102,6 +176,38 @@ public class OrderService {
             }
         }
 
+        // Convert the user's stock holds into decrements; rejects lines held by other carts
+        stockReservationService.convertHolds(userId, cart.getCartItems());
+
+        // Flash-sale products are decremented in memory; hot products switched to combining are decremented
+        // next, merged with concurrent checkouts of the same product, before this transaction writes any row
+        // that references them
+        // Every map is keyed in ascending product ID order, so two checkouts of the same products always lock
+        // the product and shard rows in the same order whatever the order of their cart lines
+        Map<Long, Integer> stockDecrements = new TreeMap<>();
+        Map<Long, Integer> flashSaleDecrements = new TreeMap<>();
+        Map<Long, Integer> combinedDecrements = new TreeMap<>();
+        Map<Long, Integer> shardedDecrements = new TreeMap<>();
+        for (CartItem cartItem : cart.getCartItems()) {
+            Long productId = cartItem.getProduct().getProductId();
+            Map<Long, Integer> target = flashSaleStockService.isFlashSale(productId) ? flashSaleDecrements
+                    : shardedStockService.isSharded(productId) ? shardedDecrements
+                    : stockDecrementCombiner.isCombining(productId) ? combinedDecrements : stockDecrements;
+            target.merge(productId, cartItem.getQuantity(), Integer::sum);
+        }
+        if (!flashSaleDecrements.isEmpty()) {
+            List<Long> insufficientStock = flashSaleStockService.decrement(flashSaleDecrements);
+            if (!insufficientStock.isEmpty()) {
+                throw insufficientStock(cart, insufficientStock.get(0));
+            }
+        }
+        if (!combinedDecrements.isEmpty()) {
+            List<Long> insufficientStock = stockDecrementCombiner.decrement(combinedDecrements);
+            if (!insufficientStock.isEmpty()) {
+                throw insufficientStock(cart, insufficientStock.get(0));
+            }
+        }
+
         // Calculate total amount from cart items first
         BigDecimal totalAmount = BigDecimal.ZERO;
         for (CartItem cartItem : cart.getCartItems()) {
@@ -112,19 +218,34 @@ public class OrderService {
         // Create order with calculated total amount
         Order order = new Order(user, request.getShippingAddress(), request.getCustomerName(), 
                                request.getCustomerEmail(), request.getPhoneNumber());
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber(userId));
         order.setNotes(request.getNotes());
         order.setTotalAmount(totalAmount);
         order = orderRepository.save(order);
 
-        // Create order items from cart items
+        // Create order items from cart items; inserts are flushed as one JDBC batch
+        List<OrderItem> orderItems = new ArrayList<>();
         for (CartItem cartItem : cart.getCartItems()) {
             OrderItem orderItem = new OrderItem(order, cartItem.getProduct(), cartItem.getQuantity());
-            orderItem = orderItemRepository.save(orderItem);
             order.addOrderItem(orderItem);
+            orderItems.add(orderItem);
+        }
+        orderItemRepository.saveAll(orderItems);
 
-            // Update product stock
-            cartItem.getProduct().reduceStock(cartItem.getQuantity());
-            productRepository.save(cartItem.getProduct());
+        // Decrement remaining product stock atomically in one batch; a product listed here lost the race to another checkout
+        if (!stockDecrements.isEmpty()) {
+            List<Long> insufficientStock = productRepository.decrementStockInBatch(stockDecrements);
+            if (!insufficientStock.isEmpty()) {
+                throw insufficientStock(cart, insufficientStock.get(0));
+            }
+        }
+
+        // Products with sharded stock take their quantity from one of several shard rows
+        if (!shardedDecrements.isEmpty()) {
+            List<Long> insufficientStock = shardedStockService.decrement(shardedDecrements);
+            if (!insufficientStock.isEmpty()) {
+                throw insufficientStock(cart, insufficientStock.get(0));
+            }
         }
 
         // Apply discount if provided
@@ -144,8 +265,10 @@ public class OrderService {
                 } else {
                     throw new IllegalArgumentException(validation.getMessage());
                 }
-            } catch (Exception e) {
-                throw new IllegalArgumentException("Invalid discount code: " + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                // Only validation failures are reported as an invalid code; lock and data access failures
+                // propagate as they are so LockRetryService can still recognise them
+                throw new IllegalArgumentException("Invalid discount code: " + e.getMessage(), e);
             }
         }
 
@@ -159,9 +282,13 @@ public class OrderService {
         order.setTotalAmount(finalAmount);
         order = orderRepository.save(order);
 
-        // Clear cart after successful order creation
-        cart.clearCart();
-        cartRepository.save(cart);
+        // Record the event for downstream consumers in the same transaction; the outbox relay publishes it
+        orderOutboxRepository.save(new OrderOutboxEvent(OrderEventType.CREATED, order.getOrderId(),
+                order.getOrderNumber(), userId, order.getStatus(), null, finalAmount));
+        orderStatsService.recordCreated(order.getStatus(), finalAmount);
+
+        // Clear cart after successful order creation with one bulk delete
+        cartItemRepository.deleteAllByCartIdInBulk(cart.getCartId());
 
         return mapToOrderResponse(order);
     }
@@ -198,9 +325,8 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long orderId) {
-        Order order = orderRepository.findByIdWithItems(orderId)
+        return findOrderResponseById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
-        return mapToOrderResponse(order);
     }
 
     /**
@@ -212,14 +338,14 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long orderId, Long userId) {
-        Order order = orderRepository.findByIdWithItems(orderId)
+        OrderResponse order = findOrderResponseById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
         
         if (!order.getUser().getUserId().equals(userId)) {
             throw new IllegalArgumentException("Order does not belong to user: " + userId);
         }
         
-        return mapToOrderResponse(order);
+        return order;
     }
 
     /**
@@ -231,7 +357,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderListResponse getOrdersByUser(Long userId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByUser_UserIdWithItems(userId, pageable);
+        Page<OrderSummaryView> orders = orderRepository.findSummariesByUserId(userId, pageable);
         return mapToOrderListResponse(orders);
     }
 
@@ -243,10 +369,45 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderListResponse getAllOrders(Pageable pageable) {
-        Page<Order> orders = orderRepository.findAll(pageable);
+        Page<OrderSummaryView> orders = orderRepository.findAllSummaries(pageable);
         return mapToOrderListResponse(orders);
     }
 
+    /**
+     * Get a slice of a user's orders after a cursor, newest first
+     * Unlike {@link #getOrdersByUser(Long, Pageable)} this seeks on (created_at, order_id), so deep
+     * slices cost the same as the first one, and no count query is run
+     *
+     * @param userId the user ID
+     * @param cursor cursor from the previous slice, or null for the first slice
+     * @param size slice size
+     * @return slice of orders with the cursor of the next slice
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderSummaryResponse> getOrdersByUserSlice(Long userId, String cursor, int size) {
+        validateSliceSize(size);
+        Object[] position = decodeOrderCursor(cursor);
+        List<Long> orderIds = orderRepository.findOrderIdsByUserBefore(userId, (LocalDateTime) position[0],
+                (Long) position[1], PageRequest.of(0, size + 1));
+        return mapToOrderSlice(orderIds, size);
+    }
+
+    /**
+     * Get a slice of all orders after a cursor, newest first (admin)
+     *
+     * @param cursor cursor from the previous slice, or null for the first slice
+     * @param size slice size
+     * @return slice of orders with the cursor of the next slice
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderSummaryResponse> getAllOrdersSlice(String cursor, int size) {
+        validateSliceSize(size);
+        Object[] position = decodeOrderCursor(cursor);
+        List<Long> orderIds = orderRepository.findOrderIdsBefore((LocalDateTime) position[0],
+                (Long) position[1], PageRequest.of(0, size + 1));
+        return mapToOrderSlice(orderIds, size);
+    }
+
     /**
      * Get orders with filters (admin)
      * 
@@ -265,7 +426,7 @@ public class OrderService {
     public OrderListResponse getOrdersWithFilters(Long userId, OrderStatus status, BigDecimal minAmount, 
                                                 BigDecimal maxAmount, String customerName, String customerEmail,
                                                 LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        Page<Order> orders = orderRepository.findOrdersWithFilters(userId, status, minAmount, maxAmount, 
+        Page<OrderSummaryView> orders = orderRepository.findSummariesWithFilters(userId, status, minAmount, maxAmount, 
                                                                   customerName, customerEmail, startDate, endDate, pageable);
         return mapToOrderListResponse(orders);
     }
@@ -278,9 +439,27 @@ public class OrderService {
      * @return updated order response
      */
     @Transactional
+    @RetryOnOptimisticLock
     public OrderResponse updateOrderStatus(Long orderId, UpdateOrderStatusRequest request) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
+        return updateOrderStatus(orderId, request, null);
+    }
+
+    /**
+     * Update order status (admin) if the order still has the version the client read
+     * 
+     * @param orderId the order ID
+     * @param request the status update request
+     * @param expectedVersion version from the client's If-Match header, or null to skip the check
+     * @return updated order response
+     * @throws VersionConflictException if the order has been modified since the client read it
+     */
+    @Transactional
+    @RetryOnOptimisticLock
+    public OrderResponse updateOrderStatus(Long orderId, UpdateOrderStatusRequest request, Long expectedVersion) {
+        OrderStatusView order = findStatusView(orderId);
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new VersionConflictException("Order", orderId, expectedVersion, order.getVersion());
+        }
 
         // Validate status transition
         OrderStatus currentStatus = order.getStatus();
@@ -291,29 +470,7 @@ public class OrderService {
             throw new IllegalArgumentException(errorMessage);
         }
 
-        // Call status transition methods which handle status updates and timestamps
-        // These methods check the current status before transitioning
-        switch (newStatus) {
-            case PENDING:
-                // No action needed for pending
-                order.setStatus(newStatus);
-                break;
-            case CONFIRMED:
-                order.confirm();
-                break;
-            case SHIPPED:
-                order.ship();
-                break;
-            case DELIVERED:
-                order.deliver();
-                break;
-            case CANCELLED:
-                order.cancel();
-                break;
-        }
-
-        order = orderRepository.save(order);
-        return mapToOrderResponse(order);
+        return transitionStatus(order, newStatus);
     }
 
     /**
@@ -323,17 +480,15 @@ public class OrderService {
      * @return cancelled order response
      */
     @Transactional
+    @RetryOnOptimisticLock
     public OrderResponse cancelOrder(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
+        OrderStatusView order = findStatusView(orderId);
 
-        if (!order.canBeCancelled()) {
+        if (!order.getStatus().canTransitionTo(OrderStatus.CANCELLED)) {
             throw new IllegalArgumentException("Order cannot be cancelled in current status: " + order.getStatus());
         }
 
-        order.cancel();
-        order = orderRepository.save(order);
-        return mapToOrderResponse(order);
+        return transitionStatus(order, OrderStatus.CANCELLED);
     }
 
     /**
@@ -344,21 +499,19 @@ public class OrderService {
      * @return cancelled order response
      */
     @Transactional
+    @RetryOnOptimisticLock
     public OrderResponse cancelOrder(Long orderId, Long userId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
+        OrderStatusView order = findStatusView(orderId);
 
-        if (!order.getUser().getUserId().equals(userId)) {
+        if (!order.getUserId().equals(userId)) {
             throw new IllegalArgumentException("Order does not belong to user: " + userId);
         }
 
-        if (!order.canBeCancelled()) {
+        if (!order.getStatus().canTransitionTo(OrderStatus.CANCELLED)) {
             throw new IllegalArgumentException("Order cannot be cancelled in current status: " + order.getStatus());
         }
 
-        order.cancel();
-        order = orderRepository.save(order);
-        return mapToOrderResponse(order);
+        return transitionStatus(order, OrderStatus.CANCELLED);
     }
 
     /**
@@ -369,9 +522,8 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderResponse getOrderByOrderNumber(String orderNumber) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
+        return findOrderResponseByNumber(orderNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with number: " + orderNumber));
-        return mapToOrderResponse(order);
     }
 
     /**
@@ -383,14 +535,14 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderResponse getOrderByOrderNumber(String orderNumber, Long userId) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
+        OrderResponse order = findOrderResponseByNumber(orderNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with number: " + orderNumber));
 
         if (!order.getUser().getUserId().equals(userId)) {
             throw new IllegalArgumentException("Order does not belong to user: " + userId);
         }
 
-        return mapToOrderResponse(order);
+        return order;
     }
 
     /**
@@ -402,7 +554,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderListResponse getOrdersByStatus(OrderStatus status, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByStatusOrderByCreatedAtDesc(status, pageable);
+        Page<OrderSummaryView> orders = orderRepository.findSummariesByStatus(status, pageable);
         return mapToOrderListResponse(orders);
     }
 
@@ -416,7 +568,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderListResponse getOrdersByUserAndStatus(Long userId, OrderStatus status, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByUser_UserIdAndStatus(userId, status, pageable);
+        Page<OrderSummaryView> orders = orderRepository.findSummariesByUserIdAndStatus(userId, status, pageable);
         return mapToOrderListResponse(orders);
     }
 
@@ -430,7 +582,7 @@ public class OrderService {
     @Transactional(readOnly = true)
     public OrderListResponse getRecentOrders(int days, Pageable pageable) {
         LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        Page<Order> orders = orderRepository.findRecentOrders(startDate, pageable);
+        Page<OrderSummaryView> orders = orderRepository.findRecentSummaries(startDate, pageable);
         return mapToOrderListResponse(orders);
     }
 
@@ -446,7 +598,7 @@ public class OrderService {
     public OrderListResponse getRecentOrdersByUser(Long userId, int days, Pageable pageable) {
         // For now, return all user orders since we don't have date filtering in repository
         // TODO: Add date filtering to repository method
-        Page<Order> orders = orderRepository.findByUser_UserId(userId, pageable);
+        Page<OrderSummaryView> orders = orderRepository.findSummariesByUserId(userId, pageable);
         return mapToOrderListResponse(orders);
     }
 
@@ -458,7 +610,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderListResponse getCancellableOrders(Pageable pageable) {
-        Page<Order> orders = orderRepository.findCancellableOrders(pageable);
+        Page<OrderSummaryView> orders = orderRepository.findCancellableSummaries(pageable);
         return mapToOrderListResponse(orders);
     }
 
@@ -471,7 +623,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderListResponse getCancellableOrdersByUser(Long userId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findCancellableOrdersByUser(userId, pageable);
+        Page<OrderSummaryView> orders = orderRepository.findCancellableSummariesByUser(userId, pageable);
         return mapToOrderListResponse(orders);
     }
 
@@ -482,24 +634,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderStatistics getOrderStatistics() {
-        long totalOrders = orderRepository.count();
-        long pendingOrders = orderRepository.countByStatus(OrderStatus.PENDING);
-        long confirmedOrders = orderRepository.countByStatus(OrderStatus.CONFIRMED);
-        long deliveredOrders = orderRepository.countByStatus(OrderStatus.DELIVERED);
-        long cancelledOrders = orderRepository.countByStatus(OrderStatus.CANCELLED);
-
-        // Calculate total revenue from delivered orders
-        BigDecimal totalRevenue = orderRepository.findByStatusOrderByCreatedAtDesc(OrderStatus.DELIVERED)
-                .stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal averageOrderValue = totalOrders > 0 ? 
-                totalRevenue.divide(BigDecimal.valueOf(totalOrders), 2, java.math.RoundingMode.HALF_UP) : 
-                BigDecimal.ZERO;
-
-        return new OrderStatistics(totalOrders, pendingOrders, confirmedOrders, 
-                                 deliveredOrders, cancelledOrders, totalRevenue, averageOrderValue);
+        return toOrderStatistics(orderStatsService.getTotals());
     }
 
     /**
@@ -510,24 +645,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public OrderStatistics getOrderStatisticsByUser(Long userId) {
-        long totalOrders = orderRepository.countByUser_UserId(userId);
-        long pendingOrders = orderRepository.countByUser_UserIdAndStatus(userId, OrderStatus.PENDING);
-        long confirmedOrders = orderRepository.countByUser_UserIdAndStatus(userId, OrderStatus.CONFIRMED);
-        long deliveredOrders = orderRepository.countByUser_UserIdAndStatus(userId, OrderStatus.DELIVERED);
-        long cancelledOrders = orderRepository.countByUser_UserIdAndStatus(userId, OrderStatus.CANCELLED);
-
-        // Calculate total revenue from delivered orders for user
-        BigDecimal totalRevenue = orderRepository.findByUser_UserIdAndStatus(userId, OrderStatus.DELIVERED)
-                .stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal averageOrderValue = totalOrders > 0 ? 
-                totalRevenue.divide(BigDecimal.valueOf(totalOrders), 2, java.math.RoundingMode.HALF_UP) : 
-                BigDecimal.ZERO;
-
-        return new OrderStatistics(totalOrders, pendingOrders, confirmedOrders, 
-                                 deliveredOrders, cancelledOrders, totalRevenue, averageOrderValue);
+        return toOrderStatistics(orderStatsService.getTotalsByUser(userId));
     }
 
     /**
@@ -591,21 +709,80 @@ public class OrderService {
 
     // Helper methods
 
-    private boolean isValidStatusTransition(OrderStatus current, OrderStatus newStatus) {
-        switch (current) {
-            case PENDING:
-                return newStatus == OrderStatus.CONFIRMED || newStatus == OrderStatus.CANCELLED;
-            case CONFIRMED:
-                return newStatus == OrderStatus.SHIPPED || newStatus == OrderStatus.CANCELLED;
-            case SHIPPED:
-                return newStatus == OrderStatus.DELIVERED;
-            case DELIVERED:
-                return false; // Final state
-            case CANCELLED:
-                return false; // Final state
-            default:
-                return false;
+    private IllegalArgumentException insufficientStock(Cart cart, Long productId) {
+        String productName = cart.getCartItems().stream()
+                .map(CartItem::getProduct)
+                .filter(product -> product.getProductId().equals(productId))
+                .map(Product::getName)
+                .findFirst()
+                .orElse(String.valueOf(productId));
+        return new IllegalArgumentException("Insufficient stock for product: " + productName);
+    }
+
+    // Orders moved out of the hot table by OrderArchiveService are still found by ID and number
+    private Optional<OrderResponse> findOrderResponseById(Long orderId) {
+        Optional<Order> order = orderRepository.findByIdWithItems(orderId);
+        if (order.isPresent()) {
+            return order.map(this::mapToOrderResponse);
+        }
+        return archivedOrderRepository.findByIdWithItems(orderId).map(this::mapToOrderResponse);
+    }
+
+    private Optional<OrderResponse> findOrderResponseByNumber(String orderNumber) {
+        Optional<Order> order = orderRepository.findByOrderNumber(orderNumber);
+        if (order.isPresent()) {
+            return order.map(this::mapToOrderResponse);
+        }
+        return archivedOrderRepository.findByOrderNumberWithItems(orderNumber).map(this::mapToOrderResponse);
+    }
+
+    private OrderStatusView findStatusView(Long orderId) {
+        return orderRepository.findStatusViewById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
+    }
+
+    /**
+     * Move an order to a new status with one conditional UPDATE on the status and version that were read
+     * If another transition got there first no row matches; the optimistic lock failure makes
+     * {@link RetryOnOptimisticLock} re-read the order and re-check the transition in a new transaction.
+     *
+     * @param order the order as read, already checked to allow the transition
+     * @param newStatus the new status
+     * @return the order response after the transition (without order items)
+     */
+    private OrderResponse transitionStatus(OrderStatusView order, OrderStatus newStatus) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime shippedAt = newStatus == OrderStatus.SHIPPED ? now : null;
+        LocalDateTime deliveredAt = newStatus == OrderStatus.DELIVERED ? now : null;
+        LocalDateTime cancelledAt = newStatus == OrderStatus.CANCELLED ? now : null;
+
+        int updated = orderRepository.compareAndSetStatus(order.getOrderId(), order.getStatus(), order.getVersion(),
+                newStatus, now, shippedAt, deliveredAt, cancelledAt);
+        if (updated == 0) {
+            throw new ObjectOptimisticLockingFailureException(Order.class, order.getOrderId());
+        }
+        orderOutboxRepository.save(new OrderOutboxEvent(OrderEventType.STATUS_CHANGED, order.getOrderId(),
+                order.getOrderNumber(), order.getUserId(), newStatus, order.getStatus(), order.getTotalAmount()));
+        orderStatsService.recordTransition(order.getStatus(), newStatus, order.getTotalAmount());
+
+        OrderResponse response = mapToOrderResponse(order);
+        response.setStatus(newStatus);
+        response.setUpdatedAt(now);
+        response.setVersion(order.getVersion() + 1);
+        if (shippedAt != null) {
+            response.setShippedAt(shippedAt);
         }
+        if (deliveredAt != null) {
+            response.setDeliveredAt(deliveredAt);
+        }
+        if (cancelledAt != null) {
+            response.setCancelledAt(cancelledAt);
+        }
+        return response;
+    }
+
+    private boolean isValidStatusTransition(OrderStatus current, OrderStatus newStatus) {
+        return current.canTransitionTo(newStatus);
     }
 
     /**
@@ -646,7 +823,65 @@ public class OrderService {
         return "Invalid status transition from " + current + " to " + newStatus;
     }
 
-    private OrderListResponse mapToOrderListResponse(Page<Order> orders) {
+    private OrderStatistics toOrderStatistics(Map<OrderStatus, OrderStatsService.StatusTotals> totals) {
+        long totalOrders = totals.values().stream().mapToLong(OrderStatsService.StatusTotals::getOrderCount).sum();
+
+        // Revenue counts delivered orders only
+        BigDecimal totalRevenue = totals.get(OrderStatus.DELIVERED).getTotalAmount();
+
+        BigDecimal averageOrderValue = totalOrders > 0 ? 
+                totalRevenue.divide(BigDecimal.valueOf(totalOrders), 2, java.math.RoundingMode.HALF_UP) : 
+                BigDecimal.ZERO;
+
+        return new OrderStatistics(totalOrders, totals.get(OrderStatus.PENDING).getOrderCount(),
+                totals.get(OrderStatus.CONFIRMED).getOrderCount(), totals.get(OrderStatus.DELIVERED).getOrderCount(),
+                totals.get(OrderStatus.CANCELLED).getOrderCount(), totalRevenue, averageOrderValue);
+    }
+
+    private void validateSliceSize(int size) {
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new IllegalArgumentException("Slice size must be between 1 and " + MAX_SLICE_SIZE);
+        }
+    }
+
+    private Object[] decodeOrderCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new Object[] { FIRST_SLICE_CREATED_AT, Long.MAX_VALUE };
+        }
+        String[] values = CursorUtil.decode(cursor, 2);
+        try {
+            return new Object[] { LocalDateTime.parse(values[0]), Long.parseLong(values[1]) };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private CursorPageResponse<OrderSummaryResponse> mapToOrderSlice(List<Long> orderIds, int size) {
+        boolean hasNext = orderIds.size() > size;
+        List<Long> sliceIds = hasNext ? orderIds.subList(0, size) : orderIds;
+        if (sliceIds.isEmpty()) {
+            return new CursorPageResponse<>(new ArrayList<>(), size, false, null);
+        }
+
+        Map<Long, OrderSummaryView> ordersById = orderRepository.findSummariesByOrderIdIn(sliceIds).stream()
+                .collect(Collectors.toMap(OrderSummaryView::getOrderId, order -> order));
+        List<OrderSummaryResponse> items = new ArrayList<>(sliceIds.size());
+        for (Long orderId : sliceIds) {
+            OrderSummaryView order = ordersById.get(orderId);
+            if (order != null) {
+                items.add(mapToOrderSummaryResponse(order));
+            }
+        }
+
+        String nextCursor = null;
+        if (hasNext && !items.isEmpty()) {
+            OrderSummaryResponse last = items.get(items.size() - 1);
+            nextCursor = CursorUtil.encode(last.getCreatedAt().toString(), last.getOrderId().toString());
+        }
+        return new CursorPageResponse<>(items, size, hasNext, nextCursor);
+    }
+
+    private OrderListResponse mapToOrderListResponse(Page<OrderSummaryView> orders) {
         List<OrderSummaryResponse> orderSummaries = orders.getContent().stream()
                 .map(this::mapToOrderSummaryResponse)
                 .collect(Collectors.toList());
@@ -679,6 +914,7 @@ public class OrderService {
         response.setCancelledAt(order.getCancelledAt());
         response.setCreatedAt(order.getCreatedAt());
         response.setUpdatedAt(order.getUpdatedAt());
+        response.setVersion(order.getVersion());
         
         if (order.getOrderItems() != null) {
             List<OrderItemResponse> orderItemResponses = order.getOrderItems().stream()
@@ -690,19 +926,80 @@ public class OrderService {
         return response;
     }
 
-    private OrderSummaryResponse mapToOrderSummaryResponse(Order order) {
-        OrderSummaryResponse response = new OrderSummaryResponse();
+    private OrderResponse mapToOrderResponse(OrderStatusView order) {
+        OrderResponse response = new OrderResponse();
+        response.setOrderId(order.getOrderId());
+        response.setOrderNumber(order.getOrderNumber());
+        response.setStatus(order.getStatus());
+        response.setTotalAmount(order.getTotalAmount());
+        response.setShippingAddress(order.getShippingAddress());
+        response.setPhoneNumber(order.getPhoneNumber());
+        response.setCustomerName(order.getCustomerName());
+        response.setCustomerEmail(order.getCustomerEmail());
+        response.setNotes(order.getNotes());
+        response.setShippedAt(order.getShippedAt());
+        response.setDeliveredAt(order.getDeliveredAt());
+        response.setCancelledAt(order.getCancelledAt());
+        response.setCreatedAt(order.getCreatedAt());
+        response.setUpdatedAt(order.getUpdatedAt());
+        response.setVersion(order.getVersion());
+
+        UserSummaryResponse user = new UserSummaryResponse();
+        user.setUserId(order.getUserId());
+        user.setUsername(order.getUsername());
+        user.setEmail(order.getUserEmail());
+        user.setFullName(order.getUserFullName());
+        user.setRole(order.getUserRole());
+        user.setCreatedAt(order.getUserCreatedAt());
+        response.setUser(user);
+        return response;
+    }
+
+    private OrderResponse mapToOrderResponse(ArchivedOrder order) {
+        OrderResponse response = new OrderResponse();
         response.setOrderId(order.getOrderId());
         response.setOrderNumber(order.getOrderNumber());
         response.setUser(mapToUserSummaryResponse(order.getUser()));
         response.setStatus(order.getStatus());
         response.setTotalAmount(order.getTotalAmount());
+        response.setShippingAddress(order.getShippingAddress());
+        response.setPhoneNumber(order.getPhoneNumber());
+        response.setCustomerName(order.getCustomerName());
+        response.setCustomerEmail(order.getCustomerEmail());
+        response.setNotes(order.getNotes());
+        response.setShippedAt(order.getShippedAt());
+        response.setDeliveredAt(order.getDeliveredAt());
+        response.setCancelledAt(order.getCancelledAt());
+        response.setCreatedAt(order.getCreatedAt());
+        response.setUpdatedAt(order.getUpdatedAt());
+        response.setVersion(order.getVersion());
+        response.setOrderItems(order.getOrderItems().stream()
+                .map(this::mapToOrderItemResponse)
+                .collect(Collectors.toList()));
+        return response;
+    }
+
+    private OrderSummaryResponse mapToOrderSummaryResponse(OrderSummaryView order) {
+        OrderSummaryResponse response = new OrderSummaryResponse();
+        response.setOrderId(order.getOrderId());
+        response.setOrderNumber(order.getOrderNumber());
+        response.setStatus(order.getStatus());
+        response.setTotalAmount(order.getTotalAmount());
         response.setCustomerName(order.getCustomerName());
         response.setCustomerEmail(order.getCustomerEmail());
-        response.setTotalItems(order.getTotalItems());
-        response.setItemCount(order.getOrderItems() != null ? order.getOrderItems().size() : 0);
+        response.setTotalItems(order.getTotalQuantity().intValue());
+        response.setItemCount(order.getItemCount().intValue());
         response.setCreatedAt(order.getCreatedAt());
         response.setUpdatedAt(order.getUpdatedAt());
+
+        UserSummaryResponse user = new UserSummaryResponse();
+        user.setUserId(order.getUserId());
+        user.setUsername(order.getUsername());
+        user.setEmail(order.getUserEmail());
+        user.setFullName(order.getUserFullName());
+        user.setRole(order.getUserRole());
+        user.setCreatedAt(order.getUserCreatedAt());
+        response.setUser(user);
         return response;
     }
 
@@ -717,6 +1014,17 @@ public class OrderService {
         return response;
     }
 
+    private OrderItemResponse mapToOrderItemResponse(ArchivedOrderItem orderItem) {
+        OrderItemResponse response = new OrderItemResponse();
+        response.setOrderItemId(orderItem.getOrderItemId());
+        response.setProduct(mapToProductSummaryResponse(orderItem.getProduct()));
+        response.setQuantity(orderItem.getQuantity());
+        response.setUnitPrice(orderItem.getUnitPrice());
+        response.setSubtotal(orderItem.getSubtotal());
+        response.setCreatedAt(orderItem.getCreatedAt());
+        return response;
+    }
+
     private UserSummaryResponse mapToUserSummaryResponse(User user) {
         UserSummaryResponse response = new UserSummaryResponse();
         response.setUserId(user.getUserId());
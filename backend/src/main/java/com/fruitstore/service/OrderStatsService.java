@@ -0,0 +1,227 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.OrderStatsCounter;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.repository.ArchivedOrderRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.OrderStatsCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service for per-status order counts and amounts
+ * Totals come from one GROUP BY status query over the orders table and one over 'orders_archive', so
+ * archiving orders does not change them. With app.orders.stats.counters.enabled=true the global
+ * totals are read instead from the 'order_stats' counter table, which order creation and status
+ * transitions keep up to date in their own transactions; archival leaves it alone. Each status has N slot rows
+ * and a writer picks one at random, so concurrent checkouts do not queue on a single counter row;
+ * rows are always updated in status order and after any order or product row, so writers cannot deadlock.
+ */
+@Service
+public class OrderStatsService {
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderStatsCounterRepository counterRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean countersEnabled;
+    private final int slots;
+
+    @Autowired
+    public OrderStatsService(OrderRepository orderRepository, ArchivedOrderRepository archivedOrderRepository,
+                             OrderStatsCounterRepository counterRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.orders.stats.counters.enabled:false}") boolean countersEnabled,
+                             @Value("${app.orders.stats.counters.slots:8}") int slots) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("Order stats counter slots must be at least 1");
+        }
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.counterRepository = counterRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.countersEnabled = countersEnabled;
+        this.slots = slots;
+    }
+
+    /**
+     * Check whether the counter table is maintained and read
+     *
+     * @return true if counters are enabled
+     */
+    public boolean isCountersEnabled() {
+        return countersEnabled;
+    }
+
+    /**
+     * Get order count and amount per status over all orders, archived ones included
+     *
+     * @return totals for every status (zero for statuses without orders)
+     */
+    public Map<OrderStatus, StatusTotals> getTotals() {
+        return countersEnabled ? toTotals(counterRepository.sumByStatus()) : countAll();
+    }
+
+    /**
+     * Get order count and amount per status over one user's orders, archived ones included
+     *
+     * @param userId the user ID
+     * @return totals for every status (zero for statuses without orders)
+     */
+    public Map<OrderStatus, StatusTotals> getTotalsByUser(Long userId) {
+        List<Object[]> rows = new ArrayList<>(orderRepository.countAndSumByStatusForUser(userId));
+        rows.addAll(archivedOrderRepository.countAndSumByStatusForUser(userId));
+        return toTotals(rows);
+    }
+
+    /**
+     * Count a new order; must run in the transaction that creates it
+     *
+     * @param status the order's status
+     * @param amount the order's total amount
+     */
+    public void recordCreated(OrderStatus status, BigDecimal amount) {
+        if (countersEnabled) {
+            add(status, 1, amount);
+        }
+    }
+
+    /**
+     * Move one order between statuses; must run in the transaction that changes it
+     *
+     * @param from the previous status
+     * @param to the new status
+     * @param amount the order's total amount
+     */
+    public void recordTransition(OrderStatus from, OrderStatus to, BigDecimal amount) {
+        if (!countersEnabled || from == to) {
+            return;
+        }
+        Map<OrderStatus, StatusTotals> deltas = new EnumMap<>(OrderStatus.class);
+        deltas.put(from, new StatusTotals(-1, amount.negate()));
+        deltas.put(to, new StatusTotals(1, amount));
+        apply(deltas);
+    }
+
+    /**
+     * Move many orders to one status; must run in the transaction that changes them, before they change
+     *
+     * @param orderIds IDs of the orders about to move
+     * @param to the new status
+     */
+    public void recordTransitions(Collection<Long> orderIds, OrderStatus to) {
+        if (!countersEnabled || orderIds.isEmpty()) {
+            return;
+        }
+        Map<OrderStatus, StatusTotals> deltas = new EnumMap<>(OrderStatus.class);
+        long count = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        for (Map.Entry<OrderStatus, StatusTotals> entry : toTotals(
+                orderRepository.countAndSumByStatusForOrderIds(orderIds)).entrySet()) {
+            StatusTotals totals = entry.getValue();
+            if (entry.getKey() != to && totals.getOrderCount() > 0) {
+                deltas.put(entry.getKey(), new StatusTotals(-totals.getOrderCount(), totals.getTotalAmount().negate()));
+                count += totals.getOrderCount();
+                amount = amount.add(totals.getTotalAmount());
+            }
+        }
+        deltas.put(to, new StatusTotals(count, amount));
+        apply(deltas);
+    }
+
+    /**
+     * Recompute the counter table from the orders table and the archive
+     * Writes that commit while the rebuild runs may be lost; run it at startup or when orders are quiet
+     *
+     * @return number of orders counted
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public long rebuildCounters() {
+        if (!countersEnabled) {
+            return 0;
+        }
+        Long counted = transactionTemplate.execute(status -> {
+            counterRepository.deleteAllInBulk();
+            Map<OrderStatus, StatusTotals> totals = countAll();
+            List<OrderStatsCounter> counters = new ArrayList<>();
+            long orders = 0;
+            for (OrderStatus orderStatus : OrderStatus.values()) {
+                StatusTotals statusTotals = totals.get(orderStatus);
+                for (int slot = 0; slot < slots; slot++) {
+                    counters.add(slot == 0
+                            ? new OrderStatsCounter(orderStatus, slot, statusTotals.getOrderCount(), statusTotals.getTotalAmount())
+                            : new OrderStatsCounter(orderStatus, slot, 0L, BigDecimal.ZERO));
+                }
+                orders += statusTotals.getOrderCount();
+            }
+            counterRepository.saveAll(counters);
+            return orders;
+        });
+        return counted != null ? counted : 0;
+    }
+
+    private void apply(Map<OrderStatus, StatusTotals> deltas) {
+        // EnumMap iterates in status order, which keeps concurrent writers from deadlocking
+        deltas.forEach((status, delta) -> add(status, delta.getOrderCount(), delta.getTotalAmount()));
+    }
+
+    private void add(OrderStatus status, long count, BigDecimal amount) {
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        if (counterRepository.add(status, slot, count, amount) == 0) {
+            throw new IllegalStateException("Order stats counter missing for " + status + " slot " + slot
+                    + "; rebuild the counters");
+        }
+    }
+
+    private Map<OrderStatus, StatusTotals> countAll() {
+        List<Object[]> rows = new ArrayList<>(orderRepository.countAndSumByStatus());
+        rows.addAll(archivedOrderRepository.countAndSumByStatus());
+        return toTotals(rows);
+    }
+
+    // Rows may repeat a status (hot table and archive), so they are added up
+    private Map<OrderStatus, StatusTotals> toTotals(List<Object[]> rows) {
+        Map<OrderStatus, StatusTotals> totals = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            totals.put(status, new StatusTotals(0, BigDecimal.ZERO));
+        }
+        for (Object[] row : rows) {
+            long count = ((Number) row[1]).longValue();
+            BigDecimal amount = row[2] != null ? (BigDecimal) row[2] : BigDecimal.ZERO;
+            StatusTotals previous = totals.get((OrderStatus) row[0]);
+            totals.put((OrderStatus) row[0], new StatusTotals(previous.getOrderCount() + count,
+                    previous.getTotalAmount().add(amount)));
+        }
+        return totals;
+    }
+
+    /**
+     * Order count and total amount of one status
+     */
+    public static class StatusTotals {
+        private final long orderCount;
+        private final BigDecimal totalAmount;
+
+        public StatusTotals(long orderCount, BigDecimal totalAmount) {
+            this.orderCount = orderCount;
+            this.totalAmount = totalAmount;
+        }
+
+        public long getOrderCount() { return orderCount; }
+
+        public BigDecimal getTotalAmount() { return totalAmount; }
+    }
+}
@@ -0,0 +1,379 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.dto.request.product.ProductFilterRequest;
+import com.fruitstore.dto.response.product.ProductFacetsResponse;
+import com.fruitstore.repository.ProductFacetView;
+import com.fruitstore.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Service for facet counts of product searches
+ * Keeps a columnar snapshot of the catalog in primitive arrays ordered by product ID (category ordinal,
+ * price in cents, stock, and an active bitset) and computes category counts, a price histogram and the
+ * in-stock count in a single pass over the set bits of the filter.
+ *
+ * The snapshot is loaded on first use, follows product writes made through ProductService once they commit,
+ * and is reloaded on a schedule because stock also changes through checkout.
+ */
+@Service
+public class ProductFacetService {
+
+    private static final int MAX_PRICE_BUCKETS = 100;
+    private static final int NO_CATEGORY = -1;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchService productSearchService;
+    private final BigDecimal defaultPriceBucketSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; snapshot is null until first loaded, pendingUpdates is non-null while a reload reads
+    private CatalogSnapshot snapshot;
+    private List<Consumer<CatalogSnapshot>> pendingUpdates;
+
+    @Autowired
+    public ProductFacetService(ProductRepository productRepository, ProductSearchService productSearchService,
+                               @Value("${app.search.facets.price-bucket-size:50000}") BigDecimal defaultPriceBucketSize) {
+        this.productRepository = productRepository;
+        this.productSearchService = productSearchService;
+        this.defaultPriceBucketSize = defaultPriceBucketSize;
+    }
+
+    /**
+     * Compute the facets of a product search
+     * Matches the same products as {@link ProductService#searchProducts(ProductFilterRequest)}; keywords go through
+     * the search index when it is enabled and through one ID query otherwise. Must be called inside a transaction.
+     *
+     * @param filterRequest filter criteria and optional price bucket size
+     * @return category counts, price histogram and in-stock count
+     */
+    public ProductFacetsResponse getFacets(ProductFilterRequest filterRequest) {
+        long[] keywordMatches = null;
+        String keyword = filterRequest.getKeyword();
+        if (keyword != null && !keyword.isEmpty()) {
+            keywordMatches = productSearchService
+                    .findMatchingProductIds(keyword, ProductSearchService.Scope.NAME_AND_DESCRIPTION)
+                    .orElseGet(() -> productRepository.findActiveIdsByKeyword(keyword).stream()
+                            .mapToLong(Long::longValue).toArray());
+        }
+        if (needsReload()) {
+            reload();
+        }
+
+        BigDecimal bucketSize = filterRequest.getPriceBucketSize() != null
+                ? filterRequest.getPriceBucketSize() : defaultPriceBucketSize;
+        long bucketCents = Math.max(1, bucketSize.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue());
+        long minCents = filterRequest.getMinPrice() != null
+                ? filterRequest.getMinPrice().movePointRight(2).setScale(0, RoundingMode.CEILING).longValue()
+                : Long.MIN_VALUE;
+        long maxCents = filterRequest.getMaxPrice() != null
+                ? filterRequest.getMaxPrice().movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue()
+                : Long.MAX_VALUE;
+
+        lock.readLock().lock();
+        try {
+            if (snapshot == null) {
+                return new ProductFacetsResponse(Map.of(), List.of(), 0L);
+            }
+            return snapshot.facets(filterRequest.getCategoryId(), minCents, maxCents, keywordMatches, bucketCents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reload the snapshot from the database, if facets have been used since startup
+     */
+    @Scheduled(fixedDelayString = "${app.search.facets.refresh-interval-ms:30000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        if (isLoaded()) {
+            reload();
+        }
+    }
+
+    /**
+     * Reload the snapshot from the database
+     * Product writes that commit while the products are read are applied to the new snapshot before it is
+     * swapped in. Does nothing if a reload is already running.
+     */
+    @Transactional(readOnly = true)
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                return;
+            }
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        CatalogSnapshot loaded = new CatalogSnapshot();
+        try (Stream<ProductFacetView> rows = productRepository.streamAllForFacetSnapshot()) {
+            rows.forEach(row -> loaded.put(row.getProductId(), row.getCategoryId(), row.getPrice(),
+                    row.getStockQuantity(), Boolean.TRUE.equals(row.getIsActive())));
+            lock.writeLock().lock();
+            try {
+                pendingUpdates.forEach(update -> update.accept(loaded));
+                snapshot = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Copy a created or updated product into the snapshot once its transaction commits
+     *
+     * @param product the saved product
+     */
+    public void onProductSaved(Product product) {
+        onProductSaved(product, product.getStockQuantity());
+    }
+
+    /**
+     * Copy a saved product into the snapshot once its transaction commits, with its stock given
+     * separately since a sharded product's row does not hold it
+     *
+     * @param product the saved product
+     * @param stock the product's stock quantity
+     */
+    public void onProductSaved(Product product, Integer stock) {
+        Long productId = product.getProductId();
+        Long categoryId = product.getCategory() != null ? product.getCategory().getCategoryId() : null;
+        BigDecimal price = product.getPrice();
+        boolean active = Boolean.TRUE.equals(product.getIsActive());
+        afterCommit(() -> apply(target -> target.put(productId, categoryId, price, stock, active)));
+    }
+
+    /**
+     * Drop a permanently deleted product from the counts once its transaction commits
+     *
+     * @param productId the product ID
+     */
+    public void onProductRemoved(Long productId) {
+        afterCommit(() -> apply(target -> target.deactivate(productId)));
+    }
+
+    private boolean needsReload() {
+        lock.readLock().lock();
+        try {
+            return snapshot == null || snapshot.stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return snapshot != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<CatalogSnapshot> update) {
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) {
+                update.accept(snapshot);
+            }
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * One row per product in ascending product ID order, one primitive array per column
+     * New products are appended since IDs are increasing; a product that would land out of order marks the
+     * snapshot stale so the next facet request reloads it.
+     */
+    private static final class CatalogSnapshot {
+        private long[] productIds = new long[1024];
+        private int[] categoryOrdinals = new int[1024];
+        private long[] priceCents = new long[1024];
+        private int[] stock = new int[1024];
+        private long[] active = new long[16];
+        private int size;
+        private long maxPriceCents;
+
+        private final Map<Long, Integer> ordinalByCategory = new HashMap<>();
+        private final List<Long> categoryByOrdinal = new ArrayList<>();
+        private boolean stale;
+
+        private void put(Long productId, Long categoryId, BigDecimal price, Integer stockQuantity, boolean isActive) {
+            int row = rowOf(productId);
+            if (row < 0) {
+                if (size > 0 && productId < productIds[size - 1]) {
+                    stale = true;
+                    return;
+                }
+                row = append(productId);
+            }
+            categoryOrdinals[row] = ordinalOf(categoryId);
+            priceCents[row] = price != null ? price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0;
+            stock[row] = stockQuantity != null ? stockQuantity : 0;
+            maxPriceCents = Math.max(maxPriceCents, priceCents[row]);
+            if (isActive) {
+                active[row >>> 6] |= 1L << row;
+            } else {
+                active[row >>> 6] &= ~(1L << row);
+            }
+        }
+
+        private void deactivate(Long productId) {
+            int row = rowOf(productId);
+            if (row >= 0) {
+                active[row >>> 6] &= ~(1L << row);
+            }
+        }
+
+        private int append(long productId) {
+            if (size == productIds.length) {
+                int capacity = size * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                categoryOrdinals = Arrays.copyOf(categoryOrdinals, capacity);
+                priceCents = Arrays.copyOf(priceCents, capacity);
+                stock = Arrays.copyOf(stock, capacity);
+            }
+            if ((size >>> 6) == active.length) {
+                active = Arrays.copyOf(active, active.length * 2);
+            }
+            productIds[size] = productId;
+            return size++;
+        }
+
+        private int rowOf(long productId) {
+            int row = Arrays.binarySearch(productIds, 0, size, productId);
+            return row >= 0 ? row : -1;
+        }
+
+        private int ordinalOf(Long categoryId) {
+            if (categoryId == null) {
+                return NO_CATEGORY;
+            }
+            return ordinalByCategory.computeIfAbsent(categoryId, id -> {
+                categoryByOrdinal.add(id);
+                return categoryByOrdinal.size() - 1;
+            });
+        }
+
+        private ProductFacetsResponse facets(Long categoryId, long minCents, long maxCents, long[] keywordMatches,
+                                             long bucketCents) {
+            long[] filter = active;
+            if (keywordMatches != null) {
+                filter = new long[active.length];
+                int row = 0;
+                for (long productId : keywordMatches) {
+                    while (row < size && productIds[row] < productId) {
+                        row++;
+                    }
+                    if (row < size && productIds[row] == productId) {
+                        filter[row >>> 6] |= 1L << row;
+                    }
+                }
+                for (int w = 0; w < filter.length; w++) {
+                    filter[w] &= active[w];
+                }
+            }
+            int categoryFilter = categoryId == null ? Integer.MIN_VALUE
+                    : ordinalByCategory.getOrDefault(categoryId, Integer.MAX_VALUE);
+            int bucketCount = (int) Math.min(MAX_PRICE_BUCKETS, maxPriceCents / bucketCents + 1);
+            int lastBucket = bucketCount - 1;
+            // Multiplying by the reciprocal is much cheaper than a division per row; off-by-one is corrected below
+            double perBucket = 1.0 / bucketCents;
+
+            long[] categoryCounts = new long[categoryByOrdinal.size()];
+            long[] histogram = new long[bucketCount];
+            long inStock = 0;
+            int words = (size + 63) >>> 6;
+            for (int w = 0; w < words; w++) {
+                long word = filter[w];
+                while (word != 0) {
+                    int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    long price = priceCents[row];
+                    if (price < minCents || price > maxCents) {
+                        continue;
+                    }
+                    int ordinal = categoryOrdinals[row];
+                    if (ordinal != NO_CATEGORY) {
+                        categoryCounts[ordinal]++;
+                    }
+                    if (categoryFilter != Integer.MIN_VALUE && ordinal != categoryFilter) {
+                        continue;
+                    }
+                    long bucket = (long) (price * perBucket);
+                    if (bucket * bucketCents > price) {
+                        bucket--;
+                    } else if ((bucket + 1) * bucketCents <= price) {
+                        bucket++;
+                    }
+                    histogram[(int) Math.min(bucket, lastBucket)]++;
+                    if (stock[row] > 0) {
+                        inStock++;
+                    }
+                }
+            }
+
+            Map<Long, Long> counts = new TreeMap<>();
+            for (int ordinal = 0; ordinal < categoryCounts.length; ordinal++) {
+                if (categoryCounts[ordinal] > 0) {
+                    counts.put(categoryByOrdinal.get(ordinal), categoryCounts[ordinal]);
+                }
+            }
+            List<ProductFacetsResponse.PriceBucket> buckets = new ArrayList<>();
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                if (histogram[bucket] > 0) {
+                    BigDecimal from = BigDecimal.valueOf(bucket * bucketCents, 2);
+                    BigDecimal to = bucket == bucketCount - 1 ? null : BigDecimal.valueOf((bucket + 1) * bucketCents, 2);
+                    buckets.add(new ProductFacetsResponse.PriceBucket(from, to, histogram[bucket]));
+                }
+            }
+            return new ProductFacetsResponse(counts, buckets, inStock);
+        }
+    }
+}
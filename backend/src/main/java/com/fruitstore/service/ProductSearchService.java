@@ -0,0 +1,693 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.ProductSearchView;
+import com.fruitstore.util.SearchTextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Service for product keyword search over an in-memory inverted index
+ * Keeps accent-folded tokens of the name and description of every active product, plus prefixes of name
+ * tokens so partial words match while typing, and ranks matches with BM25. A product matches when every
+ * query token is one of its tokens or a prefix of a name token.
+ *
+ * The index is built from the database on first use and then follows product writes made through
+ * ProductService once they commit. It is off unless app.search.index.enabled is set; when it is off,
+ * or cannot answer a query, callers fall back to the database.
+ */
+@Service
+public class ProductSearchService {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_LENGTH = 15;
+    private static final Set<String> SORT_FIELDS = Set.of("name", "price", "createdAt");
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    // Guarded by lock; index is null until first built, pendingUpdates is non-null while a rebuild reads
+    private InvertedIndex index;
+    private List<Consumer<InvertedIndex>> pendingUpdates;
+
+    @Autowired
+    public ProductSearchService(ProductRepository productRepository,
+                                @Value("${app.search.index.enabled:false}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Search active products by keyword
+     * Results are ranked by relevance when the page is unsorted, otherwise sorted by name, price or createdAt.
+     * Must be called inside a transaction, which is used to build the index on first use.
+     *
+     * @param keyword the keyword
+     * @param categoryId the category ID filter (can be null)
+     * @param minPrice the minimum price filter (can be null)
+     * @param maxPrice the maximum price filter (can be null)
+     * @param scope the fields the keyword is matched against
+     * @param pageable the page requested
+     * @return the IDs of the page's products with the total match count, or empty if the index is off,
+     *         the keyword has no tokens or the sort is not supported
+     */
+    public Optional<SearchHits> search(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                       Scope scope, Pageable pageable) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(SearchTextUtil.tokenize(keyword)));
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(null);
+        if (tokens.isEmpty() || pageable.getSort().stream().count() > 1
+                || (order != null && !SORT_FIELDS.contains(order.getProperty()))) {
+            return Optional.empty();
+        }
+        if (!isBuilt()) {
+            rebuild();
+        }
+
+        Long minCents = minPrice != null ? minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue() : null;
+        Long maxCents = maxPrice != null ? maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue() : null;
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return Optional.empty();
+            }
+            return Optional.of(index.search(tokens, categoryId, minCents, maxCents, scope, order, pageable,
+                    scratch.get()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find every active product matching a keyword, for facet counts
+     * Must be called inside a transaction, which is used to build the index on first use.
+     *
+     * @param keyword the keyword
+     * @param scope the fields the keyword is matched against
+     * @return matching product IDs in ascending order, or empty if the index is off or the keyword has no tokens
+     */
+    public Optional<long[]> findMatchingProductIds(String keyword, Scope scope) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(SearchTextUtil.tokenize(keyword)));
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!isBuilt()) {
+            rebuild();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return Optional.empty();
+            }
+            return Optional.of(index.matchingProductIds(tokens, scope, scratch.get()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the index from the database
+     * Product writes that commit while the products are read are applied to the new index before it is
+     * swapped in. Does nothing if a rebuild is already running.
+     */
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                return;
+            }
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedIndex built = new InvertedIndex();
+        try (Stream<ProductSearchView> rows = productRepository.streamActiveForSearchIndex()) {
+            rows.forEach(row -> built.put(row.getProductId(), row.getName(), row.getDescription(),
+                    row.getCategoryId(), row.getPrice(),
+                    row.getCreatedAt() != null ? row.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : 0));
+            lock.writeLock().lock();
+            try {
+                pendingUpdates.forEach(update -> update.accept(built));
+                index = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Index a created or updated product once its transaction commits; inactive products are removed
+     *
+     * @param product the saved product
+     */
+    public void onProductSaved(Product product) {
+        if (!enabled) {
+            return;
+        }
+        Long productId = product.getProductId();
+        if (!Boolean.TRUE.equals(product.getIsActive())) {
+            onProductRemoved(productId);
+            return;
+        }
+        String name = product.getName();
+        String description = product.getDescription();
+        Long categoryId = product.getCategory() != null ? product.getCategory().getCategoryId() : null;
+        BigDecimal price = product.getPrice();
+        long createdAt = product.getCreatedAt() != null ? product.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : 0;
+        afterCommit(() -> apply(target -> target.put(productId, name, description, categoryId, price, createdAt)));
+    }
+
+    /**
+     * Remove a deleted or deactivated product once its transaction commits
+     *
+     * @param productId the product ID
+     */
+    public void onProductRemoved(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> apply(target -> target.remove(productId)));
+    }
+
+    /**
+     * Get index size metrics
+     *
+     * @return search index statistics
+     */
+    public SearchIndexStatistics getStatistics() {
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return new SearchIndexStatistics(enabled, false, 0, 0, 0);
+            }
+            return new SearchIndexStatistics(enabled, true, index.liveCount, index.name.terms.size()
+                    + index.description.terms.size(), index.name.prefixes.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isBuilt() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<InvertedIndex> update) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                update.accept(index);
+            }
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Product fields a keyword is matched against
+     */
+    public enum Scope {
+        NAME,
+        NAME_AND_DESCRIPTION
+    }
+
+    /**
+     * One page of search results
+     */
+    public static class SearchHits {
+        private final List<Long> productIds;
+        private final long total;
+
+        public SearchHits(List<Long> productIds, long total) {
+            this.productIds = productIds;
+            this.total = total;
+        }
+
+        /**
+         * @return IDs of the page's products, in result order
+         */
+        public List<Long> getProductIds() { return productIds; }
+
+        /**
+         * @return number of matching products over all pages
+         */
+        public long getTotal() { return total; }
+    }
+
+    /**
+     * Search index size metrics
+     */
+    public static class SearchIndexStatistics {
+        private boolean enabled;
+        private boolean built;
+        private int documents;
+        private int terms;
+        private int prefixes;
+
+        // Constructors
+        public SearchIndexStatistics() {}
+
+        public SearchIndexStatistics(boolean enabled, boolean built, int documents, int terms, int prefixes) {
+            this.enabled = enabled;
+            this.built = built;
+            this.documents = documents;
+            this.terms = terms;
+            this.prefixes = prefixes;
+        }
+
+        // Getters and Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public boolean isBuilt() { return built; }
+        public void setBuilt(boolean built) { this.built = built; }
+
+        public int getDocuments() { return documents; }
+        public void setDocuments(int documents) { this.documents = documents; }
+
+        public int getTerms() { return terms; }
+        public void setTerms(int terms) { this.terms = terms; }
+
+        public int getPrefixes() { return prefixes; }
+        public void setPrefixes(int prefixes) { this.prefixes = prefixes; }
+    }
+
+    /**
+     * Documents and postings; documents get dense IDs, and an update adds a new document and retires the old one.
+     * Retired documents are skipped while searching and dropped once they outnumber live ones.
+     */
+    private static final class InvertedIndex {
+        private final FieldIndex name = new FieldIndex(true);
+        private final FieldIndex description = new FieldIndex(false);
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+        private BitSet live = new BitSet();
+        private long[] productIds = new long[1024];
+        private long[] categoryIds = new long[1024];
+        private long[] priceCents = new long[1024];
+        private long[] createdAt = new long[1024];
+        private String[] names = new String[1024];
+        private int docCount;
+        private int liveCount;
+
+        private void put(Long productId, String productName, String productDescription, Long categoryId,
+                         BigDecimal price, long createdAtSeconds) {
+            remove(productId);
+            int doc = docCount++;
+            if (doc == productIds.length) {
+                int capacity = doc * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                priceCents = Arrays.copyOf(priceCents, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            productIds[doc] = productId;
+            categoryIds[doc] = categoryId != null ? categoryId : Long.MIN_VALUE;
+            priceCents[doc] = price != null ? price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0;
+            createdAt[doc] = createdAtSeconds;
+            names[doc] = productName != null ? productName : "";
+            name.add(doc, SearchTextUtil.tokenize(productName));
+            description.add(doc, SearchTextUtil.tokenize(productDescription));
+            live.set(doc);
+            liveCount++;
+            docByProduct.put(productId, doc);
+        }
+
+        private void remove(Long productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            live.clear(doc);
+            liveCount--;
+            name.retire(doc);
+            description.retire(doc);
+            if (docCount >= 1024 && docCount - liveCount > liveCount) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (live.get(doc)) {
+                    productIds[next] = productIds[doc];
+                    categoryIds[next] = categoryIds[doc];
+                    priceCents[next] = priceCents[doc];
+                    createdAt[next] = createdAt[doc];
+                    names[next] = names[doc];
+                    remap[doc] = next++;
+                } else {
+                    remap[doc] = -1;
+                }
+            }
+            Arrays.fill(names, next, docCount, null);
+            name.compact(remap, next);
+            description.compact(remap, next);
+            docByProduct.replaceAll((productId, doc) -> remap[doc]);
+            live = new BitSet(next);
+            live.set(0, next);
+            docCount = next;
+        }
+
+        private SearchHits search(List<String> tokens, Long categoryId, Long minCents, Long maxCents, Scope scope,
+                                  Sort.Order order, Pageable pageable, Scratch scratch) {
+            scratch.ensureCapacity(docCount);
+            try {
+                score(tokens, scope, scratch);
+
+                int matches = 0;
+                int[] hits = new int[scratch.touchedCount];
+                for (int i = 0; i < scratch.touchedCount; i++) {
+                    int doc = scratch.touched[i];
+                    if (scratch.matchedTokens[doc] == tokens.size()
+                            && (categoryId == null || categoryIds[doc] == categoryId)
+                            && (minCents == null || priceCents[doc] >= minCents)
+                            && (maxCents == null || priceCents[doc] <= maxCents)) {
+                        hits[matches++] = doc;
+                    }
+                }
+                return new SearchHits(topDocs(hits, matches, comparator(order, scratch), pageable), matches);
+            } finally {
+                scratch.reset();
+            }
+        }
+
+        private long[] matchingProductIds(List<String> tokens, Scope scope, Scratch scratch) {
+            scratch.ensureCapacity(docCount);
+            try {
+                score(tokens, scope, scratch);
+
+                long[] matches = new long[scratch.touchedCount];
+                int count = 0;
+                for (int i = 0; i < scratch.touchedCount; i++) {
+                    int doc = scratch.touched[i];
+                    if (scratch.matchedTokens[doc] == tokens.size()) {
+                        matches[count++] = productIds[doc];
+                    }
+                }
+                long[] sorted = Arrays.copyOf(matches, count);
+                Arrays.sort(sorted);
+                return sorted;
+            } finally {
+                scratch.reset();
+            }
+        }
+
+        private void score(List<String> tokens, Scope scope, Scratch scratch) {
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                name.score(token, t, NAME_WEIGHT, liveCount, live, scratch);
+                if (scope == Scope.NAME_AND_DESCRIPTION) {
+                    description.score(token, t, DESCRIPTION_WEIGHT, liveCount, live, scratch);
+                }
+            }
+        }
+
+        // Keep only the first offset + size results in a bounded heap instead of sorting every match
+        private List<Long> topDocs(int[] hits, int matches, Comparator<Integer> comparator, Pageable pageable) {
+            long end = pageable.getOffset() + pageable.getPageSize();
+            if (pageable.getOffset() >= matches) {
+                return List.of();
+            }
+            int limit = (int) Math.min(end, matches);
+            PriorityQueue<Integer> heap = new PriorityQueue<>(limit, comparator.reversed());
+            for (int i = 0; i < matches; i++) {
+                heap.offer(hits[i]);
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+            Long[] ordered = new Long[heap.size()];
+            for (int i = ordered.length - 1; i >= 0; i--) {
+                ordered[i] = productIds[heap.poll()];
+            }
+            return Arrays.asList(ordered).subList((int) pageable.getOffset(), ordered.length);
+        }
+
+        private Comparator<Integer> comparator(Sort.Order order, Scratch scratch) {
+            Comparator<Integer> comparator;
+            if (order == null) {
+                // Highest score first
+                comparator = (a, b) -> Double.compare(scratch.scores[b], scratch.scores[a]);
+            } else {
+                switch (order.getProperty()) {
+                    case "price":
+                        comparator = Comparator.comparingLong(doc -> priceCents[doc]);
+                        break;
+                    case "createdAt":
+                        comparator = Comparator.comparingLong(doc -> createdAt[doc]);
+                        break;
+                    default:
+                        comparator = (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(names[a], names[b]);
+                        break;
+                }
+                if (order.isDescending()) {
+                    comparator = comparator.reversed();
+                }
+            }
+            return comparator.thenComparingLong(doc -> productIds[doc]);
+        }
+    }
+
+    /**
+     * Postings of one field: token to documents, and for names also token prefix to documents
+     */
+    private static final class FieldIndex {
+        private final Map<String, Postings> terms = new HashMap<>();
+        private final Map<String, Postings> prefixes = new HashMap<>();
+        private final boolean withPrefixes;
+        private int[] lengths = new int[1024];
+        private long totalLength;
+
+        private FieldIndex(boolean withPrefixes) {
+            this.withPrefixes = withPrefixes;
+        }
+
+        private void add(int doc, List<String> tokens) {
+            if (doc == lengths.length) {
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            lengths[doc] = tokens.size();
+            totalLength += tokens.size();
+
+            Map<String, Integer> termFrequencies = new HashMap<>();
+            Map<String, Integer> prefixFrequencies = new HashMap<>();
+            for (String token : tokens) {
+                termFrequencies.merge(token, 1, Integer::sum);
+                if (withPrefixes) {
+                    for (int length = MIN_PREFIX_LENGTH; length < token.length() && length <= MAX_PREFIX_LENGTH; length++) {
+                        prefixFrequencies.merge(token.substring(0, length), 1, Integer::sum);
+                    }
+                }
+            }
+            termFrequencies.forEach((term, frequency) ->
+                    terms.computeIfAbsent(term, key -> new Postings()).add(doc, frequency));
+            prefixFrequencies.forEach((prefix, frequency) ->
+                    prefixes.computeIfAbsent(prefix, key -> new Postings()).add(doc, frequency));
+        }
+
+        private void retire(int doc) {
+            totalLength -= lengths[doc];
+        }
+
+        private void compact(int[] remap, int docCount) {
+            int[] compacted = new int[Math.max(1024, docCount)];
+            for (int doc = 0; doc < remap.length; doc++) {
+                if (remap[doc] >= 0) {
+                    compacted[remap[doc]] = lengths[doc];
+                }
+            }
+            lengths = compacted;
+            compact(terms, remap);
+            compact(prefixes, remap);
+        }
+
+        private static void compact(Map<String, Postings> postingsByKey, int[] remap) {
+            Iterator<Postings> iterator = postingsByKey.values().iterator();
+            while (iterator.hasNext()) {
+                Postings postings = iterator.next();
+                postings.compact(remap);
+                if (postings.size == 0) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        private void score(String token, int tokenIndex, double weight, int liveCount, BitSet live, Scratch scratch) {
+            if (liveCount == 0) {
+                return;
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / liveCount);
+            score(terms.get(token), tokenIndex, weight, averageLength, liveCount, live, scratch);
+            if (withPrefixes && token.length() >= MIN_PREFIX_LENGTH && token.length() <= MAX_PREFIX_LENGTH) {
+                score(prefixes.get(token), tokenIndex, weight * PREFIX_WEIGHT, averageLength, liveCount, live, scratch);
+            }
+        }
+
+        private void score(Postings postings, int tokenIndex, double weight, double averageLength, int liveCount,
+                           BitSet live, Scratch scratch) {
+            if (postings == null) {
+                return;
+            }
+            int documentFrequency = Math.min(postings.size, liveCount);
+            double idf = Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                // Only documents that matched every earlier token can still match the query
+                if (!live.get(doc) || !scratch.match(doc, tokenIndex)) {
+                    continue;
+                }
+                int frequency = postings.frequencies[i];
+                double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                scratch.scores[doc] += (float) (weight * idf * frequency * (K1 + 1) / (frequency + norm));
+            }
+        }
+    }
+
+    /**
+     * Document IDs in ascending order with the token's frequency in each
+     */
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        private void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        private void compact(int[] remap) {
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[next] = doc;
+                    frequencies[next] = frequencies[i];
+                    next++;
+                }
+            }
+            size = next;
+        }
+    }
+
+    /**
+     * Per-thread score accumulators, sized to the index and cleared after each search
+     */
+    private static final class Scratch {
+        private float[] scores = new float[0];
+        private int[] matchedTokens = new int[0];
+        private int[] touched = new int[0];
+        private int touchedCount;
+
+        private void ensureCapacity(int docCount) {
+            if (scores.length < docCount) {
+                scores = new float[docCount];
+                matchedTokens = new int[docCount];
+                touched = new int[docCount];
+            }
+        }
+
+        // Record that a document matched token tokenIndex; false if it missed an earlier token
+        private boolean match(int doc, int tokenIndex) {
+            if (matchedTokens[doc] == tokenIndex) {
+                if (tokenIndex == 0) {
+                    touched[touchedCount++] = doc;
+                }
+                matchedTokens[doc] = tokenIndex + 1;
+                return true;
+            }
+            return matchedTokens[doc] == tokenIndex + 1;
+        }
+
+        private void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0;
+                matchedTokens[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+}
@@ -5,20 +5,33 @@ import com.fruitstore.domain.product.Product;
 import com.fruitstore.dto.request.product.CreateProductRequest;
 import com.fruitstore.dto.request.product.ProductFilterRequest;
 import com.fruitstore.dto.request.product.UpdateProductRequest;
+import com.fruitstore.dto.response.common.CursorPageResponse;
 import com.fruitstore.dto.response.product.ProductListResponse;
 import com.fruitstore.dto.response.product.ProductResponse;
 import com.fruitstore.dto.response.category.CategoryResponse;
+import com.fruitstore.exception.VersionConflictException;
 import com.fruitstore.repository.CategoryRepository;
 import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.util.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -29,13 +42,34 @@ import java.util.stream.Collectors;
 @Transactional
 public class ProductService {
 
+    private static final int MAX_SLICE_SIZE = 100;
+    private static final Set<String> SLICE_SORT_FIELDS = Set.of("name", "price", "createdAt");
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final StockReservationService stockReservationService;
+    private final FlashSaleStockService flashSaleStockService;
+    private final ShardedStockService shardedStockService;
+    private final CatalogCacheService catalogCacheService;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetService productFacetService;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository) {
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository,
+                          StockReservationService stockReservationService,
+                          FlashSaleStockService flashSaleStockService,
+                          ShardedStockService shardedStockService,
+                          CatalogCacheService catalogCacheService,
+                          ProductSearchService productSearchService,
+                          ProductFacetService productFacetService) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.stockReservationService = stockReservationService;
+        this.flashSaleStockService = flashSaleStockService;
+        this.shardedStockService = shardedStockService;
+        this.catalogCacheService = catalogCacheService;
+        this.productSearchService = productSearchService;
+        this.productFacetService = productFacetService;
     }
 
     /**
@@ -52,17 +86,20 @@ public class ProductService {
 
     /**
      * Get product by ID
+     * Served from the catalog cache; cache hits do not open a transaction, misses load in a read-only one.
      * 
      * @param id the product ID
      * @return product response
      * @throws IllegalArgumentException if product not found
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
+        return catalogCacheService.getProduct(id, () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
 
-        return mapToProductResponse(product);
+            return mapToProductResponse(product);
+        });
     }
 
     /**
@@ -72,16 +109,15 @@ public class ProductService {
      * @return product response
      * @throws IllegalArgumentException if product not found or inactive
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductResponse getActiveProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
+        ProductResponse product = getProductById(id);
 
         if (!product.getIsActive()) {
             throw new IllegalArgumentException("Product is not active with id: " + id);
         }
 
-        return mapToProductResponse(product);
+        return product;
     }
 
     /**
@@ -91,22 +127,27 @@ public class ProductService {
      * @param pageable pagination information
      * @return page of products in the category
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
-        // Verify category exists and is active
-        Category category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new IllegalArgumentException("Category not found with id: " + categoryId));
+        return catalogCacheService.getCategoryPage(categoryId, pageable, () -> {
+            // Verify category exists and is active
+            Category category = categoryRepository.findById(categoryId)
+                    .orElseThrow(() -> new IllegalArgumentException("Category not found with id: " + categoryId));
 
-        if (!category.getIsActive()) {
-            throw new IllegalArgumentException("Category is not active with id: " + categoryId);
-        }
+            if (!category.getIsActive()) {
+                throw new IllegalArgumentException("Category is not active with id: " + categoryId);
+            }
 
-        Page<Product> products = productRepository.findByCategory_CategoryIdAndIsActiveTrue(categoryId, pageable);
-        return products.map(this::mapToProductResponse);
+            Page<Product> products = productRepository.findByCategory_CategoryIdAndIsActiveTrue(categoryId, pageable);
+            return products.map(this::mapToProductResponse);
+        });
     }
 
     /**
      * Search products with filters
+     * Keyword searches go through the in-memory search index when it is enabled: the keyword is matched
+     * accent-insensitively against whole words and name prefixes, and sortBy "relevance" ranks by BM25.
+     * With facets set, the response also carries category counts, a price histogram and the in-stock count.
      * 
      * @param filterRequest filter criteria
      * @return filtered product list response
@@ -116,27 +157,94 @@ public class ProductService {
         // Create pageable from filter request
         Pageable pageable = createPageable(filterRequest);
 
-        // Search products with filters
-        Page<Product> productPage = productRepository.findProductsWithFilters(
+        // Search products with filters, through the search index when it can answer
+        Page<ProductResponse> productPage = productSearchService.search(
+                filterRequest.getKeyword(),
+                filterRequest.getCategoryId(),
+                filterRequest.getMinPrice(),
+                filterRequest.getMaxPrice(),
+                ProductSearchService.Scope.NAME_AND_DESCRIPTION,
+                pageable
+        ).map(hits -> mapSearchHits(hits, pageable)).orElseGet(() -> productRepository.findProductsWithFilters(
                 filterRequest.getCategoryId(),
                 filterRequest.getMinPrice(),
                 filterRequest.getMaxPrice(),
                 filterRequest.getKeyword(),
                 pageable
-        );
+        ).map(this::mapToProductResponse));
 
-        // Convert to response DTOs
-        List<ProductResponse> products = productPage.getContent().stream()
-                .map(this::mapToProductResponse)
-                .collect(Collectors.toList());
+        List<ProductResponse> products = productPage.getContent();
 
-        return new ProductListResponse(
+        ProductListResponse response = new ProductListResponse(
                 products,
                 productPage.getTotalPages(),
                 productPage.getTotalElements(),
                 productPage.getNumber(),
                 productPage.getSize()
         );
+        if (Boolean.TRUE.equals(filterRequest.getFacets())) {
+            response.setFacets(productFacetService.getFacets(filterRequest));
+        }
+        return response;
+    }
+
+    /**
+     * Search products with filters, one slice after a cursor at a time
+     * Unlike {@link #searchProducts(ProductFilterRequest)} this seeks on (sort field, product ID) instead of
+     * using OFFSET, and runs no count query; page in the filter is ignored. Supported sort fields are
+     * name, price and createdAt.
+     *
+     * @param filterRequest filter criteria, slice size and sort
+     * @param cursor cursor from the previous slice, or null for the first slice
+     * @return slice of products with the cursor of the next slice
+     * @throws IllegalArgumentException if the cursor is invalid or was issued for another sort
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductResponse> searchProductsSlice(ProductFilterRequest filterRequest, String cursor) {
+        int size = filterRequest.getSize();
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new IllegalArgumentException("Slice size must be between 1 and " + MAX_SLICE_SIZE);
+        }
+        Sort.Order order = createSort(filterRequest.getSortBy(), filterRequest.getSortDirection()).iterator().next();
+        String sortField = order.getProperty();
+        boolean descending = order.isDescending();
+        if (!SLICE_SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Cursor pagination supports sorting by name, price or createdAt only");
+        }
+
+        Object afterKey = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] values = CursorUtil.decode(cursor, 4);
+            if (!values[0].equals(sortField) || !values[1].equals(order.getDirection().name())) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sortField + " " + order.getDirection());
+            }
+            try {
+                afterId = Long.parseLong(values[2]);
+                afterKey = parseSortKey(sortField, values[3]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        String keyword = filterRequest.getKeyword() == null || filterRequest.getKeyword().isBlank()
+                ? null : filterRequest.getKeyword();
+        List<Product> products = productRepository.findActiveSlice(filterRequest.getCategoryId(),
+                filterRequest.getMinPrice(), filterRequest.getMaxPrice(), keyword, sortField, descending,
+                afterKey, afterId, size + 1);
+
+        boolean hasNext = products.size() > size;
+        List<Product> slice = hasNext ? products.subList(0, size) : products;
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = slice.get(slice.size() - 1);
+            nextCursor = CursorUtil.encode(sortField, order.getDirection().name(),
+                    last.getProductId().toString(), sortKeyOf(sortField, last));
+        }
+        List<ProductResponse> items = slice.stream()
+                .map(this::mapToProductResponse)
+                .collect(Collectors.toList());
+        return new CursorPageResponse<>(items, size, hasNext, nextCursor);
     }
 
     /**
@@ -172,6 +280,9 @@ public class ProductService {
 
         // Save product
         Product savedProduct = productRepository.save(product);
+        catalogCacheService.invalidateProduct(savedProduct.getProductId(), category.getCategoryId());
+        productSearchService.onProductSaved(savedProduct);
+        productFacetService.onProductSaved(savedProduct);
 
         return mapToProductResponse(savedProduct);
     }
@@ -182,11 +293,33 @@ public class ProductService {
      * @param id the product ID
      * @param request product update request
      * @return updated product response
-     * @throws IllegalArgumentException if product not found, name already exists, or category not found
+     * @throws IllegalArgumentException if product not found, name already exists, category not found,
+     *         or stock is changed while the product is in flash-sale mode
      */
+    @RetryOnOptimisticLock
     public ProductResponse updateProduct(Long id, UpdateProductRequest request) {
+        return updateProduct(id, request, null);
+    }
+
+    /**
+     * Update an existing product if it still has the version the client read
+     * 
+     * @param id the product ID
+     * @param request product update request
+     * @param expectedVersion version from the client's If-Match header, or null to skip the check
+     * @return updated product response
+     * @throws VersionConflictException if the product has been modified since the client read it
+     * @throws IllegalArgumentException if product not found, name already exists, category not found,
+     *         or stock is changed while the product is in flash-sale mode
+     */
+    @RetryOnOptimisticLock
+    public ProductResponse updateProduct(Long id, UpdateProductRequest request, Long expectedVersion) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new VersionConflictException("Product", id, expectedVersion, product.getVersion());
+        }
+        Long previousCategoryId = categoryIdOf(product);
 
         // Check if new name conflicts with existing product (excluding current one)
         if (!product.getName().equalsIgnoreCase(request.getName()) && 
@@ -198,7 +331,13 @@ public class ProductService {
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
-        product.setStockQuantity(request.getStockQuantity());
+        if (!Objects.equals(product.getStockQuantity(), request.getStockQuantity())) {
+            requireNotFlashSale(id);
+            if (shardedStockService.isSharded(id)) {
+                shardedStockService.resetStock(id, request.getStockQuantity());
+            }
+            product.setStockQuantity(request.getStockQuantity());
+        }
         product.setImageUrl(request.getImageUrl());
 
         // Update category if provided
@@ -217,8 +356,13 @@ public class ProductService {
             product.setIsActive(request.getIsActive());
         }
 
-        // Save updated product
+        // Save updated product, flushing so the response carries the new version
         Product updatedProduct = productRepository.save(product);
+        productRepository.flush();
+        stockReservationService.syncOnHand(updatedProduct.getProductId(), updatedProduct.getStockQuantity());
+        catalogCacheService.invalidateProduct(id, previousCategoryId, categoryIdOf(updatedProduct));
+        productSearchService.onProductSaved(updatedProduct);
+        productFacetService.onProductSaved(updatedProduct);
 
         return mapToProductResponse(updatedProduct);
     }
@@ -236,6 +380,9 @@ public class ProductService {
         // Soft delete by setting isActive to false
         product.setIsActive(false);
         productRepository.save(product);
+        catalogCacheService.invalidateProduct(id, categoryIdOf(product));
+        productSearchService.onProductRemoved(id);
+        productFacetService.onProductSaved(product);
     }
 
     /**
@@ -250,25 +397,36 @@ public class ProductService {
 
         // Permanently delete product
         productRepository.delete(product);
+        catalogCacheService.invalidateProduct(id, categoryIdOf(product));
+        productSearchService.onProductRemoved(id);
+        productFacetService.onProductRemoved(id);
     }
 
     /**
      * Check stock availability for a product
+     * Stock held by carts in the reservation ledger is not counted as available.
+     * Flash-sale products are answered from their in-memory counter without opening a transaction.
+     * The active flag comes from the catalog cache and the stock from the ledger, so the products
+     * row is read only on a cache miss or before the product's first reservation.
      * 
      * @param productId the product ID
      * @param quantity the requested quantity
      * @return true if sufficient stock available, false otherwise
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Boolean checkStockAvailability(Long productId, Integer quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + productId));
+        OptionalInt flashSaleStock = flashSaleStockService.getStock(productId);
+        if (flashSaleStock.isPresent()) {
+            return quantity <= flashSaleStock.getAsInt();
+        }
 
-        if (!product.getIsActive()) {
+        if (!Boolean.TRUE.equals(getProductById(productId).getIsActive())) {
             throw new IllegalArgumentException("Product is not active with id: " + productId);
         }
 
-        return product.hasSufficientStock(quantity);
+        return quantity <= stockReservationService.getAvailableToSell(productId, () ->
+                productRepository.findById(productId)
+                        .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + productId)));
     }
 
     /**
@@ -276,9 +434,11 @@ public class ProductService {
      * 
      * @param productId the product ID
      * @param quantity the quantity to reduce
-     * @throws IllegalArgumentException if product not found or insufficient stock
+     * @throws IllegalArgumentException if product not found, in flash-sale mode or insufficient stock
      */
+    @RetryOnOptimisticLock
     public void reduceStock(Long productId, Integer quantity) {
+        requireNotFlashSale(productId);
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + productId));
 
@@ -286,8 +446,17 @@ public class ProductService {
             throw new IllegalArgumentException("Product is not active with id: " + productId);
         }
 
-        product.reduceStock(quantity);
-        productRepository.save(product);
+        catalogCacheService.invalidateProduct(productId, categoryIdOf(product));
+        int stock;
+        if (shardedStockService.isSharded(productId)) {
+            stock = shardedStockService.reduceStock(productId, quantity);
+        } else {
+            product.reduceStock(quantity);
+            productRepository.save(product);
+            stock = product.getStockQuantity();
+        }
+        stockReservationService.syncOnHand(productId, stock);
+        productFacetService.onProductSaved(product, stock);
     }
 
     /**
@@ -295,14 +464,25 @@ public class ProductService {
      * 
      * @param productId the product ID
      * @param quantity the quantity to add
-     * @throws IllegalArgumentException if product not found
+     * @throws IllegalArgumentException if product not found or in flash-sale mode
      */
+    @RetryOnOptimisticLock
     public void addStock(Long productId, Integer quantity) {
+        requireNotFlashSale(productId);
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + productId));
 
-        product.addStock(quantity);
-        productRepository.save(product);
+        catalogCacheService.invalidateProduct(productId, categoryIdOf(product));
+        int stock;
+        if (shardedStockService.isSharded(productId)) {
+            stock = shardedStockService.addStock(productId, quantity);
+        } else {
+            product.addStock(quantity);
+            productRepository.save(product);
+            stock = product.getStockQuantity();
+        }
+        stockReservationService.syncOnHand(productId, stock);
+        productFacetService.onProductSaved(product, stock);
     }
 
     /**
@@ -336,6 +516,7 @@ public class ProductService {
 
     /**
      * Search products by name
+     * Goes through the in-memory search index when it is enabled, like {@link #searchProducts(ProductFilterRequest)}
      * 
      * @param name the name pattern to search for
      * @param pageable pagination information
@@ -343,6 +524,11 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> searchProductsByName(String name, Pageable pageable) {
+        Optional<ProductSearchService.SearchHits> hits = productSearchService.search(name, null, null, null,
+                ProductSearchService.Scope.NAME, pageable);
+        if (hits.isPresent()) {
+            return mapSearchHits(hits.get(), pageable);
+        }
         Page<Product> products = productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(name, pageable);
         return products.map(this::mapToProductResponse);
     }
@@ -375,6 +561,15 @@ public class ProductService {
         return products.map(this::mapToProductResponse);
     }
 
+    /**
+     * Stock of a flash-sale product lives in memory until the sale is disabled
+     */
+    private void requireNotFlashSale(Long productId) {
+        if (flashSaleStockService.isFlashSale(productId)) {
+            throw new IllegalArgumentException("Product stock is managed by a flash sale, disable it first: " + productId);
+        }
+    }
+
     /**
      * Create Pageable from ProductFilterRequest
      * 
@@ -386,6 +581,24 @@ public class ProductService {
         return PageRequest.of(filterRequest.getPage(), filterRequest.getSize(), sort);
     }
 
+    /**
+     * Load the products of a page of search hits, keeping the index's order
+     */
+    private Page<ProductResponse> mapSearchHits(ProductSearchService.SearchHits hits, Pageable pageable) {
+        Map<Long, Product> productsById = productRepository.findAllById(hits.getProductIds()).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        List<ProductResponse> products = hits.getProductIds().stream()
+                .map(productsById::get)
+                .filter(product -> product != null && product.getIsActive())
+                .map(this::mapToProductResponse)
+                .collect(Collectors.toList());
+        return new PageImpl<>(products, pageable, hits.getTotal());
+    }
+
+    private Long categoryIdOf(Product product) {
+        return product.getCategory() != null ? product.getCategory().getCategoryId() : null;
+    }
+
     /**
      * Create Sort object from sort parameters
      * 
@@ -408,11 +621,35 @@ public class ProductService {
             case "stockquantity":
             case "stock_quantity":
                 return Sort.by(direction, "stockQuantity");
+            case "relevance":
+                return Sort.unsorted();
             default:
                 return Sort.by(direction, "name"); // Default sort by name
         }
     }
 
+    private Object parseSortKey(String sortField, String value) {
+        switch (sortField) {
+            case "price":
+                return new BigDecimal(value);
+            case "createdAt":
+                return LocalDateTime.parse(value);
+            default:
+                return value;
+        }
+    }
+
+    private String sortKeyOf(String sortField, Product product) {
+        switch (sortField) {
+            case "price":
+                return product.getPrice().toPlainString();
+            case "createdAt":
+                return product.getCreatedAt().toString();
+            default:
+                return product.getName();
+        }
+    }
+
     /**
      * Map Product entity to ProductResponse DTO
      * 
@@ -432,7 +669,7 @@ public class ProductService {
             );
         }
 
-        return new ProductResponse(
+        ProductResponse response = new ProductResponse(
                 product.getProductId(),
                 product.getName(),
                 product.getDescription(),
@@ -444,6 +681,8 @@ public class ProductService {
                 product.getCreatedAt(),
                 product.getUpdatedAt()
         );
+        response.setVersion(product.getVersion());
+        return response;
     }
 
 }
@@ -0,0 +1,24 @@
+package com.fruitstore.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a transactional service method that is re-run when its commit loses an optimistic
+ * version check to a concurrent writer
+ * The retry wraps the method's own transaction, so it only applies when the method is called
+ * from outside a transaction; see {@link OptimisticLockRetryInterceptor}
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnOptimisticLock {
+
+    /**
+     * Maximum number of attempts, including the first; 0 uses app.optimistic-retry.max-attempts
+     */
+    int maxAttempts() default 0;
+}
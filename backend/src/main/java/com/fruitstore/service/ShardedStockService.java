@@ -0,0 +1,615 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.product.ProductStockShard;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.ProductStockShardRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Service for sharded product stock
+ * A sharded product keeps its stock in N 'product_stock_shards' rows. A decrement picks a
+ * random shard that holds enough stock and runs a conditional UPDATE on that row only, so
+ * concurrent checkouts of a best-seller lock different rows; when no single shard is enough,
+ * the shards are locked in index order and the quantity is taken across them.
+ *
+ * A shard is reserved in memory before its UPDATE, so concurrent checkouts spread over shards that
+ * still have stock and a conditional UPDATE rarely misses (a miss can leave the row locked until
+ * commit, which is what lets two multi-shard takes deadlock).
+ *
+ * Shard writes run on the caller's transaction. Reads use cached per-shard quantities that are
+ * adjusted after each commit and refreshed from the database periodically; Product entities
+ * get the cached total on load, so getStockQuantity() and hasSufficientStock() see the shards.
+ * The refresh also copies the total to 'products.stock_quantity' for listing and sorting.
+ */
+@Service
+public class ShardedStockService {
+
+    static final int MAX_SHARDS = 64;
+
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final StockReservationService stockReservationService;
+    private final FlashSaleStockService flashSaleStockService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentHashMap<Long, ShardState> states = new ConcurrentHashMap<>();
+
+    private final LongAdder singleShardTakes = new LongAdder();
+    private final LongAdder multiShardTakes = new LongAdder();
+    private final LongAdder shardMisses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public ShardedStockService(ProductRepository productRepository, ProductStockShardRepository shardRepository,
+                               StockReservationService stockReservationService,
+                               FlashSaleStockService flashSaleStockService,
+                               EntityManagerFactory entityManagerFactory,
+                               PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.shardRepository = shardRepository;
+        this.stockReservationService = stockReservationService;
+        this.flashSaleStockService = flashSaleStockService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Hook the cached totals into Product loading and read the existing shards
+     */
+    @PostConstruct
+    public void start() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> {
+            if (event.getEntity() instanceof Product product) {
+                ShardState state = product.getProductId() != null ? states.get(product.getProductId()) : null;
+                if (state != null) {
+                    product.setShardedStockQuantity(state.total());
+                }
+            }
+        });
+        refresh();
+    }
+
+    /**
+     * Check whether a product's stock is sharded
+     *
+     * @param productId the product ID
+     * @return true if the product's stock lives in shard rows
+     */
+    public boolean isSharded(Long productId) {
+        return states.containsKey(productId);
+    }
+
+    /**
+     * Get the cached stock of a sharded product
+     *
+     * @param productId the product ID
+     * @return the cached total, or empty if the product is not sharded
+     */
+    public OptionalInt getCachedStock(Long productId) {
+        ShardState state = states.get(productId);
+        return state == null ? OptionalInt.empty() : OptionalInt.of(state.total());
+    }
+
+    /**
+     * Split a product's stock across shard rows, or re-split it if it is already sharded
+     *
+     * @param productId the product ID
+     * @param shardCount number of shards
+     * @return the sharded stock state of the product
+     * @throws IllegalArgumentException if the shard count is out of range, the product does not exist
+     *         or is in flash-sale mode
+     */
+    public ShardedStockStatus enable(Long productId, int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS);
+        }
+        if (flashSaleStockService.isFlashSale(productId)) {
+            throw new IllegalArgumentException("Product stock is managed by a flash sale, disable it first: " + productId);
+        }
+        return split(productId, shardCount, null);
+    }
+
+    /**
+     * Replace the stock of a sharded product, keeping its shard count
+     *
+     * @param productId the product ID
+     * @param stockQuantity the new total stock
+     * @return the sharded stock state of the product
+     */
+    public ShardedStockStatus resetStock(Long productId, int stockQuantity) {
+        ShardState state = requireState(productId);
+        return split(productId, state.shardCount(), stockQuantity);
+    }
+
+    /**
+     * Collapse a product's shards back into 'products.stock_quantity'
+     *
+     * @param productId the product ID
+     * @return the final stock of the product
+     * @throws IllegalArgumentException if the product is not sharded
+     */
+    public int disable(Long productId) {
+        ShardState state = requireState(productId);
+        int total = transactionTemplate.execute(status -> {
+            int sum = shardRepository.findByProductIdForUpdate(productId).stream()
+                    .mapToInt(ProductStockShard::getQuantity).sum();
+            productRepository.updateStockQuantity(productId, sum);
+            shardRepository.deleteByProductIdInBulk(productId);
+            return sum;
+        });
+        states.remove(productId, state);
+        stockReservationService.syncOnHand(productId, total);
+        return total;
+    }
+
+    /**
+     * Decrement stock of several products on the caller's transaction
+     *
+     * @param quantitiesByProductId quantity to decrement per product ID
+     * @return IDs of products whose stock was insufficient (empty if all were decremented)
+     */
+    public List<Long> decrement(Map<Long, Integer> quantitiesByProductId) {
+        List<Long> insufficient = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantitiesByProductId.entrySet()) {
+            if (!take(entry.getKey(), entry.getValue())) {
+                rejected.increment();
+                insufficient.add(entry.getKey());
+            }
+        }
+        return insufficient;
+    }
+
+    /**
+     * Reduce stock of a sharded product
+     *
+     * @param productId the product ID
+     * @param quantity the quantity to reduce
+     * @return the product's stock afterwards, as seen by the current transaction
+     * @throws IllegalArgumentException if the quantity is not positive or stock is insufficient
+     */
+    public int reduceStock(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        if (!take(productId, quantity)) {
+            rejected.increment();
+            throw new IllegalArgumentException("Insufficient stock. Available: "
+                    + getCachedStock(productId).orElse(0) + ", Requested: " + quantity);
+        }
+        return currentStock(productId);
+    }
+
+    /**
+     * Add stock to the emptiest shard of a sharded product
+     *
+     * @param productId the product ID
+     * @param quantity the quantity to add
+     * @return the product's stock afterwards, as seen by the current transaction
+     * @throws IllegalArgumentException if the quantity is negative or the product is not sharded
+     */
+    public int addStock(Long productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        ShardState state = requireState(productId);
+        int index = state.emptiestShard();
+        shardRepository.increment(productId, index, quantity);
+        afterCompletion(committed -> {
+            if (committed) {
+                state.committed.addAndGet(index, quantity);
+            }
+        });
+        return currentStock(productId);
+    }
+
+    /**
+     * Re-read every shard, fix the cached quantities and copy changed totals to 'products'
+     *
+     * @return number of products whose stored total was updated
+     */
+    @Scheduled(fixedDelayString = "${app.stock.shards.refresh-interval-ms:1000}")
+    public int refresh() {
+        Map<Long, List<Integer>> quantitiesByProduct = new HashMap<>();
+        for (ProductStockShard shard : shardRepository.findAllByOrderByProductIdAscShardIndexAsc()) {
+            quantitiesByProduct.computeIfAbsent(shard.getProductId(), id -> new ArrayList<>()).add(shard.getQuantity());
+        }
+
+        int written = 0;
+        for (Map.Entry<Long, List<Integer>> entry : quantitiesByProduct.entrySet()) {
+            ShardState state = states.get(entry.getKey());
+            if (state == null || state.shardCount() != entry.getValue().size()) {
+                state = new ShardState(entry.getValue());
+                states.put(entry.getKey(), state);
+            } else {
+                // Keep in-flight reservations, only the committed quantities are re-read
+                for (int index = 0; index < state.shardCount(); index++) {
+                    state.committed.set(index, entry.getValue().get(index));
+                }
+            }
+            int total = state.total();
+            if (state.persistedTotal != total) {
+                transactionTemplate.executeWithoutResult(status ->
+                        productRepository.updateStockQuantity(entry.getKey(), total));
+                stockReservationService.syncOnHand(entry.getKey(), total);
+                written++;
+            }
+            state.persistedTotal = total;
+        }
+        states.keySet().removeIf(productId -> !quantitiesByProduct.containsKey(productId));
+        return written;
+    }
+
+    /**
+     * Get the sharded stock state of every sharded product
+     *
+     * @return sharded stock states ordered by product ID
+     */
+    public List<ShardedStockStatus> getStatuses() {
+        List<ShardedStockStatus> statuses = new ArrayList<>();
+        states.forEach((productId, state) -> statuses.add(state.toStatus(productId)));
+        statuses.sort(Comparator.comparing(ShardedStockStatus::getProductId));
+        return statuses;
+    }
+
+    /**
+     * Get sharded stock metrics
+     *
+     * @return sharded stock statistics snapshot
+     */
+    public ShardedStockStatistics getStatistics() {
+        return new ShardedStockStatistics(states.size(), singleShardTakes.sum(), multiShardTakes.sum(),
+                shardMisses.sum(), rejected.sum());
+    }
+
+    private ShardedStockStatus split(Long productId, int shardCount, Integer newTotal) {
+        // Publish first so new checkouts stop using the product row while it is being split
+        ShardState pending = new ShardState(new ArrayList<>(Collections.nCopies(shardCount, 0)));
+        ShardState previous = states.put(productId, pending);
+        List<Integer> quantities;
+        try {
+            quantities = transactionTemplate.execute(status -> {
+                productRepository.findByIdForUpdate(productId)
+                        .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + productId));
+                // Loaded products already carry the pending total, so an unsharded stock is read from the column
+                List<ProductStockShard> existing = shardRepository.findByProductIdForUpdate(productId);
+                int total = newTotal != null ? newTotal
+                        : existing.isEmpty() ? productRepository.findStockQuantityById(productId).orElse(0)
+                        : existing.stream().mapToInt(ProductStockShard::getQuantity).sum();
+
+                shardRepository.deleteByProductIdInBulk(productId);
+                List<Integer> split = new ArrayList<>(shardCount);
+                List<ProductStockShard> shards = new ArrayList<>(shardCount);
+                for (int index = 0; index < shardCount; index++) {
+                    int quantity = total / shardCount + (index < total % shardCount ? 1 : 0);
+                    split.add(quantity);
+                    shards.add(new ProductStockShard(productId, index, quantity));
+                }
+                shardRepository.saveAll(shards);
+                productRepository.updateStockQuantity(productId, total);
+                return split;
+            });
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                states.replace(productId, pending, previous);
+            } else {
+                states.remove(productId, pending);
+            }
+            throw e;
+        }
+        ShardState state = new ShardState(quantities);
+        state.persistedTotal = state.total();
+        states.put(productId, state);
+        stockReservationService.syncOnHand(productId, state.total());
+        return state.toStatus(productId);
+    }
+
+    private boolean take(Long productId, int quantity) {
+        ShardState state = states.get(productId);
+        if (state == null) {
+            return productRepository.decrementStockIfAvailable(productId, quantity) == 1;
+        }
+
+        int shardCount = state.shardCount();
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int index = (start + i) % shardCount;
+            if (!state.reserve(index, quantity)) {
+                continue;
+            }
+            if (shardRepository.decrementIfAvailable(productId, index, quantity) == 1) {
+                singleShardTakes.increment();
+                afterCompletion(committed -> {
+                    if (committed) {
+                        state.committed.addAndGet(index, -quantity);
+                    }
+                    state.reserved.addAndGet(index, -quantity);
+                });
+                return true;
+            }
+            state.reserved.addAndGet(index, -quantity);
+            shardMisses.increment();
+        }
+        return takeAcrossShards(productId, quantity, state);
+    }
+
+    /**
+     * Take a quantity no single shard holds: reserve parts in shard index order and decrement them;
+     * if the database disagrees with the cache, lock every shard and take what is left under the locks
+     */
+    private boolean takeAcrossShards(Long productId, int quantity, ShardState state) {
+        Map<Integer, Integer> reservedParts = state.reserveAcross(quantity);
+        if (reservedParts == null) {
+            return false;
+        }
+
+        Map<Integer, Integer> taken = new HashMap<>();
+        int remaining = quantity;
+        for (Map.Entry<Integer, Integer> part : reservedParts.entrySet()) {
+            if (shardRepository.decrementIfAvailable(productId, part.getKey(), part.getValue()) == 1) {
+                taken.put(part.getKey(), part.getValue());
+                remaining -= part.getValue();
+            } else {
+                shardMisses.increment();
+            }
+        }
+        boolean done = remaining == 0 || takeUnderLock(productId, remaining, taken);
+        if (!done) {
+            taken.forEach((index, part) -> shardRepository.increment(productId, index, part));
+            taken.clear();
+        }
+
+        afterCompletion(committed -> {
+            if (committed) {
+                taken.forEach((index, part) -> state.committed.addAndGet(index, -part));
+            }
+            reservedParts.forEach((index, part) -> state.reserved.addAndGet(index, -part));
+        });
+        if (done) {
+            multiShardTakes.increment();
+        }
+        return done;
+    }
+
+    private boolean takeUnderLock(Long productId, int quantity, Map<Integer, Integer> taken) {
+        List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        if (shards.isEmpty()) {
+            // Collapsed back into the product row in the meantime
+            return productRepository.decrementStockIfAvailable(productId, quantity) == 1;
+        }
+        if (shards.stream().mapToInt(ProductStockShard::getQuantity).sum() < quantity) {
+            return false;
+        }
+
+        int remaining = quantity;
+        for (ProductStockShard shard : shards) {
+            int part = Math.min(shard.getQuantity(), remaining);
+            if (part > 0) {
+                shardRepository.decrementIfAvailable(productId, shard.getShardIndex(), part);
+                taken.merge(shard.getShardIndex(), part, Integer::sum);
+                remaining -= part;
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    // Read back rather than taken from the cache, which only holds committed quantities
+    private int currentStock(Long productId) {
+        if (!states.containsKey(productId)) {
+            // Collapsed back into the product row in the meantime
+            return productRepository.findStockQuantityById(productId).orElse(0);
+        }
+        return (int) shardRepository.sumQuantityByProductId(productId);
+    }
+
+    private void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private ShardState requireState(Long productId) {
+        ShardState state = states.get(productId);
+        if (state == null) {
+            throw new IllegalArgumentException("Product stock is not sharded: " + productId);
+        }
+        return state;
+    }
+
+    /**
+     * Cached per-shard quantities of one product
+     * 'committed' follows the database after each commit and on refresh; 'reserved' holds quantities
+     * taken by checkouts that have not finished yet
+     */
+    private static final class ShardState {
+        private final AtomicIntegerArray committed;
+        private final AtomicIntegerArray reserved;
+        private volatile int persistedTotal = -1;
+
+        private ShardState(List<Integer> quantities) {
+            this.committed = new AtomicIntegerArray(quantities.size());
+            this.reserved = new AtomicIntegerArray(quantities.size());
+            for (int i = 0; i < quantities.size(); i++) {
+                this.committed.set(i, quantities.get(i));
+            }
+        }
+
+        private int shardCount() {
+            return committed.length();
+        }
+
+        private boolean reserve(int index, int quantity) {
+            if (committed.get(index) - reserved.addAndGet(index, quantity) >= 0) {
+                return true;
+            }
+            reserved.addAndGet(index, -quantity);
+            return false;
+        }
+
+        private Map<Integer, Integer> reserveAcross(int quantity) {
+            Map<Integer, Integer> parts = new LinkedHashMap<>();
+            int remaining = quantity;
+            for (int index = 0; index < committed.length() && remaining > 0; index++) {
+                int part = reserveUpTo(index, remaining);
+                if (part > 0) {
+                    parts.put(index, part);
+                    remaining -= part;
+                }
+            }
+            if (remaining > 0) {
+                parts.forEach((index, part) -> reserved.addAndGet(index, -part));
+                return null;
+            }
+            return parts;
+        }
+
+        private int reserveUpTo(int index, int quantity) {
+            while (true) {
+                int current = reserved.get(index);
+                int part = Math.min(committed.get(index) - current, quantity);
+                if (part <= 0) {
+                    return 0;
+                }
+                if (reserved.compareAndSet(index, current, current + part)) {
+                    return part;
+                }
+            }
+        }
+
+        private int total() {
+            int total = 0;
+            for (int i = 0; i < committed.length(); i++) {
+                total += Math.max(0, committed.get(i));
+            }
+            return total;
+        }
+
+        private int emptiestShard() {
+            int emptiest = 0;
+            for (int i = 1; i < committed.length(); i++) {
+                if (committed.get(i) < committed.get(emptiest)) {
+                    emptiest = i;
+                }
+            }
+            return emptiest;
+        }
+
+        private ShardedStockStatus toStatus(Long productId) {
+            List<Integer> shardQuantities = new ArrayList<>(committed.length());
+            for (int i = 0; i < committed.length(); i++) {
+                shardQuantities.add(committed.get(i));
+            }
+            return new ShardedStockStatus(productId, shardQuantities.size(), total(), shardQuantities);
+        }
+    }
+
+    /**
+     * Inner class for the sharded stock state of one product
+     */
+    public static class ShardedStockStatus {
+        private Long productId;
+        private int shardCount;
+        private int stock;
+        private List<Integer> shardQuantities;
+
+        // Constructors
+        public ShardedStockStatus() {}
+
+        public ShardedStockStatus(Long productId, int shardCount, int stock, List<Integer> shardQuantities) {
+            this.productId = productId;
+            this.shardCount = shardCount;
+            this.stock = stock;
+            this.shardQuantities = shardQuantities;
+        }
+
+        // Getters and Setters
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public int getShardCount() { return shardCount; }
+        public void setShardCount(int shardCount) { this.shardCount = shardCount; }
+
+        public int getStock() { return stock; }
+        public void setStock(int stock) { this.stock = stock; }
+
+        public List<Integer> getShardQuantities() { return shardQuantities; }
+        public void setShardQuantities(List<Integer> shardQuantities) { this.shardQuantities = shardQuantities; }
+    }
+
+    /**
+     * Inner class for sharded stock statistics
+     */
+    public static class ShardedStockStatistics {
+        private int shardedProducts;
+        private long singleShardTakes;
+        private long multiShardTakes;
+        private long shardMisses;
+        private long rejected;
+
+        // Constructors
+        public ShardedStockStatistics() {}
+
+        public ShardedStockStatistics(int shardedProducts, long singleShardTakes, long multiShardTakes,
+                                      long shardMisses, long rejected) {
+            this.shardedProducts = shardedProducts;
+            this.singleShardTakes = singleShardTakes;
+            this.multiShardTakes = multiShardTakes;
+            this.shardMisses = shardMisses;
+            this.rejected = rejected;
+        }
+
+        // Getters and Setters
+        public int getShardedProducts() { return shardedProducts; }
+        public void setShardedProducts(int shardedProducts) { this.shardedProducts = shardedProducts; }
+
+        public long getSingleShardTakes() { return singleShardTakes; }
+        public void setSingleShardTakes(long singleShardTakes) { this.singleShardTakes = singleShardTakes; }
+
+        public long getMultiShardTakes() { return multiShardTakes; }
+        public void setMultiShardTakes(long multiShardTakes) { this.multiShardTakes = multiShardTakes; }
+
+        public long getShardMisses() { return shardMisses; }
+        public void setShardMisses(long shardMisses) { this.shardMisses = shardMisses; }
+
+        public long getRejected() { return rejected; }
+        public void setRejected(long rejected) { this.rejected = rejected; }
+    }
+}
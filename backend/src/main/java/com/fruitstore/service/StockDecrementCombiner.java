@@ -0,0 +1,469 @@
+package com.fruitstore.service;
+
+import com.fruitstore.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Service for combining concurrent stock decrements of the same hot product
+ * Checkouts of a product switched to combining queue their quantity instead of updating the
+ * row themselves. The first waiting thread becomes leader and hands the queue to a flusher
+ * thread, which collects everything queued within a short window and applies it with one
+ * conditional UPDATE in its own transaction; each request is then told whether its share was
+ * granted. Shares are granted in arrival order when the stock cannot cover the whole group.
+ *
+ * Flushers and give-backs run on a small dedicated pool, so each flusher thread takes one extra
+ * connection while it works, never a checkout thread that already holds one. A request that
+ * waits too long (for example while the connection pool is exhausted and the flusher cannot get
+ * a connection) is withdrawn and decremented on the caller's transaction instead, so combining
+ * never blocks progress. Because the combined UPDATE commits on its own, granted shares are
+ * given back if the checkout they belong to rolls back.
+ */
+@Service
+public class StockDecrementCombiner {
+
+    private static final int MAX_ALLOCATION_ATTEMPTS = 3;
+    private static final long MIN_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate combinedTransaction;
+    private final TransactionTemplate callerTransaction;
+    private final long windowNanos;
+    private final long maxWaitNanos;
+    private final ExecutorService flushers;
+    private final Set<Long> enabledProducts = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Long, ProductQueue> queues = new ConcurrentHashMap<>();
+    private volatile boolean globallyEnabled;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder combinedUpdates = new LongAdder();
+    private final LongAdder combinedRequests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder withdrawn = new LongAdder();
+    private final LongAdder compensated = new LongAdder();
+
+    @Autowired
+    public StockDecrementCombiner(ProductRepository productRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.stock.combining.enabled:false}") boolean globallyEnabled,
+                                  @Value("${app.stock.combining.window-micros:200}") long windowMicros,
+                                  @Value("${app.stock.combining.max-wait-ms:50}") long maxWaitMillis,
+                                  @Value("${app.stock.combining.flush-threads:2}") int flushThreads) {
+        this.productRepository = productRepository;
+        this.combinedTransaction = new TransactionTemplate(transactionManager);
+        this.combinedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.callerTransaction = new TransactionTemplate(transactionManager);
+        this.globallyEnabled = globallyEnabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.flushers = Executors.newFixedThreadPool(flushThreads, runnable -> {
+            Thread thread = new Thread(runnable, "stock-combiner-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stop the flusher threads; requests still queued are withdrawn by their callers
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flushers.shutdown();
+        flushers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Check whether stock decrements of a product go through the combiner
+     *
+     * @param productId the product ID
+     * @return true if combining is enabled globally or for this product
+     */
+    public boolean isCombining(Long productId) {
+        return globallyEnabled || enabledProducts.contains(productId);
+    }
+
+    /**
+     * Switch combining on or off for all products
+     *
+     * @param enabled true to combine decrements of every product
+     */
+    public void setGloballyEnabled(boolean enabled) {
+        this.globallyEnabled = enabled;
+    }
+
+    /**
+     * Switch combining on or off for one product
+     *
+     * @param productId the product ID
+     * @param enabled true to combine decrements of this product
+     * @throws IllegalArgumentException if the product does not exist
+     */
+    public void setEnabled(Long productId, boolean enabled) {
+        if (!productRepository.existsById(productId)) {
+            throw new IllegalArgumentException("Product not found with id: " + productId);
+        }
+        if (enabled) {
+            enabledProducts.add(productId);
+        } else {
+            enabledProducts.remove(productId);
+        }
+    }
+
+    /**
+     * Decrement stock of several products through their combining queues
+     * Must be called before the caller's transaction touches the product rows, so the
+     * combined UPDATE never waits on a lock held by one of the requests it serves.
+     *
+     * @param quantitiesByProductId quantity to decrement per product ID
+     * @return IDs of products whose stock was insufficient (empty if all were decremented)
+     */
+    public List<Long> decrement(Map<Long, Integer> quantitiesByProductId) {
+        List<DecrementRequest> pending = new ArrayList<>(quantitiesByProductId.size());
+        for (Map.Entry<Long, Integer> entry : quantitiesByProductId.entrySet()) {
+            ProductQueue queue = queues.computeIfAbsent(entry.getKey(), ProductQueue::new);
+            DecrementRequest request = new DecrementRequest(queue, entry.getValue());
+            queue.pending.add(request);
+            pending.add(request);
+            requests.increment();
+        }
+
+        List<Long> insufficient = new ArrayList<>();
+        Map<Long, Integer> granted = new LinkedHashMap<>();
+        List<DecrementRequest> withdrawnRequests = new ArrayList<>();
+        int awaited = 0;
+        try {
+            for (; awaited < pending.size(); awaited++) {
+                DecrementRequest request = pending.get(awaited);
+                Outcome outcome = await(request);
+                if (outcome == Outcome.GRANTED) {
+                    granted.put(request.queue.productId, request.quantity);
+                } else if (outcome == Outcome.REJECTED) {
+                    insufficient.add(request.queue.productId);
+                } else {
+                    withdrawnRequests.add(request);
+                }
+            }
+        } catch (RuntimeException e) {
+            abandon(pending.subList(awaited + 1, pending.size()), granted);
+            giveBack(granted);
+            throw e;
+        }
+        registerGiveBackOnRollback(granted);
+
+        // Withdrawn requests are applied only after every wait is over, so the caller holds no product row lock while waiting
+        for (DecrementRequest request : withdrawnRequests) {
+            Integer updated = callerTransaction.execute(status ->
+                    productRepository.decrementStockIfAvailable(request.queue.productId, request.quantity));
+            if (updated == null || updated == 0) {
+                insufficient.add(request.queue.productId);
+            }
+        }
+        return insufficient;
+    }
+
+    /**
+     * Get combining metrics
+     *
+     * @return combiner statistics snapshot
+     */
+    public CombinerStatistics getStatistics() {
+        long updates = combinedUpdates.sum();
+        return new CombinerStatistics(globallyEnabled, new TreeSet<>(enabledProducts), requests.sum(),
+                updates, updates > 0 ? (double) combinedRequests.sum() / updates : 0,
+                rejected.sum(), withdrawn.sum(), compensated.sum());
+    }
+
+    private Outcome await(DecrementRequest request) {
+        ProductQueue queue = request.queue;
+        long pollNanos = Math.max(windowNanos, MIN_POLL_NANOS);
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (true) {
+            if (queue.leader.compareAndSet(false, true)) {
+                submitFlush(queue);
+            }
+            try {
+                return request.outcome.get(pollNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (System.nanoTime() - deadline >= 0 && queue.pending.remove(request)) {
+                    withdrawn.increment();
+                    return Outcome.WITHDRAWN;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (queue.pending.remove(request)) {
+                    withdrawn.increment();
+                    return Outcome.WITHDRAWN;
+                }
+                return awaitUninterruptibly(request);
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            }
+        }
+    }
+
+    private Outcome awaitUninterruptibly(DecrementRequest request) {
+        try {
+            return request.outcome.join();
+        } catch (RuntimeException e) {
+            throw unwrap(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private void submitFlush(ProductQueue queue) {
+        try {
+            flushers.execute(() -> {
+                try {
+                    flush(queue);
+                } finally {
+                    queue.leader.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down: let the deadline withdraw the request
+            queue.leader.set(false);
+        }
+    }
+
+    /**
+     * Flusher side: take a connection first, then collect the queue so no request is claimed
+     * while the flusher is still waiting for the pool
+     */
+    private void flush(ProductQueue queue) {
+        if (queue.pending.isEmpty()) {
+            return;
+        }
+        List<DecrementRequest> batch = new ArrayList<>();
+        try {
+            combinedTransaction.executeWithoutResult(status -> {
+                if (windowNanos > 0) {
+                    LockSupport.parkNanos(windowNanos);
+                }
+                DecrementRequest request;
+                while ((request = queue.pending.poll()) != null) {
+                    batch.add(request);
+                }
+                if (!batch.isEmpty()) {
+                    applyCombined(queue.productId, batch);
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.forEach(request -> request.outcome.completeExceptionally(e));
+            return;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        combinedUpdates.increment();
+        combinedRequests.add(batch.size());
+        for (DecrementRequest request : batch) {
+            if (!request.granted) {
+                rejected.increment();
+            }
+            request.outcome.complete(request.granted ? Outcome.GRANTED : Outcome.REJECTED);
+        }
+    }
+
+    private void applyCombined(Long productId, List<DecrementRequest> batch) {
+        int total = batch.stream().mapToInt(request -> request.quantity).sum();
+        if (productRepository.decrementStockIfAvailable(productId, total) == 1) {
+            batch.forEach(request -> request.granted = true);
+            return;
+        }
+
+        // Not enough for everyone: grant in arrival order, skipping requests that do not fit
+        for (int attempt = 0; attempt < MAX_ALLOCATION_ATTEMPTS; attempt++) {
+            int available = productRepository.findStockQuantityById(productId).orElse(0);
+            int grantedTotal = 0;
+            for (DecrementRequest request : batch) {
+                request.granted = request.quantity <= available - grantedTotal;
+                if (request.granted) {
+                    grantedTotal += request.quantity;
+                }
+            }
+            if (grantedTotal == 0 || productRepository.decrementStockIfAvailable(productId, grantedTotal) == 1) {
+                return;
+            }
+        }
+        batch.forEach(request -> request.granted = false);
+    }
+
+    /**
+     * Drop requests nobody will wait for; those already claimed by a leader are collected so their share can be given back
+     */
+    private void abandon(List<DecrementRequest> requests, Map<Long, Integer> granted) {
+        for (DecrementRequest request : requests) {
+            if (request.queue.pending.remove(request)) {
+                continue;
+            }
+            try {
+                if (request.outcome.join() == Outcome.GRANTED) {
+                    granted.put(request.queue.productId, request.quantity);
+                }
+            } catch (RuntimeException ignored) {
+                // the combined update failed, nothing was taken for this request
+            }
+        }
+    }
+
+    private void registerGiveBackOnRollback(Map<Long, Integer> granted) {
+        if (granted.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    giveBack(granted);
+                }
+            }
+        });
+    }
+
+    /**
+     * Return granted shares on a flusher thread; the caller waits at most the combining deadline
+     * and otherwise leaves the give-back queued until a connection frees up
+     */
+    private void giveBack(Map<Long, Integer> granted) {
+        if (granted.isEmpty()) {
+            return;
+        }
+        Future<?> giveBack = flushers.submit(() -> combinedTransaction.executeWithoutResult(status ->
+                granted.forEach((productId, quantity) -> {
+                    productRepository.incrementStock(productId, quantity);
+                    compensated.increment();
+                })));
+        try {
+            giveBack.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // still queued, it runs once a flusher gets a connection
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException("Combined stock decrement failed", cause);
+    }
+
+    private enum Outcome {
+        GRANTED, REJECTED, WITHDRAWN
+    }
+
+    /**
+     * Requests waiting for one product and the flag electing their leader
+     */
+    private static final class ProductQueue {
+        private final Long productId;
+        private final ConcurrentLinkedQueue<DecrementRequest> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean leader = new AtomicBoolean();
+
+        private ProductQueue(Long productId) {
+            this.productId = productId;
+        }
+    }
+
+    /**
+     * One checkout's share of a combined decrement; granted is written by the leader before the outcome completes
+     */
+    private static final class DecrementRequest {
+        private final ProductQueue queue;
+        private final int quantity;
+        private final CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+        private boolean granted;
+
+        private DecrementRequest(ProductQueue queue, int quantity) {
+            this.queue = queue;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * Inner class for combiner statistics
+     */
+    public static class CombinerStatistics {
+        private boolean globallyEnabled;
+        private Set<Long> enabledProductIds = Collections.emptySet();
+        private long requests;
+        private long combinedUpdates;
+        private double averageBatchSize;
+        private long rejected;
+        private long withdrawn;
+        private long compensated;
+
+        // Constructors
+        public CombinerStatistics() {}
+
+        public CombinerStatistics(boolean globallyEnabled, Set<Long> enabledProductIds, long requests,
+                                  long combinedUpdates, double averageBatchSize, long rejected,
+                                  long withdrawn, long compensated) {
+            this.globallyEnabled = globallyEnabled;
+            this.enabledProductIds = enabledProductIds;
+            this.requests = requests;
+            this.combinedUpdates = combinedUpdates;
+            this.averageBatchSize = averageBatchSize;
+            this.rejected = rejected;
+            this.withdrawn = withdrawn;
+            this.compensated = compensated;
+        }
+
+        // Getters and Setters
+        public boolean isGloballyEnabled() { return globallyEnabled; }
+        public void setGloballyEnabled(boolean globallyEnabled) { this.globallyEnabled = globallyEnabled; }
+
+        public Set<Long> getEnabledProductIds() { return enabledProductIds; }
+        public void setEnabledProductIds(Set<Long> enabledProductIds) { this.enabledProductIds = enabledProductIds; }
+
+        public long getRequests() { return requests; }
+        public void setRequests(long requests) { this.requests = requests; }
+
+        public long getCombinedUpdates() { return combinedUpdates; }
+        public void setCombinedUpdates(long combinedUpdates) { this.combinedUpdates = combinedUpdates; }
+
+        public double getAverageBatchSize() { return averageBatchSize; }
+        public void setAverageBatchSize(double averageBatchSize) { this.averageBatchSize = averageBatchSize; }
+
+        public long getRejected() { return rejected; }
+        public void setRejected(long rejected) { this.rejected = rejected; }
+
+        public long getWithdrawn() { return withdrawn; }
+        public void setWithdrawn(long withdrawn) { this.withdrawn = withdrawn; }
+
+        public long getCompensated() { return compensated; }
+        public void setCompensated(long compensated) { this.compensated = compensated; }
+    }
+}
@@ -0,0 +1,376 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.cart.CartItem;
+import com.fruitstore.domain.product.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Service for time-limited stock reservations
+ * Keeps an in-memory ledger per product of stock on hand and soft holds taken by carts,
+ * so available-to-sell can be answered without reading the products row.
+ * Each hold expires after a TTL and is released by a background reaper.
+ *
+ * The ledger is local to this node; the conditional stock UPDATE at checkout remains the
+ * authority when several application instances share one database.
+ */
+@Service
+public class StockReservationService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final long ttlMillis;
+    private final ConcurrentHashMap<Long, ProductLedger> ledgers = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+
+    @Autowired
+    public StockReservationService(@Value("${app.reservation.ttl-seconds:900}") long ttlSeconds) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Take or replace the hold a user has on a product
+     * The hold is set to the given quantity (not added to) and its TTL is renewed. If the
+     * surrounding transaction (the cart update) rolls back, the previous hold is put back.
+     *
+     * @param userId the user ID
+     * @param product the product to reserve; seeds the ledger on first use
+     * @param quantity the total quantity the user wants held
+     * @throws IllegalArgumentException if the quantity is not available to sell
+     */
+    public void reserve(Long userId, Product product, int quantity) {
+        long now = System.currentTimeMillis();
+        ReentrantLock lock = lockFor(product.getProductId());
+        lock.lock();
+        try {
+            ProductLedger ledger = ledgerFor(product);
+            ledger.purgeExpired(now);
+            int available = ledger.availableExcluding(userId);
+            if (quantity > available) {
+                throw new IllegalArgumentException("Insufficient stock. Available: " + available +
+                        ", Requested: " + quantity);
+            }
+            Hold previous = ledger.holds.get(userId);
+            Hold taken = ledger.hold(userId, quantity, now + ttlMillis);
+            restoreOnRollback(userId, product.getProductId(), previous, taken);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release the hold a user has on a product, if any
+     *
+     * @param userId the user ID
+     * @param productId the product ID
+     */
+    public void release(Long userId, Long productId) {
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            ProductLedger ledger = ledgers.get(productId);
+            if (ledger != null) {
+                ledger.release(userId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release every hold a user has
+     *
+     * @param userId the user ID
+     */
+    public void releaseAll(Long userId) {
+        for (Long productId : ledgers.keySet()) {
+            release(userId, productId);
+        }
+    }
+
+    /**
+     * Convert a user's holds into stock decrements for checkout
+     * Each line is checked against stock not held by other users, then taken off the
+     * ledger's on-hand count. If the surrounding transaction rolls back, the holds are put
+     * back, and so is the stock unless the on-hand count was re-synced in the meantime (the
+     * synced count never included this checkout's uncommitted decrement).
+     *
+     * @param userId the user ID
+     * @param cartItems the cart lines being ordered
+     * @throws IllegalArgumentException if a line is not available to sell
+     */
+    public void convertHolds(Long userId, Collection<CartItem> cartItems) {
+        long now = System.currentTimeMillis();
+        List<ConvertedHold> converted = new ArrayList<>();
+        for (CartItem cartItem : cartItems) {
+            Product product = cartItem.getProduct();
+            boolean available;
+            ReentrantLock lock = lockFor(product.getProductId());
+            lock.lock();
+            try {
+                ProductLedger ledger = ledgerFor(product);
+                ledger.purgeExpired(now);
+                available = cartItem.getQuantity() <= ledger.availableExcluding(userId);
+                if (available) {
+                    Hold previous = ledger.release(userId);
+                    ledger.onHand -= cartItem.getQuantity();
+                    converted.add(new ConvertedHold(product.getProductId(), cartItem.getQuantity(), previous,
+                            ledger.syncVersion));
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!available) {
+                // Undo outside the stripe lock so only one stripe is ever held at a time
+                undo(userId, converted);
+                throw new IllegalArgumentException("Insufficient stock for product: " + product.getName());
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        undo(userId, converted);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the quantity of a product that is available to sell
+     * This is stock on hand minus active holds, answered from the ledger.
+     *
+     * @param product the product; seeds the ledger on first use
+     * @return available-to-sell quantity
+     */
+    public int getAvailableToSell(Product product) {
+        return getAvailableToSell(product.getProductId(), () -> product);
+    }
+
+    /**
+     * Get the quantity of a product that is available to sell, loading the product only without a ledger
+     * Once the product has a ledger this does not read the products row.
+     *
+     * @param productId the product ID
+     * @param loader reads the product to seed the ledger on first use
+     * @return available-to-sell quantity
+     */
+    public int getAvailableToSell(Long productId, Supplier<Product> loader) {
+        // Load outside the stripe lock; ledgers are never removed, and if another thread seeds one
+        // first its onHand wins
+        Product seed = ledgers.containsKey(productId) ? null : loader.get();
+        long now = System.currentTimeMillis();
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            ProductLedger ledger = seed != null ? ledgerFor(seed) : ledgers.get(productId);
+            ledger.purgeExpired(now);
+            return ledger.availableExcluding(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Overwrite the on-hand count after stock was changed outside checkout
+     * Does nothing if the product has no ledger yet; it will be seeded on next use.
+     *
+     * @param productId the product ID
+     * @param stockQuantity the stock quantity now stored for the product
+     */
+    public void syncOnHand(Long productId, int stockQuantity) {
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            ProductLedger ledger = ledgers.get(productId);
+            if (ledger != null) {
+                ledger.onHand = stockQuantity;
+                ledger.syncVersion++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release all expired holds
+     * Runs periodically; lookups also skip expired holds, so this only bounds memory.
+     *
+     * @return number of holds released
+     */
+    @Scheduled(fixedDelayString = "${app.reservation.reap-interval-ms:30000}")
+    public int reapExpiredHolds() {
+        return reapExpiredHolds(System.currentTimeMillis());
+    }
+
+    int reapExpiredHolds(long now) {
+        int released = 0;
+        for (Map.Entry<Long, ProductLedger> entry : ledgers.entrySet()) {
+            ReentrantLock lock = lockFor(entry.getKey());
+            lock.lock();
+            try {
+                released += entry.getValue().purgeExpired(now);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return released;
+    }
+
+    private void undo(Long userId, List<ConvertedHold> converted) {
+        for (ConvertedHold hold : converted) {
+            ReentrantLock lock = lockFor(hold.productId);
+            lock.lock();
+            try {
+                ProductLedger ledger = ledgers.get(hold.productId);
+                if (ledger != null) {
+                    if (ledger.syncVersion == hold.syncVersion) {
+                        ledger.onHand += hold.quantity;
+                    }
+                    if (hold.previous != null) {
+                        ledger.hold(userId, hold.previous.quantity, hold.previous.expiresAt);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void restoreOnRollback(Long userId, Long productId, Hold previous, Hold taken) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                ReentrantLock lock = lockFor(productId);
+                lock.lock();
+                try {
+                    ProductLedger ledger = ledgers.get(productId);
+                    // Leave the hold alone if a later reserve, release or checkout already replaced it
+                    if (ledger == null || ledger.holds.get(userId) != taken) {
+                        return;
+                    }
+                    if (previous != null) {
+                        ledger.hold(userId, previous.quantity, previous.expiresAt);
+                    } else {
+                        ledger.release(userId);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    private ProductLedger ledgerFor(Product product) {
+        return ledgers.computeIfAbsent(product.getProductId(),
+                id -> new ProductLedger(product.getStockQuantity() != null ? product.getStockQuantity() : 0));
+    }
+
+    private ReentrantLock lockFor(Long productId) {
+        return stripes[Long.hashCode(productId) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Stock on hand and holds for one product; guarded by the product's lock stripe
+     */
+    private static final class ProductLedger {
+        private int onHand;
+        private int reserved;
+        // Bumped by syncOnHand, so an undo can tell whether onHand was overwritten since its checkout
+        private long syncVersion;
+        private final Map<Long, Hold> holds = new HashMap<>();
+
+        private ProductLedger(int onHand) {
+            this.onHand = onHand;
+        }
+
+        private int availableExcluding(Long userId) {
+            Hold own = userId != null ? holds.get(userId) : null;
+            return onHand - reserved + (own != null ? own.quantity : 0);
+        }
+
+        private Hold hold(Long userId, int quantity, long expiresAt) {
+            release(userId);
+            if (quantity <= 0) {
+                return null;
+            }
+            Hold hold = new Hold(quantity, expiresAt);
+            holds.put(userId, hold);
+            reserved += quantity;
+            return hold;
+        }
+
+        private Hold release(Long userId) {
+            Hold hold = holds.remove(userId);
+            if (hold != null) {
+                reserved -= hold.quantity;
+            }
+            return hold;
+        }
+
+        private int purgeExpired(long now) {
+            int released = 0;
+            Iterator<Hold> iterator = holds.values().iterator();
+            while (iterator.hasNext()) {
+                Hold hold = iterator.next();
+                if (hold.expiresAt <= now) {
+                    reserved -= hold.quantity;
+                    iterator.remove();
+                    released++;
+                }
+            }
+            return released;
+        }
+    }
+
+    private static final class Hold {
+        private final int quantity;
+        private final long expiresAt;
+
+        private Hold(int quantity, long expiresAt) {
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class ConvertedHold {
+        private final Long productId;
+        private final int quantity;
+        private final Hold previous;
+        private final long syncVersion;
+
+        private ConvertedHold(Long productId, int quantity, Hold previous, long syncVersion) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.previous = previous;
+            this.syncVersion = syncVersion;
+        }
+    }
+}
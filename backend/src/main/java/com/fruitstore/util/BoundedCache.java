@@ -0,0 +1,272 @@
+package com.fruitstore.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded in-process cache with W-TinyLFU admission
+ * New entries go to a small LRU window; an entry leaving the window only replaces the main region's
+ * LRU victim if a frequency sketch says it has been asked for more often, so one-off lookups such as
+ * crawler scans cannot flush the hot set. Entries also expire a fixed time after they were loaded.
+ *
+ * A load that overlaps an invalidation is returned to its caller but not cached, so an invalidation
+ * can never be undone by a reader that fetched the old value just before it.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BoundedCache<K, V> {
+
+    private final int maximumSize;
+    private final int windowSize;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final FrequencySketch sketch;
+
+    // Access-ordered: the first entry is the least recently used
+    private final LinkedHashMap<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maximumSize maximum number of entries
+     * @param expireAfterWriteMillis how long an entry may be served after it was loaded
+     */
+    public BoundedCache(int maximumSize, long expireAfterWriteMillis) {
+        this(maximumSize, expireAfterWriteMillis, System::nanoTime);
+    }
+
+    /**
+     * @param maximumSize maximum number of entries
+     * @param expireAfterWriteMillis how long an entry may be served after it was loaded
+     * @param ticker nanosecond time source
+     */
+    public BoundedCache(int maximumSize, long expireAfterWriteMillis, LongSupplier ticker) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache maximum size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowSize = Math.max(1, maximumSize / 100);
+        this.expireAfterWriteNanos = expireAfterWriteMillis * 1_000_000L;
+        this.ticker = ticker;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Return the cached value, loading and caching it on a miss
+     * The loader runs outside the cache lock; exceptions it throws are passed on and nothing is cached.
+     *
+     * @param key the key
+     * @param loader computes the value, e.g. from the database
+     * @return the value
+     */
+    public V get(K key, Supplier<V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            sketch.increment(key);
+            Entry<V> entry = window.get(key);
+            if (entry == null) {
+                entry = main.get(key);
+            }
+            if (entry != null) {
+                if (ticker.getAsLong() - entry.loadedAt < expireAfterWriteNanos) {
+                    hits++;
+                    return entry.value;
+                }
+                window.remove(key);
+                main.remove(key);
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        long loadedAt = ticker.getAsLong();
+        V value = loader.get();
+        if (value != null) {
+            synchronized (this) {
+                if (loadGeneration == generation) {
+                    put(key, new Entry<>(value, loadedAt));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Remove one entry
+     *
+     * @param key the key
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        window.remove(key);
+        main.remove(key);
+    }
+
+    /**
+     * Remove every entry the predicate matches
+     *
+     * @param predicate tested with each key and value
+     */
+    public synchronized void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        generation++;
+        window.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue().value));
+        main.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue().value));
+    }
+
+    /**
+     * Remove every entry
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        window.clear();
+        main.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return entries dropped to stay within the maximum size, including candidates refused admission
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private void put(K key, Entry<V> entry) {
+        if (main.containsKey(key)) {
+            main.put(key, entry);
+            return;
+        }
+        window.put(key, entry);
+        if (window.size() <= windowSize) {
+            return;
+        }
+
+        Iterator<Map.Entry<K, Entry<V>>> windowIterator = window.entrySet().iterator();
+        Map.Entry<K, Entry<V>> candidate = windowIterator.next();
+        windowIterator.remove();
+        if (main.size() < maximumSize - windowSize) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+
+        evictions++;
+        if (main.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<K, Entry<V>>> mainIterator = main.entrySet().iterator();
+        K victim = mainIterator.next().getKey();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            mainIterator.remove();
+            main.put(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Count-min sketch of recent access frequency with four 4-bit counters per key
+     * Counters are halved once the sample size is reached, so old popularity fades out.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int maximumSize) {
+            int length = Integer.highestOneBit(Math.max(2, Math.min(maximumSize, 1 << 24)) - 1) << 1;
+            this.table = new long[length];
+            this.tableMask = length - 1;
+            this.sampleSize = 10 * Math.max(1, maximumSize);
+        }
+
+        private int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                int offset = (start + i) << 2;
+                int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private void increment(Object key) {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int index, int counter) {
+            int offset = counter << 2;
+            long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & tableMask;
+        }
+
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.fruitstore.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Utility class for opaque keyset-pagination cursors
+ * A cursor carries the sort key and ID of the last row of a slice, so the next slice starts right
+ * after it with an index seek instead of an OFFSET scan. Clients must treat it as an opaque string.
+ */
+public final class CursorUtil {
+
+    private static final String SEPARATOR = "\n";
+
+    private CursorUtil() {
+    }
+
+    /**
+     * Encode the values identifying the last row of a slice
+     *
+     * @param values the values, in a fixed order per listing
+     * @return the URL-safe cursor
+     */
+    public static String encode(String... values) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, values).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encode(String...)}
+     *
+     * @param cursor the cursor
+     * @param expectedValues number of values the listing puts in its cursors
+     * @return the values
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static String[] decode(String cursor, int expectedValues) {
+        String[] values;
+        try {
+            values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (values.length != expectedValues) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return values;
+    }
+}
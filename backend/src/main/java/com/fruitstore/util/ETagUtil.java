@@ -0,0 +1,47 @@
+package com.fruitstore.util;
+
+/**
+ * Utility class for entity-version ETags
+ * Admin update endpoints send an entity's @Version as a strong ETag and accept it back in If-Match,
+ * so an update made from a stale copy is refused with 409 Conflict instead of silently overwriting
+ */
+public final class ETagUtil {
+
+    private ETagUtil() {
+    }
+
+    /**
+     * Format an entity version as an ETag value
+     *
+     * @param version the entity version
+     * @return the quoted ETag, or null if the version is unknown
+     */
+    public static String toETag(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    /**
+     * Parse the version a client expects from an If-Match header
+     *
+     * @param ifMatch the If-Match header value (quoted, optionally weak)
+     * @return the expected version, or null if the header is absent or "*"
+     * @throws IllegalArgumentException if the header does not hold a single version
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.fruitstore.util;
+
+/**
+ * Strategy for allocating order numbers
+ * Implementations must return unique values, safe to call from many threads at once
+ */
+public interface OrderNumberGenerator {
+
+    /**
+     * Allocate the next order number
+     *
+     * @param userId the ID of the ordering user (may be null)
+     * @return a new unique order number
+     */
+    String nextOrderNumber(Long userId);
+}
@@ -0,0 +1,65 @@
+package com.fruitstore.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Utility class for turning product text into search tokens
+ * Text is lower-cased and folded to plain ASCII letters so that "xoai" finds "Xoài" and "dua" finds "Dứa"
+ * and "Đu đủ": combining marks left by NFD decomposition are dropped, and đ, which has no decomposition,
+ * is mapped to d.
+ */
+public final class SearchTextUtil {
+
+    private SearchTextUtil() {
+    }
+
+    /**
+     * Lower-case a text and strip its diacritics
+     *
+     * @param text the text (can be null)
+     * @return the folded text, empty for null
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'đ' || c == 'Đ') {
+                c = 'd';
+            }
+            folded.append(c);
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Split a text into folded tokens of letters and digits
+     *
+     * @param text the text (can be null)
+     * @return the tokens in text order, repeated tokens included
+     */
+    public static List<String> tokenize(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
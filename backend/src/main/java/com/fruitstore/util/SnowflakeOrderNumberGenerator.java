@@ -0,0 +1,115 @@
+package com.fruitstore.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order number generator
+ * Each number packs a millisecond timestamp, the node ID and a per-millisecond sequence
+ * into one 63-bit value, so numbers are unique across nodes and ordered by creation time.
+ * Allocation is a compare-and-set on a single AtomicLong; no locks are taken.
+ *
+ * Format: ORD-{19 digit zero padded id}-{userId}. The fixed width keeps string order equal
+ * to numeric order, so new numbers append to the right of the order_number index.
+ *
+ * Node ID 1023 is reserved for {@link #fallback()}, the generator used by Order for orders persisted
+ * without a number, so its sequence can never repeat a number issued by the configured bean.
+ */
+@Component
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    /** 2025-01-01T00:00:00Z; 41 bits of milliseconds from here last about 69 years */
+    static final long EPOCH_MILLIS = 1735689600000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    static final long FALLBACK_NODE_ID = MAX_NODE_ID;
+
+    private static final SnowflakeOrderNumberGenerator FALLBACK = new SnowflakeOrderNumberGenerator(FALLBACK_NODE_ID, true);
+
+    private static final String PREFIX = "ORD-";
+    private static final int ID_DIGITS = 19;
+    private static final String ZEROS = "0000000000000000000";
+
+    private final long nodeId;
+
+    /** Last allocated (timestamp << SEQUENCE_BITS | sequence) */
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public SnowflakeOrderNumberGenerator(@Value("${app.order-number.node-id:0}") long nodeId) {
+        this(nodeId, false);
+    }
+
+    private SnowflakeOrderNumberGenerator(long nodeId, boolean reserved) {
+        if (!reserved && (nodeId < 0 || nodeId >= FALLBACK_NODE_ID)) {
+            throw new IllegalArgumentException("Order number node ID must be between 0 and " + (FALLBACK_NODE_ID - 1) +
+                    " (" + FALLBACK_NODE_ID + " is reserved), was: " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Get the generator for orders persisted without a number
+     * Runs on the reserved node ID, so it never collides with a configured generator. It is a single
+     * sequence per JVM; with several instances, numbers from it can still collide between instances,
+     * which is why OrderService always assigns numbers from the bean.
+     *
+     * @return the shared fallback generator
+     */
+    public static SnowflakeOrderNumberGenerator fallback() {
+        return FALLBACK;
+    }
+
+    @Override
+    public String nextOrderNumber(Long userId) {
+        String id = Long.toString(nextId());
+        return new StringBuilder(PREFIX.length() + ID_DIGITS + 21)
+                .append(PREFIX)
+                .append(ZEROS, 0, ID_DIGITS - id.length())
+                .append(id)
+                .append('-')
+                .append(userId != null ? userId : 0L)
+                .toString();
+    }
+
+    /**
+     * Allocate the next raw ID
+     * When the sequence for the current millisecond is used up, or the clock moves backwards,
+     * the timestamp is advanced past the last one issued instead of waiting, so IDs stay
+     * strictly increasing on this node.
+     *
+     * @return a new unique ID
+     */
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = last + 1;
+            } else {
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+}
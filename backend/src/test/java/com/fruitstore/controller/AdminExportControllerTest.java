@@ -0,0 +1,80 @@
+package com.fruitstore.controller;
+
+import com.fruitstore.service.ExportService;
+import com.fruitstore.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests for AdminExportController REST endpoints
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "app.jwt.secret=testSecretKeyForJWTTokenGenerationAndValidationInTests",
+    "app.jwt.expiration=86400000",
+    "app.cors.allowed-origins=http://localhost:3000"
+})
+class AdminExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportService exportService;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void export_ShouldStreamWithoutAsyncTimeout() throws Exception {
+        // Given
+        when(exportService.export(eq(ExportService.Dataset.ORDERS), eq(ExportService.Format.CSV), isNull(),
+                isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(10);
+                    out.write("orderId,orderNumber\r\n1,ORD-001\r\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/admin/export/orders"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then - no timeout is set on the async request, so long exports are not cut off
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isLessThanOrEqualTo(0);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", org.hamcrest.Matchers.startsWith(
+                        "attachment; filename=\"fruitstore-orders-")))
+                .andExpect(content().string("orderId,orderNumber\r\n1,ORD-001\r\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void export_ShouldRequireAdmin() throws Exception {
+        mockMvc.perform(get("/api/admin/export/orders"))
+                .andExpect(status().isForbidden());
+    }
+}
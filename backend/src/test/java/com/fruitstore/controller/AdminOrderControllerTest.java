@@ -27,6 +27,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -125,7 +126,7 @@ class AdminOrderControllerTest {
         request.setAdminNotes("Order confirmed by admin");
 
         orderResponse.setStatus(OrderStatus.CONFIRMED);
-        when(orderService.updateOrderStatus(anyLong(), any(UpdateOrderStatusRequest.class)))
+        when(orderService.updateOrderStatus(anyLong(), any(UpdateOrderStatusRequest.class), isNull()))
                 .thenReturn(orderResponse);
 
         // When & Then
@@ -226,7 +227,7 @@ class AdminOrderControllerTest {
         request.setStatus(OrderStatus.SHIPPED);
         request.setAdminNotes("Invalid transition");
 
-        when(orderService.updateOrderStatus(anyLong(), any(UpdateOrderStatusRequest.class)))
+        when(orderService.updateOrderStatus(anyLong(), any(UpdateOrderStatusRequest.class), isNull()))
                 .thenThrow(new IllegalArgumentException("Only pending orders can be confirmed"));
 
         // When & Then
@@ -245,7 +246,7 @@ class AdminOrderControllerTest {
         UpdateOrderStatusRequest request = new UpdateOrderStatusRequest();
         request.setStatus(OrderStatus.DELIVERED);
 
-        when(orderService.updateOrderStatus(anyLong(), any(UpdateOrderStatusRequest.class)))
+        when(orderService.updateOrderStatus(anyLong(), any(UpdateOrderStatusRequest.class), isNull()))
                 .thenThrow(new IllegalArgumentException("Order cannot be cancelled in current status: CANCELLED"));
 
         // When & Then
@@ -314,7 +314,7 @@ public class DiscountControllerTest {
     @Test
     public void testUpdateDiscount() throws Exception {
         // Given
-        when(discountService.updateDiscount(eq(1L), any(UpdateDiscountRequest.class)))
+        when(discountService.updateDiscount(eq(1L), any(UpdateDiscountRequest.class), isNull()))
                 .thenReturn(discountResponse);
 
         // When & Then
@@ -321,7 +321,7 @@ public class ProductControllerTest {
     @Test
     public void testUpdateProduct() throws Exception {
         // Given
-        when(productService.updateProduct(anyLong(), any(UpdateProductRequest.class))).thenReturn(product1);
+        when(productService.updateProduct(anyLong(), any(UpdateProductRequest.class), isNull())).thenReturn(product1);
 
         // When & Then
         mockMvc.perform(put("/api/products/1")
@@ -0,0 +1,145 @@
+package com.fruitstore.repository;
+
+import com.fruitstore.config.JpaConfig;
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderItem;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration test for OrderRepository
+ * Paging orders with their items must be done by the database, never in memory (HHH90003004)
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(JpaConfig.class)
+public class OrderRepositoryTest {
+
+    private static final int HISTORY_SIZE = 12;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User buyer;
+    private List<Long> buyerOrderIds;
+
+    @BeforeEach
+    public void setUp() {
+        buyer = newUser("buyer");
+        User other = newUser("other");
+        Category category = entityManager.persist(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Product mango = entityManager.persist(new Product("Xoài cát", "Xoài cát Hòa Lộc",
+                new BigDecimal("50000.00"), 100, category));
+
+        buyerOrderIds = new ArrayList<>();
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            buyerOrderIds.add(newOrder(buyer, "BUY-" + i, mango).getOrderId());
+            newOrder(other, "OTHER-" + i, mango);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testFindByUserWithItems_PagesInDatabase() {
+        // Given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        PageRequest secondPage = PageRequest.of(1, 5, Sort.by(Sort.Direction.ASC, "orderId"));
+
+        // When
+        statistics.clear();
+        Page<Order> page = orderRepository.findByUser_UserIdWithItems(buyer.getUserId(), secondPage);
+
+        // Then
+        assertThat(page.getContent().stream().map(Order::getOrderId).collect(Collectors.toList()))
+                .containsExactlyElementsOf(buyerOrderIds.subList(5, 10));
+        assertThat(page.getTotalElements()).isEqualTo(HISTORY_SIZE);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+        assertThat(page.getContent()).allSatisfy(order -> {
+            assertThat(Hibernate.isInitialized(order.getOrderItems())).isTrue();
+            assertThat(order.getOrderItems()).hasSize(2);
+        });
+        assertThat(statistics.getEntityStatistics(Order.class.getName()).getLoadCount()).isEqualTo(5);
+        assertThat(statistics.getEntityStatistics(OrderItem.class.getName()).getLoadCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void testFindByUserWithItems_DefaultsToNewestFirst() {
+        // When
+        Page<Order> page = orderRepository.findByUser_UserIdWithItems(buyer.getUserId(), PageRequest.of(0, 4));
+
+        // Then
+        List<Long> newestFirst = new ArrayList<>(buyerOrderIds);
+        Collections.reverse(newestFirst);
+        assertThat(page.getContent().stream().map(Order::getOrderId).collect(Collectors.toList()))
+                .containsExactlyElementsOf(newestFirst.subList(0, 4));
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    public void testFindByUserWithItems_PastLastPage() {
+        // When
+        Page<Order> page = orderRepository.findByUser_UserIdWithItems(buyer.getUserId(), PageRequest.of(5, 10));
+
+        // Then
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(HISTORY_SIZE);
+    }
+
+    @Test
+    public void testPagingOverCollectionFetchIsRejected() {
+        // When / Then - a collection fetch with a limit must fail instead of paging in memory
+        assertThatThrownBy(() -> entityManager.getEntityManager()
+                .createQuery("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems", Order.class)
+                .setMaxResults(5)
+                .getResultList())
+                .hasMessageContaining("fail_on_pagination_over_collection_fetch");
+    }
+
+    private User newUser(String username) {
+        User user = new User(username, username + "@example.com", "password123", "Buyer " + username);
+        user.setRole(UserRole.CUSTOMER);
+        return entityManager.persist(user);
+    }
+
+    private Order newOrder(User user, String orderNumber, Product product) {
+        Order order = new Order(user, "123 Nguyen Hue, District 1", "Buyer", "buyer@example.com");
+        order.setOrderNumber(orderNumber);
+        order.setTotalAmount(new BigDecimal("150000.00"));
+        order = entityManager.persist(order);
+        entityManager.persist(new OrderItem(order, product, 1, new BigDecimal("50000.00")));
+        entityManager.persist(new OrderItem(order, product, 2, new BigDecimal("50000.00")));
+        return order;
+    }
+}
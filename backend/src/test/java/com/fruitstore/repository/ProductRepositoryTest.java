@@ -360,4 +360,26 @@ public class ProductRepositoryTest {
         Optional<Product> deleted = productRepository.findById(saved.getProductId());
         assertThat(deleted).isEmpty();
     }
+
+    @Test
+    public void testDecrementStockIfAvailable_WithSufficientStock() {
+        // When
+        int updated = productRepository.decrementStockIfAvailable(product1.getProductId(), 30);
+        entityManager.clear();
+
+        // Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(productRepository.findById(product1.getProductId()).get().getStockQuantity()).isEqualTo(70);
+    }
+
+    @Test
+    public void testDecrementStockIfAvailable_WithInsufficientStock() {
+        // When
+        int updated = productRepository.decrementStockIfAvailable(product1.getProductId(), 101);
+        entityManager.clear();
+
+        // Then
+        assertThat(updated).isZero();
+        assertThat(productRepository.findById(product1.getProductId()).get().getStockQuantity()).isEqualTo(100);
+    }
 }
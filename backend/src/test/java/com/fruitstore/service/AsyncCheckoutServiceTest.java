@@ -0,0 +1,256 @@
+package com.fruitstore.service;
+
+import com.fruitstore.dto.request.order.CreateOrderRequest;
+import com.fruitstore.dto.response.order.CheckoutTicketResponse;
+import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.repository.CartItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for AsyncCheckoutService
+ * Runs entirely in-process with mocked checkout
+ */
+@ExtendWith(MockitoExtension.class)
+public class AsyncCheckoutServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderIdempotencyService orderIdempotencyService;
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    private AsyncCheckoutService asyncCheckoutService;
+    private CreateOrderRequest request;
+
+    @BeforeEach
+    public void setUp() {
+        request = new CreateOrderRequest();
+        request.setShippingAddress("123 Nguyen Hue, District 1");
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (asyncCheckoutService != null) {
+            asyncCheckoutService.stop();
+        }
+    }
+
+    @Test
+    public void testSubmitCompletesTicket() throws Exception {
+        // Given
+        startService(10, 2, 8);
+        when(cartItemRepository.findProductQuantitiesByUserId(1L)).thenReturn(cartLine(3L, 2));
+        when(orderService.createOrder(1L, request, Map.of(3L, 2))).thenReturn(orderResponse(100L));
+
+        // When
+        CheckoutTicketResponse ticket = asyncCheckoutService.submit(1L, request, null);
+        CheckoutTicketResponse finished = awaitFinished(ticket.getTicketId(), 1L);
+
+        // Then
+        assertThat(ticket.getStatus()).isIn(CheckoutTicketResponse.Status.QUEUED, CheckoutTicketResponse.Status.PROCESSING);
+        assertThat(finished.getStatus()).isEqualTo(CheckoutTicketResponse.Status.COMPLETED);
+        assertThat(finished.getOrder().getOrderId()).isEqualTo(100L);
+        assertThat(asyncCheckoutService.getStatistics().getCompleted()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCartIsSnapshottedAtSubmit() throws Exception {
+        // Given
+        startService(10, 1, 8);
+        when(cartItemRepository.findProductQuantitiesByUserId(1L))
+                .thenReturn(List.of(new Object[]{5L, 1}, new Object[]{3L, 2}));
+        when(orderService.createOrder(eq(1L), eq(request), any())).thenReturn(orderResponse(100L));
+
+        // When
+        CheckoutTicketResponse ticket = asyncCheckoutService.submit(1L, request, null);
+        awaitFinished(ticket.getTicketId(), 1L);
+
+        // Then: the worker orders the lines read at submit instead of reading the cart again
+        verify(orderService).createOrder(1L, request, Map.of(3L, 2, 5L, 1));
+        verify(cartItemRepository, times(1)).findProductQuantitiesByUserId(1L);
+    }
+
+    @Test
+    public void testFailedCheckoutIsReportedOnTicket() throws Exception {
+        // Given
+        startService(10, 1, 8);
+        when(cartItemRepository.findProductQuantitiesByUserId(1L)).thenReturn(cartLine(3L, 2));
+        when(orderService.createOrder(1L, request, Map.of(3L, 2)))
+                .thenThrow(new IllegalArgumentException("Insufficient stock for product: Xoài"));
+
+        // When
+        CheckoutTicketResponse ticket = asyncCheckoutService.submit(1L, request, null);
+        CheckoutTicketResponse finished = awaitFinished(ticket.getTicketId(), 1L);
+
+        // Then
+        assertThat(finished.getStatus()).isEqualTo(CheckoutTicketResponse.Status.FAILED);
+        assertThat(finished.getMessage()).isEqualTo("Insufficient stock for product: Xoài");
+        assertThat(asyncCheckoutService.getStatistics().getFailed()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIdempotencyKeyIsAppliedByWorker() throws Exception {
+        // Given
+        startService(10, 1, 8);
+        when(cartItemRepository.findProductQuantitiesByUserId(1L)).thenReturn(cartLine(3L, 2));
+        when(orderIdempotencyService.execute(eq(1L), eq("key-1"), any())).thenReturn(orderResponse(7L));
+
+        // When
+        CheckoutTicketResponse ticket = asyncCheckoutService.submit(1L, request, "key-1");
+        CheckoutTicketResponse finished = awaitFinished(ticket.getTicketId(), 1L);
+
+        // Then
+        assertThat(finished.getOrder().getOrderId()).isEqualTo(7L);
+        verify(orderService, never()).createOrder(anyLong(), any(), any());
+    }
+
+    @Test
+    public void testEmptyCartIsRejectedBeforeQueueing() {
+        // Given
+        startService(10, 1, 8);
+        when(cartItemRepository.findProductQuantitiesByUserId(1L)).thenReturn(Collections.emptyList());
+
+        // When & Then
+        assertThatThrownBy(() -> asyncCheckoutService.submit(1L, request, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("empty cart");
+        assertThat(asyncCheckoutService.getStatistics().getSubmitted()).isZero();
+    }
+
+    @Test
+    public void testFullQueueAppliesBackpressure() throws Exception {
+        // Given: one worker blocked on the first checkout and room for one more in the queue
+        startService(1, 1, 1);
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(cartItemRepository.findProductQuantitiesByUserId(anyLong())).thenReturn(cartLine(3L, 2));
+        when(orderService.createOrder(anyLong(), any(), any())).thenAnswer(invocation -> {
+            workerBusy.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return orderResponse(invocation.getArgument(0));
+        });
+
+        asyncCheckoutService.submit(1L, request, null);
+        assertThat(workerBusy.await(10, TimeUnit.SECONDS)).isTrue();
+        CheckoutTicketResponse queued = asyncCheckoutService.submit(2L, request, null);
+
+        // When & Then
+        assertThatThrownBy(() -> asyncCheckoutService.submit(3L, request, null))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(asyncCheckoutService.getStatistics().getRejected()).isEqualTo(1);
+        assertThat(asyncCheckoutService.getStatistics().getQueueDepth()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(awaitFinished(queued.getTicketId(), 2L).getStatus())
+                .isEqualTo(CheckoutTicketResponse.Status.COMPLETED);
+    }
+
+    @Test
+    public void testBatchIsProcessedGroupedByProduct() throws Exception {
+        // Given: the single worker is held while a mixed batch queues up behind it
+        startService(100, 1, 16);
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> processedUsers = new CopyOnWriteArrayList<>();
+        when(cartItemRepository.findProductQuantitiesByUserId(anyLong()))
+                .thenAnswer(invocation -> cartLine((Long) invocation.getArgument(0) % 2 == 0 ? 20L : 10L, 1));
+        when(orderService.createOrder(anyLong(), any(), any())).thenAnswer(invocation -> {
+            Long userId = invocation.getArgument(0);
+            if (userId == 0L) {
+                workerBusy.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            } else {
+                processedUsers.add(userId);
+            }
+            return orderResponse(userId);
+        });
+
+        asyncCheckoutService.submit(0L, request, null);
+        assertThat(workerBusy.await(10, TimeUnit.SECONDS)).isTrue();
+        String last = null;
+        for (long userId = 1; userId <= 8; userId++) {
+            last = asyncCheckoutService.submit(userId, request, null).getTicketId();
+        }
+
+        // When
+        release.countDown();
+        awaitFinished(last, 8L);
+        while (processedUsers.size() < 8) {
+            Thread.sleep(5);
+        }
+
+        // Then: users with product 10 (odd) run before users with product 20 (even)
+        assertThat(processedUsers.subList(0, 4)).allMatch(userId -> userId % 2 == 1);
+        assertThat(processedUsers.subList(4, 8)).allMatch(userId -> userId % 2 == 0);
+        assertThat(asyncCheckoutService.getStatistics().getAverageBatchSize()).isGreaterThan(1.0);
+    }
+
+    @Test
+    public void testTicketOfAnotherUserIsNotVisible() {
+        // Given
+        startService(10, 0, 8);
+        when(cartItemRepository.findProductQuantitiesByUserId(1L)).thenReturn(cartLine(3L, 2));
+        CheckoutTicketResponse ticket = asyncCheckoutService.submit(1L, request, null);
+
+        // When & Then
+        assertThatThrownBy(() -> asyncCheckoutService.getTicket(ticket.getTicketId(), 2L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Checkout ticket not found");
+    }
+
+    private void startService(int capacity, int workers, int batchSize) {
+        asyncCheckoutService = new AsyncCheckoutService(orderService, orderIdempotencyService,
+                new LockRetryService(1, 0, 0), cartItemRepository, capacity, workers, batchSize, 60);
+        if (workers > 0) {
+            asyncCheckoutService.start();
+        }
+    }
+
+    private CheckoutTicketResponse awaitFinished(String ticketId, Long userId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            CheckoutTicketResponse ticket = asyncCheckoutService.getTicket(ticketId, userId);
+            if (ticket.getStatus() == CheckoutTicketResponse.Status.COMPLETED
+                    || ticket.getStatus() == CheckoutTicketResponse.Status.FAILED) {
+                return ticket;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Ticket did not finish: " + ticketId);
+    }
+
+    private List<Object[]> cartLine(Long productId, int quantity) {
+        List<Object[]> lines = new ArrayList<>();
+        lines.add(new Object[]{productId, quantity});
+        return lines;
+    }
+
+    private OrderResponse orderResponse(Long orderId) {
+        OrderResponse response = new OrderResponse();
+        response.setOrderId(orderId);
+        return response;
+    }
+}
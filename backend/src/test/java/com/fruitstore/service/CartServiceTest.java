@@ -18,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -49,6 +50,9 @@ public class CartServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Spy
+    private StockReservationService stockReservationService = new StockReservationService(900);
+
     @InjectMocks
     private CartService cartService;
 
@@ -246,6 +250,8 @@ public class CartServiceTest {
         addToCartRequest.setQuantity(15); // More than available stock (10)
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        when(cartRepository.findByUser_UserId(1L)).thenReturn(Optional.of(cart));
+        when(cartItemRepository.findByCart_CartIdAndProduct_ProductId(1L, 1L)).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> cartService.addItemToCart(1L, addToCartRequest))
@@ -256,6 +262,22 @@ public class CartServiceTest {
         verify(cartItemRepository, never()).save(any(CartItem.class));
     }
 
+    @Test
+    public void testAddItemToCartStockHeldByAnotherCart() {
+        // Given
+        stockReservationService.reserve(2L, product1, 9); // Another user holds 9 of 10
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        when(cartRepository.findByUser_UserId(1L)).thenReturn(Optional.of(cart));
+        when(cartItemRepository.findByCart_CartIdAndProduct_ProductId(1L, 1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> cartService.addItemToCart(1L, addToCartRequest))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient stock. Available: 1, Requested: 2");
+        verify(cartItemRepository, never()).save(any(CartItem.class));
+    }
+
     @Test
     public void testAddItemToCartUpdateExistingItem() {
         // Given
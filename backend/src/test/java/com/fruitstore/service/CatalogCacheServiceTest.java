@@ -0,0 +1,77 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.dto.response.category.CategoryResponse;
+import com.fruitstore.dto.response.product.ProductResponse;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for catalog cache reads through ProductService and CategoryService against H2
+ * Callers run without a transaction or an open session, as a scheduled job or message listener would
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ProductService.class, CategoryService.class, CatalogCacheService.class, StockReservationService.class,
+        FlashSaleStockService.class, ShardedStockService.class, ProductSearchService.class, ProductFacetService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogCacheServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    @Test
+    public void testCacheMissesLoadLazyCategoryWithoutCallerTransaction() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Product mango = productRepository.save(new Product("Xoài cát", "Xoài cát Hòa Lộc",
+                new BigDecimal("60000.00"), 10, fruit));
+
+        // When
+        ProductResponse product = productService.getProductById(mango.getProductId());
+        Page<ProductResponse> page = productService.getProductsByCategory(fruit.getCategoryId(), PageRequest.of(0, 10));
+        List<CategoryResponse> categories = categoryService.getActiveCategories();
+
+        // Then
+        assertThat(product.getCategory().getName()).isEqualTo("Trái cây tươi");
+        assertThat(page.getContent()).extracting(response -> response.getCategory().getName())
+                .containsExactly("Trái cây tươi");
+        assertThat(categories).extracting(CategoryResponse::getName).containsExactly("Trái cây tươi");
+        assertThat(productService.getProductById(mango.getProductId())).isSameAs(product);
+    }
+}
@@ -11,7 +11,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -35,6 +37,10 @@ public class CategoryServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Spy
+    private CatalogCacheService catalogCacheService = new CatalogCacheService(
+            mock(PlatformTransactionManager.class), 100, 100, 60_000, 600);
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -0,0 +1,238 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.product.ProductFilterRequest;
+import com.fruitstore.dto.response.common.CursorPageResponse;
+import com.fruitstore.dto.response.order.OrderSummaryResponse;
+import com.fruitstore.dto.response.product.ProductResponse;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.CursorUtil;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for keyset (cursor) pagination of order and product listings against H2
+ * Walking every slice must return exactly the rows of the equivalent ORDER BY, ties included;
+ * includes a deep-page benchmark comparing OFFSET paging with cursors over 100k orders
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ProductService.class, OrderService.class, CartService.class, DiscountService.class,
+        StockReservationService.class, StockDecrementCombiner.class, FlashSaleStockService.class,
+        ShardedStockService.class, SnowflakeOrderNumberGenerator.class, OrderStatsService.class,
+        CatalogCacheService.class, ProductSearchService.class, ProductFacetService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CursorPaginationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CursorPaginationTest.class);
+
+    private static final int BENCHMARK_ORDERS = 100_000;
+    private static final int DEEP_OFFSET = 90_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testOrderSlicesFollowCreatedAtThenIdWithTies() {
+        // Given - three orders share every created_at value
+        User buyer = newUser("buyer");
+        User other = newUser("other");
+        insertOrders(buyer, "MINE", 40, LocalDateTime.now().minusDays(1));
+        insertOrders(other, "OTHER", 20, LocalDateTime.now().minusDays(1));
+        List<Long> expectedMine = jdbcTemplate.queryForList(
+                "SELECT order_id FROM orders WHERE user_id = ? ORDER BY created_at DESC, order_id DESC",
+                Long.class, buyer.getUserId());
+        List<Long> expectedAll = jdbcTemplate.queryForList(
+                "SELECT order_id FROM orders ORDER BY created_at DESC, order_id DESC", Long.class);
+
+        // When
+        List<Long> mine = walk(cursor -> orderService.getOrdersByUserSlice(buyer.getUserId(), cursor, 7),
+                OrderSummaryResponse::getOrderId);
+        List<Long> all = walk(cursor -> orderService.getAllOrdersSlice(cursor, 9), OrderSummaryResponse::getOrderId);
+
+        // Then
+        assertThat(mine).containsExactlyElementsOf(expectedMine);
+        assertThat(all).containsExactlyElementsOf(expectedAll);
+    }
+
+    @Test
+    public void testProductSlicesFollowFiltersAndSort() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Fresh fruit", "Fresh fruit"));
+        Category dried = categoryRepository.save(new Category("Dried fruit", "Dried fruit"));
+        for (int i = 0; i < 30; i++) {
+            newProduct(i % 2 == 0 ? "Mango " + i : "Banana " + i, 10_000 + (i % 4) * 5_000, fruit, i % 7 != 0);
+            newProduct("Dried mango " + i, 20_000, dried, true);
+        }
+        List<Long> expectedByPrice = jdbcTemplate.queryForList(
+                "SELECT product_id FROM products WHERE is_active = TRUE AND category_id = ? " +
+                "AND LOWER(name) LIKE '%mango%' ORDER BY price ASC, product_id ASC",
+                Long.class, fruit.getCategoryId());
+        List<Long> expectedByNameDesc = jdbcTemplate.queryForList(
+                "SELECT product_id FROM products WHERE is_active = TRUE ORDER BY name DESC, product_id DESC",
+                Long.class);
+
+        // When
+        List<Long> byPrice = walk(cursor -> productService.searchProductsSlice(
+                new ProductFilterRequest(fruit.getCategoryId(), null, null, "MANGO", 0, 4, "price", "asc"), cursor),
+                ProductResponse::getProductId);
+        List<Long> byNameDesc = walk(cursor -> productService.searchProductsSlice(
+                new ProductFilterRequest(null, null, null, null, 0, 11, "name", "desc"), cursor),
+                ProductResponse::getProductId);
+
+        // Then
+        assertThat(expectedByPrice).isNotEmpty();
+        assertThat(byPrice).containsExactlyElementsOf(expectedByPrice);
+        assertThat(byNameDesc).containsExactlyElementsOf(expectedByNameDesc);
+    }
+
+    @Test
+    public void testRejectsInvalidCursorsAndSizes() {
+        // Given
+        ProductFilterRequest byPrice = new ProductFilterRequest(null, null, null, null, 0, 10, "price", "asc");
+        ProductFilterRequest byName = new ProductFilterRequest(null, null, null, null, 0, 10, "name", "asc");
+        ProductFilterRequest byStock = new ProductFilterRequest(null, null, null, null, 0, 10, "stockQuantity", "asc");
+        String priceCursor = CursorUtil.encode("price", "ASC", "1", "10000.00");
+
+        // When / Then
+        assertThatThrownBy(() -> orderService.getAllOrdersSlice("garbage!", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.getAllOrdersSlice(CursorUtil.encode("yesterday", "1"), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.getAllOrdersSlice(null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.searchProductsSlice(byName, priceCursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not match sort");
+        assertThatThrownBy(() -> productService.searchProductsSlice(byStock, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(productService.searchProductsSlice(byPrice, priceCursor).getItems()).isEmpty();
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkDeepPageOffsetVersusCursor() {
+        // Given
+        User user = newUser("deep");
+        insertOrders(user, "DEEP", BENCHMARK_ORDERS, LocalDateTime.now().minusDays(30));
+        Map<String, Object> position = jdbcTemplate.queryForMap(
+                "SELECT created_at, order_id FROM orders ORDER BY created_at DESC, order_id DESC LIMIT 1 OFFSET ?",
+                DEEP_OFFSET - 1);
+        String deepCursor = CursorUtil.encode(((Timestamp) position.get("CREATED_AT")).toLocalDateTime().toString(),
+                position.get("ORDER_ID").toString());
+        PageRequest deepPage = PageRequest.of(DEEP_OFFSET / 20, 20,
+                Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "orderId")));
+
+        // When
+        orderService.getAllOrders(deepPage);
+        orderService.getAllOrdersSlice(deepCursor, 20);
+        long offsetNanos = time(() -> orderService.getAllOrders(deepPage));
+        long firstSliceNanos = time(() -> orderService.getAllOrdersSlice(null, 20));
+        long deepSliceNanos = time(() -> orderService.getAllOrdersSlice(deepCursor, 20));
+
+        log.info(String.format(
+                "Orders at offset %d of %d: OFFSET %.2f ms, cursor %.2f ms (first slice %.2f ms)",
+                DEEP_OFFSET, BENCHMARK_ORDERS, offsetNanos / 1_000_000.0, deepSliceNanos / 1_000_000.0,
+                firstSliceNanos / 1_000_000.0));
+
+        // Then
+        List<Long> offsetIds = orderService.getAllOrders(deepPage).getData().stream()
+                .map(OrderSummaryResponse::getOrderId).collect(Collectors.toList());
+        List<Long> cursorIds = orderService.getAllOrdersSlice(deepCursor, 20).getItems().stream()
+                .map(OrderSummaryResponse::getOrderId).collect(Collectors.toList());
+        assertThat(cursorIds).containsExactlyElementsOf(offsetIds);
+    }
+
+    private <T> List<Long> walk(Function<String, CursorPageResponse<T>> fetch, Function<T, Long> id) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<T> slice = fetch.apply(cursor);
+            slice.getItems().forEach(item -> ids.add(id.apply(item)));
+            assertThat(slice.getNextCursor() != null).isEqualTo(slice.isHasNext());
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private long time(Runnable action) {
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - startNanos) / 10;
+    }
+
+    private void insertOrders(User user, String prefix, int count, LocalDateTime newest) {
+        jdbcTemplate.update("INSERT INTO orders (order_number, user_id, status, total_amount, shipping_address, " +
+                        "created_at, updated_at, version) " +
+                        "SELECT CONCAT(?, '-', X), ?, 'PENDING', 120000.00, '123 Nguyen Hue, District 1', " +
+                        "DATEADD('SECOND', -(X / 3), CAST(? AS TIMESTAMP)), NOW(), 0 FROM SYSTEM_RANGE(1, ?)",
+                prefix, user.getUserId(), Timestamp.valueOf(newest), count);
+    }
+
+    private User newUser(String name) {
+        User user = new User(name, name + "@example.com", "password123", "Buyer " + name);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Product newProduct(String name, int price, Category category, boolean active) {
+        Product product = new Product(name, name, new BigDecimal(price), 100, category);
+        product.setIsActive(active);
+        return productRepository.save(product);
+    }
+}
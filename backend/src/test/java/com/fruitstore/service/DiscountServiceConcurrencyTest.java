@@ -0,0 +1,131 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.discount.Discount;
+import com.fruitstore.domain.discount.DiscountType;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.repository.DiscountRepository;
+import com.fruitstore.repository.DiscountUsageRepository;
+import com.fruitstore.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency test for discount usage limits against H2
+ * Many checkouts redeem the same code at once; it must never be used more often than its limit
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(DiscountService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DiscountServiceConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 3;
+    private static final int USAGE_LIMIT = 100;
+
+    @Autowired
+    private DiscountService discountService;
+
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    @Autowired
+    private DiscountUsageRepository discountUsageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown() {
+        discountUsageRepository.deleteAll();
+        discountRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentRedemptionsOfSameCode_ShouldNeverExceedUsageLimit() throws Exception {
+        // Given
+        Discount discount = new Discount("SALE100", "Giảm giá 100 đơn đầu tiên", DiscountType.PERCENTAGE,
+                new BigDecimal("10.00"));
+        discount.setUsageLimit(USAGE_LIMIT);
+        discount.setStartDate(LocalDateTime.now().minusDays(1));
+        discount.setEndDate(LocalDateTime.now().plusDays(1));
+        discount = discountRepository.save(discount);
+        Long discountId = discount.getDiscountId();
+
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            User user = new User("buyer" + i, "buyer" + i + "@example.com", "password123", "Buyer " + i);
+            user.setRole(UserRole.CUSTOMER);
+            userIds.add(userRepository.save(user).getUserId());
+        }
+
+        // When: each checkout validates the code, then records its use in the same transaction
+        TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+        BigDecimal orderAmount = new BigDecimal("200000.00");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger redeemed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        checkout.executeWithoutResult(status -> {
+                            if (!discountService.validateDiscount("SALE100", orderAmount).isValid()) {
+                                throw new IllegalArgumentException("Discount usage limit reached: SALE100");
+                            }
+                            discountService.recordDiscountUsage(discountId, userId, null,
+                                    discountService.applyDiscount("SALE100", orderAmount));
+                        });
+                        redeemed.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+
+        // Then
+        assertThat(redeemed.get()).isEqualTo(USAGE_LIMIT);
+        assertThat(rejected.get()).isEqualTo(attempts - USAGE_LIMIT);
+        assertThat(discountRepository.findById(discountId).orElseThrow().getUsedCount()).isEqualTo(USAGE_LIMIT);
+        assertThat(discountUsageRepository.countByDiscount_DiscountId(discountId)).isEqualTo(USAGE_LIMIT);
+    }
+}
@@ -390,31 +390,44 @@ public class DiscountServiceTest {
     public void testRecordDiscountUsage() {
         // Given
         when(discountRepository.findById(1L)).thenReturn(Optional.of(activeDiscount));
+        when(discountRepository.incrementUsedCountIfBelowLimit(1L)).thenReturn(1);
         when(discountUsageRepository.save(any(DiscountUsage.class))).thenReturn(testUsage);
-        when(discountRepository.save(any(Discount.class))).thenReturn(activeDiscount);
 
         // When
         discountService.recordDiscountUsage(1L, 1L, 1L, new BigDecimal("15000.00"));
 
         // Then
+        verify(discountRepository).incrementUsedCountIfBelowLimit(1L);
         verify(discountUsageRepository).save(any(DiscountUsage.class));
-        verify(discountRepository).save(activeDiscount);
-        assertThat(activeDiscount.getUsedCount()).isEqualTo(11);
+        verify(discountRepository, never()).save(any(Discount.class));
+    }
+
+    @Test
+    public void testRecordDiscountUsage_UsageLimitReached() {
+        // Given
+        when(discountRepository.findById(1L)).thenReturn(Optional.of(activeDiscount));
+        when(discountRepository.incrementUsedCountIfBelowLimit(1L)).thenReturn(0);
+
+        // When & Then
+        assertThatThrownBy(() -> discountService.recordDiscountUsage(1L, 1L, 1L, new BigDecimal("15000.00")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Discount usage limit reached");
+        verify(discountUsageRepository, never()).save(any(DiscountUsage.class));
     }
 
     @Test
     public void testRecordDiscountUsageWithObjects() {
         // Given
+        when(discountRepository.incrementUsedCountIfBelowLimit(activeDiscount.getDiscountId())).thenReturn(1);
         when(discountUsageRepository.save(any(DiscountUsage.class))).thenReturn(testUsage);
-        when(discountRepository.save(any(Discount.class))).thenReturn(activeDiscount);
 
         // When
         discountService.recordDiscountUsage(activeDiscount, testUser, testOrder, new BigDecimal("15000.00"));
 
         // Then
+        verify(discountRepository).incrementUsedCountIfBelowLimit(activeDiscount.getDiscountId());
         verify(discountUsageRepository).save(any(DiscountUsage.class));
-        verify(discountRepository).save(activeDiscount);
-        assertThat(activeDiscount.getUsedCount()).isEqualTo(11);
+        verify(discountRepository, never()).save(any(Discount.class));
     }
 
     @Test
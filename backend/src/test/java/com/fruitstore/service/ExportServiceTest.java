@@ -0,0 +1,337 @@
+package com.fruitstore.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruitstore.domain.discount.Discount;
+import com.fruitstore.domain.discount.DiscountType;
+import com.fruitstore.domain.discount.DiscountUsage;
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderItem;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.DiscountRepository;
+import com.fruitstore.repository.DiscountUsageRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for streaming sales exports against H2
+ * Checks CSV/NDJSON output and filters, and that exports load no entities and keep the same
+ * retained heap whatever the row count
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({JacksonAutoConfiguration.class, ExportService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ExportServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportServiceTest.class);
+
+    private static final int SMALL_EXPORT = 1_000;
+    private static final int LARGE_EXPORT = 200_000;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    @Autowired
+    private DiscountUsageRepository discountUsageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM discount_usage");
+        jdbcTemplate.update("DELETE FROM discounts");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testCsvOrdersApplyFiltersAndEscapeFields() throws IOException {
+        // Given
+        User buyer = newUser("buyer");
+        Product mango = newProduct();
+        Order quoted = newOrder(buyer, "EXP-1", "Nguyen \"Tony\", Van A", OrderStatus.DELIVERED, mango);
+        newOrder(buyer, "EXP-2", "Tran Thi B", OrderStatus.DELIVERED, mango);
+        newOrder(buyer, "EXP-3", "Le Van C", OrderStatus.CANCELLED, mango);
+
+        // When
+        String all = export(ExportService.Dataset.ORDERS, ExportService.Format.CSV, null, null);
+        String delivered = export(ExportService.Dataset.ORDERS, ExportService.Format.CSV, OrderStatus.DELIVERED, "tony");
+
+        // Then
+        String[] allLines = all.split("\r\n");
+        assertThat(allLines).hasSize(4);
+        assertThat(allLines[0]).isEqualTo("orderId,orderNumber,status,totalAmount,customerName,customerEmail,"
+                + "itemCount,totalQuantity,userId,username,createdAt,updatedAt");
+        String[] deliveredLines = delivered.split("\r\n");
+        assertThat(deliveredLines).hasSize(2);
+        assertThat(deliveredLines[1]).startsWith(quoted.getOrderId() + ",EXP-1,DELIVERED,150000.00,"
+                + "\"Nguyen \"\"Tony\"\", Van A\",buyer@example.com,2,3," + buyer.getUserId() + ",buyer,");
+    }
+
+    @Test
+    public void testCsvNeutralizesFormulaCells() throws IOException {
+        // Given
+        User buyer = newUser("buyer");
+        Product mango = newProduct();
+        newOrder(buyer, "EXP-1", "=HYPERLINK(\"http://example.com\",\"x\")", OrderStatus.DELIVERED, mango);
+        newOrder(buyer, "EXP-2", "@SUM(A1)", OrderStatus.DELIVERED, mango);
+
+        // When
+        String[] lines = export(ExportService.Dataset.ORDERS, ExportService.Format.CSV, null, null).split("\r\n");
+
+        // Then
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).contains(",\"'=HYPERLINK(\"\"http://example.com\"\",\"\"x\"\")\",");
+        assertThat(lines[2]).contains(",'@SUM(A1),");
+        assertThat(lines[1]).contains(",150000.00,");
+    }
+
+    @Test
+    public void testNdjsonOrderItemsAndDiscountUsages() throws IOException {
+        // Given
+        User buyer = newUser("buyer");
+        Product mango = newProduct();
+        Order delivered = newOrder(buyer, "EXP-1", "Buyer", OrderStatus.DELIVERED, mango);
+        newOrder(buyer, "EXP-2", "Buyer", OrderStatus.PENDING, mango);
+        Discount discount = new Discount("TET2025", "Tet sale", DiscountType.PERCENTAGE, new BigDecimal("10.00"));
+        discount = discountRepository.save(discount);
+        discountUsageRepository.save(new DiscountUsage(discount, buyer, delivered, new BigDecimal("15000.00")));
+        discountUsageRepository.save(new DiscountUsage(discount, buyer, new BigDecimal("5000.00")));
+
+        // When
+        List<JsonNode> items = parseNdjson(export(ExportService.Dataset.ORDER_ITEMS, ExportService.Format.NDJSON,
+                OrderStatus.DELIVERED, null));
+        List<JsonNode> allUsages = parseNdjson(export(ExportService.Dataset.DISCOUNT_USAGES,
+                ExportService.Format.NDJSON, null, null));
+        List<JsonNode> deliveredUsages = parseNdjson(export(ExportService.Dataset.DISCOUNT_USAGES,
+                ExportService.Format.NDJSON, OrderStatus.DELIVERED, null));
+
+        // Then
+        assertThat(items).hasSize(2);
+        assertThat(items).allSatisfy(item -> {
+            assertThat(item.get("orderNumber").asText()).isEqualTo("EXP-1");
+            assertThat(item.get("productName").asText()).isEqualTo("Xoài cát");
+            assertThat(item.get("unitPrice").decimalValue()).isEqualByComparingTo("50000.00");
+        });
+        assertThat(allUsages).hasSize(2);
+        assertThat(allUsages.get(1).get("orderId").isNull()).isTrue();
+        assertThat(deliveredUsages).hasSize(1);
+        assertThat(deliveredUsages.get(0).get("discountCode").asText()).isEqualTo("TET2025");
+        assertThat(deliveredUsages.get(0).get("discountAmount").decimalValue()).isEqualByComparingTo("15000.00");
+    }
+
+    @Test
+    public void testGzippedExportRoundTrips() throws IOException {
+        // Given
+        User buyer = newUser("buyer");
+        insertOrders(buyer, "GZIP", SMALL_EXPORT);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // When
+        long rows;
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            rows = exportService.export(ExportService.Dataset.ORDERS, ExportService.Format.NDJSON, null, null,
+                    null, null, null, null, null, null, gzip);
+        }
+
+        // Then
+        String ndjson;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(rows).isEqualTo(SMALL_EXPORT);
+        assertThat(parseNdjson(ndjson)).hasSize(SMALL_EXPORT);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkExportMemoryDoesNotGrowWithRows() throws IOException {
+        // Given
+        User buyer = newUser("bulk");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When - heap growth is measured from just before each export, so the rows H2 keeps in memory don't count
+        insertOrders(buyer, "SMALL", SMALL_EXPORT);
+        HeapSamplingOutputStream small = new HeapSamplingOutputStream(SMALL_EXPORT / 2 * 100L);
+        long smallRows = exportService.export(ExportService.Dataset.ORDERS, ExportService.Format.CSV, null, null,
+                null, null, null, null, null, null, small);
+        insertOrders(buyer, "LARGE", LARGE_EXPORT - SMALL_EXPORT);
+        statistics.clear();
+        HeapSamplingOutputStream large = new HeapSamplingOutputStream(LARGE_EXPORT / 2 * 100L);
+        long startNanos = System.nanoTime();
+        long largeRows = exportService.export(ExportService.Dataset.ORDERS, ExportService.Format.CSV, null, null,
+                null, null, null, null, null, null, large);
+        long largeMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        log.info(String.format(
+                "Export of %d orders: %d ms, %.1f MB written, heap growth mid-export %.1f MB "
+                        + "(%.1f MB for %d orders)", largeRows, largeMillis, large.bytes / 1_048_576.0,
+                large.growth() / 1_048_576.0, small.growth() / 1_048_576.0, smallRows));
+
+        // Then - H2 itself buffers up to MAX_MEMORY_ROWS of a result set before spilling to disk, which is
+        // the only growth left; loading the orders as entities would cost several times the bound
+        assertThat(largeRows).isEqualTo(LARGE_EXPORT);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(large.growth() - small.growth()).isLessThan(32L * 1_048_576);
+    }
+
+    private String export(ExportService.Dataset dataset, ExportService.Format format, OrderStatus status,
+                          String customerName) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(dataset, format, null, status, null, null, customerName, null, null, null, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private List<JsonNode> parseNdjson(String ndjson) throws IOException {
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            if (!line.isEmpty()) {
+                rows.add(objectMapper.readTree(line));
+            }
+        }
+        return rows;
+    }
+
+    private void insertOrders(User user, String batch, int count) {
+        jdbcTemplate.update("INSERT INTO orders (order_number, user_id, status, total_amount, shipping_address, "
+                        + "customer_name, created_at, updated_at, version) "
+                        + "SELECT CONCAT(?, '-', X), ?, 'DELIVERED', 120000.00, '123 Nguyen Hue, District 1', "
+                        + "CONCAT('Buyer ', MOD(X, 100)), NOW(), NOW(), 0 FROM SYSTEM_RANGE(1, ?)",
+                batch, user.getUserId(), count);
+    }
+
+    private User newUser(String name) {
+        User user = new User(name, name + "@example.com", "password123", "Buyer " + name);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Product newProduct() {
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        return productRepository.save(new Product("Xoài cát", "Xoài cát Hòa Lộc", new BigDecimal("50000.00"),
+                100, category));
+    }
+
+    private Order newOrder(User user, String orderNumber, String customerName, OrderStatus status, Product product) {
+        Order order = new Order(user, "123 Nguyen Hue, District 1", customerName, "buyer@example.com");
+        order.setOrderNumber(orderNumber);
+        order.setTotalAmount(new BigDecimal("150000.00"));
+        order.setStatus(status);
+        order = orderRepository.save(order);
+        orderItemRepository.save(new OrderItem(order, product, 1, new BigDecimal("50000.00")));
+        orderItemRepository.save(new OrderItem(order, product, 2, new BigDecimal("50000.00")));
+        return order;
+    }
+
+    /**
+     * Discards what is written, measuring how much the reachable heap (after a GC) has grown since the
+     * stream was created once a given amount has been written
+     */
+    private static class HeapSamplingOutputStream extends OutputStream {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long sampleAtBytes;
+        private final long baseline;
+        private long bytes;
+        private long sampled;
+
+        HeapSamplingOutputStream(long sampleAtBytes) {
+            this.sampleAtBytes = sampleAtBytes;
+            this.baseline = retainedHeap();
+        }
+
+        long growth() {
+            return sampled - baseline;
+        }
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int len) {
+            boolean crossing = bytes < sampleAtBytes && bytes + len >= sampleAtBytes;
+            bytes += len;
+            if (crossing) {
+                sampled = retainedHeap();
+            }
+        }
+
+        private long retainedHeap() {
+            System.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.cart.Cart;
+import com.fruitstore.domain.cart.CartItem;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.order.CreateOrderRequest;
+import com.fruitstore.repository.CartItemRepository;
+import com.fruitstore.repository.CartRepository;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.DiscountUsageRepository;
+import com.fruitstore.repository.FlashSaleProductRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for FlashSaleStockService against H2
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderService.class, CartService.class, DiscountService.class, StockReservationService.class,
+        StockDecrementCombiner.class, FlashSaleStockService.class, ShardedStockService.class,
+        SnowflakeOrderNumberGenerator.class, OrderStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class FlashSaleStockServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int CUSTOMERS = 40;
+    private static final int INITIAL_STOCK = 25;
+
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private FlashSaleProductRepository flashSaleProductRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private DiscountUsageRepository discountUsageRepository;
+
+    private Product product;
+
+    @BeforeEach
+    public void setUp() {
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        product = productRepository.save(new Product("Xoài Cát Hòa Lộc", "Xoài Cát Hòa Lộc Tiền Giang",
+                new BigDecimal("120000.00"), INITIAL_STOCK, category));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (flashSaleStockService.isFlashSale(product.getProductId())) {
+            flashSaleStockService.disable(product.getProductId());
+        }
+        flashSaleProductRepository.deleteAll();
+        discountUsageRepository.deleteAll();
+        orderItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        cartItemRepository.deleteAll();
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testConcurrentFlashSaleCheckoutsNeverOversell() throws Exception {
+        // Given
+        flashSaleStockService.enable(product.getProductId());
+        List<Long> userIds = newCustomers(CUSTOMERS);
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.createOrder(userId, newOrderRequest());
+                    succeeded.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // sold out
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then: the counter is authoritative and the row only catches up on flush
+        assertThat(succeeded.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(flashSaleStockService.getStock(product.getProductId())).hasValue(0);
+        assertThat(databaseStock()).isEqualTo(INITIAL_STOCK);
+        assertThat(flashSaleStockService.flush()).isEqualTo(1);
+        assertThat(databaseStock()).isZero();
+        assertThat(orderItemRepository.sumQuantityByProduct_ProductId(product.getProductId()))
+                .isEqualTo((long) INITIAL_STOCK);
+    }
+
+    @Test
+    public void testDecrementIsGivenBackWhenCheckoutRollsBack() {
+        // Given
+        flashSaleStockService.enable(product.getProductId());
+        TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+
+        // When
+        checkout.executeWithoutResult(status -> {
+            assertThat(flashSaleStockService.decrement(Map.of(product.getProductId(), 4))).isEmpty();
+            assertThat(flashSaleStockService.getStock(product.getProductId())).hasValue(INITIAL_STOCK - 4);
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(flashSaleStockService.getStock(product.getProductId())).hasValue(INITIAL_STOCK);
+        assertThat(flashSaleStockService.getStatistics().getGivenBack()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDisableDrainsCounterToDatabase() {
+        // Given
+        flashSaleStockService.enable(product.getProductId());
+        flashSaleStockService.decrement(Map.of(product.getProductId(), 5));
+
+        // When
+        FlashSaleStockService.FlashSaleStatus status = flashSaleStockService.disable(product.getProductId());
+
+        // Then
+        assertThat(status.isActive()).isFalse();
+        assertThat(status.getStock()).isEqualTo(INITIAL_STOCK - 5);
+        assertThat(databaseStock()).isEqualTo(INITIAL_STOCK - 5);
+        assertThat(flashSaleStockService.isFlashSale(product.getProductId())).isFalse();
+        assertThat(flashSaleStockService.getStock(product.getProductId())).isEmpty();
+        assertThat(flashSaleProductRepository.existsById(product.getProductId())).isFalse();
+    }
+
+    @Test
+    public void testCountersAreRebuiltFromOrderItemsAfterRestart() {
+        // Given: three orders placed during the sale, none of them flushed
+        flashSaleStockService.enable(product.getProductId());
+        for (Long userId : newCustomers(3)) {
+            orderService.createOrder(userId, newOrderRequest());
+        }
+        assertThat(databaseStock()).isEqualTo(INITIAL_STOCK);
+
+        // When: a fresh instance starts from the database only
+        FlashSaleStockService restarted = new FlashSaleStockService(productRepository, orderItemRepository,
+                flashSaleProductRepository, stockReservationService, transactionManager);
+        int recovered = restarted.recover();
+
+        // Then
+        assertThat(recovered).isEqualTo(1);
+        assertThat(restarted.getStock(product.getProductId())).hasValue(INITIAL_STOCK - 3);
+        assertThat(restarted.flush()).isEqualTo(1);
+        assertThat(databaseStock()).isEqualTo(INITIAL_STOCK - 3);
+    }
+
+    @Test
+    public void testFlushWritesDeltaWithoutOverwritingOtherWrites() {
+        // Given: a write to the row from elsewhere during the sale
+        flashSaleStockService.enable(product.getProductId());
+        flashSaleStockService.decrement(Map.of(product.getProductId(), 3));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                productRepository.incrementStock(product.getProductId(), -2));
+
+        // When
+        flashSaleStockService.flush();
+        flashSaleStockService.decrement(Map.of(product.getProductId(), 1));
+        flashSaleStockService.disable(product.getProductId());
+
+        // Then
+        assertThat(databaseStock()).isEqualTo(INITIAL_STOCK - 6);
+    }
+
+    @Test
+    public void testEnableTwiceFails() {
+        flashSaleStockService.enable(product.getProductId());
+
+        assertThatThrownBy(() -> flashSaleStockService.enable(product.getProductId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("already in flash-sale mode");
+    }
+
+    @Test
+    public void testDisableUnknownProductFails() {
+        assertThatThrownBy(() -> flashSaleStockService.disable(product.getProductId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not in flash-sale mode");
+    }
+
+    private List<Long> newCustomers(int count) {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = new User("buyer" + i, "buyer" + i + "@example.com", "password123", "Buyer " + i);
+            user.setRole(UserRole.CUSTOMER);
+            user = userRepository.save(user);
+
+            Cart cart = cartRepository.save(new Cart(user));
+            cartItemRepository.save(new CartItem(cart, product, 1));
+            userIds.add(user.getUserId());
+        }
+        return userIds;
+    }
+
+    private int databaseStock() {
+        return productRepository.findStockQuantityById(product.getProductId()).orElseThrow();
+    }
+
+    private CreateOrderRequest newOrderRequest() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("123 Nguyen Hue, District 1");
+        request.setCustomerName("Buyer");
+        request.setCustomerEmail("buyer@example.com");
+        request.setPhoneNumber("0901234567");
+        return request;
+    }
+}
@@ -0,0 +1,151 @@
+package com.fruitstore.service;
+
+import com.fruitstore.config.JpaConfig;
+import com.fruitstore.domain.cart.Cart;
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.cart.AddToCartRequest;
+import com.fruitstore.dto.request.order.CreateOrderRequest;
+import com.fruitstore.dto.response.cart.CartItemResponse;
+import com.fruitstore.dto.response.cart.CartResponse;
+import com.fruitstore.repository.CartRepository;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for the id_generators seed in docs/Database.sql on a database that already has order and cart items
+ * Runs in its own context so the pooled optimizer has not allocated a block before the seed is written
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({JpaConfig.class, OrderService.class, CartService.class, DiscountService.class, StockReservationService.class,
+        StockDecrementCombiner.class, FlashSaleStockService.class, ShardedStockService.class,
+        SnowflakeOrderNumberGenerator.class, OrderStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+public class IdGeneratorSeedTest {
+
+    private static final int EXISTING_ROWS = 60;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_outbox");
+        jdbcTemplate.update("DELETE FROM discount_usage");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM cart_items");
+        jdbcTemplate.update("DELETE FROM cart");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    public void firstInsertsAfterSeedShouldNotReuseExistingIds() {
+        // Given - rows written before the pooled generator was introduced
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < EXISTING_ROWS; i++) {
+            products.add(productRepository.save(new Product("Trái cây " + i, "Mô tả " + i,
+                    new BigDecimal("50000.00"), 100, category)));
+        }
+        User legacyBuyer = createUser("legacy");
+        Cart legacyCart = cartRepository.save(new Cart(legacyBuyer));
+        Order legacyOrder = new Order(legacyBuyer, "123 Nguyen Hue, District 1", "Legacy", "legacy@example.com");
+        legacyOrder.setOrderNumber("LEGACY-1");
+        legacyOrder.setTotalAmount(new BigDecimal("50000.00").multiply(BigDecimal.valueOf(EXISTING_ROWS)));
+        legacyOrder = orderRepository.save(legacyOrder);
+        for (int i = 0; i < EXISTING_ROWS; i++) {
+            Long productId = products.get(i).getProductId();
+            jdbcTemplate.update("INSERT INTO cart_items (cart_item_id, cart_id, product_id, quantity, created_at) " +
+                    "VALUES (?, ?, ?, 1, NOW())", i + 1, legacyCart.getCartId(), productId);
+            jdbcTemplate.update("INSERT INTO order_items (order_item_id, order_id, product_id, quantity, " +
+                    "unit_price, subtotal, created_at) VALUES (?, ?, ?, 1, 50000.00, 50000.00, NOW())",
+                    i + 1, legacyOrder.getOrderId(), productId);
+        }
+
+        // Seed exactly as docs/Database.sql does
+        jdbcTemplate.update("DELETE FROM id_generators");
+        jdbcTemplate.update("INSERT INTO id_generators (gen_name, gen_value) " +
+                "SELECT 'order_items', COALESCE(MAX(order_item_id), 0) + 50 FROM order_items");
+        jdbcTemplate.update("INSERT INTO id_generators (gen_name, gen_value) " +
+                "SELECT 'cart_items', COALESCE(MAX(cart_item_id), 0) + 50 FROM cart_items");
+
+        User buyer = createUser("buyer");
+
+        // When
+        CartResponse cart = cartService.addItemToCart(buyer.getUserId(),
+                new AddToCartRequest(products.get(0).getProductId(), 2));
+        orderService.createOrder(buyer.getUserId(), newOrderRequest());
+
+        // Then
+        assertThat(cart.getItems()).extracting(CartItemResponse::getCartItemId)
+                .allSatisfy(id -> assertThat(id).isGreaterThan((long) EXISTING_ROWS));
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(order_item_id) FROM order_items oi " +
+                "JOIN orders o ON o.order_id = oi.order_id WHERE o.user_id = ?", Long.class, buyer.getUserId()))
+                .isGreaterThan(EXISTING_ROWS);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items", Long.class))
+                .isEqualTo(EXISTING_ROWS + 1);
+    }
+
+    private User createUser(String username) {
+        User user = new User(username, username + "@example.com", "password123", "Buyer " + username);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private CreateOrderRequest newOrderRequest() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("123 Nguyen Hue, District 1");
+        request.setCustomerName("Buyer");
+        request.setCustomerEmail("buyer@example.com");
+        request.setPhoneNumber("0901234567");
+        return request;
+    }
+}
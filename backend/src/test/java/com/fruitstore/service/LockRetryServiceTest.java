@@ -0,0 +1,118 @@
+package com.fruitstore.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for LockRetryService
+ */
+public class LockRetryServiceTest {
+
+    private final LockRetryService lockRetryService = new LockRetryService(3, 1, 5);
+
+    @Test
+    public void testDeadlockVictimIsRetriedUntilItSucceeds() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = lockRetryService.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw deadlock();
+            }
+            return "order";
+        });
+
+        // Then
+        assertThat(result).isEqualTo("order");
+        assertThat(calls.get()).isEqualTo(3);
+        LockRetryService.LockRetryStatistics statistics = lockRetryService.getStatistics();
+        assertThat(statistics.getDeadlocks()).isEqualTo(2);
+        assertThat(statistics.getRetries()).isEqualTo(2);
+        assertThat(statistics.getRecovered()).isEqualTo(1);
+        assertThat(statistics.getExhausted()).isZero();
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        CannotAcquireLockException timeout = new CannotAcquireLockException("Lock wait timeout exceeded",
+                new SQLException("Lock wait timeout exceeded; try restarting transaction", "HY000", 1205));
+
+        // When / Then
+        assertThatThrownBy(() -> lockRetryService.execute(() -> {
+            calls.incrementAndGet();
+            throw timeout;
+        })).isSameAs(timeout);
+        assertThat(calls.get()).isEqualTo(3);
+        LockRetryService.LockRetryStatistics statistics = lockRetryService.getStatistics();
+        assertThat(statistics.getLockTimeouts()).isEqualTo(3);
+        assertThat(statistics.getExhausted()).isEqualTo(1);
+    }
+
+    @Test
+    public void testBusinessErrorsAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> lockRetryService.execute(() -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("Insufficient stock for product: Xoài Cát Hòa Lộc");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> lockRetryService.execute(() -> {
+            calls.incrementAndGet();
+            throw new DataIntegrityViolationException("Duplicate entry");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(lockRetryService.getStatistics().getRetries()).isZero();
+    }
+
+    @Test
+    public void testFailureInsideOuterTransactionIsNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThatThrownBy(() -> lockRetryService.execute(() -> {
+                calls.incrementAndGet();
+                throw deadlock();
+            })).isInstanceOf(CannotAcquireLockException.class);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(lockRetryService.getStatistics().getDeadlocks()).isEqualTo(1);
+    }
+
+    @Test
+    public void testClassifiesWrappedDriverErrors() {
+        assertThat(LockRetryService.classify(new InvalidDataAccessResourceUsageException("wrapped",
+                new SQLException("Deadlock found when trying to get lock", "40001", 1213))))
+                .isEqualTo(LockRetryService.LockFailure.DEADLOCK);
+        assertThat(LockRetryService.classify(new CannotAcquireLockException("Timeout trying to lock table",
+                new SQLException("Timeout trying to lock table", "HYT00", 50200))))
+                .isEqualTo(LockRetryService.LockFailure.LOCK_TIMEOUT);
+        assertThat(LockRetryService.classify(new IllegalStateException("not a lock failure")))
+                .isEqualTo(LockRetryService.LockFailure.NONE);
+    }
+
+    @Test
+    public void testClassifiesTranslatedLockFailuresWithoutDriverCode() {
+        assertThat(LockRetryService.classify(new CannotAcquireLockException("could not obtain lock")))
+                .isEqualTo(LockRetryService.LockFailure.LOCK_TIMEOUT);
+    }
+
+    // Spring 6.1 translates a MySQL deadlock to CannotAcquireLockException with the driver error as cause
+    private static CannotAcquireLockException deadlock() {
+        return new CannotAcquireLockException("Deadlock found when trying to get lock",
+                new SQLException("Deadlock found when trying to get lock; try restarting transaction", "40001", 1213));
+    }
+}
@@ -0,0 +1,151 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.dto.request.product.UpdateProductRequest;
+import com.fruitstore.dto.response.product.ProductResponse;
+import com.fruitstore.exception.VersionConflictException;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.ProductRepository;
+import org.hibernate.StaleObjectStateException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for optimistic locking on Product against H2
+ * Concurrent stock edits must lose no update, and a stale If-Match version must be refused
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({ProductService.class, OptimisticLockRetryInterceptor.class, StockReservationService.class,
+        FlashSaleStockService.class, ShardedStockService.class, CatalogCacheService.class,
+        ProductSearchService.class, ProductFacetService.class})
+@TestPropertySource(properties = "app.optimistic-retry.max-attempts=25")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OptimisticLockRetryInterceptorTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 10;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OptimisticLockRetryInterceptor optimisticLockRetryInterceptor;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @AfterEach
+    public void tearDown() {
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    public void testConcurrentStockUpdatesAreRetriedWithoutLostUpdates() throws Exception {
+        // Given
+        Product product = newProduct(10);
+        OptimisticLockRetryInterceptor.OptimisticRetryStatistics before = optimisticLockRetryInterceptor.getStatistics();
+
+        // When: every thread adds stock through a read-modify-write of the same row
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    productService.addStock(product.getProductId(), 1);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        Product reloaded = productRepository.findById(product.getProductId()).orElseThrow();
+        assertThat(reloaded.getStockQuantity()).isEqualTo(10 + THREADS * ADDS_PER_THREAD);
+        assertThat(reloaded.getVersion()).isEqualTo((long) THREADS * ADDS_PER_THREAD);
+        OptimisticLockRetryInterceptor.OptimisticRetryStatistics after = optimisticLockRetryInterceptor.getStatistics();
+        assertThat(after.getExhausted()).isEqualTo(before.getExhausted());
+    }
+
+    @Test
+    public void testStaleIfMatchVersionIsRejectedWithoutRetry() {
+        // Given
+        Product product = newProduct(10);
+        ProductResponse updated = productService.updateProduct(product.getProductId(), updateRequest(product, 20), 0L);
+        OptimisticLockRetryInterceptor.OptimisticRetryStatistics before = optimisticLockRetryInterceptor.getStatistics();
+
+        // When / Then
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThatThrownBy(() -> productService.updateProduct(product.getProductId(), updateRequest(product, 30), 0L))
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessageContaining("expected version 0 but is 1");
+        OptimisticLockRetryInterceptor.OptimisticRetryStatistics after = optimisticLockRetryInterceptor.getStatistics();
+        assertThat(after.getConflictsByEntity().get("Product") - before.getConflictsByEntity().getOrDefault("Product", 0L))
+                .isEqualTo(1);
+        assertThat(after.getRetries()).isEqualTo(before.getRetries());
+        assertThat(productRepository.findStockQuantityById(product.getProductId())).hasValue(20);
+    }
+
+    @Test
+    public void testRecognizesOptimisticFailuresAndEntityType() {
+        ObjectOptimisticLockingFailureException failure = new ObjectOptimisticLockingFailureException(Product.class, 1L);
+        StaleObjectStateException stale = new StaleObjectStateException("com.fruitstore.domain.order.Order", 7L);
+
+        assertThat(OptimisticLockRetryInterceptor.isOptimisticLockFailure(failure)).isTrue();
+        assertThat(OptimisticLockRetryInterceptor.isOptimisticLockFailure(new RuntimeException("wrapped", stale))).isTrue();
+        assertThat(OptimisticLockRetryInterceptor.isOptimisticLockFailure(new IllegalArgumentException("Product not found")))
+                .isFalse();
+        assertThat(OptimisticLockRetryInterceptor.entityName(failure)).isEqualTo("Product");
+        assertThat(OptimisticLockRetryInterceptor.entityName(stale)).isEqualTo("Order");
+    }
+
+    private UpdateProductRequest updateRequest(Product product, int stock) {
+        UpdateProductRequest request = new UpdateProductRequest();
+        request.setName(product.getName());
+        request.setDescription(product.getDescription());
+        request.setPrice(product.getPrice());
+        request.setStockQuantity(stock);
+        request.setImageUrl(product.getImageUrl());
+        return request;
+    }
+
+    private Product newProduct(int stock) {
+        Category category = categoryRepository.save(new Category("Trái cây tươi " + System.nanoTime(), "Các loại trái cây tươi ngon"));
+        return productRepository.save(new Product("Xoài Cát Hòa Lộc " + System.nanoTime(), "Xoài Cát Hòa Lộc Tiền Giang",
+                new BigDecimal("120000.00"), stock, category));
+    }
+}
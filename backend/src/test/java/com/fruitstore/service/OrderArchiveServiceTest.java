@@ -0,0 +1,265 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.discount.Discount;
+import com.fruitstore.domain.discount.DiscountType;
+import com.fruitstore.domain.discount.DiscountUsage;
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderItem;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.repository.ArchivedOrderRepository;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.DiscountRepository;
+import com.fruitstore.repository.DiscountUsageExportView;
+import com.fruitstore.repository.DiscountUsageRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for OrderArchiveService against H2
+ * Includes an archival throughput benchmark
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderArchiveService.class, OrderService.class, CartService.class, DiscountService.class,
+        StockReservationService.class, StockDecrementCombiner.class, FlashSaleStockService.class,
+        ShardedStockService.class, SnowflakeOrderNumberGenerator.class, OrderStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderArchiveServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveServiceTest.class);
+
+    private static final int BENCHMARK_ORDERS = 20_000;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    @Autowired
+    private DiscountUsageRepository discountUsageRepository;
+
+    @Autowired
+    private DiscountService discountService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_items_archive");
+        jdbcTemplate.update("DELETE FROM orders_archive");
+        discountUsageRepository.deleteAll();
+        discountRepository.deleteAll();
+        orderItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testArchivesOnlyOldFinishedOrdersAndLookupsFallBack() {
+        // Given
+        User user = newUser("buyer");
+        Product mango = newProduct();
+        Order oldDelivered = newOrder(user, mango, OrderStatus.DELIVERED, 400);
+        Order oldCancelled = newOrder(user, mango, OrderStatus.CANCELLED, 400);
+        Order oldPending = newOrder(user, mango, OrderStatus.PENDING, 400);
+        Order recentDelivered = newOrder(user, mango, OrderStatus.DELIVERED, 0);
+
+        Discount discount = new Discount("OLD10", "Giảm 10%", DiscountType.PERCENTAGE, new BigDecimal("10.00"));
+        discount = discountRepository.save(discount);
+        DiscountUsage usage = discountUsageRepository.save(
+                new DiscountUsage(discount, user, oldDelivered, new BigDecimal("12000.00")));
+
+        // When
+        int archived = orderArchiveService.archiveOrdersUpdatedBefore(LocalDateTime.now().minusDays(180));
+
+        // Then
+        assertThat(archived).isEqualTo(2);
+        assertThat(orderRepository.findAll()).extracting(Order::getOrderId)
+                .containsExactlyInAnyOrder(oldPending.getOrderId(), recentDelivered.getOrderId());
+        assertThat(orderItemRepository.findByOrder_OrderId(oldDelivered.getOrderId())).isEmpty();
+        assertThat(archivedOrderRepository.count()).isEqualTo(2);
+        assertThat(archivedOrderRepository.countOrderItems()).isEqualTo(2);
+        assertThat(discountService.getDiscountUsages(discount.getDiscountId(), PageRequest.of(0, 10)).getContent())
+                .singleElement()
+                .satisfies(response -> {
+                    assertThat(response.getOrderId()).isEqualTo(oldDelivered.getOrderId());
+                    assertThat(response.getOrderNumber()).isEqualTo(oldDelivered.getOrderNumber());
+                });
+        List<DiscountUsageExportView> exported = new TransactionTemplate(transactionManager).execute(status -> {
+            try (Stream<DiscountUsageExportView> rows = discountUsageRepository.streamForExport(null,
+                    OrderStatus.DELIVERED, null, null, null, "buyer@", null, null)) {
+                return rows.toList();
+            }
+        });
+        assertThat(exported).singleElement().satisfies(row -> {
+            assertThat(row.getUsageId()).isEqualTo(usage.getUsageId());
+            assertThat(row.getOrderId()).isEqualTo(oldDelivered.getOrderId());
+            assertThat(row.getOrderNumber()).isEqualTo(oldDelivered.getOrderNumber());
+        });
+
+        OrderResponse byId = orderService.getOrderById(oldDelivered.getOrderId(), user.getUserId());
+        assertThat(byId.getOrderNumber()).isEqualTo(oldDelivered.getOrderNumber());
+        assertThat(byId.getStatus()).isEqualTo(OrderStatus.DELIVERED);
+        assertThat(byId.getUser().getUsername()).isEqualTo("buyer");
+        assertThat(byId.getOrderItems()).hasSize(1);
+        assertThat(byId.getOrderItems().get(0).getProduct().getName()).isEqualTo("Xoài Cát Hòa Lộc");
+        assertThat(byId.getOrderItems().get(0).getQuantity()).isEqualTo(2);
+
+        OrderResponse byNumber = orderService.getOrderByOrderNumber(oldCancelled.getOrderNumber());
+        assertThat(byNumber.getOrderId()).isEqualTo(oldCancelled.getOrderId());
+        assertThat(byNumber.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+
+        User other = newUser("other");
+        assertThatThrownBy(() -> orderService.getOrderById(oldDelivered.getOrderId(), other.getUserId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not belong to user");
+        assertThatThrownBy(() -> orderService.getOrderById(999_999L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Order not found");
+
+        OrderArchiveService.OrderArchiveStatistics statistics = orderArchiveService.getStatistics();
+        assertThat(statistics.getHotOrders()).isEqualTo(2);
+        assertThat(statistics.getArchivedOrders()).isEqualTo(2);
+        assertThat(statistics.getLastRunOrders()).isEqualTo(2);
+    }
+
+    @Test
+    public void testStatisticsAreUnchangedByArchival() {
+        // Given
+        User user = newUser("buyer");
+        Product mango = newProduct();
+        newOrder(user, mango, OrderStatus.DELIVERED, 400);
+        newOrder(user, mango, OrderStatus.CANCELLED, 400);
+        newOrder(user, mango, OrderStatus.PENDING, 400);
+        newOrder(user, mango, OrderStatus.DELIVERED, 0);
+        OrderService.OrderStatistics allBefore = orderService.getOrderStatistics();
+        OrderService.OrderStatistics mineBefore = orderService.getOrderStatisticsByUser(user.getUserId());
+
+        // When
+        int archived = orderArchiveService.archiveOrdersUpdatedBefore(LocalDateTime.now().minusDays(180));
+
+        // Then
+        assertThat(archived).isEqualTo(2);
+        assertThat(orderService.getOrderStatistics()).usingRecursiveComparison().isEqualTo(allBefore);
+        assertThat(orderService.getOrderStatisticsByUser(user.getUserId())).usingRecursiveComparison()
+                .isEqualTo(mineBefore);
+        assertThat(allBefore.getTotalOrders()).isEqualTo(4);
+        assertThat(allBefore.getDeliveredOrders()).isEqualTo(2);
+        assertThat(allBefore.getCancelledOrders()).isEqualTo(1);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkArchivalThroughput() {
+        // Given: old delivered orders with one item each
+        User user = newUser("warehouse");
+        Product mango = newProduct();
+        jdbcTemplate.update("INSERT INTO orders (order_number, user_id, status, total_amount, shipping_address, " +
+                        "delivered_at, created_at, updated_at, version) " +
+                        "SELECT CONCAT('ARCH-', X), ?, 'DELIVERED', 240000.00, '123 Nguyen Hue, District 1', " +
+                        "DATEADD('DAY', -400, NOW()), DATEADD('DAY', -401, NOW()), DATEADD('DAY', -400, NOW()), 1 " +
+                        "FROM SYSTEM_RANGE(1, ?)",
+                user.getUserId(), BENCHMARK_ORDERS);
+        jdbcTemplate.update("INSERT INTO order_items (order_item_id, order_id, product_id, quantity, unit_price, " +
+                "subtotal, created_at) " +
+                "SELECT 10000000 + order_id, order_id, ?, 2, 120000.00, 240000.00, created_at FROM orders " +
+                "WHERE order_number LIKE 'ARCH-%'", mango.getProductId());
+
+        // When
+        long startNanos = System.nanoTime();
+        int archived = orderArchiveService.archiveOrdersUpdatedBefore(LocalDateTime.now().minusDays(180));
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        log.info(String.format("Order archival: %d orders with items in %d ms (%.0f orders/s)",
+                archived, elapsedMillis, archived / (elapsedMillis / 1000.0)));
+
+        // Then
+        assertThat(archived).isEqualTo(BENCHMARK_ORDERS);
+        assertThat(orderRepository.count()).isZero();
+        assertThat(archivedOrderRepository.countOrderItems()).isEqualTo(BENCHMARK_ORDERS);
+        assertThat(orderService.getOrderByOrderNumber("ARCH-777").getOrderItems()).hasSize(1);
+    }
+
+    private User newUser(String name) {
+        User user = new User(name, name + "@example.com", "password123", "Buyer " + name);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Product newProduct() {
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        return productRepository.save(new Product("Xoài Cát Hòa Lộc", "Xoài Cát Hòa Lộc Tiền Giang",
+                new BigDecimal("120000.00"), 100, category));
+    }
+
+    private Order newOrder(User user, Product product, OrderStatus status, int ageDays) {
+        Order order = new Order(user, "123 Nguyen Hue, District 1", "Buyer", "buyer@example.com");
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setTotalAmount(new BigDecimal("240000.00"));
+        order.setStatus(status);
+        order = orderRepository.save(order);
+        orderItemRepository.save(new OrderItem(order, product, 2));
+        jdbcTemplate.update("UPDATE orders SET updated_at = DATEADD('DAY', ?, NOW()) WHERE order_id = ?",
+                -ageDays, order.getOrderId());
+        return order;
+    }
+}
@@ -0,0 +1,187 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.order.BulkUpdateOrderStatusRequest;
+import com.fruitstore.dto.response.order.BulkOrderStatusResponse;
+import com.fruitstore.dto.response.order.BulkOrderStatusResponse.OrderOutcome;
+import com.fruitstore.dto.response.order.BulkOrderStatusResponse.Outcome;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for OrderBulkStatusService against H2
+ * Includes a 50k-order warehouse wave benchmark
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderBulkStatusService.class, OrderStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderBulkStatusServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBulkStatusServiceTest.class);
+
+    private static final int WAVE_SIZE = 50_000;
+
+    @Autowired
+    private OrderBulkStatusService orderBulkStatusService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_outbox");
+        jdbcTemplate.update("DELETE FROM orders");
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testUpdateByIdsReportsOutcomePerOrder() {
+        // Given
+        User user = newUser("buyer");
+        Order pending = newOrder(user, OrderStatus.PENDING);
+        Order confirmed = newOrder(user, OrderStatus.CONFIRMED);
+        Order delivered = newOrder(user, OrderStatus.DELIVERED);
+        BulkUpdateOrderStatusRequest request = new BulkUpdateOrderStatusRequest(OrderStatus.CANCELLED,
+                Arrays.asList(pending.getOrderId(), confirmed.getOrderId(), delivered.getOrderId(), 999_999L,
+                        pending.getOrderId()));
+
+        // When
+        BulkOrderStatusResponse response = orderBulkStatusService.updateStatus(request);
+
+        // Then
+        assertThat(response.getRequested()).isEqualTo(4);
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(response.getSkipped()).isEqualTo(2);
+        assertThat(response.getResults()).extracting(OrderOutcome::getOutcome)
+                .containsExactly(Outcome.UPDATED, Outcome.UPDATED, Outcome.INVALID_TRANSITION, Outcome.NOT_FOUND);
+        assertThat(response.getResults()).extracting(OrderOutcome::getPreviousStatus)
+                .containsExactly(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.DELIVERED, null);
+
+        Order cancelled = orderRepository.findById(pending.getOrderId()).orElseThrow();
+        assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(cancelled.getCancelledAt()).isNotNull();
+        assertThat(cancelled.getVersion()).isEqualTo(pending.getVersion() + 1);
+        assertThat(orderRepository.findById(delivered.getOrderId()).orElseThrow().getStatus())
+                .isEqualTo(OrderStatus.DELIVERED);
+    }
+
+    @Test
+    public void testUpdateByFilterMovesOnlyMatchingOrdersAcrossChunks() {
+        // Given: 2500 confirmed orders span three chunks of 1000
+        User buyer = newUser("buyer");
+        User other = newUser("other");
+        insertOrders(buyer, OrderStatus.CONFIRMED, 2_500);
+        insertOrders(buyer, OrderStatus.PENDING, 5);
+        insertOrders(other, OrderStatus.CONFIRMED, 5);
+        BulkUpdateOrderStatusRequest request = new BulkUpdateOrderStatusRequest();
+        request.setStatus(OrderStatus.SHIPPED);
+        request.setFromStatus(OrderStatus.CONFIRMED);
+        request.setUserId(buyer.getUserId());
+
+        // When
+        BulkOrderStatusResponse response = orderBulkStatusService.updateStatus(request);
+
+        // Then
+        assertThat(response.getUpdated()).isEqualTo(2_500);
+        assertThat(response.getSkipped()).isZero();
+        assertThat(orderRepository.countByStatus(OrderStatus.SHIPPED)).isEqualTo(2_500);
+        assertThat(orderRepository.countByStatus(OrderStatus.CONFIRMED)).isEqualTo(5);
+        assertThat(orderRepository.countByStatus(OrderStatus.PENDING)).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE status = 'SHIPPED' AND shipped_at IS NULL",
+                Long.class)).isZero();
+    }
+
+    @Test
+    public void testInvalidRequestsFail() {
+        BulkUpdateOrderStatusRequest toPending = new BulkUpdateOrderStatusRequest(OrderStatus.PENDING, List.of(1L));
+        assertThatThrownBy(() -> orderBulkStatusService.updateStatus(toPending))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot be moved to status");
+
+        BulkUpdateOrderStatusRequest both = new BulkUpdateOrderStatusRequest(OrderStatus.SHIPPED, List.of(1L));
+        both.setFromStatus(OrderStatus.CONFIRMED);
+        assertThatThrownBy(() -> orderBulkStatusService.updateStatus(both))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("either order IDs or a filter");
+
+        BulkUpdateOrderStatusRequest wrongFrom = new BulkUpdateOrderStatusRequest();
+        wrongFrom.setStatus(OrderStatus.DELIVERED);
+        wrongFrom.setFromStatus(OrderStatus.PENDING);
+        assertThatThrownBy(() -> orderBulkStatusService.updateStatus(wrongFrom))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Cannot transition from PENDING to DELIVERED");
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkWarehouseWave() {
+        // Given
+        User user = newUser("warehouse");
+        insertOrders(user, OrderStatus.CONFIRMED, WAVE_SIZE);
+        List<Long> orderIds = jdbcTemplate.queryForList("SELECT order_id FROM orders ORDER BY order_id", Long.class);
+
+        // When
+        long startNanos = System.nanoTime();
+        BulkOrderStatusResponse response = orderBulkStatusService.updateStatus(
+                new BulkUpdateOrderStatusRequest(OrderStatus.SHIPPED, orderIds));
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        log.info(String.format("Bulk status wave: %d orders CONFIRMED -> SHIPPED in %d ms (%.0f orders/s)",
+                WAVE_SIZE, elapsedMillis, WAVE_SIZE / (elapsedMillis / 1000.0)));
+
+        // Then
+        assertThat(response.getUpdated()).isEqualTo(WAVE_SIZE);
+        assertThat(orderRepository.countByStatus(OrderStatus.SHIPPED)).isEqualTo(WAVE_SIZE);
+    }
+
+    private User newUser(String name) {
+        User user = new User(name, name + "@example.com", "password123", "Buyer " + name);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Order newOrder(User user, OrderStatus status) {
+        Order order = new Order(user, "123 Nguyen Hue, District 1", "Buyer", "buyer@example.com");
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setTotalAmount(new BigDecimal("120000.00"));
+        order.setStatus(status);
+        return orderRepository.save(order);
+    }
+
+    private void insertOrders(User user, OrderStatus status, int count) {
+        jdbcTemplate.update("INSERT INTO orders (order_number, user_id, status, total_amount, shipping_address, " +
+                        "created_at, updated_at, version) " +
+                        "SELECT CONCAT(?, X), ?, ?, 120000.00, '123 Nguyen Hue, District 1', NOW(), NOW(), 0 " +
+                        "FROM SYSTEM_RANGE(1, ?)",
+                "BULK-" + user.getUserId() + "-" + status + "-", user.getUserId(), status.name(), count);
+    }
+}
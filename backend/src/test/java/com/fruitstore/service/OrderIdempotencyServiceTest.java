@@ -0,0 +1,235 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.cart.Cart;
+import com.fruitstore.domain.cart.CartItem;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.order.CreateOrderRequest;
+import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.repository.CartItemRepository;
+import com.fruitstore.repository.CartRepository;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.DiscountUsageRepository;
+import com.fruitstore.repository.OrderIdempotencyKeyRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for OrderIdempotencyService against H2
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({JacksonAutoConfiguration.class, OrderIdempotencyService.class, LockRetryService.class, OrderService.class,
+        CartService.class, DiscountService.class, StockReservationService.class,
+        StockDecrementCombiner.class, FlashSaleStockService.class, ShardedStockService.class,
+        SnowflakeOrderNumberGenerator.class, OrderStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderIdempotencyServiceTest {
+
+    @Autowired
+    private OrderIdempotencyService orderIdempotencyService;
+
+    @Autowired
+    private LockRetryService lockRetryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private DiscountUsageRepository discountUsageRepository;
+
+    @Autowired
+    private OrderIdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Long userId;
+    private Product product;
+
+    @BeforeEach
+    public void setUp() {
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        product = productRepository.save(new Product("Xoài Cát Hòa Lộc", "Xoài Cát Hòa Lộc Tiền Giang",
+                new BigDecimal("120000.00"), 10, category));
+
+        User user = new User("buyer", "buyer@example.com", "password123", "Buyer");
+        user.setRole(UserRole.CUSTOMER);
+        user = userRepository.save(user);
+        userId = user.getUserId();
+
+        Cart cart = cartRepository.save(new Cart(user));
+        cartItemRepository.save(new CartItem(cart, product, 2));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        idempotencyKeyRepository.deleteAll();
+        discountUsageRepository.deleteAll();
+        orderItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        cartItemRepository.deleteAll();
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testDuplicateRequestReturnsStoredResponse() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        OrderResponse first = orderIdempotencyService.execute(userId, "retry-1", () -> {
+            executions.incrementAndGet();
+            return orderService.createOrder(userId, newOrderRequest());
+        });
+
+        // When
+        OrderResponse second = orderIdempotencyService.execute(userId, "retry-1", () -> {
+            executions.incrementAndGet();
+            return orderService.createOrder(userId, newOrderRequest());
+        });
+
+        // Then
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(second.getOrderId()).isEqualTo(first.getOrderId());
+        assertThat(second.getOrderNumber()).isEqualTo(first.getOrderNumber());
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(productRepository.findById(product.getProductId()).orElseThrow().getStockQuantity()).isEqualTo(8);
+        assertThat(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, "retry-1")).isPresent();
+    }
+
+    @Test
+    public void testConcurrentDuplicatesWaitForFirstExecution() throws Exception {
+        // Given
+        int threads = 8;
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OrderResponse>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return orderIdempotencyService.execute(userId, "tap-tap-tap", () -> {
+                    executions.incrementAndGet();
+                    return orderService.createOrder(userId, newOrderRequest());
+                });
+            }));
+        }
+        start.countDown();
+        List<Long> orderIds = new ArrayList<>();
+        for (Future<OrderResponse> future : futures) {
+            orderIds.add(future.get(60, TimeUnit.SECONDS).getOrderId());
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(orderIds).containsOnly(orderIds.get(0));
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailedExecutionIsNotRemembered() {
+        // Given
+        assertThatThrownBy(() -> orderIdempotencyService.execute(userId, "retry-2", () -> {
+            throw new IllegalArgumentException("Insufficient stock for product: Xoài Cát Hòa Lộc");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        // When
+        OrderResponse response = orderIdempotencyService.execute(userId, "retry-2",
+                () -> orderService.createOrder(userId, newOrderRequest()));
+
+        // Then
+        assertThat(response.getOrderId()).isNotNull();
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testKeyedCheckoutIsRetriedAfterLockFailure() {
+        // Given - the first attempt loses a row lock, as wired in OrderController and AsyncCheckoutService
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        OrderResponse response = lockRetryService.execute(() -> orderIdempotencyService.execute(userId, "retry-3",
+                () -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new CannotAcquireLockException("Lock wait timeout exceeded");
+                    }
+                    return orderService.createOrder(userId, newOrderRequest());
+                }));
+
+        // Then
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(response.getOrderId()).isNotNull();
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, "retry-3")).isPresent();
+    }
+
+    @Test
+    public void testInvalidKey() {
+        assertThatThrownBy(() -> orderIdempotencyService.execute(userId, " ",
+                () -> orderService.createOrder(userId, newOrderRequest())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Idempotency-Key");
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    private CreateOrderRequest newOrderRequest() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("123 Nguyen Hue, District 1");
+        request.setCustomerName("Buyer");
+        request.setCustomerEmail("buyer@example.com");
+        request.setPhoneNumber("0901234567");
+        return request;
+    }
+}
@@ -0,0 +1,229 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderEventType;
+import com.fruitstore.domain.order.OrderOutboxEvent;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.order.BulkUpdateOrderStatusRequest;
+import com.fruitstore.repository.OrderOutboxRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the order outbox and its relay against H2
+ * Includes a relay throughput benchmark
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderOutboxRelay.class, InMemoryOrderEventSink.class, OrderBulkStatusService.class, OrderService.class,
+        CartService.class, DiscountService.class, StockReservationService.class, StockDecrementCombiner.class,
+        FlashSaleStockService.class, ShardedStockService.class, SnowflakeOrderNumberGenerator.class,
+        OrderStatsService.class})
+@TestPropertySource(properties = {"app.outbox.memory-sink.enabled=true", "app.outbox.relay.batch-size=200"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderOutboxRelayTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxRelayTest.class);
+
+    private static final int BENCHMARK_EVENTS = 20_000;
+
+    @Autowired
+    private OrderOutboxRelay orderOutboxRelay;
+
+    @Autowired
+    private InMemoryOrderEventSink memorySink;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderBulkStatusService orderBulkStatusService;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        orderOutboxRepository.deleteAllInBatch();
+        memorySink.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        orderOutboxRepository.deleteAllInBatch();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testStatusChangesAreRelayedInOrderAndRemoved() {
+        // Given
+        User user = newUser("buyer");
+        Order first = newOrder(user, OrderStatus.PENDING);
+        Order second = newOrder(user, OrderStatus.CONFIRMED);
+        orderService.cancelOrder(first.getOrderId(), user.getUserId());
+        orderBulkStatusService.updateStatus(new BulkUpdateOrderStatusRequest(OrderStatus.SHIPPED,
+                List.of(second.getOrderId(), first.getOrderId())));
+
+        // When
+        int relayed = orderOutboxRelay.relay();
+
+        // Then: the cancelled order could not be shipped, so only two events exist
+        assertThat(relayed).isEqualTo(2);
+        List<OrderOutboxEvent> events = memorySink.getEvents();
+        assertThat(events).extracting(OrderOutboxEvent::getOrderId)
+                .containsExactly(first.getOrderId(), second.getOrderId());
+        assertThat(events).extracting(OrderOutboxEvent::getEventType)
+                .containsOnly(OrderEventType.STATUS_CHANGED);
+        assertThat(events.get(0).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(events.get(0).getPreviousStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(events.get(1).getStatus()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(events.get(1).getPreviousStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(events.get(1).getUserId()).isEqualTo(user.getUserId());
+        assertThat(orderOutboxRepository.count()).isZero();
+
+        OrderOutboxRelay.OutboxRelayStatistics statistics = orderOutboxRelay.getStatistics();
+        assertThat(statistics.getSinks()).containsExactly("memory");
+        assertThat(statistics.getPendingEvents()).isZero();
+        assertThat(statistics.getDispatchedEvents()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void testFailedPublishLeavesBatchInOutbox() {
+        // Given: a relay whose second sink always fails
+        insertEvents(5);
+        OrderEventSink failing = new OrderEventSink() {
+            @Override
+            public String getName() {
+                return "failing";
+            }
+
+            @Override
+            public void publish(List<OrderOutboxEvent> events) {
+                throw new IllegalStateException("consumer unavailable");
+            }
+        };
+        OrderOutboxRelay relay = new OrderOutboxRelay(orderOutboxRepository, transactionManager,
+                List.of(memorySink, failing), 100);
+
+        // When
+        int relayed = relay.relayBatch();
+
+        // Then
+        assertThat(relayed).isZero();
+        assertThat(orderOutboxRepository.count()).isEqualTo(5);
+        assertThat(relay.getStatistics().getFailedBatches()).isEqualTo(1);
+        assertThat(relay.getStatistics().getLastError()).isEqualTo("consumer unavailable");
+        assertThat(relay.getStatistics().getOldestPendingAgeMillis()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void concurrentRelays_ShouldDispatchEachEventOnce() throws Exception {
+        // Given
+        insertEvents(2_000);
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                orderOutboxRelay.relay();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        List<Long> ids = memorySink.getEvents().stream().map(OrderOutboxEvent::getOutboxId).collect(Collectors.toList());
+        assertThat(ids).hasSize(2_000).doesNotHaveDuplicates();
+        assertThat(orderOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkRelayThroughput() {
+        // Given
+        insertEvents(BENCHMARK_EVENTS);
+
+        // When
+        long startNanos = System.nanoTime();
+        int relayed = orderOutboxRelay.relay();
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        log.info(String.format("Outbox relay: %d events in %d ms (%.0f events/s, max lag %d ms)",
+                relayed, elapsedMillis, relayed / (elapsedMillis / 1000.0),
+                orderOutboxRelay.getStatistics().getMaxLagMillis()));
+
+        // Then
+        assertThat(relayed).isEqualTo(BENCHMARK_EVENTS);
+        assertThat(memorySink.getEvents()).hasSize(BENCHMARK_EVENTS);
+    }
+
+    private void insertEvents(int count) {
+        jdbcTemplate.update("INSERT INTO order_outbox (event_type, order_id, order_number, user_id, status, " +
+                "total_amount, created_at) " +
+                "SELECT 'CREATED', X, CONCAT('ORD-', X), 1, 'PENDING', 120000.00, NOW() FROM SYSTEM_RANGE(1, ?)", count);
+    }
+
+    private User newUser(String name) {
+        User user = new User(name, name + "@example.com", "password123", "Buyer " + name);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Order newOrder(User user, OrderStatus status) {
+        Order order = new Order(user, "123 Nguyen Hue, District 1", "Buyer", "buyer@example.com");
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setTotalAmount(new BigDecimal("120000.00"));
+        order.setStatus(status);
+        return orderRepository.save(order);
+    }
+}
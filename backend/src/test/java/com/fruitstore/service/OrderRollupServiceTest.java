@@ -0,0 +1,370 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderEventType;
+import com.fruitstore.domain.order.OrderItem;
+import com.fruitstore.domain.order.OrderOutboxEvent;
+import com.fruitstore.domain.order.OrderRollupDaily;
+import com.fruitstore.domain.order.OrderRollupHourly;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.response.order.OrderRollupResponse;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderOutboxRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.OrderRollupDailyRepository;
+import com.fruitstore.repository.OrderRollupHourlyRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the hourly and daily revenue rollups against H2
+ * Includes a parallel backfill benchmark over 100k orders
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderRollupService.class, OrderArchiveService.class, OrderService.class, CartService.class,
+        DiscountService.class, StockReservationService.class, StockDecrementCombiner.class,
+        FlashSaleStockService.class, ShardedStockService.class, SnowflakeOrderNumberGenerator.class,
+        OrderStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderRollupServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderRollupServiceTest.class);
+
+    private static final int BENCHMARK_ORDERS = 100_000;
+    private static final int BENCHMARK_DAYS = 30;
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderRollupHourlyRepository hourlyRepository;
+
+    @Autowired
+    private OrderRollupDailyRepository dailyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate yesterday = LocalDate.now().minusDays(1);
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_rollup_hourly");
+        jdbcTemplate.update("DELETE FROM order_rollup_daily");
+        jdbcTemplate.update("DELETE FROM order_outbox");
+        jdbcTemplate.update("DELETE FROM order_items_archive");
+        jdbcTemplate.update("DELETE FROM orders_archive");
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testBackfillBuildsHourlyDailyAndCategoryRollups() {
+        // Given: three orders at 10h (one cancelled, one archived), one at 11h
+        User user = newUser("buyer");
+        Product mango = newProduct("Xoài Cát Hòa Lộc", "Trái cây tươi", "120000.00");
+        Product dried = newProduct("Xoài sấy dẻo", "Trái cây sấy", "80000.00");
+        Order archived = newOrder(user, mango, 2, OrderStatus.DELIVERED, yesterday.atTime(10, 5));
+        newOrder(user, dried, 1, OrderStatus.PENDING, yesterday.atTime(10, 40));
+        newOrder(user, mango, 3, OrderStatus.CANCELLED, yesterday.atTime(10, 59));
+        newOrder(user, dried, 5, OrderStatus.CONFIRMED, yesterday.atTime(11, 0));
+        jdbcTemplate.update("UPDATE orders SET updated_at = DATEADD('DAY', -400, NOW()) WHERE order_id = ?",
+                archived.getOrderId());
+        assertThat(orderArchiveService.archiveOrdersUpdatedBefore(LocalDateTime.now().minusDays(180))).isEqualTo(1);
+
+        // When
+        int days = orderRollupService.backfill(yesterday, yesterday.plusDays(1));
+
+        // Then
+        assertThat(days).isEqualTo(1);
+        List<OrderRollupResponse> hours = orderRollupService.getHourlyRollups(millis(yesterday.atStartOfDay()),
+                millis(yesterday.plusDays(1).atStartOfDay()), null);
+        assertThat(hours).extracting(OrderRollupResponse::getBucketStart)
+                .containsExactly(yesterday.atTime(10, 0), yesterday.atTime(11, 0));
+        OrderRollupResponse tenOClock = hours.get(0);
+        assertThat(tenOClock.getOrderCount()).isEqualTo(3);
+        assertThat(tenOClock.getCancelledCount()).isEqualTo(1);
+        assertThat(tenOClock.getItemQuantity()).isEqualTo(3);
+        assertThat(tenOClock.getRevenue()).isEqualByComparingTo("320000.00");
+        assertThat(tenOClock.getBucketStartMillis()).isEqualTo(millis(yesterday.atTime(10, 0)));
+
+        Long mangoCategory = mango.getCategory().getCategoryId();
+        List<OrderRollupResponse> mangoHours = orderRollupService.getHourlyRollups(
+                millis(yesterday.atStartOfDay()), millis(yesterday.plusDays(1).atStartOfDay()), mangoCategory);
+        assertThat(mangoHours).hasSize(1);
+        assertThat(mangoHours.get(0).getOrderCount()).isEqualTo(1);
+        assertThat(mangoHours.get(0).getItemQuantity()).isEqualTo(2);
+
+        List<OrderRollupResponse> daily = orderRollupService.getDailyRollups(millis(yesterday.atStartOfDay()),
+                millis(yesterday.plusDays(1).atStartOfDay()), null);
+        assertThat(daily).hasSize(1);
+        assertThat(daily.get(0).getOrderCount()).isEqualTo(4);
+        assertThat(daily.get(0).getCancelledCount()).isEqualTo(1);
+        assertThat(daily.get(0).getItemQuantity()).isEqualTo(8);
+        assertThat(daily.get(0).getRevenue()).isEqualByComparingTo("720000.00");
+        assertThat(orderRollupService.getDailyRollups(millis(yesterday.atStartOfDay()),
+                millis(yesterday.plusDays(1).atStartOfDay()), dried.getCategory().getCategoryId()).get(0).getRevenue())
+                .isEqualByComparingTo("480000.00");
+
+        // Running it again changes nothing
+        String before = snapshot();
+        orderRollupService.backfill(yesterday, yesterday.plusDays(1));
+        assertThat(snapshot()).isEqualTo(before);
+
+        assertThatThrownBy(() -> orderRollupService.getHourlyRollups(10, 10, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testRefreshKeepsRollupsCurrent() {
+        // Given
+        User user = newUser("buyer");
+        Product mango = newProduct("Xoài Cát Hòa Lộc", "Trái cây tươi", "120000.00");
+        Order order = newOrder(user, mango, 2, OrderStatus.PENDING, yesterday.atTime(9, 30));
+
+        // When: the new order is picked up by the refresh cursor
+        orderRollupService.refresh();
+
+        // Then
+        OrderRollupResponse nine = orderRollupService.getHourlyRollups(millis(yesterday.atStartOfDay()),
+                millis(yesterday.plusDays(1).atStartOfDay()), null).get(0);
+        assertThat(nine.getOrderCount()).isEqualTo(1);
+        assertThat(nine.getRevenue()).isEqualByComparingTo("240000.00");
+
+        // When: the order is cancelled and refreshed
+        orderService.cancelOrder(order.getOrderId());
+        orderRollupService.refresh();
+
+        // Then
+        nine = orderRollupService.getHourlyRollups(millis(yesterday.atStartOfDay()),
+                millis(yesterday.plusDays(1).atStartOfDay()), null).get(0);
+        assertThat(nine.getCancelledCount()).isEqualTo(1);
+        assertThat(nine.getRevenue()).isEqualByComparingTo("0");
+        assertThat(dailyRepository.findStoreRollups(yesterday.atStartOfDay(), yesterday.plusDays(1).atStartOfDay()))
+                .extracting(OrderRollupDaily::getCancelledCount).containsExactly(1L);
+        assertThat(orderOutboxRepository.count()).as("the rollup does not consume the outbox").isEqualTo(2);
+        assertThat(orderRollupService.getStatistics().getFailedDays()).isZero();
+        assertThat(orderRollupService.getStatistics().getRefreshedThrough()).isNotNull();
+    }
+
+    @Test
+    public void backfillDuringLiveTraffic_ShouldMatchAFreshRecompute() throws Exception {
+        // Given
+        User user = newUser("buyer");
+        Product mango = newProduct("Xoài Cát Hòa Lộc", "Trái cây tươi", "120000.00");
+
+        // When: orders are placed and cancelled while refreshes and repeated backfills run
+        AtomicBoolean trafficDone = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> traffic = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            int thread = t;
+            traffic.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 150; i++) {
+                    Order order = newOrder(user, mango, 1 + i % 3, OrderStatus.PENDING,
+                            yesterday.atTime((thread * 150 + i) % 24, i % 60));
+                    if (i % 5 == 0) {
+                        orderService.cancelOrder(order.getOrderId());
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> refreshing = executor.submit(() -> {
+            start.await();
+            while (!trafficDone.get()) {
+                orderRollupService.refresh();
+            }
+            return null;
+        });
+        Future<?> backfilling = executor.submit(() -> {
+            start.await();
+            while (!trafficDone.get()) {
+                orderRollupService.backfill(yesterday, yesterday.plusDays(1));
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> future : traffic) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        trafficDone.set(true);
+        refreshing.get(60, TimeUnit.SECONDS);
+        backfilling.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+        orderRollupService.refresh();
+
+        // Then
+        String live = snapshot();
+        orderRollupService.backfill(yesterday, yesterday.plusDays(1));
+        assertThat(live).isEqualTo(snapshot());
+        OrderRollupResponse day = orderRollupService.getDailyRollups(millis(yesterday.atStartOfDay()),
+                millis(yesterday.plusDays(1).atStartOfDay()), null).get(0);
+        assertThat(day.getOrderCount()).isEqualTo(300);
+        assertThat(day.getCancelledCount()).isEqualTo(60);
+        assertThat(orderRollupService.getStatistics().getFailedDays()).isZero();
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkBackfillAndRangeQuery() {
+        // Given: orders spread over 30 days with one item each
+        User user = newUser("reporting");
+        Product mango = newProduct("Xoài Cát Hòa Lộc", "Trái cây tươi", "120000.00");
+        LocalDateTime first = LocalDate.now().minusDays(BENCHMARK_DAYS).atStartOfDay();
+        jdbcTemplate.update("INSERT INTO orders (order_number, user_id, status, total_amount, shipping_address, " +
+                        "created_at, updated_at, version) " +
+                        "SELECT CONCAT('ROLL-', X), ?, CASEWHEN(MOD(X, 10) = 0, 'CANCELLED', 'DELIVERED'), 240000.00, " +
+                        "'123 Nguyen Hue, District 1', DATEADD('SECOND', MOD(X * 7919, CAST(? AS INT)), CAST(? AS TIMESTAMP)), NOW(), 0 " +
+                        "FROM SYSTEM_RANGE(1, ?)",
+                user.getUserId(), BENCHMARK_DAYS * 86_400, Timestamp.valueOf(first), BENCHMARK_ORDERS);
+        jdbcTemplate.update("INSERT INTO order_items (order_item_id, order_id, product_id, quantity, unit_price, " +
+                "subtotal, created_at) " +
+                "SELECT 20000000 + order_id, order_id, ?, 2, 120000.00, 240000.00, created_at FROM orders " +
+                "WHERE order_number LIKE 'ROLL-%'", mango.getProductId());
+
+        // When
+        long startNanos = System.nanoTime();
+        int days = orderRollupService.backfill(first.toLocalDate(), LocalDate.now());
+        long backfillMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        long from = millis(first);
+        long to = millis(LocalDate.now().atStartOfDay());
+        orderRollupService.getDailyRollups(from, to, null);
+        startNanos = System.nanoTime();
+        List<OrderRollupResponse> daily = orderRollupService.getDailyRollups(from, to, null);
+        long rollupMicros = (System.nanoTime() - startNanos) / 1_000;
+        startNanos = System.nanoTime();
+        List<Long> scanned = jdbcTemplate.queryForList("SELECT COUNT(*) FROM orders o JOIN order_items i " +
+                "ON i.order_id = o.order_id WHERE o.created_at >= ? AND o.created_at < ? " +
+                "GROUP BY CAST(o.created_at AS DATE)", Long.class, Timestamp.valueOf(first),
+                Timestamp.valueOf(LocalDate.now().atStartOfDay()));
+        long scanMicros = (System.nanoTime() - startNanos) / 1_000;
+
+        log.info(String.format(
+                "Rollup backfill: %d orders over %d days in %d ms; 30-day query %.2f ms from rollups, " +
+                        "%.2f ms scanning orders",
+                BENCHMARK_ORDERS, days, backfillMillis, rollupMicros / 1000.0, scanMicros / 1000.0));
+
+        // Then
+        assertThat(days).isEqualTo(BENCHMARK_DAYS);
+        assertThat(daily).hasSize(BENCHMARK_DAYS);
+        assertThat(scanned).hasSize(BENCHMARK_DAYS);
+        assertThat(daily.stream().mapToLong(OrderRollupResponse::getOrderCount).sum()).isEqualTo(BENCHMARK_ORDERS);
+        assertThat(daily.stream().mapToLong(OrderRollupResponse::getCancelledCount).sum())
+                .isEqualTo(BENCHMARK_ORDERS / 10);
+    }
+
+    private String snapshot() {
+        String hourly = hourlyRepository.findAll().stream()
+                .map(OrderRollupHourly::toString).sorted().collect(Collectors.joining("\n"));
+        String daily = dailyRepository.findAll().stream()
+                .map(OrderRollupDaily::toString).sorted().collect(Collectors.joining("\n"));
+        return hourly + "\n" + daily;
+    }
+
+    private long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private User newUser(String name) {
+        User user = new User(name, name + "@example.com", "password123", "Buyer " + name);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Product newProduct(String name, String categoryName, String price) {
+        Category category = categoryRepository.save(new Category(categoryName, categoryName));
+        return productRepository.save(new Product(name, name, new BigDecimal(price), 1000, category));
+    }
+
+    /**
+     * Place an order the way checkout does: order, item and CREATED outbox event in one transaction
+     */
+    private Order newOrder(User user, Product product, int quantity, OrderStatus status, LocalDateTime createdAt) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            Order order = new Order(user, "123 Nguyen Hue, District 1", "Buyer", "buyer@example.com");
+            order.setOrderNumber("ORD-" + System.nanoTime());
+            order.setTotalAmount(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+            order.setStatus(status);
+            order = orderRepository.saveAndFlush(order);
+            orderItemRepository.save(new OrderItem(order, product, quantity));
+            jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE order_id = ?",
+                    Timestamp.valueOf(createdAt), order.getOrderId());
+            orderOutboxRepository.save(new OrderOutboxEvent(OrderEventType.CREATED, order.getOrderId(),
+                    order.getOrderNumber(), user.getUserId(), status, null, order.getTotalAmount()));
+            return order;
+        });
+    }
+}
@@ -0,0 +1,228 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.cart.Cart;
+import com.fruitstore.domain.cart.CartItem;
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.order.CreateOrderRequest;
+import com.fruitstore.repository.CartItemRepository;
+import com.fruitstore.repository.CartRepository;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.DiscountUsageRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderOutboxRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency test for OrderService checkout against H2
+ * Many users check out the same product at once; stock must never be oversold
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderService.class, CartService.class, DiscountService.class, StockReservationService.class,
+        StockDecrementCombiner.class, FlashSaleStockService.class, ShardedStockService.class,
+        SnowflakeOrderNumberGenerator.class, OrderStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int CUSTOMERS = 40;
+    private static final int INITIAL_STOCK = 25;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockDecrementCombiner stockDecrementCombiner;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private DiscountUsageRepository discountUsageRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @AfterEach
+    public void tearDown() {
+        stockDecrementCombiner.setGloballyEnabled(false);
+        discountUsageRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
+        orderItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        cartItemRepository.deleteAll();
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentCheckoutsOfSameProduct_ShouldNeverOversell() throws Exception {
+        checkOutConcurrently("per-request");
+    }
+
+    @Test
+    public void concurrentCombinedCheckoutsOfSameProduct_ShouldNeverOversell() throws Exception {
+        stockDecrementCombiner.setGloballyEnabled(true);
+        checkOutConcurrently("combined");
+    }
+
+    @Test
+    public void concurrentCheckoutsWithOppositeCartOrder_ShouldNotDeadlock() throws Exception {
+        // Given: half of the carts list the mango first, the other half the dragon fruit first
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Product mango = productRepository.save(new Product("Xoài Cát Hòa Lộc", "Xoài Cát Hòa Lộc Tiền Giang",
+                new BigDecimal("120000.00"), CUSTOMERS, category));
+        Product dragonFruit = productRepository.save(new Product("Thanh Long Ruột Đỏ", "Thanh long ruột đỏ Bình Thuận",
+                new BigDecimal("45000.00"), CUSTOMERS, category));
+
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            User user = new User("buyer" + i, "buyer" + i + "@example.com", "password123", "Buyer " + i);
+            user.setRole(UserRole.CUSTOMER);
+            user = userRepository.save(user);
+
+            Cart cart = cartRepository.save(new Cart(user));
+            Product first = i % 2 == 0 ? mango : dragonFruit;
+            Product second = i % 2 == 0 ? dragonFruit : mango;
+            cartItemRepository.save(new CartItem(cart, first, 1));
+            cartItemRepository.save(new CartItem(cart, second, 1));
+            userIds.add(user.getUserId());
+        }
+
+        // When: no retries, so a deadlock victim fails its checkout
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                orderService.createOrder(userId, newOrderRequest(userId));
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(orderRepository.count()).isEqualTo(CUSTOMERS);
+        assertThat(productRepository.findStockQuantityById(mango.getProductId())).hasValue(0);
+        assertThat(productRepository.findStockQuantityById(dragonFruit.getProductId())).hasValue(0);
+    }
+
+    private void checkOutConcurrently(String mode) throws Exception {
+        // Given
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Product product = new Product("Xoài Cát Hòa Lộc", "Xoài Cát Hòa Lộc Tiền Giang",
+                new BigDecimal("120000.00"), INITIAL_STOCK, category);
+        product = productRepository.save(product);
+
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            User user = new User("buyer" + i, "buyer" + i + "@example.com", "password123", "Buyer " + i);
+            user.setRole(UserRole.CUSTOMER);
+            user = userRepository.save(user);
+
+            Cart cart = cartRepository.save(new Cart(user));
+            cartItemRepository.save(new CartItem(cart, product, 1));
+            userIds.add(user.getUserId());
+        }
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.createOrder(userId, newOrderRequest(userId));
+                    succeeded.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        Product reloaded = productRepository.findById(product.getProductId()).orElseThrow();
+        assertThat(reloaded.getStockQuantity()).isEqualTo(0);
+        assertThat(succeeded.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(rejected.get()).isEqualTo(CUSTOMERS - INITIAL_STOCK);
+        assertThat(orderRepository.count()).isEqualTo(INITIAL_STOCK);
+        assertThat(orderItemRepository.sumQuantityByProduct_ProductId(product.getProductId()))
+                .isEqualTo((long) INITIAL_STOCK);
+        // Rejected checkouts roll their outbox event back with the order
+        List<Long> orderIds = orderRepository.findAll().stream().map(Order::getOrderId).collect(Collectors.toList());
+        assertThat(orderOutboxRepository.findAll()).filteredOn(event -> orderIds.contains(event.getOrderId()))
+                .hasSize(INITIAL_STOCK);
+    }
+
+    private CreateOrderRequest newOrderRequest(Long userId) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("123 Nguyen Hue, District 1");
+        request.setCustomerName("Buyer " + userId);
+        request.setCustomerEmail("buyer" + userId + "@example.com");
+        request.setPhoneNumber("0901234567");
+        return request;
+    }
+}
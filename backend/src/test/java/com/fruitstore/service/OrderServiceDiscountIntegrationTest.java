@@ -11,22 +11,31 @@ import com.fruitstore.domain.user.User;
 import com.fruitstore.dto.request.order.CreateOrderRequest;
 import com.fruitstore.dto.response.discount.DiscountValidationResponse;
 import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.repository.ArchivedOrderRepository;
+import com.fruitstore.repository.CartItemRepository;
 import com.fruitstore.repository.CartRepository;
 import com.fruitstore.repository.DiscountRepository;
 import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderOutboxRepository;
 import com.fruitstore.repository.OrderRepository;
 import com.fruitstore.repository.ProductRepository;
 import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.OrderNumberGenerator;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -48,6 +57,9 @@ public class OrderServiceDiscountIntegrationTest {
     @Mock
     private CartRepository cartRepository;
 
+    @Mock
+    private CartItemRepository cartItemRepository;
+
     @Mock
     private UserRepository userRepository;
 
@@ -60,6 +72,30 @@ public class OrderServiceDiscountIntegrationTest {
     @Mock
     private DiscountRepository discountRepository;
 
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private StockDecrementCombiner stockDecrementCombiner;
+
+    @Mock
+    private FlashSaleStockService flashSaleStockService;
+
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Mock
+    private OrderStatsService orderStatsService;
+
+    @Spy
+    private OrderNumberGenerator orderNumberGenerator = new SnowflakeOrderNumberGenerator(0);
+
     @InjectMocks
     private OrderService orderService;
 
@@ -141,13 +177,6 @@ public class OrderServiceDiscountIntegrationTest {
             order.setOrderId(1L);
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> {
-            OrderItem orderItem = invocation.getArgument(0);
-            orderItem.setOrderItemId(1L);
-            return orderItem;
-        });
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
 
         // Act
         OrderResponse result = orderService.createOrder(1L, testRequest);
@@ -157,8 +186,8 @@ public class OrderServiceDiscountIntegrationTest {
         verify(discountService).validateDiscount("TEST10", new BigDecimal("20.00"));
         verify(discountService).applyDiscount("TEST10", new BigDecimal("20.00"));
         verify(discountService).recordDiscountUsage(1L, 1L, 1L, new BigDecimal("2.00"));
-        verify(productRepository).save(testProduct); // Stock should be updated
-        verify(cartRepository).save(testCart); // Cart should be cleared
+        verify(productRepository).decrementStockInBatch(Map.of(1L, 2)); // Stock should be updated
+        verify(cartItemRepository).deleteAllByCartIdInBulk(1L); // Cart should be cleared
     }
 
     @Test
@@ -173,12 +202,6 @@ public class OrderServiceDiscountIntegrationTest {
             order.setOrderId(1L);
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> {
-            OrderItem orderItem = invocation.getArgument(0);
-            orderItem.setOrderItemId(1L);
-            return orderItem;
-        });
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
         
         // Mock invalid discount validation
         DiscountValidationResponse validationResponse = new DiscountValidationResponse(
@@ -215,12 +238,6 @@ public class OrderServiceDiscountIntegrationTest {
             order.setOrderId(1L);
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> {
-            OrderItem orderItem = invocation.getArgument(0);
-            orderItem.setOrderItemId(1L);
-            return orderItem;
-        });
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
         
         // Mock expired discount validation
         DiscountValidationResponse validationResponse = new DiscountValidationResponse(
@@ -259,12 +276,6 @@ public class OrderServiceDiscountIntegrationTest {
             order.setOrderId(1L);
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> {
-            OrderItem orderItem = invocation.getArgument(0);
-            orderItem.setOrderItemId(1L);
-            return orderItem;
-        });
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
         
         // Mock discount validation with minimum order amount not met
         DiscountValidationResponse validationResponse = new DiscountValidationResponse(
@@ -303,13 +314,6 @@ public class OrderServiceDiscountIntegrationTest {
             order.setOrderId(1L);
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> {
-            OrderItem orderItem = invocation.getArgument(0);
-            orderItem.setOrderItemId(1L);
-            return orderItem;
-        });
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
 
         // Act
         OrderResponse result = orderService.createOrder(1L, testRequest);
@@ -319,8 +323,8 @@ public class OrderServiceDiscountIntegrationTest {
         verify(discountService, never()).validateDiscount(anyString(), any(BigDecimal.class));
         verify(discountService, never()).applyDiscount(anyString(), any(BigDecimal.class));
         verify(discountService, never()).recordDiscountUsage(anyLong(), anyLong(), anyLong(), any(BigDecimal.class));
-        verify(productRepository).save(testProduct); // Stock should be updated
-        verify(cartRepository).save(testCart); // Cart should be cleared
+        verify(productRepository).decrementStockInBatch(Map.of(1L, 2)); // Stock should be updated
+        verify(cartItemRepository).deleteAllByCartIdInBulk(1L); // Cart should be cleared
     }
 
     @Test
@@ -340,13 +344,6 @@ public class OrderServiceDiscountIntegrationTest {
             order.setOrderId(1L);
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> {
-            OrderItem orderItem = invocation.getArgument(0);
-            orderItem.setOrderItemId(1L);
-            return orderItem;
-        });
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
 
         // Act
         OrderResponse result = orderService.createOrder(1L, testRequest);
@@ -392,13 +389,6 @@ public class OrderServiceDiscountIntegrationTest {
             order.setOrderId(1L);
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> {
-            OrderItem orderItem = invocation.getArgument(0);
-            orderItem.setOrderItemId(1L);
-            return orderItem;
-        });
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
 
         // Act
         OrderResponse result = orderService.createOrder(1L, testRequest);
@@ -460,13 +450,6 @@ public class OrderServiceDiscountIntegrationTest {
             order.setOrderId(1L);
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> {
-            OrderItem orderItem = invocation.getArgument(0);
-            orderItem.setOrderItemId(1L);
-            return orderItem;
-        });
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
-        when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
 
         // Act
         OrderResponse result = orderService.createOrderWithDiscount(1L, testRequest);
@@ -476,4 +459,78 @@ public class OrderServiceDiscountIntegrationTest {
         // This method should just call createOrder internally
         verify(orderRepository, times(2)).save(any(Order.class)); // Called twice: once for initial save, once for final save
     }
+
+    @Test
+    void createOrder_WhenStockTakenByConcurrentCheckout_ShouldThrowException() {
+        // Arrange
+        testRequest.setDiscountCode(null);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(cartRepository.findByUser_UserIdWithItemsAndProducts(1L)).thenReturn(Optional.of(testCart));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(1L);
+            return order;
+        });
+        // In-memory stock looks sufficient, but the conditional UPDATE affects no rows
+        when(productRepository.decrementStockInBatch(Map.of(1L, 2))).thenReturn(List.of(1L));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> orderService.createOrder(1L, testRequest)
+        );
+
+        assertTrue(exception.getMessage().contains("Insufficient stock for product: Test Product"));
+        verify(cartItemRepository, never()).deleteAllByCartIdInBulk(anyLong());
+    }
+
+    @Test
+    void createOrder_WithCartChangedSinceSnapshot_ShouldThrowBeforeTakingStock() {
+        // Arrange: the queued checkout saw 3 units, the cart now holds 2
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(cartRepository.findByUser_UserIdWithItemsAndProducts(1L)).thenReturn(Optional.of(testCart));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> orderService.createOrder(1L, testRequest, Map.of(1L, 3))
+        );
+
+        assertTrue(exception.getMessage().contains("Cart changed"));
+        verify(stockReservationService, never()).convertHolds(anyLong(), any());
+        verify(productRepository, never()).decrementStockInBatch(any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createOrder_WhenDiscountUsageHitsLockTimeout_ShouldPropagateLockFailure() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(cartRepository.findByUser_UserIdWithItemsAndProducts(1L)).thenReturn(Optional.of(testCart));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(1L);
+            return order;
+        });
+        DiscountValidationResponse validationResponse = new DiscountValidationResponse(
+                true, "TEST10", "Valid discount", DiscountType.PERCENTAGE,
+                new BigDecimal("10.00"), new BigDecimal("2.00"), new BigDecimal("15.00"),
+                new BigDecimal("5.00"), 100, 0, 100, "Test discount"
+        );
+        when(discountService.validateDiscount("TEST10", new BigDecimal("20.00"))).thenReturn(validationResponse);
+        when(discountRepository.findByCodeIgnoreCase("TEST10")).thenReturn(Optional.of(testDiscount));
+        when(discountService.applyDiscount("TEST10", new BigDecimal("20.00"))).thenReturn(new BigDecimal("2.00"));
+        CannotAcquireLockException lockTimeout = new CannotAcquireLockException("Lock wait timeout exceeded");
+        doThrow(lockTimeout).when(discountService).recordDiscountUsage(1L, 1L, 1L, new BigDecimal("2.00"));
+
+        // Act & Assert: the lock failure is not reported as an invalid code, so it can be retried
+        CannotAcquireLockException exception = assertThrows(
+                CannotAcquireLockException.class,
+                () -> orderService.createOrder(1L, testRequest)
+        );
+
+        assertSame(lockTimeout, exception);
+        assertNotEquals(LockRetryService.LockFailure.NONE, LockRetryService.classify(exception));
+    }
 }
@@ -0,0 +1,189 @@
+package com.fruitstore.service;
+
+import com.fruitstore.config.JpaConfig;
+import com.fruitstore.domain.cart.Cart;
+import com.fruitstore.domain.cart.CartItem;
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderItem;
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.order.CreateOrderRequest;
+import com.fruitstore.dto.response.order.OrderListResponse;
+import com.fruitstore.dto.response.order.OrderSummaryResponse;
+import com.fruitstore.repository.CartItemRepository;
+import com.fruitstore.repository.CartRepository;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.DiscountUsageRepository;
+import com.fruitstore.repository.OrderItemRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query count test for OrderService checkout and order lists
+ * The number of statements sent per checkout must not grow with the number of cart lines,
+ * nor per order list page with the number of orders on the page
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({JpaConfig.class, OrderService.class, CartService.class, DiscountService.class, StockReservationService.class,
+        StockDecrementCombiner.class, FlashSaleStockService.class, ShardedStockService.class,
+        SnowflakeOrderNumberGenerator.class, OrderStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderServiceQueryCountTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private DiscountUsageRepository discountUsageRepository;
+
+    @AfterEach
+    public void tearDown() {
+        discountUsageRepository.deleteAll();
+        orderItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        cartItemRepository.deleteAll();
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void createOrder_StatementCountShouldNotGrowWithCartSize() {
+        // Given
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Long smallCartUserId = createUserWithCart("small", category, 5);
+        Long largeCartUserId = createUserWithCart("large", category, 30);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When
+        statistics.clear();
+        orderService.createOrder(smallCartUserId, newOrderRequest(smallCartUserId));
+        long smallCartStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        orderService.createOrder(largeCartUserId, newOrderRequest(largeCartUserId));
+        long largeCartStatements = statistics.getPrepareStatementCount();
+
+        // Then
+        assertThat(largeCartStatements).isEqualTo(smallCartStatements);
+        assertThat(orderItemRepository.count()).isEqualTo(35);
+        assertThat(cartItemRepository.count()).isZero();
+    }
+
+    @Test
+    public void orderLists_StatementCountShouldNotGrowWithPageSize() {
+        // Given
+        Category category = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Product mango = productRepository.save(new Product("Xoài cát", "Xoài cát Hòa Lộc",
+                new BigDecimal("50000.00"), 1000, category));
+        User buyer = createUser("lister");
+        for (int i = 0; i < 40; i++) {
+            Order order = new Order(buyer, "123 Nguyen Hue, District 1", "Buyer", "buyer@example.com");
+            order.setOrderNumber("LIST-" + i);
+            order.setTotalAmount(new BigDecimal("150000.00"));
+            order = orderRepository.save(order);
+            orderItemRepository.save(new OrderItem(order, mango, 1, new BigDecimal("50000.00")));
+            orderItemRepository.save(new OrderItem(order, mango, 2, new BigDecimal("50000.00")));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "createdAt");
+
+        // When
+        statistics.clear();
+        OrderListResponse smallPage = orderService.getOrdersByUser(buyer.getUserId(), PageRequest.of(0, 5, newestFirst));
+        long smallPageStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        OrderListResponse largePage = orderService.getOrdersByUser(buyer.getUserId(), PageRequest.of(0, 40, newestFirst));
+        long largePageStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        orderService.getAllOrders(PageRequest.of(0, 40, newestFirst));
+        long adminPageStatements = statistics.getPrepareStatementCount();
+
+        // Then
+        assertThat(largePageStatements).isEqualTo(smallPageStatements);
+        assertThat(adminPageStatements).isEqualTo(smallPageStatements);
+        assertThat(smallPage.getData()).hasSize(5);
+        assertThat(largePage.getData()).hasSize(40);
+        assertThat(largePage.getTotalElements()).isEqualTo(40);
+        OrderSummaryResponse summary = largePage.getData().get(0);
+        assertThat(summary.getItemCount()).isEqualTo(2);
+        assertThat(summary.getTotalItems()).isEqualTo(3);
+        assertThat(summary.getUser().getUsername()).isEqualTo("lister");
+    }
+
+    private User createUser(String username) {
+        User user = new User(username, username + "@example.com", "password123", "Buyer " + username);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Long createUserWithCart(String username, Category category, int lines) {
+        User user = createUser(username);
+
+        Cart cart = cartRepository.save(new Cart(user));
+        for (int i = 0; i < lines; i++) {
+            Product product = productRepository.save(new Product("Trái cây " + username + " " + i,
+                    "Mô tả " + i, new BigDecimal("50000.00"), 100, category));
+            cartItemRepository.save(new CartItem(cart, product, 2));
+        }
+        return user.getUserId();
+    }
+
+    private CreateOrderRequest newOrderRequest(Long userId) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("123 Nguyen Hue, District 1");
+        request.setCustomerName("Buyer " + userId);
+        request.setCustomerEmail("buyer" + userId + "@example.com");
+        request.setPhoneNumber("0901234567");
+        return request;
+    }
+}
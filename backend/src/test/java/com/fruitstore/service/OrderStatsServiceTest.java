@@ -0,0 +1,257 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.order.BulkUpdateOrderStatusRequest;
+import com.fruitstore.dto.request.order.UpdateOrderStatusRequest;
+import com.fruitstore.repository.ArchivedOrderRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.OrderStatsCounterRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for grouped order statistics and the order_stats counter table against H2
+ * Counters must always agree with a GROUP BY over the orders and archive tables; includes a 100k-order dashboard benchmark
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderStatsService.class, OrderService.class, OrderBulkStatusService.class, OrderArchiveService.class,
+        CartService.class, DiscountService.class, StockReservationService.class, StockDecrementCombiner.class,
+        FlashSaleStockService.class, ShardedStockService.class, SnowflakeOrderNumberGenerator.class})
+@TestPropertySource(properties = "app.orders.stats.counters.enabled=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderStatsServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatsServiceTest.class);
+
+    private static final int THREADS = 8;
+    private static final int BENCHMARK_ORDERS = 100_000;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderBulkStatusService orderBulkStatusService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderStatsCounterRepository counterRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_items_archive");
+        jdbcTemplate.update("DELETE FROM orders_archive");
+        jdbcTemplate.update("DELETE FROM order_outbox");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM order_stats");
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testStatisticsAreGroupedPerStatus() {
+        // Given
+        User buyer = newUser("buyer");
+        User other = newUser("other");
+        newOrder(buyer, OrderStatus.DELIVERED, "100000.00");
+        newOrder(buyer, OrderStatus.DELIVERED, "50000.00");
+        newOrder(buyer, OrderStatus.PENDING, "30000.00");
+        newOrder(other, OrderStatus.CANCELLED, "20000.00");
+        orderStatsService.rebuildCounters();
+
+        // When
+        OrderService.OrderStatistics all = orderService.getOrderStatistics();
+        OrderService.OrderStatistics mine = orderService.getOrderStatisticsByUser(buyer.getUserId());
+
+        // Then
+        assertThat(all.getTotalOrders()).isEqualTo(4);
+        assertThat(all.getDeliveredOrders()).isEqualTo(2);
+        assertThat(all.getCancelledOrders()).isEqualTo(1);
+        assertThat(all.getTotalRevenue()).isEqualByComparingTo("150000.00");
+        assertThat(all.getAverageOrderValue()).isEqualByComparingTo("37500.00");
+        assertThat(mine.getTotalOrders()).isEqualTo(3);
+        assertThat(mine.getPendingOrders()).isEqualTo(1);
+        assertThat(mine.getCancelledOrders()).isZero();
+        assertThat(mine.getTotalRevenue()).isEqualByComparingTo("150000.00");
+    }
+
+    @Test
+    public void testCountersFollowTransitionsBulkUpdatesAndSurviveArchival() {
+        // Given
+        User buyer = newUser("buyer");
+        Order pending = newOrder(buyer, OrderStatus.PENDING, "100000.00");
+        Order confirmed = newOrder(buyer, OrderStatus.CONFIRMED, "60000.00");
+        Order shipped = newOrder(buyer, OrderStatus.SHIPPED, "40000.00");
+        newOrder(buyer, OrderStatus.CONFIRMED, "10000.00");
+        orderStatsService.rebuildCounters();
+
+        // When
+        orderService.cancelOrder(pending.getOrderId(), buyer.getUserId());
+        orderService.updateOrderStatus(shipped.getOrderId(), new UpdateOrderStatusRequest(OrderStatus.DELIVERED));
+        orderBulkStatusService.updateStatus(new BulkUpdateOrderStatusRequest(OrderStatus.SHIPPED,
+                List.of(confirmed.getOrderId())));
+        jdbcTemplate.update("UPDATE orders SET updated_at = DATEADD('DAY', -400, NOW()) WHERE order_id = ?",
+                pending.getOrderId());
+        Map<OrderStatus, OrderStatsService.StatusTotals> beforeArchival = orderStatsService.getTotals();
+        int archived = orderArchiveService.archiveOrdersUpdatedBefore(LocalDateTime.now().minusDays(180));
+
+        // Then
+        assertThat(archived).isEqualTo(1);
+        assertCountersMatchOrdersTable();
+        assertThat(orderStatsService.getTotals()).usingRecursiveComparison().isEqualTo(beforeArchival);
+        OrderService.OrderStatistics statistics = orderService.getOrderStatistics();
+        assertThat(statistics.getTotalOrders()).isEqualTo(4);
+        assertThat(statistics.getCancelledOrders()).isEqualTo(1);
+        assertThat(statistics.getDeliveredOrders()).isEqualTo(1);
+        assertThat(statistics.getTotalRevenue()).isEqualByComparingTo("40000.00");
+    }
+
+    @Test
+    public void concurrentTransitions_ShouldKeepCountersExact() throws Exception {
+        // Given
+        User buyer = newUser("buyer");
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            orderIds.add(newOrder(buyer, OrderStatus.PENDING, "12345.67").getOrderId());
+        }
+        orderStatsService.rebuildCounters();
+
+        // When: every order is cancelled or confirmed by one of several threads
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = offset; i < orderIds.size(); i += THREADS) {
+                    if (i % 3 == 0) {
+                        orderService.cancelOrder(orderIds.get(i));
+                    } else {
+                        orderService.updateOrderStatus(orderIds.get(i),
+                                new UpdateOrderStatusRequest(OrderStatus.CONFIRMED));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertCountersMatchOrdersTable();
+        assertThat(orderService.getOrderStatistics().getCancelledOrders()).isEqualTo(67);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkDashboardStatistics() {
+        // Given
+        User user = newUser("dashboard");
+        jdbcTemplate.update("INSERT INTO orders (order_number, user_id, status, total_amount, shipping_address, " +
+                        "created_at, updated_at, version) " +
+                        "SELECT CONCAT('STAT-', X), ?, CASEWHEN(MOD(X, 4) = 0, 'DELIVERED', 'PENDING'), 120000.00, " +
+                        "'123 Nguyen Hue, District 1', NOW(), NOW(), 0 FROM SYSTEM_RANGE(1, ?)",
+                user.getUserId(), BENCHMARK_ORDERS);
+        orderStatsService.rebuildCounters();
+        OrderStatsService groupBy = new OrderStatsService(orderRepository, archivedOrderRepository, counterRepository, transactionManager,
+                false, 1);
+
+        // When
+        orderStatsService.getTotals();
+        groupBy.getTotals();
+        long counterNanos = timeTotals(orderStatsService);
+        long groupByNanos = timeTotals(groupBy);
+
+        log.info(String.format("Order statistics over %d orders: counters %.2f ms, GROUP BY %.2f ms",
+                BENCHMARK_ORDERS, counterNanos / 1_000_000.0, groupByNanos / 1_000_000.0));
+
+        // Then
+        assertThat(orderService.getOrderStatistics().getTotalOrders()).isEqualTo(BENCHMARK_ORDERS);
+        assertThat(orderService.getOrderStatistics().getDeliveredOrders()).isEqualTo(BENCHMARK_ORDERS / 4);
+    }
+
+    private long timeTotals(OrderStatsService service) {
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            service.getTotals();
+        }
+        return (System.nanoTime() - startNanos) / 10;
+    }
+
+    private void assertCountersMatchOrdersTable() {
+        OrderStatsService groupBy = new OrderStatsService(orderRepository, archivedOrderRepository, counterRepository, transactionManager,
+                false, 1);
+        orderStatsService.getTotals().forEach((status, counted) -> {
+            OrderStatsService.StatusTotals grouped = groupBy.getTotals().get(status);
+            assertThat(counted.getOrderCount()).as("%s count", status).isEqualTo(grouped.getOrderCount());
+            assertThat(counted.getTotalAmount()).as("%s amount", status).isEqualByComparingTo(grouped.getTotalAmount());
+        });
+    }
+
+    private User newUser(String name) {
+        User user = new User(name, name + "@example.com", "password123", "Buyer " + name);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Order newOrder(User user, OrderStatus status, String amount) {
+        Order order = new Order(user, "123 Nguyen Hue, District 1", "Buyer", "buyer@example.com");
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setTotalAmount(new BigDecimal(amount));
+        order.setStatus(status);
+        return orderRepository.save(order);
+    }
+}
@@ -0,0 +1,193 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.order.Order;
+import com.fruitstore.domain.order.OrderStatus;
+import com.fruitstore.domain.user.User;
+import com.fruitstore.domain.user.UserRole;
+import com.fruitstore.dto.request.order.UpdateOrderStatusRequest;
+import com.fruitstore.dto.response.order.OrderResponse;
+import com.fruitstore.exception.VersionConflictException;
+import com.fruitstore.repository.OrderOutboxRepository;
+import com.fruitstore.repository.OrderRepository;
+import com.fruitstore.repository.UserRepository;
+import com.fruitstore.util.SnowflakeOrderNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for compare-and-set order status transitions against H2
+ * Concurrent admin and customer cancels of the same order must produce exactly one cancellation
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({OrderService.class, CartService.class, DiscountService.class, StockReservationService.class,
+        StockDecrementCombiner.class, FlashSaleStockService.class, ShardedStockService.class,
+        SnowflakeOrderNumberGenerator.class, OptimisticLockRetryInterceptor.class, OrderStatsService.class})
+@TestPropertySource(properties = "app.optimistic-retry.max-attempts=25")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderStatusTransitionTest {
+
+    private static final int ORDERS = 20;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @AfterEach
+    public void tearDown() {
+        orderOutboxRepository.deleteAllInBatch();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void testUpdateOrderStatusBuildsResponseFromProjection() {
+        // Given
+        User user = newUser("buyer");
+        Order order = newOrder(user, OrderStatus.CONFIRMED);
+
+        // When
+        OrderResponse response = orderService.updateOrderStatus(order.getOrderId(),
+                new UpdateOrderStatusRequest(OrderStatus.SHIPPED), order.getVersion());
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(response.getShippedAt()).isNotNull();
+        assertThat(response.getVersion()).isEqualTo(order.getVersion() + 1);
+        assertThat(response.getOrderNumber()).isEqualTo(order.getOrderNumber());
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("120000.00");
+        assertThat(response.getUser().getUserId()).isEqualTo(user.getUserId());
+        assertThat(response.getUser().getUsername()).isEqualTo("buyer");
+        assertThat(response.getUser().getRole()).isEqualTo(UserRole.CUSTOMER);
+
+        Order shipped = orderRepository.findById(order.getOrderId()).orElseThrow();
+        assertThat(shipped.getStatus()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(shipped.getShippedAt()).isNotNull();
+        assertThat(shipped.getVersion()).isEqualTo(response.getVersion());
+    }
+
+    @Test
+    public void testInvalidTransitionsAreRejected() {
+        // Given
+        User user = newUser("buyer");
+        User other = newUser("other");
+        Order delivered = newOrder(user, OrderStatus.DELIVERED);
+        Order pending = newOrder(user, OrderStatus.PENDING);
+
+        // Then
+        assertThatThrownBy(() -> orderService.cancelOrder(delivered.getOrderId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Order cannot be cancelled in current status: DELIVERED");
+        assertThatThrownBy(() -> orderService.updateOrderStatus(pending.getOrderId(),
+                new UpdateOrderStatusRequest(OrderStatus.SHIPPED)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.cancelOrder(pending.getOrderId(), other.getUserId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not belong to user");
+        assertThatThrownBy(() -> orderService.updateOrderStatus(pending.getOrderId(),
+                new UpdateOrderStatusRequest(OrderStatus.CONFIRMED), pending.getVersion() + 5))
+                .isInstanceOf(VersionConflictException.class);
+        assertThatThrownBy(() -> orderService.cancelOrder(999_999L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Order not found");
+
+        assertThat(orderRepository.findById(pending.getOrderId()).orElseThrow().getStatus())
+                .isEqualTo(OrderStatus.PENDING);
+    }
+
+    @Test
+    public void concurrentAdminAndCustomerCancels_ShouldCancelEachOrderExactlyOnce() throws Exception {
+        // Given
+        User user = newUser("buyer");
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds.add(newOrder(user, OrderStatus.PENDING).getOrderId());
+        }
+
+        // When: for every order, half the threads cancel as admin and half as the customer
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        for (Long orderId : orderIds) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean admin = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        if (admin) {
+                            orderService.cancelOrder(orderId);
+                        } else {
+                            orderService.cancelOrder(orderId, user.getUserId());
+                        }
+                        cancelled.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(cancelled.get()).isEqualTo(ORDERS);
+        assertThat(rejected.get()).isEqualTo(ORDERS * (THREADS - 1));
+        for (Long orderId : orderIds) {
+            Order order = orderRepository.findById(orderId).orElseThrow();
+            assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+            assertThat(order.getVersion()).isEqualTo(1L);
+        }
+    }
+
+    private User newUser(String name) {
+        User user = new User(name, name + "@example.com", "password123", "Buyer " + name);
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Order newOrder(User user, OrderStatus status) {
+        Order order = new Order(user, "123 Nguyen Hue, District 1", "Buyer", "buyer@example.com");
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setTotalAmount(new BigDecimal("120000.00"));
+        order.setStatus(status);
+        return orderRepository.save(order);
+    }
+}
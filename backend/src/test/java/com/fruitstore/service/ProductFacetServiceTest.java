@@ -0,0 +1,265 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.dto.request.product.CreateProductRequest;
+import com.fruitstore.dto.request.product.ProductFilterRequest;
+import com.fruitstore.dto.response.product.ProductFacetsResponse;
+import com.fruitstore.dto.response.product.ProductListResponse;
+import com.fruitstore.dto.response.product.ProductResponse;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for search facets computed from the in-memory catalog snapshot against H2
+ * Includes a benchmark of the facet pass over 100k products
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ProductService.class, ProductFacetService.class, ProductSearchService.class, CatalogCacheService.class,
+        StockReservationService.class, FlashSaleStockService.class, ShardedStockService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductFacetServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetServiceTest.class);
+
+    private static final int BENCHMARK_PRODUCTS = 100_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    @Test
+    public void testFacetsCountMatchingProducts() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Category dried = categoryRepository.save(new Category("Trái cây sấy", "Trái cây sấy khô"));
+        newProduct("Xoài cát", 60_000, 10, fruit);
+        newProduct("Xoài Úc", 120_000, 0, fruit);
+        newProduct("Cam sành", 40_000, 5, fruit);
+        newProduct("Xoài sấy dẻo", 90_000, 20, dried);
+        Product inactive = newProduct("Xoài keo", 35_000, 8, fruit);
+        inactive.setIsActive(false);
+        productRepository.save(inactive);
+        reload();
+
+        // When
+        ProductFacetsResponse all = facets(null, null, null, null, new BigDecimal("50000"));
+        ProductFacetsResponse mango = facets(null, null, null, "xoài", new BigDecimal("50000"));
+        ProductFacetsResponse freshMango = facets(fruit.getCategoryId(), null, null, "xoài", new BigDecimal("50000"));
+        ProductFacetsResponse under100k = facets(null, null, new BigDecimal("100000"), null, null);
+
+        // Then
+        assertThat(all.getCategoryCounts()).containsExactly(
+                Map.entry(fruit.getCategoryId(), 3L), Map.entry(dried.getCategoryId(), 1L));
+        assertThat(all.getInStockCount()).isEqualTo(3);
+        assertThat(all.getPriceHistogram()).extracting(ProductFacetsResponse.PriceBucket::getCount)
+                .containsExactly(1L, 2L, 1L);
+        assertThat(all.getPriceHistogram().get(0).getFrom()).isEqualByComparingTo("0");
+        assertThat(all.getPriceHistogram().get(0).getTo()).isEqualByComparingTo("50000");
+        assertThat(all.getPriceHistogram().get(2).getFrom()).isEqualByComparingTo("100000");
+        assertThat(all.getPriceHistogram().get(2).getTo()).isNull();
+
+        assertThat(mango.getCategoryCounts()).containsExactly(
+                Map.entry(fruit.getCategoryId(), 2L), Map.entry(dried.getCategoryId(), 1L));
+        assertThat(mango.getInStockCount()).isEqualTo(2);
+
+        // Category counts ignore the category filter, the histogram and in-stock count do not
+        assertThat(freshMango.getCategoryCounts()).isEqualTo(mango.getCategoryCounts());
+        assertThat(freshMango.getInStockCount()).isEqualTo(1);
+        assertThat(freshMango.getPriceHistogram()).extracting(ProductFacetsResponse.PriceBucket::getCount)
+                .containsExactly(1L, 1L);
+
+        assertThat(under100k.getCategoryCounts()).containsExactly(
+                Map.entry(fruit.getCategoryId(), 2L), Map.entry(dried.getCategoryId(), 1L));
+        assertThat(under100k.getInStockCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFacetsFollowCommittedProductWrites() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        newProduct("Cam sành", 40_000, 5, fruit);
+        reload();
+        assertThat(facets(null, null, null, null, null).getInStockCount()).isEqualTo(1);
+
+        // When - create
+        ProductResponse created = productService.createProduct(new CreateProductRequest("Chôm chôm Java",
+                "Chôm chôm tróc", new BigDecimal("50000"), 3, null, fruit.getCategoryId(), true));
+
+        // Then
+        assertThat(facets(null, null, null, null, null).getCategoryCounts())
+                .containsExactly(Map.entry(fruit.getCategoryId(), 2L));
+        assertThat(facets(null, null, null, null, null).getInStockCount()).isEqualTo(2);
+
+        // When - sell out
+        productService.reduceStock(created.getProductId(), 3);
+
+        // Then
+        assertThat(facets(null, null, null, null, null).getInStockCount()).isEqualTo(1);
+
+        // When - delete
+        productService.deleteProduct(created.getProductId());
+
+        // Then
+        assertThat(facets(null, null, null, null, null).getCategoryCounts())
+                .containsExactly(Map.entry(fruit.getCategoryId(), 1L));
+    }
+
+    @Test
+    public void testSearchProductsReturnsFacetsOnRequest() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        newProduct("Xoài cát", 60_000, 10, fruit);
+        newProduct("Cam sành", 40_000, 5, fruit);
+        reload();
+        ProductFilterRequest request = new ProductFilterRequest(null, null, null, "xoài", 0, 20, "name", "asc");
+
+        // When
+        ProductListResponse withoutFacets = productService.searchProducts(request);
+        request.setFacets(true);
+        ProductListResponse withFacets = productService.searchProducts(request);
+
+        // Then
+        assertThat(withoutFacets.getFacets()).isNull();
+        assertThat(withFacets.getTotalElements()).isEqualTo(1);
+        assertThat(withFacets.getFacets().getCategoryCounts())
+                .containsExactly(Map.entry(fruit.getCategoryId(), 1L));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkFacetPassAgainstGroupBy() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Category dried = categoryRepository.save(new Category("Trái cây sấy", "Trái cây sấy khô"));
+        Category drinks = categoryRepository.save(new Category("Nước ép", "Nước ép trái cây"));
+        insertProducts(BENCHMARK_PRODUCTS, fruit, dried, drinks);
+        long loadStart = System.nanoTime();
+        reload();
+        long loadNanos = System.nanoTime() - loadStart;
+
+        // When
+        long groupByNanos = time(() -> {
+            jdbcTemplate.queryForList("SELECT category_id, COUNT(*) FROM products WHERE is_active = TRUE " +
+                    "GROUP BY category_id");
+            jdbcTemplate.queryForList("SELECT FLOOR(price / 10000), COUNT(*) FROM products " +
+                    "WHERE is_active = TRUE GROUP BY FLOOR(price / 10000)");
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE is_active = TRUE " +
+                    "AND stock_quantity > 0", Long.class);
+        });
+        ProductFilterRequest unfiltered = facetRequest(null, null, null, null, new BigDecimal("10000"));
+        ProductFilterRequest filtered = facetRequest(dried.getCategoryId(), new BigDecimal("20000"),
+                new BigDecimal("40000"), null, new BigDecimal("10000"));
+        // The pass is short, so give the JIT enough calls to compile it before timing
+        for (int i = 0; i < 2_000; i++) {
+            productFacetService.getFacets(unfiltered);
+            productFacetService.getFacets(filtered);
+        }
+        long facetNanos = time(() -> productFacetService.getFacets(unfiltered));
+        long filteredNanos = time(() -> productFacetService.getFacets(filtered));
+
+        log.info(String.format(
+                "Facets over %d products: GROUP BY queries %.2f ms, snapshot pass %.3f ms, " +
+                        "filtered pass %.3f ms (snapshot loaded in %.0f ms)",
+                BENCHMARK_PRODUCTS, groupByNanos / 1_000_000.0, facetNanos / 1_000_000.0,
+                filteredNanos / 1_000_000.0, loadNanos / 1_000_000.0));
+
+        // Then - the snapshot pass agrees with the database
+        ProductFacetsResponse facets = facets(null, null, null, null, new BigDecimal("10000"));
+        Map<Long, Long> expectedCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT category_id, COUNT(*) FROM products WHERE is_active = TRUE GROUP BY category_id",
+                rs -> {
+                    expectedCounts.put(rs.getLong(1), rs.getLong(2));
+                });
+        assertThat(facets.getCategoryCounts()).isEqualTo(expectedCounts);
+        assertThat(facets.getInStockCount()).isEqualTo(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE is_active = TRUE AND stock_quantity > 0", Long.class));
+        assertThat(facets.getPriceHistogram()).extracting(ProductFacetsResponse.PriceBucket::getCount)
+                .containsExactlyElementsOf(jdbcTemplate.queryForList("SELECT COUNT(*) FROM products " +
+                        "WHERE is_active = TRUE GROUP BY FLOOR(price / 10000) ORDER BY FLOOR(price / 10000)",
+                        Long.class));
+    }
+
+    private ProductFacetsResponse facets(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String keyword,
+                                         BigDecimal priceBucketSize) {
+        ProductFilterRequest request = facetRequest(categoryId, minPrice, maxPrice, keyword, priceBucketSize);
+        return transactionTemplate.execute(status -> productFacetService.getFacets(request));
+    }
+
+    private ProductFilterRequest facetRequest(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                              String keyword, BigDecimal priceBucketSize) {
+        ProductFilterRequest request = new ProductFilterRequest(categoryId, minPrice, maxPrice, keyword,
+                0, 20, "name", "asc");
+        request.setFacets(true);
+        request.setPriceBucketSize(priceBucketSize);
+        return request;
+    }
+
+    private void reload() {
+        transactionTemplate.executeWithoutResult(status -> productFacetService.reload());
+    }
+
+    private long time(Runnable action) {
+        for (int i = 0; i < 20; i++) {
+            action.run();
+        }
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - startNanos) / 100;
+    }
+
+    private void insertProducts(int count, Category fruit, Category dried, Category drinks) {
+        jdbcTemplate.update("INSERT INTO products (name, description, price, stock_quantity, category_id, " +
+                        "is_active, created_at, updated_at, version) " +
+                        "SELECT CONCAT('Sản phẩm ', X), 'Trái cây', 5000 + MOD(X * 7, 120) * 1000, MOD(X, 11), " +
+                        "CASE MOD(X, 3) WHEN 0 THEN CAST(? AS BIGINT) WHEN 1 THEN CAST(? AS BIGINT) " +
+                        "ELSE CAST(? AS BIGINT) END, MOD(X, 17) <> 0, NOW(), NOW(), 0 FROM SYSTEM_RANGE(1, ?)",
+                fruit.getCategoryId(), dried.getCategoryId(), drinks.getCategoryId(), count);
+    }
+
+    private Product newProduct(String name, int price, int stock, Category category) {
+        return productRepository.save(new Product(name, "Trái cây", new BigDecimal(price), stock, category));
+    }
+}
@@ -0,0 +1,247 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.dto.request.product.CreateProductRequest;
+import com.fruitstore.dto.request.product.ProductFilterRequest;
+import com.fruitstore.dto.request.product.UpdateProductRequest;
+import com.fruitstore.dto.response.product.ProductListResponse;
+import com.fruitstore.dto.response.product.ProductResponse;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for keyword search through the in-memory product search index against H2
+ * Includes a benchmark comparing the LIKE query with the index over 100k products
+ */
+@DataJpaTest(properties = "app.search.index.enabled=true")
+@ActiveProfiles("test")
+@Import({ProductService.class, ProductSearchService.class, CatalogCacheService.class, StockReservationService.class,
+        FlashSaleStockService.class, ShardedStockService.class, ProductFacetService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductSearchServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchServiceTest.class);
+
+    private static final int BENCHMARK_PRODUCTS = 100_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    @Test
+    public void testKeywordsMatchWithoutDiacritics() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        newProduct("Xoài cát Hòa Lộc", "Xoài chín cây, ngọt thơm", 85_000, fruit);
+        newProduct("Dứa Đà Lạt", "Dứa mật", 30_000, fruit);
+        newProduct("Đu đủ ruột đỏ", "Đu đủ chín", 25_000, fruit);
+        newProduct("Cam sành", "Cam sành Vĩnh Long", 40_000, fruit);
+        rebuild();
+
+        // When / Then
+        assertThat(names(search("xoai"))).containsExactly("Xoài cát Hòa Lộc");
+        assertThat(names(search("XOÀI CÁT"))).containsExactly("Xoài cát Hòa Lộc");
+        assertThat(names(search("dua da lat"))).containsExactly("Dứa Đà Lạt");
+        assertThat(names(search("du du do"))).containsExactly("Đu đủ ruột đỏ");
+        assertThat(names(search("vinh long"))).containsExactly("Cam sành");
+        assertThat(search("sầu riêng").getProducts()).isEmpty();
+    }
+
+    @Test
+    public void testNamePrefixesMatchWhileTyping() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        newProduct("Xoài cát Hòa Lộc", "Xoài chín cây", 85_000, fruit);
+        newProduct("Xoài keo", "Xoài xanh", 35_000, fruit);
+        newProduct("Măng cụt", "Măng cụt Lái Thiêu", 70_000, fruit);
+        rebuild();
+
+        // When / Then
+        assertThat(names(search("xo"))).containsExactlyInAnyOrder("Xoài cát Hòa Lộc", "Xoài keo");
+        assertThat(names(search("xoai hoa lo"))).containsExactly("Xoài cát Hòa Lộc");
+        assertThat(productService.searchProductsByName("man", PageRequest.of(0, 10)).getContent())
+                .extracting(ProductResponse::getName).containsExactly("Măng cụt");
+        // Descriptions are matched on whole words only
+        assertThat(search("thie").getProducts()).isEmpty();
+    }
+
+    @Test
+    public void testRelevanceRanksNameMatchesAndFiltersApply() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Category drinks = categoryRepository.save(new Category("Nước ép", "Nước ép trái cây"));
+        newProduct("Sinh tố bơ", "Bơ sáp xay cùng sữa, thêm một chút xoài", 45_000, drinks);
+        newProduct("Xoài Úc", "Xoài nhập khẩu từ Úc", 120_000, fruit);
+        newProduct("Xoài cát", "Xoài cát xoài ngon", 60_000, fruit);
+        newProduct("Nước ép xoài", "Nước ép xoài tươi", 35_000, drinks);
+        rebuild();
+
+        // When
+        List<String> byRelevance = names(productService.searchProducts(
+                new ProductFilterRequest(null, null, null, "xoai", 0, 10, "relevance", "asc")));
+        List<String> byPriceDesc = names(productService.searchProducts(
+                new ProductFilterRequest(null, null, null, "xoai", 0, 10, "price", "desc")));
+        ProductListResponse fruitUnder100k = productService.searchProducts(new ProductFilterRequest(
+                fruit.getCategoryId(), null, new BigDecimal("100000"), "xoai", 0, 10, "relevance", "asc"));
+        ProductListResponse secondPage = productService.searchProducts(
+                new ProductFilterRequest(null, null, null, "xoai", 1, 3, "price", "asc"));
+
+        // Then
+        assertThat(byRelevance).hasSize(4);
+        assertThat(byRelevance.get(0)).isEqualTo("Xoài cát");
+        assertThat(byRelevance.get(3)).isEqualTo("Sinh tố bơ");
+        assertThat(byPriceDesc).containsExactly("Xoài Úc", "Xoài cát", "Sinh tố bơ", "Nước ép xoài");
+        assertThat(names(fruitUnder100k)).containsExactly("Xoài cát");
+        assertThat(secondPage.getTotalElements()).isEqualTo(4);
+        assertThat(names(secondPage)).containsExactly("Xoài Úc");
+    }
+
+    @Test
+    public void testIndexFollowsCommittedProductWrites() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        newProduct("Cam sành", "Cam sành Vĩnh Long", 40_000, fruit);
+        rebuild();
+
+        // When - create
+        ProductResponse created = productService.createProduct(new CreateProductRequest("Chôm chôm Java",
+                "Chôm chôm tróc", new BigDecimal("50000"), 80, null, fruit.getCategoryId(), true));
+
+        // Then
+        assertThat(names(search("chom"))).containsExactly("Chôm chôm Java");
+
+        // When - rename
+        productService.updateProduct(created.getProductId(), new UpdateProductRequest("Chôm chôm nhãn",
+                "Chôm chôm tróc", new BigDecimal("50000"), 80, null, fruit.getCategoryId(), true));
+
+        // Then
+        assertThat(search("java").getProducts()).isEmpty();
+        assertThat(names(search("chom nhan"))).containsExactly("Chôm chôm nhãn");
+
+        // When - delete
+        productService.deleteProduct(created.getProductId());
+
+        // Then
+        assertThat(search("chom").getProducts()).isEmpty();
+        assertThat(productSearchService.getStatistics().getDocuments()).isEqualTo(1);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkLikeQueryVersusSearchIndex() {
+        // Given
+        Category fruit = categoryRepository.save(new Category("Trái cây tươi", "Các loại trái cây tươi ngon"));
+        Category dried = categoryRepository.save(new Category("Trái cây sấy", "Trái cây sấy khô"));
+        insertProducts(BENCHMARK_PRODUCTS, fruit, dried);
+        long buildStart = System.nanoTime();
+        rebuild();
+        long buildNanos = System.nanoTime() - buildStart;
+        PageRequest firstPage = PageRequest.of(0, 20, Sort.by("name"));
+
+        // When
+        long likeNanos = time(() -> transactionTemplate.executeWithoutResult(status ->
+                productRepository.findProductsWithFilters(null, null, null, "xoài", firstPage)));
+        long indexNanos = time(() -> productService.searchProducts(
+                new ProductFilterRequest(null, null, null, "xoài", 0, 20, "name", "asc")));
+        long relevanceNanos = time(() -> productService.searchProducts(
+                new ProductFilterRequest(null, null, null, "xoai cat hoa", 0, 20, "relevance", "asc")));
+        long lookupNanos = time(() -> productSearchService.search("xoai cat hoa", null, null, null,
+                ProductSearchService.Scope.NAME_AND_DESCRIPTION, PageRequest.of(0, 20)));
+
+        log.info(String.format("Keyword search over %d products: LIKE %.2f ms, index %.2f ms, " +
+                        "3-token relevance %.2f ms of which index lookup %.2f ms (index built in %.0f ms)",
+                BENCHMARK_PRODUCTS, likeNanos / 1_000_000.0, indexNanos / 1_000_000.0,
+                relevanceNanos / 1_000_000.0, lookupNanos / 1_000_000.0, buildNanos / 1_000_000.0));
+
+        // Then - the index finds the same products as LIKE, and also the unaccented spelling
+        Page<Product> likePage = transactionTemplate.execute(status ->
+                productRepository.findProductsWithFilters(null, null, null, "xoài", firstPage));
+        ProductListResponse indexPage = productService.searchProducts(
+                new ProductFilterRequest(null, null, null, "xoai", 0, 20, "name", "asc"));
+        assertThat(indexPage.getTotalElements()).isEqualTo(likePage.getTotalElements());
+        assertThat(indexPage.getProducts()).extracting(ProductResponse::getProductId)
+                .containsExactlyElementsOf(likePage.getContent().stream()
+                        .map(Product::getProductId).collect(Collectors.toList()));
+    }
+
+    private ProductListResponse search(String keyword) {
+        return productService.searchProducts(new ProductFilterRequest(null, null, null, keyword, 0, 20, "name", "asc"));
+    }
+
+    private List<String> names(ProductListResponse response) {
+        return response.getProducts().stream().map(ProductResponse::getName).collect(Collectors.toList());
+    }
+
+    private void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> productSearchService.rebuild());
+    }
+
+    private long time(Runnable action) {
+        action.run();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - startNanos) / 10;
+    }
+
+    private void insertProducts(int count, Category fruit, Category dried) {
+        jdbcTemplate.update("INSERT INTO products (name, description, price, stock_quantity, category_id, " +
+                        "is_active, created_at, updated_at, version) " +
+                        "SELECT CONCAT(CASE MOD(X, 8) WHEN 0 THEN 'Xoài cát Hòa Lộc' WHEN 1 THEN 'Dứa Đà Lạt' " +
+                        "WHEN 2 THEN 'Cam sành' WHEN 3 THEN 'Bưởi da xanh' WHEN 4 THEN 'Sầu riêng Ri6' " +
+                        "WHEN 5 THEN 'Thanh long ruột đỏ' WHEN 6 THEN 'Măng cụt' ELSE 'Chôm chôm' END, ' lô ', X), " +
+                        "CONCAT('Trái cây loại ', MOD(X, 3) + 1, ', giao trong ngày'), " +
+                        "10000 + MOD(X, 50) * 1000, 100, " +
+                        "CASE MOD(X, 2) WHEN 0 THEN CAST(? AS BIGINT) ELSE CAST(? AS BIGINT) END, " +
+                        "TRUE, NOW(), NOW(), 0 FROM SYSTEM_RANGE(1, ?)",
+                fruit.getCategoryId(), dried.getCategoryId(), count);
+    }
+
+    private Product newProduct(String name, String description, int price, Category category) {
+        return productRepository.save(new Product(name, description, new BigDecimal(price), 100, category));
+    }
+}
@@ -14,17 +14,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -43,6 +46,25 @@ public class ProductServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Spy
+    private StockReservationService stockReservationService = new StockReservationService(900);
+
+    @Mock
+    private FlashSaleStockService flashSaleStockService;
+
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private ProductSearchService productSearchService;
+
+    @Mock
+    private ProductFacetService productFacetService;
+
+    @Spy
+    private CatalogCacheService catalogCacheService = new CatalogCacheService(
+            mock(PlatformTransactionManager.class), 100, 100, 60_000, 600);
+
     @InjectMocks
     private ProductService productService;
 
@@ -219,6 +241,61 @@ public class ProductServiceTest {
         verify(productRepository, never()).findByCategory_CategoryIdAndIsActiveTrue(anyLong(), any(Pageable.class));
     }
 
+    @Test
+    public void testGetProductByIdIsCached() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+
+        // When
+        productService.getProductById(1L);
+        ProductResponse result = productService.getActiveProductById(1L);
+
+        // Then
+        assertThat(result.getProductId()).isEqualTo(1L);
+        verify(productRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void testAddStockInvalidatesCachedProduct() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        when(productRepository.save(any(Product.class))).thenReturn(product1);
+        assertThat(productService.getProductById(1L).getStockQuantity()).isEqualTo(100);
+
+        // When
+        productService.addStock(1L, 20);
+
+        // Then
+        assertThat(productService.getProductById(1L).getStockQuantity()).isEqualTo(120);
+        verify(productRepository, times(3)).findById(1L);
+    }
+
+    @Test
+    public void testGetProductsByCategoryIsCachedUntilProductDeleted() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<Product> productPage = new PageImpl<>(Arrays.asList(product1, product2), pageable, 2);
+        when(categoryRepository.findById(1L)).thenReturn(Optional.of(category));
+        when(productRepository.findByCategory_CategoryIdAndIsActiveTrue(1L, pageable)).thenReturn(productPage);
+        when(productRepository.findById(2L)).thenReturn(Optional.of(product2));
+
+        // When
+        productService.getProductsByCategory(1L, pageable);
+        productService.getProductsByCategory(1L, PageRequest.of(0, 10));
+        productService.deleteProduct(2L);
+        productService.getProductsByCategory(1L, pageable);
+
+        // Then
+        verify(productRepository, times(2)).findByCategory_CategoryIdAndIsActiveTrue(1L, pageable);
+        assertThat(catalogCacheService.getStatistics())
+                .filteredOn(statistics -> statistics.getName().equals("categoryPages"))
+                .singleElement()
+                .satisfies(statistics -> {
+                    assertThat(statistics.getHits()).isEqualTo(1);
+                    assertThat(statistics.getMisses()).isEqualTo(2);
+                });
+    }
+
     @Test
     public void testSearchProducts() {
         // Given
@@ -350,10 +427,12 @@ public class ProductServiceTest {
 
         // When
         Boolean result = productService.checkStockAvailability(1L, 50);
+        Boolean again = productService.checkStockAvailability(1L, 100);
 
-        // Then
+        // Then: the row is read once for the catalog cache and once to seed the ledger, then not again
         assertThat(result).isTrue();
-        verify(productRepository).findById(1L);
+        assertThat(again).isTrue();
+        verify(productRepository, times(2)).findById(1L);
     }
 
     @Test
@@ -366,7 +445,41 @@ public class ProductServiceTest {
 
         // Then
         assertThat(result).isFalse();
-        verify(productRepository).findById(1L);
+    }
+
+    @Test
+    public void testCheckStockAvailabilityOfInactiveProductIsRejected() {
+        // Given
+        product1.setIsActive(false);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+
+        // When & Then
+        assertThatThrownBy(() -> productService.checkStockAvailability(1L, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not active");
+    }
+
+    @Test
+    public void testCheckStockAvailabilityOfFlashSaleProductSkipsDatabase() {
+        // Given
+        when(flashSaleStockService.getStock(1L)).thenReturn(OptionalInt.of(5));
+
+        // When & Then
+        assertThat(productService.checkStockAvailability(1L, 5)).isTrue();
+        assertThat(productService.checkStockAvailability(1L, 6)).isFalse();
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testAddStockOfFlashSaleProductIsRejected() {
+        // Given
+        when(flashSaleStockService.isFlashSale(1L)).thenReturn(true);
+
+        // When & Then
+        assertThatThrownBy(() -> productService.addStock(1L, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("flash sale");
+        verifyNoInteractions(productRepository);
     }
 
     @Test
@@ -410,6 +523,38 @@ public class ProductServiceTest {
         verify(productRepository).save(any(Product.class));
     }
 
+    @Test
+    public void testAddStockOfShardedProductSyncsLedgerAndFacetsWithShardTotal() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        when(shardedStockService.isSharded(1L)).thenReturn(true);
+        when(shardedStockService.addStock(1L, 20)).thenReturn(140);
+
+        // When
+        productService.addStock(1L, 20);
+
+        // Then
+        verify(stockReservationService).syncOnHand(1L, 140);
+        verify(productFacetService).onProductSaved(product1, 140);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    public void testReduceStockOfShardedProductSyncsLedgerAndFacetsWithShardTotal() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        when(shardedStockService.isSharded(1L)).thenReturn(true);
+        when(shardedStockService.reduceStock(1L, 20)).thenReturn(60);
+
+        // When
+        productService.reduceStock(1L, 20);
+
+        // Then
+        verify(stockReservationService).syncOnHand(1L, 60);
+        verify(productFacetService).onProductSaved(product1, 60);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
     @Test
     public void testGetLowStockProducts() {
         // Given
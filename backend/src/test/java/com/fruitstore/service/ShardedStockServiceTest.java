@@ -0,0 +1,269 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.domain.product.ProductStockShard;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.ProductRepository;
+import com.fruitstore.repository.ProductStockShardRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for ShardedStockService against H2
+ * Includes a contention benchmark over 1 to 16 shards of one hot product
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ShardedStockService.class, FlashSaleStockService.class, StockReservationService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ShardedStockServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedStockServiceTest.class);
+
+    private static final int THREADS = 16;
+    private static final int DECREMENTS_PER_THREAD = 40;
+    private static final long HOLD_MILLIS = 2;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockShardRepository shardRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown() {
+        shardRepository.deleteAll();
+        shardedStockService.refresh();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    public void testEnableSplitsStockAndLoadedProductSeesShardTotal() {
+        // Given
+        Product product = newProduct(10);
+
+        // When
+        ShardedStockService.ShardedStockStatus status = shardedStockService.enable(product.getProductId(), 4);
+        assertThat(inTransaction(() -> shardedStockService.decrement(Map.of(product.getProductId(), 3)))).isEmpty();
+
+        // Then
+        assertThat(status.getShardQuantities()).containsExactly(3, 3, 2, 2);
+        Product loaded = productRepository.findById(product.getProductId()).orElseThrow();
+        assertThat(loaded.getStockQuantity()).isEqualTo(7);
+        assertThat(loaded.hasSufficientStock(7)).isTrue();
+        assertThat(loaded.hasSufficientStock(8)).isFalse();
+        assertThat(shardTotal(product)).isEqualTo(7);
+    }
+
+    @Test
+    public void testTakeSpansShardsWhenNoSingleShardIsEnough() {
+        // Given: four shards of 2
+        Product product = newProduct(8);
+        shardedStockService.enable(product.getProductId(), 4);
+        ShardedStockService.ShardedStockStatistics before = shardedStockService.getStatistics();
+
+        // When / Then
+        assertThat(inTransaction(() -> shardedStockService.decrement(Map.of(product.getProductId(), 7)))).isEmpty();
+        assertThat(shardTotal(product)).isEqualTo(1);
+        assertThat(inTransaction(() -> shardedStockService.decrement(Map.of(product.getProductId(), 2))))
+                .containsExactly(product.getProductId());
+        ShardedStockService.ShardedStockStatistics after = shardedStockService.getStatistics();
+        assertThat(after.getMultiShardTakes() - before.getMultiShardTakes()).isEqualTo(1);
+        assertThat(after.getRejected() - before.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    public void testConcurrentDecrementsNeverOversell() throws Exception {
+        // Given
+        Product product = newProduct(100);
+        shardedStockService.enable(product.getProductId(), 8);
+        TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+        AtomicInteger granted = new AtomicInteger();
+
+        // When: every thread keeps buying one unit until it is told the product is sold out
+        runConcurrently(THREADS, 100, () -> {
+            boolean taken = checkout.execute(status ->
+                    shardedStockService.decrement(Map.of(product.getProductId(), 1)).isEmpty());
+            if (taken) {
+                granted.incrementAndGet();
+            }
+            return taken;
+        });
+
+        // Then
+        assertThat(granted.get()).isEqualTo(100);
+        assertThat(shardTotal(product)).isZero();
+        assertThat(shardedStockService.getCachedStock(product.getProductId())).hasValue(0);
+    }
+
+    @Test
+    public void testRefreshCopiesShardTotalToProductRow() {
+        // Given
+        Product product = newProduct(10);
+        shardedStockService.enable(product.getProductId(), 2);
+        inTransaction(() -> shardedStockService.decrement(Map.of(product.getProductId(), 4)));
+        assertThat(databaseStock(product)).isEqualTo(10);
+
+        // When
+        int written = shardedStockService.refresh();
+
+        // Then
+        assertThat(written).isEqualTo(1);
+        assertThat(databaseStock(product)).isEqualTo(6);
+    }
+
+    @Test
+    public void testDisableCollapsesShardsIntoProductRow() {
+        // Given
+        Product product = newProduct(10);
+        shardedStockService.enable(product.getProductId(), 4);
+        inTransaction(() -> {
+            assertThat(shardedStockService.addStock(product.getProductId(), 5)).isEqualTo(15);
+            assertThat(shardedStockService.reduceStock(product.getProductId(), 2)).isEqualTo(13);
+            return null;
+        });
+
+        // When
+        int stock = shardedStockService.disable(product.getProductId());
+
+        // Then
+        assertThat(stock).isEqualTo(13);
+        assertThat(databaseStock(product)).isEqualTo(13);
+        assertThat(shardRepository.findAll()).isEmpty();
+        assertThat(shardedStockService.isSharded(product.getProductId())).isFalse();
+        assertThat(productRepository.findById(product.getProductId()).orElseThrow().getStockQuantity()).isEqualTo(13);
+    }
+
+    @Test
+    public void testInvalidShardCountFails() {
+        Product product = newProduct(10);
+
+        assertThatThrownBy(() -> shardedStockService.enable(product.getProductId(), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Shard count must be between 1 and");
+        assertThatThrownBy(() -> shardedStockService.disable(product.getProductId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not sharded");
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkShardCounts() throws Exception {
+        // Every checkout keeps its shard row locked for a short while after the decrement,
+        // standing in for the rest of the checkout transaction
+        int total = THREADS * DECREMENTS_PER_THREAD;
+        TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+        Map<Integer, Double> opsPerSecond = new LinkedHashMap<>();
+
+        for (int shards : new int[] {1, 2, 4, 8, 16}) {
+            Product product = newProduct(total);
+            shardedStockService.enable(product.getProductId(), shards);
+            long nanos = runConcurrently(THREADS, DECREMENTS_PER_THREAD, () -> checkout.execute(status -> {
+                boolean taken = shardedStockService.decrement(Map.of(product.getProductId(), 1)).isEmpty();
+                sleep(HOLD_MILLIS);
+                return taken;
+            }));
+            opsPerSecond.put(shards, total / (nanos / 1_000_000_000.0));
+            assertThat(shardTotal(product)).isZero();
+        }
+
+        StringBuilder line = new StringBuilder();
+        opsPerSecond.forEach((shards, ops) -> line.append(String.format(" %d shard(s) %.0f ops/s,", shards, ops)));
+        log.info(String.format(
+                "Hot SKU checkouts (%d threads, %d ms lock hold):%s %.1fx from 1 to 16 shards",
+                THREADS, HOLD_MILLIS, line, opsPerSecond.get(16) / opsPerSecond.get(1)));
+    }
+
+    private long runConcurrently(int threads, int iterations, BooleanSupplier decrement) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int i = 0;
+                while (i++ < iterations && decrement.getAsBoolean()) {
+                    Thread.onSpinWait();
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        return elapsedNanos;
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Product newProduct(int stock) {
+        Category category = categoryRepository.save(new Category("Trái cây tươi " + System.nanoTime(), "Các loại trái cây tươi ngon"));
+        return productRepository.save(new Product("Xoài Cát Hòa Lộc " + System.nanoTime(), "Xoài Cát Hòa Lộc Tiền Giang",
+                new BigDecimal("120000.00"), stock, category));
+    }
+
+    private int shardTotal(Product product) {
+        return shardRepository.findAll().stream()
+                .filter(shard -> shard.getProductId().equals(product.getProductId()))
+                .mapToInt(ProductStockShard::getQuantity)
+                .sum();
+    }
+
+    private int databaseStock(Product product) {
+        return productRepository.findStockQuantityById(product.getProductId()).orElseThrow();
+    }
+}
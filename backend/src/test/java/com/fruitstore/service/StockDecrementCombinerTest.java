@@ -0,0 +1,257 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.product.Category;
+import com.fruitstore.domain.product.Product;
+import com.fruitstore.repository.CategoryRepository;
+import com.fruitstore.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Test class for StockDecrementCombiner against H2
+ * Includes a throughput comparison of combined and per-request decrements on one hot product
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(StockDecrementCombiner.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StockDecrementCombinerTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockDecrementCombinerTest.class);
+
+    private static final int THREADS = 16;
+    private static final int DECREMENTS_PER_THREAD = 200;
+
+    @Autowired
+    private StockDecrementCombiner stockDecrementCombiner;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown() {
+        stockDecrementCombiner.setGloballyEnabled(false);
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    public void testCombiningIsSwitchedPerProductOrGlobally() {
+        // Given
+        Product hot = newProduct(10);
+        Product other = newProduct(10);
+
+        // When
+        stockDecrementCombiner.setEnabled(hot.getProductId(), true);
+
+        // Then
+        assertThat(stockDecrementCombiner.isCombining(hot.getProductId())).isTrue();
+        assertThat(stockDecrementCombiner.isCombining(other.getProductId())).isFalse();
+        stockDecrementCombiner.setGloballyEnabled(true);
+        assertThat(stockDecrementCombiner.isCombining(other.getProductId())).isTrue();
+        stockDecrementCombiner.setEnabled(hot.getProductId(), false);
+        assertThat(stockDecrementCombiner.getStatistics().getEnabledProductIds()).isEmpty();
+    }
+
+    @Test
+    public void testEnablingUnknownProductFails() {
+        assertThatThrownBy(() -> stockDecrementCombiner.setEnabled(999_999L, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Product not found");
+    }
+
+    @Test
+    public void testConcurrentRequestsNeverOversell() throws Exception {
+        // Given: 16 threads asking for 3 units each against 25 units
+        Product product = newProduct(25);
+        AtomicInteger granted = new AtomicInteger();
+
+        // When
+        runConcurrently(THREADS, 1, thread -> {
+            if (stockDecrementCombiner.decrement(Map.of(product.getProductId(), 3)).isEmpty()) {
+                granted.incrementAndGet();
+            }
+            return true;
+        });
+
+        // Then: 8 shares of 3 fit, every other request is told its share was not granted
+        assertThat(granted.get()).isEqualTo(8);
+        assertThat(stock(product)).isEqualTo(1);
+        assertThat(stockDecrementCombiner.getStatistics().getRejected()).isEqualTo(THREADS - 8);
+    }
+
+    @Test
+    public void testGrantedShareIsGivenBackWhenCheckoutRollsBack() {
+        // Given
+        Product product = newProduct(10);
+        TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+
+        // When
+        checkout.executeWithoutResult(status -> {
+            assertThat(stockDecrementCombiner.decrement(Map.of(product.getProductId(), 4))).isEmpty();
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(stock(product)).isEqualTo(10);
+        assertThat(stockDecrementCombiner.getStatistics().getCompensated()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGrantedShareIsKeptWhenCheckoutCommits() {
+        // Given
+        Product product = newProduct(10);
+        TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+
+        // When
+        checkout.executeWithoutResult(status ->
+                assertThat(stockDecrementCombiner.decrement(Map.of(product.getProductId(), 4))).isEmpty());
+
+        // Then
+        assertThat(stock(product)).isEqualTo(6);
+    }
+
+    @Test
+    public void testRequestIsWithdrawnWhileFlusherWaitsForConnection() throws Exception {
+        // Given: the flusher's own transaction cannot get a connection, as when the pool is exhausted
+        Product product = newProduct(10);
+        CountDownLatch poolFreed = new CountDownLatch(1);
+        PlatformTransactionManager exhaustedPool = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                if (definition != null
+                        && definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW) {
+                    try {
+                        poolFreed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        StockDecrementCombiner combiner = new StockDecrementCombiner(productRepository, exhaustedPool, true, 200, 20, 1);
+
+        try {
+            // When: the checkout thread does not block on the pool, it withdraws and decrements inline
+            List<Long> insufficient = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                    combiner.decrement(Map.of(product.getProductId(), 4)));
+
+            // Then
+            assertThat(insufficient).isEmpty();
+            assertThat(stock(product)).isEqualTo(6);
+            assertThat(combiner.getStatistics().getWithdrawn()).isEqualTo(1);
+            assertThat(combiner.getStatistics().getCombinedUpdates()).isZero();
+        } finally {
+            poolFreed.countDown();
+            combiner.stop();
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkCombinedAgainstPerRequestDecrements() throws Exception {
+        int total = THREADS * DECREMENTS_PER_THREAD;
+        TransactionTemplate perRequest = new TransactionTemplate(transactionManager);
+
+        Product direct = newProduct(total);
+        long directNanos = runConcurrently(THREADS, DECREMENTS_PER_THREAD, thread ->
+                perRequest.execute(status -> productRepository.decrementStockIfAvailable(direct.getProductId(), 1)) == 1);
+
+        Product combined = newProduct(total);
+        long combinedNanos = runConcurrently(THREADS, DECREMENTS_PER_THREAD, thread ->
+                stockDecrementCombiner.decrement(Map.of(combined.getProductId(), 1)).isEmpty());
+
+        StockDecrementCombiner.CombinerStatistics statistics = stockDecrementCombiner.getStatistics();
+        log.info(String.format(
+                "Hot SKU decrements (%d threads): per-request %.0f ops/s, combined %.0f ops/s, " +
+                        "%d combined updates, %.1f requests per update",
+                THREADS, total / (directNanos / 1_000_000_000.0), total / (combinedNanos / 1_000_000_000.0),
+                statistics.getCombinedUpdates(), statistics.getAverageBatchSize()));
+
+        assertThat(stock(direct)).isZero();
+        assertThat(stock(combined)).isZero();
+        assertThat(statistics.getCombinedUpdates()).isLessThanOrEqualTo(total);
+    }
+
+    private long runConcurrently(int threads, int iterations, LongPredicate decrement) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    decrement.test(thread);
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        return elapsedNanos;
+    }
+
+    private Product newProduct(int stock) {
+        Category category = categoryRepository.save(new Category("Trái cây tươi " + System.nanoTime(), "Các loại trái cây tươi ngon"));
+        return productRepository.save(new Product("Xoài Cát Hòa Lộc " + System.nanoTime(), "Xoài Cát Hòa Lộc Tiền Giang",
+                new BigDecimal("120000.00"), stock, category));
+    }
+
+    private int stock(Product product) {
+        return productRepository.findStockQuantityById(product.getProductId()).orElseThrow();
+    }
+}
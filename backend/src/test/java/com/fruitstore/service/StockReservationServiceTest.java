@@ -0,0 +1,259 @@
+package com.fruitstore.service;
+
+import com.fruitstore.domain.cart.CartItem;
+import com.fruitstore.domain.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for StockReservationService
+ */
+public class StockReservationServiceTest {
+
+    private StockReservationService stockReservationService;
+    private Product mango;
+    private Product durian;
+
+    @BeforeEach
+    public void setUp() {
+        stockReservationService = new StockReservationService(900);
+
+        mango = new Product();
+        mango.setProductId(1L);
+        mango.setName("Xoài Cát Hòa Lộc");
+        mango.setPrice(new BigDecimal("120000.00"));
+        mango.setStockQuantity(10);
+
+        durian = new Product();
+        durian.setProductId(2L);
+        durian.setName("Sầu Riêng Ri6");
+        durian.setPrice(new BigDecimal("200000.00"));
+        durian.setStockQuantity(3);
+    }
+
+    @Test
+    public void testReserveReducesAvailableToSell() {
+        // When
+        stockReservationService.reserve(1L, mango, 4);
+
+        // Then
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(6);
+    }
+
+    @Test
+    public void testAvailableToSellByIdLoadsProductOnlyWithoutLedger() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        int seeded = stockReservationService.getAvailableToSell(1L, () -> {
+            loads.incrementAndGet();
+            return mango;
+        });
+        stockReservationService.reserve(1L, mango, 4);
+        int afterReserve = stockReservationService.getAvailableToSell(1L, () -> {
+            loads.incrementAndGet();
+            return mango;
+        });
+
+        // Then
+        assertThat(seeded).isEqualTo(10);
+        assertThat(afterReserve).isEqualTo(6);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void testReserveReplacesExistingHold() {
+        // When
+        stockReservationService.reserve(1L, mango, 4);
+        stockReservationService.reserve(1L, mango, 7);
+
+        // Then
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(3);
+    }
+
+    @Test
+    public void testReserveMoreThanAvailable() {
+        // Given
+        stockReservationService.reserve(1L, mango, 8);
+
+        // When & Then
+        assertThatThrownBy(() -> stockReservationService.reserve(2L, mango, 3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient stock. Available: 2, Requested: 3");
+    }
+
+    @Test
+    public void testReleaseReturnsStock() {
+        // Given
+        stockReservationService.reserve(1L, mango, 8);
+
+        // When
+        stockReservationService.release(1L, mango.getProductId());
+
+        // Then
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(10);
+    }
+
+    @Test
+    public void testReapExpiredHolds() {
+        // Given
+        stockReservationService = new StockReservationService(0);
+        stockReservationService.reserve(1L, mango, 8);
+        stockReservationService.reserve(2L, durian, 2);
+
+        // When
+        int released = stockReservationService.reapExpiredHolds(System.currentTimeMillis() + 1);
+
+        // Then
+        assertThat(released).isEqualTo(2);
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(10);
+        assertThat(stockReservationService.getAvailableToSell(durian)).isEqualTo(3);
+    }
+
+    @Test
+    public void testConvertHoldsDecrementsOnHand() {
+        // Given
+        stockReservationService.reserve(1L, mango, 4);
+
+        // When
+        stockReservationService.convertHolds(1L, List.of(new CartItem(null, mango, 4)));
+
+        // Then
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(6);
+    }
+
+    @Test
+    public void testConvertHoldsRejectsStockHeldByOthers() {
+        // Given
+        stockReservationService.reserve(2L, durian, 3);
+        stockReservationService.reserve(1L, mango, 4);
+
+        // When & Then
+        assertThatThrownBy(() -> stockReservationService.convertHolds(1L,
+                List.of(new CartItem(null, mango, 4), new CartItem(null, durian, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient stock for product: Sầu Riêng Ri6");
+
+        // Mango line was undone and the hold restored
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(6);
+        stockReservationService.release(1L, mango.getProductId());
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(10);
+    }
+
+    @Test
+    public void testSyncOnHand() {
+        // Given
+        stockReservationService.reserve(1L, mango, 4);
+
+        // When
+        stockReservationService.syncOnHand(mango.getProductId(), 50);
+
+        // Then
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(46);
+    }
+
+    @Test
+    public void testCheckoutRollbackAfterSyncKeepsSyncedStock() {
+        // Given
+        stockReservationService.reserve(1L, mango, 4);
+
+        // When: stock is set to 20 while the checkout is open, then the checkout rolls back
+        inRolledBackTransaction(() -> {
+            stockReservationService.convertHolds(1L, List.of(new CartItem(null, mango, 4)));
+            stockReservationService.syncOnHand(mango.getProductId(), 20);
+        });
+
+        // Then: the synced count stands and only the hold comes back
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(16);
+    }
+
+    @Test
+    public void testCheckoutRollbackWithoutSyncPutsStockBack() {
+        // Given
+        stockReservationService.reserve(1L, mango, 4);
+
+        // When
+        inRolledBackTransaction(() ->
+                stockReservationService.convertHolds(1L, List.of(new CartItem(null, mango, 4))));
+
+        // Then
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(6);
+    }
+
+    @Test
+    public void testHoldIsRestoredWhenCartTransactionRollsBack() {
+        // Given
+        stockReservationService.reserve(1L, mango, 4);
+
+        // When
+        inRolledBackTransaction(() -> {
+            stockReservationService.reserve(1L, mango, 7);
+            stockReservationService.reserve(2L, mango, 2);
+        });
+
+        // Then: user 1 keeps the previous hold, user 2's new hold is released
+        assertThat(stockReservationService.getAvailableToSell(mango)).isEqualTo(6);
+    }
+
+    @Test
+    public void testConcurrentReservationsNeverExceedStock() throws Exception {
+        // Given
+        int users = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger held = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (long userId = 1; userId <= users; userId++) {
+            long id = userId;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    stockReservationService.reserve(id, mango, 1);
+                    held.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // sold out
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(held.get()).isEqualTo(10);
+        assertThat(stockReservationService.getAvailableToSell(mango)).isZero();
+    }
+
+    private void inRolledBackTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.fruitstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit test for BoundedCache
+ */
+public class BoundedCacheTest {
+
+    @Test
+    public void testGet_LoadsOnceThenHits() {
+        // Given
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        cache.get(1L, () -> "v" + loads.incrementAndGet());
+        String value = cache.get(1L, () -> "v" + loads.incrementAndGet());
+
+        // Then
+        assertThat(value).isEqualTo("v1");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGet_FailedLoadIsNotCached() {
+        // Given
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, 60_000);
+
+        // When & Then
+        assertThatThrownBy(() -> cache.get(1L, () -> {
+            throw new IllegalArgumentException("Product not found with id: 1");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(1L, () -> "loaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    public void testGet_EntryExpiresAfterWrite() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        BoundedCache<Long, Integer> cache = new BoundedCache<>(10, 2_000, now::get);
+        cache.get(1L, () -> 100);
+
+        // When
+        now.addAndGet(1_999_000_000L);
+        Integer beforeBound = cache.get(1L, () -> 80);
+        now.addAndGet(1_000_000L);
+        Integer afterBound = cache.get(1L, () -> 80);
+
+        // Then
+        assertThat(beforeBound).isEqualTo(100);
+        assertThat(afterBound).isEqualTo(80);
+    }
+
+    @Test
+    public void testInvalidate_DuringLoadIsNotUndone() {
+        // Given
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, 60_000);
+
+        // When - the row changes while an older read of it is still loading
+        String stale = cache.get(1L, () -> {
+            cache.invalidate(1L);
+            return "old";
+        });
+
+        // Then
+        assertThat(stale).isEqualTo("old");
+        assertThat(cache.get(1L, () -> "new")).isEqualTo("new");
+    }
+
+    @Test
+    public void testInvalidateIf_RemovesMatchingEntriesOnly() {
+        // Given
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, 60_000);
+        for (long id = 1; id <= 6; id++) {
+            long key = id;
+            cache.get(key, () -> key % 2 == 0 ? "even" : "odd");
+        }
+
+        // When
+        cache.invalidateIf((key, value) -> value.equals("even"));
+
+        // Then
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get(2L, () -> "reloaded")).isEqualTo("reloaded");
+        assertThat(cache.get(3L, () -> "reloaded")).isEqualTo("odd");
+    }
+
+    @Test
+    public void testScan_StaysWithinMaximumSizeAndKeepsHotEntries() {
+        // Given
+        BoundedCache<Long, Long> cache = new BoundedCache<>(100, 60_000);
+        for (int round = 0; round < 5; round++) {
+            for (long hot = 0; hot < 50; hot++) {
+                long key = hot;
+                cache.get(key, () -> key);
+            }
+        }
+
+        // When - a one-off scan over more keys than fit
+        for (long cold = 1_000; cold < 1_500; cold++) {
+            long key = cold;
+            cache.get(key, () -> key);
+        }
+
+        // Then
+        AtomicInteger reloads = new AtomicInteger();
+        for (long hot = 0; hot < 50; hot++) {
+            long key = hot;
+            cache.get(key, () -> {
+                reloads.incrementAndGet();
+                return key;
+            });
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.getEvictionCount()).isGreaterThanOrEqualTo(500 - 50);
+        assertThat(reloads.get()).isZero();
+    }
+}
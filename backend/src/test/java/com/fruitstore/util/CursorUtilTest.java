@@ -0,0 +1,41 @@
+package com.fruitstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CursorUtil
+ * Tests round-tripping cursor values and rejecting malformed cursors
+ */
+class CursorUtilTest {
+
+    @Test
+    void testEncodeDecode_RoundTripsValues() {
+        String cursor = CursorUtil.encode("2025-01-15T10:30:00.123456", "42");
+
+        assertArrayEquals(new String[] { "2025-01-15T10:30:00.123456", "42" }, CursorUtil.decode(cursor, 2));
+    }
+
+    @Test
+    void testEncode_IsUrlSafe() {
+        String cursor = CursorUtil.encode("name", "ASC", "7", "Xoài cát Hòa Lộc ???>>>");
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+        assertEquals("Xoài cát Hòa Lộc ???>>>", CursorUtil.decode(cursor, 4)[3]);
+    }
+
+    @Test
+    void testDecode_InvalidCursor() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> CursorUtil.decode("not a cursor!", 2));
+        assertTrue(exception.getMessage().contains("Invalid cursor"));
+    }
+
+    @Test
+    void testDecode_WrongNumberOfValues() {
+        String cursor = CursorUtil.encode("2025-01-15T10:30", "42");
+
+        assertThrows(IllegalArgumentException.class, () -> CursorUtil.decode(cursor, 4));
+    }
+}
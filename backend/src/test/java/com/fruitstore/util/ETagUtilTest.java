@@ -0,0 +1,39 @@
+package com.fruitstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ETagUtil
+ * Tests formatting versions as ETags and parsing If-Match headers
+ */
+class ETagUtilTest {
+
+    @Test
+    void testToETag_QuotesVersion() {
+        assertEquals("\"3\"", ETagUtil.toETag(3L));
+        assertNull(ETagUtil.toETag(null));
+    }
+
+    @Test
+    void testParseIfMatch_AcceptsStrongWeakAndBareVersions() {
+        assertEquals(3L, ETagUtil.parseIfMatch("\"3\""));
+        assertEquals(3L, ETagUtil.parseIfMatch("W/\"3\""));
+        assertEquals(3L, ETagUtil.parseIfMatch(" 3 "));
+    }
+
+    @Test
+    void testParseIfMatch_MissingOrWildcardSkipsCheck() {
+        assertNull(ETagUtil.parseIfMatch(null));
+        assertNull(ETagUtil.parseIfMatch(""));
+        assertNull(ETagUtil.parseIfMatch("*"));
+    }
+
+    @Test
+    void testParseIfMatch_InvalidHeader() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> ETagUtil.parseIfMatch("\"abc\""));
+        assertTrue(exception.getMessage().contains("Invalid If-Match header"));
+    }
+}
@@ -0,0 +1,27 @@
+package com.fruitstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for SearchTextUtil
+ */
+public class SearchTextUtilTest {
+
+    @Test
+    public void testFold_StripsVietnameseDiacritics() {
+        assertThat(SearchTextUtil.fold("Xoài cát Hòa Lộc")).isEqualTo("xoai cat hoa loc");
+        assertThat(SearchTextUtil.fold("ĐU ĐỦ ruột đỏ")).isEqualTo("du du ruot do");
+        assertThat(SearchTextUtil.fold("Bưởi, Sầu riêng & Măng cụt")).isEqualTo("buoi, sau rieng & mang cut");
+        assertThat(SearchTextUtil.fold(null)).isEmpty();
+    }
+
+    @Test
+    public void testTokenize_SplitsOnNonLetters() {
+        assertThat(SearchTextUtil.tokenize("  Táo Fuji (Nhật Bản) - 1kg, táo  "))
+                .containsExactly("tao", "fuji", "nhat", "ban", "1kg", "tao");
+        assertThat(SearchTextUtil.tokenize("---")).isEmpty();
+        assertThat(SearchTextUtil.tokenize(null)).isEmpty();
+    }
+}
@@ -0,0 +1,153 @@
+package com.fruitstore.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SnowflakeOrderNumberGenerator
+ */
+class SnowflakeOrderNumberGeneratorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeOrderNumberGeneratorTest.class);
+
+    private static final int THREADS = 16;
+    private static final int NUMBERS_PER_THREAD = 50_000;
+
+    private SnowflakeOrderNumberGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new SnowflakeOrderNumberGenerator(7);
+    }
+
+    @Test
+    @DisplayName("Should format order number with fixed width id and user ID")
+    void shouldFormatOrderNumber() {
+        String orderNumber = generator.nextOrderNumber(42L);
+
+        assertTrue(orderNumber.matches("ORD-\\d{19}-42"), orderNumber);
+        assertTrue(orderNumber.length() <= 50);
+    }
+
+    @Test
+    @DisplayName("Should use 0 as user part when user ID is null")
+    void shouldHandleNullUserId() {
+        assertTrue(generator.nextOrderNumber(null).endsWith("-0"));
+    }
+
+    @Test
+    @DisplayName("Should encode node ID")
+    void shouldEncodeNodeId() {
+        long id = generator.nextId();
+
+        long nodeId = (id >>> SnowflakeOrderNumberGenerator.SEQUENCE_BITS) & SnowflakeOrderNumberGenerator.MAX_NODE_ID;
+        assertEquals(7, nodeId);
+    }
+
+    @Test
+    @DisplayName("Should reject node ID outside 10 bits")
+    void shouldRejectInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(1024));
+    }
+
+    @Test
+    @DisplayName("Should reserve the fallback node ID for orders persisted without a number")
+    void shouldReserveFallbackNodeId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeOrderNumberGenerator(SnowflakeOrderNumberGenerator.FALLBACK_NODE_ID));
+        assertDoesNotThrow(() -> new SnowflakeOrderNumberGenerator(SnowflakeOrderNumberGenerator.FALLBACK_NODE_ID - 1));
+
+        long id = SnowflakeOrderNumberGenerator.fallback().nextId();
+        long nodeId = (id >>> SnowflakeOrderNumberGenerator.SEQUENCE_BITS) & SnowflakeOrderNumberGenerator.MAX_NODE_ID;
+        assertEquals(SnowflakeOrderNumberGenerator.FALLBACK_NODE_ID, nodeId);
+        assertSame(SnowflakeOrderNumberGenerator.fallback(), SnowflakeOrderNumberGenerator.fallback());
+    }
+
+    @Test
+    @DisplayName("Should generate strictly increasing numbers on one thread")
+    void shouldBeMonotonic() {
+        String previous = generator.nextOrderNumber(1L);
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.nextOrderNumber(1L);
+            assertTrue(next.compareTo(previous) > 0, previous + " >= " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("Should not collide between nodes in the same millisecond")
+    void shouldNotCollideBetweenNodes() {
+        SnowflakeOrderNumberGenerator other = new SnowflakeOrderNumberGenerator(8);
+
+        assertNotEquals(generator.nextOrderNumber(1L), other.nextOrderNumber(1L));
+    }
+
+    @Test
+    @DisplayName("Should generate unique numbers across threads")
+    void shouldBeUniqueAcrossThreads() throws Exception {
+        Set<String> numbers = ConcurrentHashMap.newKeySet(THREADS * NUMBERS_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                String previous = "";
+                for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                    String next = generator.nextOrderNumber(1L);
+                    assertTrue(next.compareTo(previous) > 0);
+                    numbers.add(next);
+                    previous = next;
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * NUMBERS_PER_THREAD, numbers.size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Microbenchmark: single thread allocation")
+    void benchmarkSingleThread() {
+        int warmup = 200_000;
+        int iterations = 1_000_000;
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) {
+            sink += generator.nextOrderNumber(1L).length();
+        }
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += generator.nextOrderNumber(1L).length();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        log.info(String.format("Order numbers: single thread %.1f ns/op (%d)",
+                (double) elapsedNanos / iterations, sink));
+        assertTrue(sink > 0);
+    }
+}
@@ -59,10 +59,12 @@ CREATE TABLE products (
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     
     INDEX idx_category (category_id),
     INDEX idx_price (price),
     INDEX idx_name (name),
+    INDEX idx_product_created_at (created_at),
     
     FOREIGN KEY (category_id) REFERENCES categories(category_id) ON DELETE SET NULL,
     
@@ -120,11 +122,14 @@ CREATE TABLE orders (
     cancelled_at TIMESTAMP NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     
     INDEX idx_user_id (user_id),
     INDEX idx_status (status),
     INDEX idx_created_at (created_at),
+    INDEX idx_updated_at (updated_at),
     INDEX idx_order_number (order_number),
+    INDEX idx_user_created_at (user_id, created_at),
     
     FOREIGN KEY (user_id) REFERENCES users(user_id),
     
@@ -168,6 +173,7 @@ CREATE TABLE discounts (
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     
     INDEX idx_code (code),
     INDEX idx_is_active (is_active),
@@ -179,6 +185,7 @@ CREATE TABLE discounts (
 );
 
 -- 9. Bảng tracking sử dụng mã giảm giá
+-- order_id không có khóa ngoại: đơn cũ được chuyển sang orders_archive (bảng 15) mà vẫn giữ order_id
 CREATE TABLE discount_usage (
     usage_id INT PRIMARY KEY AUTO_INCREMENT,
     discount_id INT NOT NULL,
@@ -194,38 +201,176 @@ CREATE TABLE discount_usage (
     
     FOREIGN KEY (discount_id) REFERENCES discounts(discount_id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
-    FOREIGN KEY (order_id) REFERENCES orders(order_id) ON DELETE SET NULL,
     
     CONSTRAINT chk_discount_amount_positive CHECK (discount_amount >= 0)
 );
 
+-- 10. Bảng sinh ID (pooled table generator cho cart_items, order_items)
+-- Hibernate cấp phát ID theo khối 50 để có thể batch INSERT
+-- gen_value là đầu trên của khối: Hibernate cấp (gen_value - 49)..gen_value, nên phải khởi tạo MAX(id) + 50
+CREATE TABLE id_generators (
+    gen_name VARCHAR(50) PRIMARY KEY,
+    gen_value BIGINT NOT NULL
+);
+
+INSERT INTO id_generators (gen_name, gen_value)
+SELECT 'order_items', COALESCE(MAX(order_item_id), 0) + 50 FROM order_items;
+INSERT INTO id_generators (gen_name, gen_value)
+SELECT 'cart_items', COALESCE(MAX(cart_item_id), 0) + 50 FROM cart_items;
+
+-- 11. Bảng Idempotency-Key cho API tạo đơn hàng
+-- Lưu response của lần tạo đơn đầu tiên để client retry không tạo đơn trùng
+CREATE TABLE order_idempotency_keys (
+    idempotency_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id INT NOT NULL,
+    idempotency_key VARCHAR(100) NOT NULL,
+    order_id INT,
+    response_body TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    
+    UNIQUE KEY uk_idempotency_user_key (user_id, idempotency_key),
+    INDEX idx_idempotency_expires_at (expires_at),
+    
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+    FOREIGN KEY (order_id) REFERENCES orders(order_id) ON DELETE SET NULL
+);
+
+-- 12. Bảng sản phẩm flash sale
+-- Stock của sản phẩm flash sale được trừ trong bộ nhớ và ghi lại định kỳ vào products;
+-- lưu stock lúc bắt đầu để dựng lại bộ đếm từ order_items khi khởi động lại
+CREATE TABLE flash_sale_products (
+    product_id INT PRIMARY KEY,
+    initial_stock INT NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    
+    FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE
+);
+
+-- 13. Bảng phân mảnh stock sản phẩm
+-- Stock của sản phẩm bán chạy được chia thành N dòng để các đơn hàng đồng thời khóa các dòng khác nhau;
+-- products.stock_quantity chỉ lưu tổng được cập nhật định kỳ
+CREATE TABLE product_stock_shards (
+    shard_id INT PRIMARY KEY AUTO_INCREMENT,
+    product_id INT NOT NULL,
+    shard_index INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+    
+    FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE,
+    UNIQUE KEY uk_stock_shard_product_index (product_id, shard_index)
+);
+
+-- 14. Bảng outbox sự kiện đơn hàng
+-- Sự kiện tạo đơn / đổi trạng thái được ghi cùng transaction với đơn hàng;
+-- relay đọc theo lô (FOR UPDATE SKIP LOCKED), gửi tới sink rồi xóa
+CREATE TABLE order_outbox (
+    outbox_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    event_type VARCHAR(20) NOT NULL,
+    order_id INT NOT NULL,
+    order_number VARCHAR(50),
+    user_id INT,
+    status VARCHAR(20) NOT NULL,
+    previous_status VARCHAR(20),
+    total_amount DECIMAL(10,2),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 15. Bảng lưu trữ đơn hàng cũ (hot/cold)
+-- Đơn DELIVERED/CANCELLED quá hạn được chuyển từ orders/order_items sang đây theo từng lô;
+-- giữ nguyên order_id/order_item_id để tra cứu theo ID hoặc mã đơn vẫn tìm thấy
+CREATE TABLE orders_archive (
+    order_id INT PRIMARY KEY,
+    order_number VARCHAR(50) NOT NULL,
+    user_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total_amount DECIMAL(10,2) NOT NULL,
+    shipping_address VARCHAR(500) NOT NULL,
+    phone_number VARCHAR(15),
+    customer_name VARCHAR(100),
+    customer_email VARCHAR(100),
+    notes TEXT,
+    shipped_at TIMESTAMP NULL,
+    delivered_at TIMESTAMP NULL,
+    cancelled_at TIMESTAMP NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    archived_at TIMESTAMP NOT NULL,
+    
+    UNIQUE KEY idx_archive_order_number (order_number),
+    INDEX idx_archive_user_id (user_id),
+    INDEX idx_archive_created_at (created_at),
+    INDEX idx_archive_updated_at (updated_at)
+);
+
+CREATE TABLE order_items_archive (
+    order_item_id INT PRIMARY KEY,
+    order_id INT NOT NULL,
+    product_id INT NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    subtotal DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    
+    INDEX idx_archive_item_order_id (order_id),
+    FOREIGN KEY (order_id) REFERENCES orders_archive(order_id) ON DELETE CASCADE
+);
+
+-- 16. Bảng bộ đếm thống kê đơn hàng (tùy chọn, app.orders.stats.counters.enabled)
+-- Số đơn và tổng tiền theo trạng thái, cập nhật trong cùng transaction với mỗi lần tạo đơn/đổi trạng thái;
+-- mỗi trạng thái có N dòng (slot) để các đơn đồng thời không cùng khóa một dòng
+CREATE TABLE order_stats (
+    counter_id INT PRIMARY KEY AUTO_INCREMENT,
+    status VARCHAR(20) NOT NULL,
+    slot INT NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(15,2) NOT NULL DEFAULT 0,
+    
+    UNIQUE KEY uk_order_stats_status_slot (status, slot)
+);
+
+-- 17. Bảng tổng hợp doanh thu theo giờ / theo ngày
+-- Số đơn, số đơn hủy, số lượng sản phẩm và doanh thu theo khung giờ (hoặc ngày) và danh mục;
+-- category_id NULL là dòng tổng của toàn cửa hàng. Được tính lại từ orders + orders_archive
+-- (idempotent) bởi job refresh quét các đơn có updated_at mới, hoặc bởi job backfill
+CREATE TABLE order_rollup_hourly (
+    rollup_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    bucket_start DATETIME NOT NULL,
+    category_id INT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    cancelled_count BIGINT NOT NULL DEFAULT 0,
+    item_quantity BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(15,2) NOT NULL DEFAULT 0,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    UNIQUE KEY uk_rollup_hourly_bucket_category (bucket_start, category_id)
+);
+
+CREATE TABLE order_rollup_daily (
+    rollup_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    bucket_start DATETIME NOT NULL,
+    category_id INT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    cancelled_count BIGINT NOT NULL DEFAULT 0,
+    item_quantity BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(15,2) NOT NULL DEFAULT 0,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    UNIQUE KEY uk_rollup_daily_bucket_category (bucket_start, category_id)
+);
+
 -- ================================================
--- BASIC TRIGGERS (2 triggers đơn giản)
+-- BASIC TRIGGERS (không còn trigger)
 -- ================================================
 
--- Trigger 1: Cập nhật stock khi tạo đơn hàng
-DELIMITER //
-CREATE TRIGGER tr_update_stock_after_order
-AFTER INSERT ON order_items
-FOR EACH ROW
-BEGIN
-    UPDATE products 
-    SET stock_quantity = stock_quantity - NEW.quantity
-    WHERE product_id = NEW.product_id;
-END //
-DELIMITER ;
-
--- Trigger 2: Tự động tăng used_count khi sử dụng mã giảm giá
-DELIMITER //
-CREATE TRIGGER tr_update_discount_usage
-AFTER INSERT ON discount_usage
-FOR EACH ROW
-BEGIN
-    UPDATE discounts 
-    SET used_count = used_count + 1
-    WHERE discount_id = NEW.discount_id;
-END //
-DELIMITER ;
+-- Stock được trừ bởi ứng dụng (ProductRepository.decrementStockInBatch)
+-- bằng một câu UPDATE có điều kiện, nên không dùng trigger trừ stock nữa
+DROP TRIGGER IF EXISTS tr_update_stock_after_order;
+
+-- used_count được tăng bởi ứng dụng (DiscountRepository.incrementUsedCountIfBelowLimit)
+-- bằng một câu UPDATE có điều kiện kiểm tra usage_limit; trigger cũ tăng thêm lần nữa
+-- nên mỗi lần dùng mã bị đếm 2 lần
+DROP TRIGGER IF EXISTS tr_update_discount_usage;
 
 -- ================================================
 -- SAMPLE DATA (Dữ liệu mẫu để test)